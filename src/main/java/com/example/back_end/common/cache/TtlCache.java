@@ -0,0 +1,225 @@
+package com.example.back_end.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory cache with a time-to-live, a stale window and a maximum number of entries (LRU).
+ *
+ * - fresh entry (age < ttl): returned as is
+ * - stale entry (age < ttl + staleTtl): returned as is, and with {@code @Cacheable(sync = true)}
+ *   one background reload per key is started on the refresh executor
+ * - older or missing entry: loaded on the calling thread, one loader per key at a time
+ *
+ * {@link #clear()} (what {@code @CacheEvict(allEntries = true)} calls after a write) only marks the
+ * entries stale, so readers keep getting the last value while one reload per key runs; entries
+ * past the stale window are loaded on the caller as usual. {@link #evict} and {@link #invalidate()}
+ * remove entries for callers that must never see the old value.
+ *
+ * An evict/clear while a load is running wins: the value of that load is not stored.
+ */
+@Slf4j
+public class TtlCache extends AbstractValueAdaptingCache {
+
+    private static final int LOCK_STRIPES = 16;
+
+    private final String name;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoClock;
+
+    // guarded by itself
+    private final Map<Object, Entry> entries;
+    private long generation;
+
+    private final Object[] loadLocks = new Object[LOCK_STRIPES];
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    public TtlCache(String name, Duration ttl, Duration staleTtl, int maxEntries, Executor refreshExecutor) {
+        this(name, ttl, staleTtl, maxEntries, refreshExecutor, System::nanoTime);
+    }
+
+    TtlCache(String name, Duration ttl, Duration staleTtl, int maxEntries, Executor refreshExecutor,
+             LongSupplier nanoClock) {
+        super(true);
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.staleNanos = staleTtl.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            loadLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    /**
+     * Plain lookups ({@code @Cacheable} without sync) cannot reload, so they only see fresh entries
+     */
+    @Override
+    protected Object lookup(Object key) {
+        Entry entry = entry(key);
+        return entry != null && age(entry) < ttlNanos ? entry.value() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = entry(key);
+        if (entry != null) {
+            long age = age(entry);
+            if (age < ttlNanos) {
+                return (T) fromStoreValue(entry.value());
+            }
+            if (age < ttlNanos + staleNanos) {
+                refreshInBackground(key, valueLoader);
+                return (T) fromStoreValue(entry.value());
+            }
+        }
+
+        synchronized (lockFor(key)) {
+            // another thread may have loaded it while we waited
+            entry = entry(key);
+            if (entry != null && age(entry) < ttlNanos) {
+                return (T) fromStoreValue(entry.value());
+            }
+            return load(key, valueLoader);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        synchronized (entries) {
+            entries.put(key, new Entry(toStoreValue(value), nanoClock.getAsLong()));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        synchronized (entries) {
+            Entry existing = entries.get(key);
+            if (existing != null && age(existing) < ttlNanos) {
+                return toValueWrapper(existing.value());
+            }
+            entries.put(key, new Entry(toStoreValue(value), nanoClock.getAsLong()));
+            return null;
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        synchronized (entries) {
+            entries.remove(key);
+            generation++;
+        }
+    }
+
+    /**
+     * Mark every entry stale: still served, and reloaded in the background on its next read
+     */
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            long expiredAt = nanoClock.getAsLong() - ttlNanos;
+            entries.replaceAll((key, entry) -> entry.writtenAt() > expiredAt
+                    ? new Entry(entry.value(), expiredAt)
+                    : entry);
+            generation++;
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        synchronized (entries) {
+            boolean notEmpty = !entries.isEmpty();
+            entries.clear();
+            generation++;
+            return notEmpty;
+        }
+    }
+
+    private <T> T load(Object key, Callable<T> valueLoader) {
+        long loadGeneration;
+        synchronized (entries) {
+            loadGeneration = generation;
+        }
+
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        synchronized (entries) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry(toStoreValue(value), nanoClock.getAsLong()));
+            }
+        }
+        return value;
+    }
+
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    synchronized (lockFor(key)) {
+                        load(key, valueLoader);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Background refresh of cache '{}' key {} failed, serving the stale value", name, key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private Entry entry(Object key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private long age(Entry entry) {
+        return nanoClock.getAsLong() - entry.writtenAt();
+    }
+
+    private Object lockFor(Object key) {
+        return loadLocks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    private record Entry(Object value, long writtenAt) {
+    }
+}
@@ -2,8 +2,9 @@ package com.example.back_end.common.filter;
 
 import com.example.back_end.common.dto.BrowserContext;
 import com.example.back_end.common.util.BrowserTokenUtil;
-import com.example.back_end.modules.terminal.entity.TerminalDevice;
-import com.example.back_end.modules.terminal.repository.TerminalDeviceRepository;
+import com.example.back_end.modules.terminal.service.TerminalDeviceCache;
+import com.example.back_end.modules.terminal.service.TerminalDeviceCache.ActiveDevice;
+import com.example.back_end.modules.terminal.service.TerminalHeartbeatWriter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,14 +15,14 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
  * Filter to handle browser token in every request
  * - Reads browser_token from cookie/header
  * - If not exists, generates new token and sets cookie
- * - Checks if browser is paired with a terminal
+ * - Checks if browser is paired with a terminal (cached, see TerminalDeviceCache)
+ * - Records a heartbeat for paired browsers (written in batches by TerminalHeartbeatWriter)
  * - Sets BrowserContext as request attribute
  */
 @Component
@@ -29,7 +30,8 @@ import java.util.Optional;
 @Slf4j
 public class BrowserTokenFilter extends OncePerRequestFilter {
 
-    private final TerminalDeviceRepository terminalDeviceRepository;
+    private final TerminalDeviceCache terminalDeviceCache;
+    private final TerminalHeartbeatWriter heartbeatWriter;
 
     public static final String BROWSER_CONTEXT_ATTRIBUTE = "browserContext";
 
@@ -55,8 +57,7 @@ public class BrowserTokenFilter extends OncePerRequestFilter {
         String browserTokenHash = BrowserTokenUtil.hashToken(browserToken);
 
         // ✅ Check if browser is paired with a terminal (active only)
-        Optional<TerminalDevice> deviceOpt = terminalDeviceRepository
-                .findByTokenHashAndRevokedAtIsNull(browserTokenHash);
+        Optional<ActiveDevice> deviceOpt = terminalDeviceCache.findActive(browserTokenHash);
 
         BrowserContext context = BrowserContext.builder()
                 .browserToken(browserToken)
@@ -65,19 +66,13 @@ public class BrowserTokenFilter extends OncePerRequestFilter {
                 .build();
 
         if (deviceOpt.isPresent()) {
-            TerminalDevice device = deviceOpt.get();
+            ActiveDevice device = deviceOpt.get();
             context.setPaired(true);
-            context.setTerminalId(device.getTerminalId());
-            context.setDeviceId(device.getId());
-
-            // ✅ Update last seen with error handling
-            try {
-                device.setLastSeenAt(LocalDateTime.now());
-                terminalDeviceRepository.saveAndFlush(device);
-            } catch (Exception e) {
-                // Not critical - log and continue
-                log.debug("Failed to update terminal device last_seen_at: {}", e.getMessage());
-            }
+            context.setTerminalId(device.terminalId());
+            context.setDeviceId(device.deviceId());
+
+            // ✅ Update last seen (in memory, flushed in batches - no write per request)
+            heartbeatWriter.recordHeartbeat(device.deviceId());
         } else {
             context.setPaired(false);
         }
@@ -8,7 +8,7 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import java.util.concurrent.Executor;
 
 /**
- * Configuration for asynchronous email sending.
+ * Configuration for asynchronous work (email sending, stock posting, forecast jobs, cache refresh).
  * Enables @Async annotation support.
  */
 @Configuration
@@ -29,5 +29,48 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
 
+    /**
+     * Task executor for SALE/RETURN stock posting after checkout.
+     * Rejected tasks are not run on the caller thread; the posting sweep picks them up.
+     */
+    @Bean(name = "stockPostingExecutor")
+    public Executor stockPostingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("stock-posting-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for batch forecast jobs: one job at a time, later jobs wait in the queue.
+     */
+    @Bean(name = "forecastJobExecutor")
+    public Executor forecastJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("forecast-job-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for stale-while-revalidate cache reloads.
+     * Rejected reloads are skipped; the stale value is served until the next request retries.
+     */
+    @Bean(name = "cacheRefreshExecutor")
+    public Executor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.initialize();
+        return executor;
+    }
+}
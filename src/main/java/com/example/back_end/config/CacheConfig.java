@@ -0,0 +1,63 @@
+package com.example.back_end.config;
+
+import com.example.back_end.common.cache.TtlCache;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
+/**
+ * Cache manager for the {@code @Cacheable} caches: bounded {@link TtlCache}s configured
+ * through pos.cache.* (defaults, plus pos.cache.specs.&lt;name&gt; per cache).
+ *
+ * Caches are transaction aware: puts and evictions made inside a transaction
+ * ({@code @CacheEvict} on a {@code @Transactional} method) are applied after commit.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties properties,
+                                     @Qualifier("cacheRefreshExecutor") Executor refreshExecutor) {
+        TtlCacheManager cacheManager = new TtlCacheManager(properties, refreshExecutor);
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    static class TtlCacheManager extends AbstractTransactionSupportingCacheManager {
+
+        private final CacheProperties properties;
+        private final Executor refreshExecutor;
+
+        TtlCacheManager(CacheProperties properties, Executor refreshExecutor) {
+            this.properties = properties;
+            this.refreshExecutor = refreshExecutor;
+        }
+
+        @Override
+        protected Collection<? extends Cache> loadCaches() {
+            return properties.getSpecs().keySet().stream().map(this::createCache).toList();
+        }
+
+        @Override
+        protected Cache getMissingCache(String name) {
+            return createCache(name);
+        }
+
+        private Cache createCache(String name) {
+            CacheProperties.Spec spec = properties.getSpecs().getOrDefault(name, new CacheProperties.Spec());
+            return new TtlCache(name,
+                    spec.getTtl() != null ? spec.getTtl() : properties.getTtl(),
+                    spec.getStaleTtl() != null ? spec.getStaleTtl() : properties.getStaleTtl(),
+                    spec.getMaxEntries() != null ? spec.getMaxEntries() : properties.getMaxEntries(),
+                    refreshExecutor);
+        }
+    }
+}
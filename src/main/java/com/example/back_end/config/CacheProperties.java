@@ -0,0 +1,43 @@
+package com.example.back_end.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "pos.cache")
+public class CacheProperties {
+
+    /**
+     * How long an entry is served without reloading.
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * How long after the ttl an entry is still served while it is reloaded in the background.
+     */
+    private Duration staleTtl = Duration.ofMinutes(5);
+
+    /**
+     * Maximum entries per cache; the least recently used entry is dropped first.
+     */
+    private int maxEntries = 500;
+
+    /**
+     * Per-cache overrides, keyed by cache name; unset fields use the defaults above.
+     */
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private Duration ttl;
+        private Duration staleTtl;
+        private Integer maxEntries;
+    }
+}
@@ -10,11 +10,17 @@ import com.example.back_end.modules.catalog.product.dto.ProductSimpleDTO;
 import com.example.back_end.modules.catalog.product.dto.ProductUpdateDTO;
 import com.example.back_end.modules.catalog.product.entity.Product;
 import com.example.back_end.modules.catalog.product.entity.ProductMedia;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductCatalogCategoryProjection;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductCatalogMediaProjection;
 import com.example.back_end.modules.store_product.entity.StockSnapshot;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -139,6 +145,88 @@ public final class ProductMapper {
         return dto;
     }
 
+    /**
+     * Same shape as {@link #toResponse(Product, StockSnapshot)}, built from the catalog projections
+     * (ProductRepository.findCatalogMedia / findCatalogCategories) instead of the lazy associations.
+     */
+    public static ProductResponseDTO toCatalogResponse(Product entity,
+                                                       List<ProductCatalogMediaProjection> mediaRows,
+                                                       List<ProductCatalogCategoryProjection> categoryRows) {
+        if (entity == null) return null;
+
+        BigDecimal storeQty = BigDecimal.ZERO;
+        BigDecimal warehouseQty = BigDecimal.ZERO;
+        List<ProductImageDTO> images = new ArrayList<>();
+        for (ProductCatalogMediaProjection row : mediaRows) {
+            if (row.getStoreQty() != null) storeQty = row.getStoreQty();
+            if (row.getWarehouseQty() != null) warehouseQty = row.getWarehouseQty();
+            if (row.getMediaId() == null) continue;
+            images.add(ProductImageDTO.builder()
+                    .mediaId(row.getMediaId())
+                    .url(toFrontendPath(row.getUrl()))
+                    .mimeType(row.getMimeType())
+                    .title(row.getTitle())
+                    .altText(row.getAltText())
+                    .sortOrder(row.getSortOrder())
+                    .isPrimary(row.getIsPrimary())
+                    .build());
+        }
+        images.sort(Comparator.comparingInt(img -> img.getSortOrder() != null ? img.getSortOrder() : 0));
+
+        ProductImageMiniDTO primaryImageMini = images.stream()
+                .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
+                .findFirst()
+                .map(img -> ProductImageMiniDTO.builder()
+                        .url(img.getUrl())
+                        .altText(img.getAltText())
+                        .build())
+                .orElse(null);
+
+        // expand categories to include parents for display
+        Map<Long, CategoryDTO> expandedCategories = new LinkedHashMap<>();
+        for (ProductCatalogCategoryProjection row : categoryRows) {
+            expandedCategories.putIfAbsent(row.getCategoryId(), CategoryDTO.builder()
+                    .id(row.getCategoryId())
+                    .name(row.getCategoryName())
+                    .parentId(row.getParentId())
+                    .parentName(row.getParentName())
+                    .build());
+            if (row.getParentId() != null) {
+                expandedCategories.putIfAbsent(row.getParentId(), CategoryDTO.builder()
+                        .id(row.getParentId())
+                        .name(row.getParentName())
+                        .parentId(row.getParentParentId())
+                        .parentName(row.getParentParentName())
+                        .build());
+            }
+        }
+
+        return ProductResponseDTO.builder()
+                .id(entity.getId())
+                .sku(entity.getSku())
+                .name(entity.getName())
+                .brand(entity.getBrand())
+                .description(entity.getDescription())
+                .defaultCost(entity.getDefaultCost())
+                .defaultPrice(entity.getDefaultPrice())
+                .taxRate(entity.getTaxRate())
+                .unit(entity.getUnit())
+                .wholesalePrice(entity.getWholesalePrice())
+                .isActive(entity.getIsActive())
+                .createdAt(entity.getCreatedAt())
+                .updatedAt(entity.getUpdatedAt())
+                .image(primaryImageMini)
+                .primaryImageUrl(primaryImageMini == null ? null : primaryImageMini.getUrl())
+                .images(images)
+                .storeQty(storeQty)
+                .warehouseQty(warehouseQty)
+                .categories(expandedCategories.values().stream()
+                        .sorted(Comparator.comparing(CategoryDTO::getName,
+                                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
     public static ProductImageDTO toImageDTO(ProductMedia productMedia) {
         if (productMedia == null || productMedia.getMedia() == null) return null;
 
@@ -153,7 +241,7 @@ public final class ProductMapper {
                 .build();
     }
 
-    private static String toFrontendPath(String url) {
+    public static String toFrontendPath(String url) {
         if (url == null || url.isBlank()) return url;
 
         // If already a path like /picture/Tea.jpg
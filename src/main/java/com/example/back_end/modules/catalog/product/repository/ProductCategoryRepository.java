@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -27,4 +28,7 @@ public interface ProductCategoryRepository extends JpaRepository<ProductCategory
     
     @Query("SELECT COUNT(pc) > 0 FROM ProductCategory pc WHERE pc.productId = :productId AND pc.categoryId = :categoryId")
     boolean existsByProductIdAndCategoryId(@Param("productId") Long productId, @Param("categoryId") Long categoryId);
+
+    @Query("SELECT pc FROM ProductCategory pc WHERE pc.categoryId IN :categoryIds")
+    List<ProductCategory> findByCategoryIdIn(@Param("categoryIds") Collection<Long> categoryIds);
 }
\ No newline at end of file
@@ -7,8 +7,13 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.example.back_end.modules.catalog.product.entity.Product;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductCatalogCategoryProjection;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductCatalogMediaProjection;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductSearchHitProjection;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductSuggestionSourceProjection;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -107,70 +112,108 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> quickSearch(@Param("search") String search);
 
     /**
-     * Typo-tolerant multilingual fuzzy search using PostgreSQL pg_trgm trigram similarity.
-     * Returns active products only, ranked by similarity to query.
-     *
-     * Searches across:
-     * - products.name (English/base name)
-     * - products.sku (product code)
-     * - product_search_terms.term (multilingual aliases e.g., Arabic "حليب" for "Milk")
+     * Typo-tolerant multilingual fuzzy search over product_search_documents
+     * (name + SKU + product_search_terms aliases, GIN trigram indexed).
+     * Returns the top {@code limit} active products ranked by word similarity,
+     * with stock availability and the total number of matches.
      *
      * Uses:
-     * - pg_trgm % operator (trigram match) for fast similarity search
-     * - similarity() function for ranking
+     * - pg_trgm &lt;% operator (word similarity, threshold from {@link #setWordSimilarityThreshold})
      * - ILIKE fallback for exact substring matches
-     * - EXISTS subquery for search terms to avoid duplicate products
      *
      * @param query Search query (product name, SKU, or multilingual term)
-     * @param minSimilarity Minimum similarity threshold (0.0-1.0), typically 0.25
-     * @return List of Products matching query, sorted by relevance (deduplicated)
+     * @param limit Maximum number of products returned
      */
     @Query(value = """
-           WITH product_matches AS (
-             SELECT DISTINCT ON (p.id)
-               p.*,
-               GREATEST(
-                 -- Similarity to product name
-                 similarity(p.name, :q),
-                 -- Similarity to SKU
-                 COALESCE(similarity(p.sku, :q), 0),
-                 -- Maximum similarity to any search term for this product
-                 COALESCE(
-                   (SELECT MAX(similarity(pst.term, :q))
-                    FROM public.product_search_terms pst
-                    WHERE pst.product_id = p.id),
-                   0
-                 )
-               ) AS max_similarity
-             FROM public.products p
-             WHERE p.is_active = true
-               AND (
-                 -- Match on product name
-                 p.name % :q
-                 OR similarity(p.name, :q) >= :minSim
-                 OR p.name ILIKE '%' || :q || '%'
-                 -- Match on SKU
-                 OR (p.sku IS NOT NULL AND p.sku % :q)
-                 OR (p.sku IS NOT NULL AND similarity(p.sku, :q) >= :minSim)
-                 OR (p.sku IS NOT NULL AND p.sku ILIKE '%' || :q || '%')
-                 -- Match on search terms (multilingual aliases)
-                 OR EXISTS (
-                   SELECT 1 FROM public.product_search_terms pst
-                   WHERE pst.product_id = p.id
-                     AND (
-                       pst.term % :q
-                       OR similarity(pst.term, :q) >= :minSim
-                       OR pst.term ILIKE '%' || :q || '%'
-                     )
-                 )
-               )
-           )
-           SELECT id, sku, name, brand, description, default_cost, default_price, 
-                  tax_rate, is_active, created_at, updated_at, unit, wholesale_price
-           FROM product_matches
-           ORDER BY max_similarity DESC, name ASC
+           SELECT p.id            AS id,
+                  p.name          AS name,
+                  p.default_price AS price,
+                  (COALESCE(ss.store_qty, 0) + COALESCE(ss.warehouse_qty, 0)) > 0 AS available,
+                  COUNT(*) OVER () AS total
+           FROM public.product_search_documents d
+           JOIN public.products p ON p.id = d.product_id
+           LEFT JOIN public.stock_snapshot ss ON ss.product_id = p.id
+           WHERE p.is_active = true
+             AND (:q <% d.document OR d.document ILIKE '%' || :q || '%')
+           ORDER BY word_similarity(:q, d.document) DESC, p.name ASC
+           LIMIT :limit
            """,
            nativeQuery = true)
-    List<Product> fuzzySearch(@Param("q") String query, @Param("minSim") float minSimilarity);
+    List<ProductSearchHitProjection> fuzzySearch(@Param("q") String query, @Param("limit") int limit);
+
+    /**
+     * Word-similarity threshold used by the &lt;% operator, for the current transaction only
+     */
+    @Query(value = "SELECT set_config('pg_trgm.word_similarity_threshold', CAST(:threshold AS TEXT), true)",
+           nativeQuery = true)
+    String setWordSimilarityThreshold(@Param("threshold") float threshold);
+
+    /**
+     * Stock quantities and images for a page of products, in one query
+     * (products without images get a single row with null media columns).
+     */
+    @Query(value = """
+           SELECT p.id            AS productId,
+                  ss.store_qty     AS storeQty,
+                  ss.warehouse_qty AS warehouseQty,
+                  m.id            AS mediaId,
+                  m.url           AS url,
+                  m.mime_type     AS mimeType,
+                  m.title         AS title,
+                  m.alt_text      AS altText,
+                  pm.sort_order   AS sortOrder,
+                  pm.is_primary   AS isPrimary
+           FROM products p
+           LEFT JOIN stock_snapshot ss ON ss.product_id = p.id
+           LEFT JOIN product_media pm ON pm.product_id = p.id
+           LEFT JOIN media m ON m.id = pm.media_id
+           WHERE p.id IN (:productIds)
+           ORDER BY p.id, pm.sort_order, m.id
+           """, nativeQuery = true)
+    List<ProductCatalogMediaProjection> findCatalogMedia(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Categories (with parent and grandparent names) for a page of products, in one query
+     */
+    @Query(value = """
+           SELECT pc.product_id AS productId,
+                  c.id          AS categoryId,
+                  c.name        AS categoryName,
+                  parent.id     AS parentId,
+                  parent.name   AS parentName,
+                  gp.id         AS parentParentId,
+                  gp.name       AS parentParentName
+           FROM product_categories pc
+           JOIN categories c ON c.id = pc.category_id
+           LEFT JOIN categories parent ON parent.id = c.parent_id
+           LEFT JOIN categories gp ON gp.id = parent.parent_id
+           WHERE pc.product_id IN (:productIds)
+           """, nativeQuery = true)
+    List<ProductCatalogCategoryProjection> findCatalogCategories(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Names, SKUs and search terms of all active products, for the in-memory suggestion index
+     */
+    @Query(value = """
+           SELECT p.id AS id, p.name AS name, p.sku AS sku, p.default_price AS price, pst.term AS term
+           FROM public.products p
+           LEFT JOIN public.product_search_terms pst ON pst.product_id = p.id
+           WHERE p.is_active = true
+           ORDER BY p.id
+           """, nativeQuery = true)
+    List<ProductSuggestionSourceProjection> findSuggestionSources();
+
+    /**
+     * Same as {@link #findSuggestionSources()} for the given products (inactive / deleted ones return no rows)
+     */
+    @Query(value = """
+           SELECT p.id AS id, p.name AS name, p.sku AS sku, p.default_price AS price, pst.term AS term
+           FROM public.products p
+           LEFT JOIN public.product_search_terms pst ON pst.product_id = p.id
+           WHERE p.is_active = true
+             AND p.id IN (:productIds)
+           ORDER BY p.id
+           """, nativeQuery = true)
+    List<ProductSuggestionSourceProjection> findSuggestionSources(@Param("productIds") Collection<Long> productIds);
 
 }
@@ -0,0 +1,16 @@
+package com.example.back_end.modules.catalog.product.repository.projection;
+
+/**
+ * One row per product category, with the category's parent (and the parent's own parent)
+ * so parents can be listed next to the assigned categories.
+ */
+public interface ProductCatalogCategoryProjection {
+
+    Long getProductId();
+    Long getCategoryId();
+    String getCategoryName();
+    Long getParentId();
+    String getParentName();
+    Long getParentParentId();
+    String getParentParentName();
+}
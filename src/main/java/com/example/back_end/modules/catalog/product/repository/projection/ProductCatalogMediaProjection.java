@@ -0,0 +1,21 @@
+package com.example.back_end.modules.catalog.product.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * One row per product image (or a single row with null media columns when the product has none),
+ * carrying the product's stock snapshot quantities.
+ */
+public interface ProductCatalogMediaProjection {
+
+    Long getProductId();
+    BigDecimal getStoreQty();
+    BigDecimal getWarehouseQty();
+    Long getMediaId();
+    String getUrl();
+    String getMimeType();
+    String getTitle();
+    String getAltText();
+    Integer getSortOrder();
+    Boolean getIsPrimary();
+}
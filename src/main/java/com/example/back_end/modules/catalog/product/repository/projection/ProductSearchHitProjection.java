@@ -0,0 +1,12 @@
+package com.example.back_end.modules.catalog.product.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface ProductSearchHitProjection {
+
+    Long getId();
+    String getName();
+    BigDecimal getPrice();
+    Boolean getAvailable();
+    Long getTotal(); // all matches, before the limit
+}
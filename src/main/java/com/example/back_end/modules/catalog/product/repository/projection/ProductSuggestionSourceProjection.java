@@ -0,0 +1,15 @@
+package com.example.back_end.modules.catalog.product.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * One row per active product and search term (term is null for products without terms)
+ */
+public interface ProductSuggestionSourceProjection {
+
+    Long getId();
+    String getName();
+    String getSku();
+    BigDecimal getPrice();
+    String getTerm();
+}
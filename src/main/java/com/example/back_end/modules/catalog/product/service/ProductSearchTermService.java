@@ -20,6 +20,7 @@ public class ProductSearchTermService {
 
     private final ProductSearchTermRepository searchTermRepository;
     private final ProductRepository productRepository;
+    private final ProductSuggestionIndex suggestionIndex;
 
     /**
      * Add/replace search terms for a product
@@ -54,6 +55,8 @@ public class ProductSearchTermService {
             }
         }
 
+        suggestionIndex.refresh(productId);
+
         return savedTerms.stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
@@ -93,6 +96,7 @@ public class ProductSearchTermService {
         }
 
         searchTermRepository.delete(term);
+        suggestionIndex.refresh(productId);
     }
 
     private ProductSearchTermResponseDTO toDTO(ProductSearchTerm entity) {
@@ -5,6 +5,7 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,18 +19,24 @@ import com.example.back_end.modules.catalog.product.mapper.ProductMapper;
 import com.example.back_end.modules.catalog.product.repository.MediaRepository;
 import com.example.back_end.modules.catalog.product.repository.ProductMediaRepository;
 import com.example.back_end.modules.catalog.product.repository.ProductRepository;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductCatalogCategoryProjection;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductCatalogMediaProjection;
 import com.example.back_end.modules.store_product.entity.StockSnapshot;
 import com.example.back_end.modules.store_product.repository.StockSnapshotRepository;
 import com.example.back_end.modules.store_product.repository.InventoryMovementRepository;
 import com.example.back_end.modules.catalog.category.entity.Category;
 import com.example.back_end.modules.catalog.category.repository.CategoryRepository;
+import com.example.back_end.modules.offer.service.OfferIndex;
 import com.example.back_end.modules.stock.entity.InventoryMovement;
 import com.example.back_end.modules.stock.enums.InventoryLocationType;
 import com.example.back_end.modules.stock.enums.InventoryRefType;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -38,6 +45,11 @@ import java.util.stream.Collectors;
 @Transactional
 public class ProductServiceImpl implements ProductService {
 
+    /**
+     * Ids bound per catalog media / category query, well below PostgreSQL's 65535 bind parameters
+     */
+    private static final int CATALOG_ID_CHUNK = 10_000;
+
     private final ProductRepository repository;
     private final StockSnapshotRepository stockSnapshotRepository;
     private final MediaRepository mediaRepository;
@@ -45,6 +57,8 @@ public class ProductServiceImpl implements ProductService {
     private final CategoryRepository categoryRepository;
     private final ImageStorageService imageStorageService;
     private final InventoryMovementRepository inventoryMovementRepository;
+    private final OfferIndex offerIndex;
+    private final ProductSuggestionIndex suggestionIndex;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -73,6 +87,8 @@ public class ProductServiceImpl implements ProductService {
         saved.setCategories(categories);
         repository.save(saved);
         saved.getCategories().size(); // Force load categories
+        offerIndex.invalidate(); // CATEGORY offers now cover this product
+        suggestionIndex.refresh(saved.getId());
 
         // Get stock snapshot (if exists) - will be null for new products
         StockSnapshot snapshot = stockSnapshotRepository.findById(saved.getId()).orElse(null);
@@ -100,15 +116,7 @@ public class ProductServiceImpl implements ProductService {
     public Page<ProductResponseDTO> search(String q, Pageable pageable) {
         // Normalize empty string to null
         String normalizedQ = (q != null && q.trim().isEmpty()) ? null : q;
-        return repository.search(normalizedQ, pageable)
-                .map(product -> {
-                    // Force load productMedia
-                    product.getProductMedia().size();
-                    product.getCategories().size();
-                    // Get stock snapshot (if exists)
-                    StockSnapshot snapshot = stockSnapshotRepository.findById(product.getId()).orElse(null);
-                    return ProductMapper.toResponse(product, snapshot);
-                });
+        return toCatalogPage(repository.search(normalizedQ, pageable));
     }
 
     @Override
@@ -120,15 +128,7 @@ public class ProductServiceImpl implements ProductService {
         if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
             throw new IllegalArgumentException("Minimum price cannot be greater than maximum price");
         }
-        return repository.filter(brand, isActive, minPrice, maxPrice, sku, pageable)
-                .map(product -> {
-                    // Force load productMedia
-                    product.getProductMedia().size();
-                    product.getCategories().size();
-                    // Get stock snapshot (if exists)
-                    StockSnapshot snapshot = stockSnapshotRepository.findById(product.getId()).orElse(null);
-                    return ProductMapper.toResponse(product, snapshot);
-                });
+        return toCatalogPage(repository.filter(brand, isActive, minPrice, maxPrice, sku, pageable));
     }
 
     @Override
@@ -147,6 +147,7 @@ public class ProductServiceImpl implements ProductService {
         }
         ProductMapper.updateEntity(dto, p);
         Product saved = repository.save(p);
+        suggestionIndex.refresh(id);
         saved.getProductMedia().size(); // Force load productMedia
 
         // Update categories if provided
@@ -154,6 +155,7 @@ public class ProductServiceImpl implements ProductService {
             Set<Category> categories = resolveCategoriesForProduct(dto.getParentCategoryId(), dto.getSubCategoryId());
             saved.setCategories(categories);
             saved = repository.save(saved);
+            offerIndex.invalidate(); // CATEGORY offers may now cover a different set of products
         }
         saved.getCategories().size(); // Force load categories
 
@@ -284,6 +286,7 @@ public class ProductServiceImpl implements ProductService {
         if (deletedCount == 0) {
             throw new IllegalStateException("Failed to delete product with id: " + id + " - no rows were deleted");
         }
+        suggestionIndex.refresh(id);
         
         // Clear persistence context to ensure changes are visible
         entityManager.clear();
@@ -440,14 +443,7 @@ public class ProductServiceImpl implements ProductService {
     @Transactional(readOnly = true)
     public List<ProductResponseDTO> getAllActiveProducts() {
         List<Product> products = repository.findAllActiveProducts();
-        return products.stream()
-                .map(product -> {
-                    product.getProductMedia().size();
-                    product.getCategories().size();
-                    StockSnapshot snapshot = stockSnapshotRepository.findById(product.getId()).orElse(null);
-                    return ProductMapper.toResponse(product, snapshot);
-                })
-                .collect(Collectors.toList());
+        return toCatalogResponses(products);
     }
 
     @Override
@@ -467,26 +463,14 @@ public class ProductServiceImpl implements ProductService {
     @Transactional(readOnly = true)
     public List<ProductResponseDTO> getProductsByCategory(Long categoryId) {
         List<Product> products = repository.findProductsByCategoryId(categoryId);
-        return products.stream()
-                .map(product -> {
-                    product.getProductMedia().size();
-                    product.getCategories().size();
-                    StockSnapshot snapshot = stockSnapshotRepository.findById(product.getId()).orElse(null);
-                    return ProductMapper.toResponse(product, snapshot);
-                })
-                .collect(Collectors.toList());
+        return toCatalogResponses(products);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ProductResponseDTO> getProductsByCategoryPaginated(Long categoryId, Pageable pageable) {
         Page<Product> products = repository.findProductsByCategoryIdPaginated(categoryId, pageable);
-        return products.map(product -> {
-            product.getProductMedia().size();
-            product.getCategories().size();
-            StockSnapshot snapshot = stockSnapshotRepository.findById(product.getId()).orElse(null);
-            return ProductMapper.toResponse(product, snapshot);
-        });
+        return toCatalogPage(products);
     }
 
     @Override
@@ -517,5 +501,36 @@ public class ProductServiceImpl implements ProductService {
 
         return categories;
     }
-}
 
+    /**
+     * Maps a page of products with a constant number of queries: one for stock + images,
+     * one for categories (instead of a snapshot lookup and lazy loads per product).
+     */
+    private Page<ProductResponseDTO> toCatalogPage(Page<Product> products) {
+        return new PageImpl<>(toCatalogResponses(products.getContent()),
+                products.getPageable(), products.getTotalElements());
+    }
+
+    private List<ProductResponseDTO> toCatalogResponses(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = products.stream().map(Product::getId).toList();
+        Map<Long, List<ProductCatalogMediaProjection>> mediaByProduct = new HashMap<>();
+        Map<Long, List<ProductCatalogCategoryProjection>> categoriesByProduct = new HashMap<>();
+        // getAllActiveProducts / getProductsByCategory pass the whole catalog, so bind the ids in chunks
+        for (int from = 0; from < ids.size(); from += CATALOG_ID_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CATALOG_ID_CHUNK, ids.size()));
+            repository.findCatalogMedia(chunk).forEach(row ->
+                    mediaByProduct.computeIfAbsent(row.getProductId(), id -> new ArrayList<>()).add(row));
+            repository.findCatalogCategories(chunk).forEach(row ->
+                    categoriesByProduct.computeIfAbsent(row.getProductId(), id -> new ArrayList<>()).add(row));
+        }
+
+        return products.stream()
+                .map(product -> ProductMapper.toCatalogResponse(product,
+                        mediaByProduct.getOrDefault(product.getId(), List.of()),
+                        categoriesByProduct.getOrDefault(product.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+}
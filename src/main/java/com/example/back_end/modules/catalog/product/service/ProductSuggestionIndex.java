@@ -0,0 +1,301 @@
+package com.example.back_end.modules.catalog.product.service;
+
+import com.example.back_end.modules.catalog.product.repository.ProductRepository;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductSuggestionSourceProjection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory typeahead index over active products: name, SKU and product_search_terms aliases.
+ *
+ * Every key (name / SKU / alias) is split into pg_trgm style trigrams ({@link Trigrams});
+ * trigram -> keys posting lists answer a query by counting the trigrams each key shares with it:
+ * - word similarity = shared / query trigrams, close to pg_trgm word_similarity() used by the SQL search;
+ *   ties are broken by the similarity of the whole key (shared / (query + key trigrams - shared))
+ * - keys containing the query match whatever their similarity, keys with a word starting
+ *   with the query rank first
+ *
+ * Loaded when the application is ready and rebuilt every pos.products.suggestions.rebuild-interval
+ * (catches changes made outside the app); products changed through the app are reloaded
+ * after commit ({@link #refresh(Long)}). Until the first load {@link #isLoaded()} is false.
+ */
+@Component
+@Slf4j
+public class ProductSuggestionIndex {
+
+    // best first: prefix / word similarity, then similarity of the whole key, then name
+    private static final Comparator<Candidate> RANKING = Comparator
+            .comparingDouble(Candidate::score).reversed()
+            .thenComparing(Comparator.comparingDouble(Candidate::similarity).reversed())
+            .thenComparing(c -> c.entry().name(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTx;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // guarded by lock
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final List<Key> keys = new ArrayList<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int deadKeys;
+
+    private volatile boolean loaded;
+
+    public ProductSuggestionIndex(ProductRepository productRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Best matching products for a (partial, possibly misspelled) query, best first,
+     * and the number of products that matched
+     *
+     * @param minSimilarity keys that do not contain the query need at least this word similarity
+     */
+    public Result suggest(String query, float minSimilarity, int limit) {
+        String q = Trigrams.normalize(query);
+        long[] queryTrigrams = Trigrams.of(q);
+        if (queryTrigrams.length == 0 || limit <= 0) {
+            return new Result(List.of(), 0);
+        }
+        String wordStart = " " + q;
+
+        Map<Long, Candidate> best = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int[] shared = new int[keys.size()];
+            Postings touched = new Postings();
+            for (long trigram : queryTrigrams) {
+                Postings posting = postings.get(trigram);
+                if (posting == null) {
+                    continue;
+                }
+                for (int i = 0; i < posting.size; i++) {
+                    int ordinal = posting.ordinals[i];
+                    if (shared[ordinal]++ == 0) {
+                        touched.add(ordinal);
+                    }
+                }
+            }
+
+            for (int i = 0; i < touched.size; i++) {
+                int ordinal = touched.ordinals[i];
+                Key key = keys.get(ordinal);
+                if (key == null) {
+                    continue; // removed
+                }
+                int common = shared[ordinal];
+                double wordSimilarity = (double) common / queryTrigrams.length;
+                boolean prefix = key.text().startsWith(q) || key.text().contains(wordStart);
+                if (!prefix && wordSimilarity < minSimilarity && !key.text().contains(q)) {
+                    continue;
+                }
+                Candidate candidate = new Candidate(key.entry(), prefix ? 1 + wordSimilarity : wordSimilarity,
+                        (double) common / (queryTrigrams.length + key.trigramCount() - common));
+                best.merge(key.entry().productId(), candidate, (a, b) -> RANKING.compare(a, b) <= 0 ? a : b);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Suggestion> top = best.values().stream()
+                .sorted(RANKING)
+                .limit(limit)
+                .map(c -> new Suggestion(c.entry().productId(), c.entry().name(), c.entry().price(), c.score()))
+                .toList();
+        return new Result(top, best.size());
+    }
+
+    /**
+     * Reload one product (name / SKU / price / active flag / search terms changed, or deleted).
+     * Inside a transaction the reload runs after commit, so a rolled back change never reaches the index.
+     */
+    public void refresh(Long productId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload(productId);
+                }
+            });
+        } else {
+            reload(productId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${pos.products.suggestions.rebuild-interval:PT30M}",
+               initialDelayString = "${pos.products.suggestions.rebuild-interval:PT30M}")
+    public synchronized void rebuild() {
+        try {
+            List<ProductSuggestionSourceProjection> rows =
+                    readOnlyTx.execute(status -> productRepository.findSuggestionSources());
+            Collection<Document> documents = toDocuments(rows).values();
+            replaceAll(documents);
+            log.info("Built product suggestion index: {} products", documents.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not build the product suggestion index", e);
+        }
+    }
+
+    synchronized void reload(Long productId) {
+        if (!loaded) {
+            return; // the first rebuild reads the change anyway
+        }
+        try {
+            List<ProductSuggestionSourceProjection> rows =
+                    readOnlyTx.execute(status -> productRepository.findSuggestionSources(List.of(productId)));
+            put(productId, toDocuments(rows).get(productId));
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh product {} in the suggestion index", productId, e);
+        }
+    }
+
+    void replaceAll(Collection<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            keys.clear();
+            postings.clear();
+            deadKeys = 0;
+            for (Document document : documents) {
+                add(document);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace (or, with a null document, remove) one product
+     */
+    void put(Long productId, Document document) {
+        lock.writeLock().lock();
+        try {
+            Entry old = entries.remove(productId);
+            if (old != null) {
+                for (int ordinal : old.ordinals()) {
+                    keys.set(ordinal, null);
+                }
+                deadKeys += old.ordinals().length;
+            }
+            if (document != null) {
+                add(document);
+            }
+            if (deadKeys > 1_000 && deadKeys > keys.size() / 2) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Document document) {
+        List<String> texts = document.keys().stream()
+                .map(Trigrams::normalize)
+                .filter(text -> !text.isEmpty())
+                .distinct()
+                .toList();
+        int[] ordinals = new int[texts.size()];
+        Entry entry = new Entry(document.productId(), document.name(), document.price(), texts, ordinals);
+
+        for (int i = 0; i < texts.size(); i++) {
+            long[] trigrams = Trigrams.of(texts.get(i));
+            int ordinal = keys.size();
+            keys.add(new Key(entry, texts.get(i), trigrams.length));
+            ordinals[i] = ordinal;
+            for (long trigram : trigrams) {
+                postings.computeIfAbsent(trigram, t -> new Postings()).add(ordinal);
+            }
+        }
+        entries.put(document.productId(), entry);
+    }
+
+    private void compact() {
+        List<Document> documents = entries.values().stream()
+                .map(e -> new Document(e.productId(), e.name(), e.price(), e.texts()))
+                .toList();
+        replaceAll(documents);
+    }
+
+    private static Map<Long, Document> toDocuments(List<ProductSuggestionSourceProjection> rows) {
+        Map<Long, Document> documents = new LinkedHashMap<>();
+        if (rows == null) {
+            return documents;
+        }
+        for (ProductSuggestionSourceProjection row : rows) {
+            Document document = documents.computeIfAbsent(row.getId(), id -> {
+                List<String> keys = new ArrayList<>();
+                keys.add(row.getName());
+                if (row.getSku() != null) {
+                    keys.add(row.getSku());
+                }
+                return new Document(id, row.getName(), row.getPrice(), keys);
+            });
+            if (row.getTerm() != null) {
+                document.keys().add(row.getTerm());
+            }
+        }
+        return documents;
+    }
+
+    public record Suggestion(Long productId, String name, BigDecimal price, double score) {
+    }
+
+    public record Result(List<Suggestion> items, int total) {
+    }
+
+    /**
+     * A product as indexed: display fields plus the texts it can be found by
+     */
+    record Document(Long productId, String name, BigDecimal price, List<String> keys) {
+    }
+
+    private record Entry(Long productId, String name, BigDecimal price, List<String> texts, int[] ordinals) {
+    }
+
+    private record Key(Entry entry, String text, int trigramCount) {
+    }
+
+    private record Candidate(Entry entry, double score, double similarity) {
+    }
+
+    /**
+     * Growable int array of key ordinals
+     */
+    private static final class Postings {
+        int[] ordinals = new int[4];
+        int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
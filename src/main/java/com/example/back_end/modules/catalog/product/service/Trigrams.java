@@ -0,0 +1,80 @@
+package com.example.back_end.modules.catalog.product.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Trigrams the way pg_trgm builds them: every word (letters/digits) is padded with two spaces
+ * in front and one behind, each trigram is packed into a long (3 x 16-bit chars).
+ */
+final class Trigrams {
+
+    private Trigrams() {}
+
+    /**
+     * Lower case, Arabic diacritics removed and alef / teh marbuta / alef maksura unified,
+     * everything that is not a letter or digit turned into a single space
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(lower.length());
+        boolean space = true;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c >= '\u064B' && c <= '\u0652') {
+                continue; // tashkeel
+            }
+            c = switch (c) {
+                case '\u0623', '\u0625', '\u0622' -> '\u0627'; // أ إ آ -> ا
+                case '\u0629' -> '\u0647';                     // ة -> ه
+                case '\u0649' -> '\u064A';                     // ى -> ي
+                default -> c;
+            };
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ' ') {
+            sb.setLength(end - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Distinct trigrams of already normalized text, sorted
+     */
+    static long[] of(String normalized) {
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+        // a word of n chars has n + 1 trigrams, so the whole text has length + 1
+        long[] out = new long[normalized.length() + 1];
+        int n = 0;
+        for (String word : normalized.split(" ")) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                out[n++] = pack(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2));
+            }
+        }
+        Arrays.sort(out, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || out[distinct - 1] != out[i]) {
+                out[distinct++] = out[i];
+            }
+        }
+        return Arrays.copyOf(out, distinct);
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.back_end.modules.catalog.sync.controller;
+
+import com.example.back_end.modules.catalog.sync.dto.CatalogSyncDTO;
+import com.example.back_end.modules.catalog.sync.service.CatalogSyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * POS catalog download: GET /api/products/catalog for the full snapshot, then
+ * GET /api/products/catalog?since={version} for the changes only.
+ * The ETag is the catalog version, so an unchanged catalog answers 304 without building a body;
+ * responses are gzip-compressed (server.compression).
+ */
+@RestController
+@RequestMapping("/api/products/catalog")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CatalogSyncController {
+
+    private final CatalogSyncService service;
+
+    @GetMapping
+    public ResponseEntity<CatalogSyncDTO> catalog(@RequestParam(required = false) Long since,
+                                                  WebRequest request) {
+        String etag = etag(service.currentVersion());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        CatalogSyncDTO body = service.sync(since);
+        return ResponseEntity.ok()
+                .eTag(etag(body.getVersion()))
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    private static String etag(long version) {
+        return "\"catalog-" + version + "\"";
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.back_end.modules.catalog.sync.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An active offer with its targets; terminals apply start/end themselves
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogOfferDTO {
+    private Long id;
+    private String code;
+    private String title;
+    private String offerType;
+    private String discountType;
+    private BigDecimal discountValue;
+    private LocalDateTime startAt;
+    private LocalDateTime endAt;
+
+    private List<Long> productIds;
+    private List<Long> categoryIds;
+    private List<BundleItem> bundleItems;
+
+    /** ORDER offers only */
+    private BigDecimal minOrderAmount;
+
+    public record BundleItem(Long productId, BigDecimal requiredQty) {
+    }
+}
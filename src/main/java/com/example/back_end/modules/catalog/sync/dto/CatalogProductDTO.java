@@ -0,0 +1,31 @@
+package com.example.back_end.modules.catalog.sync.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * What a POS terminal keeps locally for one sellable product
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogProductDTO {
+    private Long id;
+    private String sku;
+    private String name;
+    private BigDecimal price;
+    private BigDecimal taxRate;
+    private String unit;
+
+    /** Primary (or first) image, path-only url */
+    private String imageUrl;
+
+    private List<Long> categoryIds;
+
+    /** store_qty > 0 */
+    private Boolean inStock;
+}
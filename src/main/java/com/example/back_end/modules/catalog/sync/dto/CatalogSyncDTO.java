@@ -0,0 +1,27 @@
+package com.example.back_end.modules.catalog.sync.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Catalog feed for POS terminals.
+ *
+ * full = true: the whole sellable catalog, replace the local copy.
+ * full = false: only what changed after the requested version; products / offers are upserts,
+ * removed*Ids are no longer sellable (deleted, deactivated or expired).
+ * Pass {@code version} as {@code since} on the next call.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogSyncDTO {
+    private long version;
+    private boolean full;
+    private List<CatalogProductDTO> products;
+    private List<Long> removedProductIds;
+    private List<CatalogOfferDTO> offers;
+    private List<Long> removedOfferIds;
+}
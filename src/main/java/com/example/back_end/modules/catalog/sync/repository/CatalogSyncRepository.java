@@ -0,0 +1,181 @@
+package com.example.back_end.modules.catalog.sync.repository;
+
+import com.example.back_end.modules.catalog.sync.dto.CatalogOfferDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads behind the POS catalog feed: catalog_changes versions (V28) and the sellable
+ * products / offers, one row each with their ids aggregated into arrays.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogSyncRepository {
+
+    public static final String PRODUCT = "PRODUCT";
+    public static final String OFFER = "OFFER";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Product row as read, before the image url is normalized
+     */
+    public record ProductRow(Long id, String sku, String name, BigDecimal price, BigDecimal taxRate,
+                             String unit, String imageUrl, List<Long> categoryIds, boolean inStock) {
+    }
+
+    private static final String PRODUCTS_SQL = """
+            SELECT p.id, p.sku, p.name, p.default_price, p.tax_rate, p.unit,
+                   (SELECT m.url
+                    FROM public.product_media pm
+                    JOIN public.media m ON m.id = pm.media_id
+                    WHERE pm.product_id = p.id
+                    ORDER BY pm.is_primary DESC NULLS LAST, pm.sort_order, pm.media_id
+                    LIMIT 1) AS image_url,
+                   ARRAY(SELECT pc.category_id::bigint
+                         FROM public.product_categories pc
+                         WHERE pc.product_id = p.id
+                         ORDER BY pc.category_id) AS category_ids,
+                   COALESCE(ss.store_qty, 0) > 0 AS in_stock
+            FROM public.products p
+            LEFT JOIN public.stock_snapshot ss ON ss.product_id = p.id
+            WHERE p.is_active = true
+            """;
+
+    private static final String OFFERS_SQL = """
+            SELECT o.id, o.code, o.title, o.offer_type, o.discount_type, o.discount_value, o.start_at, o.end_at,
+                   ARRAY(SELECT op.product_id::bigint FROM public.offer_products op
+                         WHERE op.offer_id = o.id ORDER BY op.product_id) AS product_ids,
+                   ARRAY(SELECT oc.category_id::bigint FROM public.offer_categories oc
+                         WHERE oc.offer_id = o.id ORDER BY oc.category_id) AS category_ids,
+                   ARRAY(SELECT ob.product_id::bigint FROM public.offer_bundles ob
+                         WHERE ob.offer_id = o.id ORDER BY ob.id) AS bundle_product_ids,
+                   ARRAY(SELECT ob.required_qty FROM public.offer_bundles ob
+                         WHERE ob.offer_id = o.id ORDER BY ob.id) AS bundle_qtys,
+                   (SELECT MIN(oo.min_order_amount) FROM public.order_offers oo
+                    WHERE oo.offer_id = o.id) AS min_order_amount
+            FROM public.offers o
+            WHERE o.is_active = true
+              AND o.end_at >= now()
+            """;
+
+    private static final RowMapper<ProductRow> PRODUCT_MAPPER = (rs, rowNum) -> new ProductRow(
+            rs.getLong("id"),
+            rs.getString("sku"),
+            rs.getString("name"),
+            rs.getBigDecimal("default_price"),
+            rs.getBigDecimal("tax_rate"),
+            rs.getString("unit"),
+            rs.getString("image_url"),
+            longs(rs.getArray("category_ids")),
+            rs.getBoolean("in_stock"));
+
+    private static final RowMapper<CatalogOfferDTO> OFFER_MAPPER = (rs, rowNum) -> {
+        List<Long> bundleProductIds = longs(rs.getArray("bundle_product_ids"));
+        BigDecimal[] bundleQtys = (BigDecimal[]) rs.getArray("bundle_qtys").getArray();
+        List<CatalogOfferDTO.BundleItem> bundleItems = new ArrayList<>(bundleProductIds.size());
+        for (int i = 0; i < bundleProductIds.size(); i++) {
+            bundleItems.add(new CatalogOfferDTO.BundleItem(bundleProductIds.get(i), bundleQtys[i]));
+        }
+        return CatalogOfferDTO.builder()
+                .id(rs.getLong("id"))
+                .code(rs.getString("code"))
+                .title(rs.getString("title"))
+                .offerType(rs.getString("offer_type"))
+                .discountType(rs.getString("discount_type"))
+                .discountValue(rs.getBigDecimal("discount_value"))
+                .startAt(toLocalDateTime(rs, "start_at"))
+                .endAt(toLocalDateTime(rs, "end_at"))
+                .productIds(longs(rs.getArray("product_ids")))
+                .categoryIds(longs(rs.getArray("category_ids")))
+                .bundleItems(bundleItems)
+                .minOrderAmount(rs.getBigDecimal("min_order_amount"))
+                .build();
+    };
+
+    /**
+     * Highest change version, 0 when nothing was recorded yet
+     */
+    public long currentVersion() {
+        Long version = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(version), 0) FROM public.catalog_changes", Long.class);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Ids of one entity type changed after {@code since} up to and including {@code until}
+     */
+    public List<Long> changedIds(String entityType, long since, long until) {
+        return jdbcTemplate.queryForList("""
+                SELECT entity_id
+                FROM public.catalog_changes
+                WHERE entity_type = ?
+                  AND version > ?
+                  AND version <= ?
+                ORDER BY entity_id
+                """, Long.class, entityType, since, until);
+    }
+
+    public List<ProductRow> findAllProducts() {
+        return jdbcTemplate.query(PRODUCTS_SQL + " ORDER BY p.id", PRODUCT_MAPPER);
+    }
+
+    /**
+     * Active products among the given ids; inactive or deleted ones are simply missing
+     */
+    public List<ProductRow> findProducts(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(byIds(PRODUCTS_SQL + " AND p.id = ANY(?) ORDER BY p.id", ids), PRODUCT_MAPPER);
+    }
+
+    public List<CatalogOfferDTO> findAllOffers() {
+        return jdbcTemplate.query(OFFERS_SQL + " ORDER BY o.id", OFFER_MAPPER);
+    }
+
+    /**
+     * Active, not yet ended offers among the given ids
+     */
+    public List<CatalogOfferDTO> findOffers(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(byIds(OFFERS_SQL + " AND o.id = ANY(?) ORDER BY o.id", ids), OFFER_MAPPER);
+    }
+
+    private static PreparedStatementCreator byIds(String sql, Collection<Long> ids) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        };
+    }
+
+    private static List<Long> longs(Array array) throws SQLException {
+        if (array == null) {
+            return List.of();
+        }
+        return Arrays.asList((Long[]) array.getArray());
+    }
+
+    private static LocalDateTime toLocalDateTime(ResultSet rs, String column) throws SQLException {
+        Timestamp ts = rs.getTimestamp(column);
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.back_end.modules.catalog.sync.service;
+
+import com.example.back_end.modules.catalog.product.mapper.ProductMapper;
+import com.example.back_end.modules.catalog.sync.dto.CatalogOfferDTO;
+import com.example.back_end.modules.catalog.sync.dto.CatalogProductDTO;
+import com.example.back_end.modules.catalog.sync.dto.CatalogSyncDTO;
+import com.example.back_end.modules.catalog.sync.repository.CatalogSyncRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Versioned catalog feed for POS terminals.
+ *
+ * Every product / offer change gets the next catalog_change_seq value at commit (V28 triggers),
+ * so a terminal only asks for what changed after the version it already holds instead of
+ * downloading the whole catalog on every sync. Everything is read in one REPEATABLE READ
+ * snapshot: the returned version and the returned rows always belong together.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogSyncService {
+
+    private final CatalogSyncRepository repository;
+
+    /**
+     * Current catalog version (used for the ETag before building a response)
+     */
+    @Transactional(readOnly = true)
+    public long currentVersion() {
+        return repository.currentVersion();
+    }
+
+    /**
+     * @param since version the terminal holds; null / 0 (first sync) or a version this server
+     *              never issued (e.g. database restored) returns a full snapshot
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CatalogSyncDTO sync(Long since) {
+        long version = repository.currentVersion();
+
+        if (since == null || since <= 0 || since > version) {
+            return CatalogSyncDTO.builder()
+                    .version(version)
+                    .full(true)
+                    .products(toProducts(repository.findAllProducts()))
+                    .removedProductIds(List.of())
+                    .offers(repository.findAllOffers())
+                    .removedOfferIds(List.of())
+                    .build();
+        }
+
+        List<Long> changedProductIds = repository.changedIds(CatalogSyncRepository.PRODUCT, since, version);
+        List<Long> changedOfferIds = repository.changedIds(CatalogSyncRepository.OFFER, since, version);
+
+        List<CatalogProductDTO> products = toProducts(repository.findProducts(changedProductIds));
+        List<CatalogOfferDTO> offers = repository.findOffers(changedOfferIds);
+
+        return CatalogSyncDTO.builder()
+                .version(version)
+                .full(false)
+                .products(products)
+                .removedProductIds(missing(changedProductIds, products.stream().map(CatalogProductDTO::getId).toList()))
+                .offers(offers)
+                .removedOfferIds(missing(changedOfferIds, offers.stream().map(CatalogOfferDTO::getId).toList()))
+                .build();
+    }
+
+    private static List<CatalogProductDTO> toProducts(List<CatalogSyncRepository.ProductRow> rows) {
+        return rows.stream()
+                .map(row -> CatalogProductDTO.builder()
+                        .id(row.id())
+                        .sku(row.sku())
+                        .name(row.name())
+                        .price(row.price())
+                        .taxRate(row.taxRate())
+                        .unit(row.unit())
+                        .imageUrl(ProductMapper.toFrontendPath(row.imageUrl()))
+                        .categoryIds(row.categoryIds())
+                        .inStock(row.inStock())
+                        .build())
+                .toList();
+    }
+
+    // changed ids that are no longer returned: deleted, deactivated or ended
+    private static List<Long> missing(List<Long> changed, List<Long> returned) {
+        Set<Long> present = new HashSet<>(returned);
+        return changed.stream().filter(id -> !present.contains(id)).toList();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.back_end.modules.customer.controller;
 
 import com.example.back_end.modules.customer.dto.CustomerOrdersResponseDTO;
 import com.example.back_end.modules.sales.order.service.OrderService;
+import com.example.back_end.security.JwtPrincipal;
 import com.example.back_end.security.JwtService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -122,8 +123,13 @@ public class CustomerOrderController {
         }
 
         // Case 2: UsernamePasswordAuthenticationToken (current custom filter setup)
-        // Principal is email (String), so we need to extract userId from the JWT token itself
-        String email = (String) authentication.getPrincipal();
+        // Principal carries the claims verified by JwtAuthenticationFilter
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal && principal.userId() != null) {
+            return principal.userId();
+        }
+
+        // Otherwise read userId from the JWT token itself
+        String email = authentication.getName();
 
         if (StringUtils.hasText(authorizationHeader) && authorizationHeader.startsWith("Bearer ")) {
             try {
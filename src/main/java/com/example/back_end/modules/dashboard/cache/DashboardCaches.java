@@ -0,0 +1,24 @@
+package com.example.back_end.modules.dashboard.cache;
+
+/**
+ * Names of the dashboard caches.
+ * Store caches are built from paid orders, inventory caches from inventory movements.
+ */
+public final class DashboardCaches {
+
+    public static final String STORE_SUMMARY = "storeSummary";
+    public static final String STORE_SALES_TREND = "storeSalesTrend";
+    public static final String STORE_CATEGORY_COUNTS = "storeCategoryCounts";
+    public static final String STORE_TOP_PRODUCTS = "storeTopProducts";
+    public static final String STORE_RECENT_DAILY = "storeRecentDaily";
+
+    public static final String INVENTORY_SUMMARY = "inventorySummary";
+    public static final String RECENT_INVENTORY_MOVEMENTS = "recentInventoryMovements";
+    public static final String WEEKLY_INVENTORY_TREND = "weeklyInventoryTrend";
+    public static final String WEEKLY_CATEGORY_MOVEMENT = "weeklyCategoryMovement";
+    public static final String WEEKLY_CATEGORY_SALES_PIE = "weeklyCategorySalesPie";
+    public static final String TOP_MOVED_PRODUCTS = "topMovedProducts";
+
+    private DashboardCaches() {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.back_end.modules.dashboard.cache;
+
+import org.springframework.cache.annotation.CacheEvict;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the inventory dashboard caches stale after the annotated method (and its transaction) completes,
+ * see {@link com.example.back_end.common.cache.TtlCache#clear()}.
+ * Put it on methods that write inventory movements.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@CacheEvict(cacheNames = {
+        DashboardCaches.INVENTORY_SUMMARY,
+        DashboardCaches.RECENT_INVENTORY_MOVEMENTS,
+        DashboardCaches.WEEKLY_INVENTORY_TREND,
+        DashboardCaches.WEEKLY_CATEGORY_MOVEMENT,
+        DashboardCaches.WEEKLY_CATEGORY_SALES_PIE,
+        DashboardCaches.TOP_MOVED_PRODUCTS
+}, allEntries = true)
+public @interface EvictInventoryDashboards {
+}
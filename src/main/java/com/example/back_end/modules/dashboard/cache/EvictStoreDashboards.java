@@ -0,0 +1,27 @@
+package com.example.back_end.modules.dashboard.cache;
+
+import org.springframework.cache.annotation.CacheEvict;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the store dashboard caches stale after the annotated method (and its transaction) completes;
+ * the next read still gets the cached value and reloads it in the background.
+ * Put it on methods that change paid orders.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@CacheEvict(cacheNames = {
+        DashboardCaches.STORE_SUMMARY,
+        DashboardCaches.STORE_SALES_TREND,
+        DashboardCaches.STORE_CATEGORY_COUNTS,
+        DashboardCaches.STORE_TOP_PRODUCTS,
+        DashboardCaches.STORE_RECENT_DAILY
+}, allEntries = true)
+public @interface EvictStoreDashboards {
+}
@@ -1,5 +1,6 @@
 package com.example.back_end.modules.dashboard.inventorydashboard.service;
 
+import com.example.back_end.modules.dashboard.cache.DashboardCaches;
 import com.example.back_end.modules.dashboard.inventorydashboard.dto.*;
 import com.example.back_end.modules.catalog.product.entity.Product;
 import com.example.back_end.modules.catalog.product.repository.ProductRepository;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
@@ -21,9 +23,9 @@ public class InventoryDashboardService {
     private final InventoryMovementRepository movementRepository;
     private final ProductRepository productRepository;
 
-    @Cacheable("inventorySummary")
+    @Cacheable(cacheNames = DashboardCaches.INVENTORY_SUMMARY, sync = true)
     public InventorySummaryDTO getSummary() {
-        LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
+        LocalDateTime oneWeekAgo = windowStart(7);
 
         BigDecimal totalIn = movementRepository.sumInSince(oneWeekAgo);
         BigDecimal totalOut = movementRepository.sumOutSince(oneWeekAgo);
@@ -47,9 +49,9 @@ public class InventoryDashboardService {
                 .build();
     }
 
-    @Cacheable("recentInventoryMovements")
+    @Cacheable(cacheNames = DashboardCaches.RECENT_INVENTORY_MOVEMENTS, sync = true)
     public List<RecentInventoryMovementDTO> getRecentMovements() {
-        LocalDateTime from = LocalDateTime.now().minusDays(7);
+        LocalDateTime from = windowStart(7);
         int limit = 20;
 
         List<InventoryRecentMovementProjection> rows =
@@ -68,7 +70,7 @@ public class InventoryDashboardService {
     }
 
     // 🔹 Weekly Movement Trend (Line chart)
-    @Cacheable("weeklyInventoryTrend")
+    @Cacheable(cacheNames = DashboardCaches.WEEKLY_INVENTORY_TREND, sync = true)
     public List<WeeklyInventoryMovementDTO> getWeeklyMovementTrend() {
         // نريد آخر 7 أيام (من اليوم - 6 إلى اليوم)
         LocalDate today = LocalDate.now();
@@ -110,9 +112,9 @@ public class InventoryDashboardService {
 
         return result;
     }
-    @Cacheable("weeklyCategoryMovement")
+    @Cacheable(cacheNames = DashboardCaches.WEEKLY_CATEGORY_MOVEMENT, sync = true)
     public List<CategoryMovementDTO> getWeeklyCategoryMovement() {
-        LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
+        LocalDateTime oneWeekAgo = windowStart(7);
 
         List<InventoryCategoryMovementProjection> rows =
                 movementRepository.findCategoryMovementLastWeek(oneWeekAgo);
@@ -126,9 +128,9 @@ public class InventoryDashboardService {
                 .toList();
     }
 
-    @Cacheable("weeklyCategorySalesPie")
+    @Cacheable(cacheNames = DashboardCaches.WEEKLY_CATEGORY_SALES_PIE, sync = true)
     public List<CategorySalesPieDTO> getCategorySalesPie() {
-        LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
+        LocalDateTime oneWeekAgo = windowStart(7);
 
         List<InventoryCategorySalesProjection> rows =
                 movementRepository.findCategorySalesLastWeek(oneWeekAgo);
@@ -140,9 +142,9 @@ public class InventoryDashboardService {
                         .build())
                 .toList();
     }
-    @Cacheable("topMovedProducts")
+    @Cacheable(cacheNames = DashboardCaches.TOP_MOVED_PRODUCTS, sync = true)
     public List<TopMovedProductDTO> getTopMovedProducts() {
-        LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
+        LocalDateTime oneWeekAgo = windowStart(7);
         int limit = 5; // مثلاً top 5
 
         List<InventoryTopProductProjection> rows =
@@ -157,4 +159,9 @@ public class InventoryDashboardService {
                         .build())
                 .toList();
     }
+
+    // الحركات مجمّعة بالساعة، لذلك تبدأ الفترة على بداية ساعة
+    private static LocalDateTime windowStart(int days) {
+        return LocalDateTime.now().minusDays(days).truncatedTo(ChronoUnit.HOURS);
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.back_end.modules.dashboard.storedashboard.service;
 
+import com.example.back_end.modules.dashboard.cache.DashboardCaches;
 import com.example.back_end.modules.dashboard.storedashboard.dto.*;
 import com.example.back_end.modules.dashboard.storedashboard.projection.*;
 import com.example.back_end.modules.sales.order.repository.OrderRepository;
@@ -11,6 +12,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
@@ -21,9 +23,9 @@ public class StoreDashboardService {
     private static final int DEFAULT_DAYS = 5;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    @Cacheable("storeSummary")
+    @Cacheable(cacheNames = DashboardCaches.STORE_SUMMARY, sync = true)
     public StoreSummaryDTO getSummary() {
-        LocalDateTime from = LocalDateTime.now().minusDays(DEFAULT_DAYS);
+        LocalDateTime from = windowStart(DEFAULT_DAYS);
 
         BigDecimal totalSales = orderRepository.sumSalesSince(from);
         Long totalOrders = orderRepository.countOrdersSince(from);
@@ -64,7 +66,7 @@ public class StoreDashboardService {
                 .build();
     }
 
-    @Cacheable("storeSalesTrend")
+    @Cacheable(cacheNames = DashboardCaches.STORE_SALES_TREND, sync = true)
     public List<SalesTrendDTO> getSalesTrend() {
         LocalDate today = LocalDate.now();
         LocalDate fromDate = today.minusDays(6); // Last 7 days
@@ -107,9 +109,9 @@ public class StoreDashboardService {
         return result;
     }
 
-    @Cacheable("storeCategoryCounts")
+    @Cacheable(cacheNames = DashboardCaches.STORE_CATEGORY_COUNTS, sync = true)
     public List<CategoryCountDTO> getCategoryCounts() {
-        LocalDateTime from = LocalDateTime.now().minusDays(DEFAULT_DAYS);
+        LocalDateTime from = windowStart(DEFAULT_DAYS);
 
         List<StoreCategoryCountProjection> rows = orderRepository.findCategoryProductCounts(from);
 
@@ -121,9 +123,9 @@ public class StoreDashboardService {
                 .toList();
     }
 
-    @Cacheable("storeTopProducts")
+    @Cacheable(cacheNames = DashboardCaches.STORE_TOP_PRODUCTS, sync = true)
     public List<TopProductDTO> getTopProducts() {
-        LocalDateTime from = LocalDateTime.now().minusDays(DEFAULT_DAYS);
+        LocalDateTime from = windowStart(DEFAULT_DAYS);
         int limit = 5;
 
         List<StoreTopProductProjection> rows = orderRepository.findTopProducts(from, limit);
@@ -139,9 +141,9 @@ public class StoreDashboardService {
                 .toList();
     }
 
-    @Cacheable("storeRecentDaily")
+    @Cacheable(cacheNames = DashboardCaches.STORE_RECENT_DAILY, sync = true)
     public List<RecentDailyDTO> getRecentDaily() {
-        LocalDateTime from = LocalDateTime.now().minusDays(DEFAULT_DAYS);
+        LocalDateTime from = windowStart(DEFAULT_DAYS);
 
         List<StoreDailySalesProjection> rows = orderRepository.findDailySalesSince(from);
 
@@ -153,5 +155,9 @@ public class StoreDashboardService {
                         .build())
                 .toList();
     }
-}
 
+    // Sales are rolled up per hour, so windows start on an hour boundary
+    private static LocalDateTime windowStart(int days) {
+        return LocalDateTime.now().minusDays(days).truncatedTo(ChronoUnit.HOURS);
+    }
+}
@@ -1,17 +1,22 @@
 package com.example.back_end.modules.forecasting.controller;
 
 import com.example.back_end.modules.forecasting.dto.*;
+import com.example.back_end.modules.forecasting.service.DailyProductSalesService;
 import com.example.back_end.modules.forecasting.service.ForecastBatchService;
+import com.example.back_end.modules.forecasting.service.ForecastJobService;
 import com.example.back_end.modules.forecasting.service.ForecastingService;
 import com.example.back_end.modules.forecasting.service.StockForecastSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,7 +27,9 @@ public class ForecastingController {
 
     private final ForecastingService forecastingService;
     private final ForecastBatchService forecastBatchService;
+    private final ForecastJobService forecastJobService;
     private final StockForecastSummaryService stockForecastSummaryService;
+    private final DailyProductSalesService dailyProductSalesService;
 
     @PostMapping("/products/{productId}/run")
     public ResponseEntity<ForecastResponseDTO> runForecast(
@@ -121,6 +128,75 @@ public class ForecastingController {
 
         return ResponseEntity.ok(result);
     }
+    // تقدّم الـ batch forecast الحالي (أو الأخير) للمراقبة
+    @GetMapping("/products/run-batch/progress")
+    public ResponseEntity<ForecastBatchProgressDTO> getBatchForecastProgress() {
+        ForecastBatchProgressDTO progress = forecastBatchService.getProgress();
+
+        if (progress == null) {
+            return ResponseEntity.noContent().build();
+        }
+
+        return ResponseEntity.ok(progress);
+    }
+
+    // 🔹 Batch forecast كـ job في الخلفية: يرجع job id مباشرة
+    @PostMapping("/jobs")
+    public ResponseEntity<ForecastJobDTO> startForecastJob(
+            @RequestParam(defaultValue = "30") int horizonDays,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate fromDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate toDate,
+            @RequestParam(defaultValue = "5") int minPoints
+    ) {
+        if (toDate == null) {
+            toDate = LocalDate.now();
+        }
+        if (fromDate == null) {
+            fromDate = toDate.minusDays(4600);
+        }
+
+        ForecastJobDTO job = forecastJobService.startJob(horizonDays, fromDate, toDate, minPoints);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<ForecastJobDTO>> listForecastJobs(
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(forecastJobService.listJobs(limit));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ForecastJobDTO> getForecastJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(forecastJobService.getJob(jobId));
+    }
+
+    @GetMapping("/jobs/{jobId}/items")
+    public ResponseEntity<List<ForecastJobItemDTO>> getForecastJobItems(
+            @PathVariable Long jobId,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size
+    ) {
+        return ResponseEntity.ok(forecastJobService.getItems(jobId, status, page, size));
+    }
+
+    // تقدّم الـ job كـ Server-Sent Events (حدث "progress" حتى ينتهي)
+    @GetMapping(value = "/jobs/{jobId}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamForecastJobProgress(@PathVariable Long jobId) {
+        return forecastJobService.streamProgress(jobId);
+    }
+
+    // استئناف job: المنتجات التي نجحت لا تُعاد
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<ForecastJobDTO> resumeForecastJob(@PathVariable Long jobId) {
+        return ResponseEntity.accepted().body(forecastJobService.resumeJob(jobId));
+    }
+
     @PostMapping("/products/{productId}/stock-summary/rebuild")
     public ResponseEntity<ProductStockForecastSummaryDTO> rebuildStockSummaryForProduct(
             @PathVariable Long productId,
@@ -170,6 +246,33 @@ public class ForecastingController {
         return ResponseEntity.ok(body);
     }
 
+    /**
+     * Backfill: إعادة بناء جدول daily_product_sales لفترة معيّنة
+     */
+    @PostMapping("/sales-facts/rebuild")
+    public ResponseEntity<?> rebuildDailySales(
+            @RequestParam
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate fromDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate toDate
+    ) {
+        if (toDate == null) {
+            toDate = LocalDate.now();
+        }
+
+        int rows = dailyProductSalesService.rebuild(fromDate, toDate);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", true);
+        body.put("rows", rows);
+        body.put("fromDate", fromDate);
+        body.put("toDate", toDate);
+
+        return ResponseEntity.ok(body);
+    }
+
     // (اختياري) نسخة مختصرة بدون minCurrentStock
     @PostMapping("/stock-summary/rebuild-all")
     public ResponseEntity<?> rebuildStockSummaryForAll(
@@ -0,0 +1,36 @@
+package com.example.back_end.modules.forecasting.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class ForecastBatchProgressDTO {
+
+    /**
+     * هل يوجد batch قيد التشغيل الآن.
+     */
+    private boolean running;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private int totalProducts;
+
+    /**
+     * عدد المنتجات التي انتهت (نجاح أو تخطي أو خطأ).
+     */
+    private int completedProducts;
+
+    private int successCount;
+
+    private int skippedCount;
+
+    private int errorCount;
+
+    /**
+     * حالة الـ circuit breaker لخدمة FastAPI (CLOSED / OPEN / HALF_OPEN).
+     */
+    private String circuitState;
+}
@@ -0,0 +1,46 @@
+package com.example.back_end.modules.forecasting.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Data
+public class ForecastJobDTO {
+
+    private Long id;
+
+    /**
+     * PENDING / RUNNING / COMPLETED / FAILED
+     */
+    private String status;
+
+    private int horizonDays;
+
+    private LocalDate fromDate;
+
+    private LocalDate toDate;
+
+    private int minPoints;
+
+    private int totalProducts;
+
+    /**
+     * عدد المنتجات التي انتهت (نجاح أو تخطي أو خطأ).
+     */
+    private int completedProducts;
+
+    private int successCount;
+
+    private int skippedCount;
+
+    private int errorCount;
+
+    private String errorMessage;
+
+    private Instant createdAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+}
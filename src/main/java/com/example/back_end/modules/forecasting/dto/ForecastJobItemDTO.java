@@ -0,0 +1,22 @@
+package com.example.back_end.modules.forecasting.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class ForecastJobItemDTO {
+
+    private Long productId;
+
+    /**
+     * PENDING أو نفس حالات ProductForecastBatchItemDTO (SUCCESS / SKIPPED_* / ERROR)
+     */
+    private String status;
+
+    private String message;
+
+    private Integer forecastPoints;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,120 @@
+package com.example.back_end.modules.forecasting.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Maintains daily_product_sales from orders through compute_daily_product_sales (V25).
+ * Callers run the delete + insert pairs inside one transaction.
+ *
+ * orders.sales_facts_at (V29) marks the finished orders whose rows have been refreshed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailyProductSalesRepository {
+
+    private static final String UPSERT = """
+            INSERT INTO public.daily_product_sales
+                (sales_date, product_id, total_qty_sold, total_revenue, avg_unit_price, orders_count,
+                 promo_product_flag, promo_category_flag, promo_order_flag, promo_bundle_flag,
+                 promo_any_flag, avg_discount_pct, updated_at)
+            SELECT c.sales_date, c.product_id, c.total_qty_sold, c.total_revenue, c.avg_unit_price, c.orders_count,
+                   c.promo_product_flag, c.promo_category_flag, c.promo_order_flag, c.promo_bundle_flag,
+                   c.promo_any_flag, c.avg_discount_pct, now()
+            %s
+            ON CONFLICT (product_id, sales_date)
+            DO UPDATE SET
+                total_qty_sold = EXCLUDED.total_qty_sold,
+                total_revenue = EXCLUDED.total_revenue,
+                avg_unit_price = EXCLUDED.avg_unit_price,
+                orders_count = EXCLUDED.orders_count,
+                promo_product_flag = EXCLUDED.promo_product_flag,
+                promo_category_flag = EXCLUDED.promo_category_flag,
+                promo_order_flag = EXCLUDED.promo_order_flag,
+                promo_bundle_flag = EXCLUDED.promo_bundle_flag,
+                promo_any_flag = EXCLUDED.promo_any_flag,
+                avg_discount_pct = EXCLUDED.avg_discount_pct,
+                updated_at = now()
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * إعادة حساب صفوف (يوم الدفع × منتجات الطلب) لطلب واحد؛
+     * بعد المرتجع يخرج الطلب الأصلي من المبيعات فتُحذف صفوفه أو تُعاد بدون كمياته
+     */
+    public void refreshForOrder(Long orderId) {
+        jdbcTemplate.update("""
+                DELETE FROM public.daily_product_sales s
+                USING public.orders o
+                JOIN public.order_items oi ON oi.order_id = o.id
+                WHERE o.id = ?
+                  AND o.paid_at IS NOT NULL
+                  AND s.sales_date = DATE(o.paid_at)
+                  AND s.product_id = oi.product_id
+                """, orderId);
+
+        jdbcTemplate.update(UPSERT.formatted("""
+                FROM public.orders o
+                CROSS JOIN LATERAL public.compute_daily_product_sales(DATE(o.paid_at), DATE(o.paid_at)) c
+                WHERE o.id = ?
+                  AND o.paid_at IS NOT NULL
+                  AND c.product_id IN (SELECT oi.product_id FROM public.order_items oi WHERE oi.order_id = o.id)
+                """), orderId);
+    }
+
+    /**
+     * Mark a paid order or a return order as refreshed.
+     *
+     * @return the order whose rows must be refreshed (the original order for a return),
+     *         or null when it is already refreshed or not finished
+     */
+    public Long claimOrderRefresh(Long orderId) {
+        List<Long> orderIds = jdbcTemplate.queryForList("""
+                UPDATE public.orders
+                SET sales_facts_at = now()
+                WHERE id = ?
+                  AND sales_facts_at IS NULL
+                  AND ((parent_order_id IS NULL AND paid_at IS NOT NULL)
+                    OR (parent_order_id IS NOT NULL AND status = 'RETURNED'))
+                RETURNING COALESCE(parent_order_id, id)
+                """, Long.class, orderId);
+        return orderIds.isEmpty() ? null : orderIds.get(0);
+    }
+
+    /**
+     * Finished orders (paid sales and return orders) whose rows are not refreshed yet, oldest first,
+     * finished before the given grace period
+     */
+    public List<Long> findUnrefreshedOrders(int graceSeconds, int limit) {
+        return jdbcTemplate.queryForList("""
+                SELECT id
+                FROM public.orders
+                WHERE sales_facts_at IS NULL
+                  AND ((parent_order_id IS NULL AND paid_at IS NOT NULL
+                        AND paid_at < now() - make_interval(secs => ?))
+                    OR (parent_order_id IS NOT NULL AND status = 'RETURNED'
+                        AND created_at < now() - make_interval(secs => ?)))
+                ORDER BY id
+                LIMIT ?
+                """, Long.class, graceSeconds, graceSeconds, limit);
+    }
+
+    /**
+     * Backfill: إعادة بناء كل الصفوف في الفترة [fromDate, toDate]
+     *
+     * @return عدد الصفوف المكتوبة
+     */
+    public int rebuildRange(LocalDate fromDate, LocalDate toDate) {
+        jdbcTemplate.update("DELETE FROM public.daily_product_sales WHERE sales_date BETWEEN ? AND ?",
+                Date.valueOf(fromDate), Date.valueOf(toDate));
+
+        return jdbcTemplate.update(UPSERT.formatted("FROM public.compute_daily_product_sales(?, ?) c"),
+                Date.valueOf(fromDate), Date.valueOf(toDate));
+    }
+}
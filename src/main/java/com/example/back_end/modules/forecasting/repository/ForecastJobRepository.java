@@ -0,0 +1,183 @@
+package com.example.back_end.modules.forecasting.repository;
+
+import com.example.back_end.modules.forecasting.dto.ForecastJobDTO;
+import com.example.back_end.modules.forecasting.dto.ForecastJobItemDTO;
+import com.example.back_end.modules.forecasting.dto.ProductForecastBatchItemDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class ForecastJobRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final RowMapper<ForecastJobDTO> JOB_MAPPER = (rs, rowNum) -> {
+        ForecastJobDTO dto = new ForecastJobDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setStatus(rs.getString("status"));
+        dto.setHorizonDays(rs.getInt("horizon_days"));
+        dto.setFromDate(rs.getObject("from_date", LocalDate.class));
+        dto.setToDate(rs.getObject("to_date", LocalDate.class));
+        dto.setMinPoints(rs.getInt("min_points"));
+        dto.setTotalProducts(rs.getInt("total_products"));
+        dto.setSuccessCount(rs.getInt("success_count"));
+        dto.setSkippedCount(rs.getInt("skipped_count"));
+        dto.setErrorCount(rs.getInt("error_count"));
+        dto.setCompletedProducts(dto.getSuccessCount() + dto.getSkippedCount() + dto.getErrorCount());
+        dto.setErrorMessage(rs.getString("error_message"));
+        dto.setCreatedAt(toInstant(rs.getTimestamp("created_at")));
+        dto.setStartedAt(toInstant(rs.getTimestamp("started_at")));
+        dto.setFinishedAt(toInstant(rs.getTimestamp("finished_at")));
+        return dto;
+    };
+
+    private static final RowMapper<ForecastJobItemDTO> ITEM_MAPPER = (rs, rowNum) -> {
+        ForecastJobItemDTO dto = new ForecastJobItemDTO();
+        dto.setProductId(rs.getLong("product_id"));
+        dto.setStatus(rs.getString("status"));
+        dto.setMessage(rs.getString("message"));
+        int points = rs.getInt("forecast_points");
+        dto.setForecastPoints(rs.wasNull() ? null : points);
+        dto.setUpdatedAt(toInstant(rs.getTimestamp("updated_at")));
+        return dto;
+    };
+
+    public Long createJob(int horizonDays, LocalDate fromDate, LocalDate toDate, int minPoints) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO public.forecast_jobs (status, horizon_days, from_date, to_date, min_points)
+                VALUES ('PENDING', ?, ?, ?, ?)
+                RETURNING id
+                """, Long.class, horizonDays, Date.valueOf(fromDate), Date.valueOf(toDate), minPoints);
+    }
+
+    public Optional<ForecastJobDTO> findJob(Long jobId) {
+        return jdbcTemplate.query("SELECT * FROM public.forecast_jobs WHERE id = ?", JOB_MAPPER, jobId)
+                .stream().findFirst();
+    }
+
+    public List<ForecastJobDTO> findRecentJobs(int limit) {
+        return jdbcTemplate.query("SELECT * FROM public.forecast_jobs ORDER BY id DESC LIMIT ?", JOB_MAPPER, limit);
+    }
+
+    /**
+     * الـ jobs التي لم تنتهِ (مثلاً بسبب إعادة تشغيل السيرفر)
+     */
+    public List<Long> findUnfinishedJobIds() {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM public.forecast_jobs WHERE status IN ('PENDING', 'RUNNING') ORDER BY id", Long.class);
+    }
+
+    public void markRunning(Long jobId) {
+        jdbcTemplate.update("""
+                UPDATE public.forecast_jobs
+                SET status = 'RUNNING', error_message = NULL, finished_at = NULL,
+                    started_at = COALESCE(started_at, now())
+                WHERE id = ?
+                """, jobId);
+    }
+
+    public void markFinished(Long jobId, String status, String errorMessage) {
+        jdbcTemplate.update("""
+                UPDATE public.forecast_jobs
+                SET status = ?, error_message = ?, finished_at = now()
+                WHERE id = ?
+                """, status, errorMessage, jobId);
+    }
+
+    /**
+     * إضافة المنتجات المؤهَّلة كـ PENDING (المنتجات الموجودة مسبقاً لا تتغير)
+     */
+    public void addItems(Long jobId, List<Long> productIds) {
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    INSERT INTO public.forecast_job_items (job_id, product_id)
+                    SELECT ?, unnest(?::bigint[])
+                    ON CONFLICT (job_id, product_id) DO NOTHING
+                    """);
+            ps.setLong(1, jobId);
+            ps.setArray(2, con.createArrayOf("bigint", productIds.toArray()));
+            return ps;
+        });
+        jdbcTemplate.update("""
+                UPDATE public.forecast_jobs
+                SET total_products = (SELECT COUNT(*) FROM public.forecast_job_items WHERE job_id = ?)
+                WHERE id = ?
+                """, jobId, jobId);
+    }
+
+    /**
+     * المنتجات التي لم تنجح بعد (تُعاد عند استئناف الـ job)
+     */
+    public List<Long> findProductIdsToRun(Long jobId) {
+        return jdbcTemplate.queryForList("""
+                SELECT product_id FROM public.forecast_job_items
+                WHERE job_id = ? AND status <> 'SUCCESS'
+                ORDER BY product_id
+                """, Long.class, jobId);
+    }
+
+    /**
+     * Checkpoint: حفظ نتيجة مجموعة منتجات ثم تحديث العدّادات في الـ job
+     */
+    public void saveItems(Long jobId, List<ProductForecastBatchItemDTO> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                UPDATE public.forecast_job_items
+                SET status = ?, message = ?, forecast_points = ?, updated_at = now()
+                WHERE job_id = ? AND product_id = ?
+                """, items, items.size(), (ps, item) -> {
+            ps.setString(1, item.getStatus());
+            ps.setString(2, item.getMessage());
+            if (item.getForecastPoints() != null) {
+                ps.setInt(3, item.getForecastPoints());
+            } else {
+                ps.setNull(3, Types.INTEGER);
+            }
+            ps.setLong(4, jobId);
+            ps.setLong(5, item.getProductId());
+        });
+        jdbcTemplate.update("""
+                UPDATE public.forecast_jobs j
+                SET success_count = c.success_count,
+                    skipped_count = c.skipped_count,
+                    error_count = c.error_count
+                FROM (
+                    SELECT COUNT(*) FILTER (WHERE status = 'SUCCESS') AS success_count,
+                           COUNT(*) FILTER (WHERE status LIKE 'SKIPPED%') AS skipped_count,
+                           COUNT(*) FILTER (WHERE status = 'ERROR') AS error_count
+                    FROM public.forecast_job_items
+                    WHERE job_id = ?
+                ) c
+                WHERE j.id = ?
+                """, jobId, jobId);
+    }
+
+    public List<ForecastJobItemDTO> findItems(Long jobId, String status, int limit, int offset) {
+        return jdbcTemplate.query("""
+                SELECT product_id, status, message, forecast_points, updated_at
+                FROM public.forecast_job_items
+                WHERE job_id = ?
+                  AND (CAST(? AS VARCHAR) IS NULL OR status = ?)
+                ORDER BY product_id
+                LIMIT ? OFFSET ?
+                """, ITEM_MAPPER, jobId, status, status, limit, offset);
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
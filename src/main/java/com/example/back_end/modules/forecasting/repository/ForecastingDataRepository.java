@@ -32,7 +32,7 @@ public class ForecastingDataRepository {
     }
 
     /**
-     * جلب السلسلة الزمنية لمنتج معيّن من الـ View مع تضمين الأيام بدون مبيعات (Zero Demand)
+     * جلب السلسلة الزمنية لمنتج معيّن من جدول daily_product_sales مع تضمين الأيام بدون مبيعات (Zero Demand)
      */
     public List<DailyProductSalesRow> findDailySalesForProduct(Long productId,
                                                                LocalDate fromDate,
@@ -43,7 +43,7 @@ public class ForecastingDataRepository {
                    COALESCE(v.promo_any_flag, 0) as promo_any_flag,
                    COALESCE(v.avg_discount_pct, 0) as avg_discount_pct
             FROM generate_series(?::date, ?::date, interval '1 day') AS d
-            LEFT JOIN public.v_daily_product_sales_with_offers v
+            LEFT JOIN public.daily_product_sales v
               ON v.product_id = ?
              AND v.sales_date = d::date
             ORDER BY d
@@ -27,7 +27,7 @@ public class ForecastingProductRepository {
         String sql = """
                 SELECT p.id
                 FROM public.products p
-                JOIN public.v_daily_product_sales_with_offers v
+                JOIN public.daily_product_sales v
                   ON v.product_id = p.id
                 WHERE p.is_active = TRUE
                   AND v.sales_date BETWEEN ? AND ?
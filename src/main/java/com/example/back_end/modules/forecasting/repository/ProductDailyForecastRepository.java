@@ -10,7 +10,9 @@ import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 @RequiredArgsConstructor
@@ -48,6 +50,20 @@ public class ProductDailyForecastRepository {
      * تخزين / تحديث نتائج التنبؤ لمنتج معيّن
      */
     public void upsertForecast(Long productId, List<ForecastPointDTO> points) {
+        upsertForecasts(Map.of(productId, points));
+    }
+
+    /**
+     * تخزين نتائج التنبؤ لعدة منتجات في batch واحد (يستخدمه الـ batch runner)
+     */
+    public void upsertForecasts(Map<Long, List<ForecastPointDTO>> pointsByProduct) {
+        List<Map.Entry<Long, ForecastPointDTO>> rows = new ArrayList<>();
+        pointsByProduct.forEach((productId, points) ->
+                points.forEach(point -> rows.add(Map.entry(productId, point))));
+        if (rows.isEmpty()) {
+            return;
+        }
+
         String sql = """
                 INSERT INTO public.product_daily_forecast
                     (product_id, forecast_date, yhat, yhat_lower, yhat_upper, generated_at)
@@ -60,8 +76,9 @@ public class ProductDailyForecastRepository {
                     generated_at = now()
                 """;
 
-        jdbcTemplate.batchUpdate(sql, points, points.size(), (ps, point) -> {
-            ps.setLong(1, productId);
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+            ForecastPointDTO point = row.getValue();
+            ps.setLong(1, row.getKey());
             ps.setDate(2, Date.valueOf(point.getDs()));
             ps.setDouble(3, point.getYhat());
             if (point.getYhatLower() != null) {
@@ -5,10 +5,12 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
@@ -60,6 +62,70 @@ public class ProductStockForecastSummaryRepository {
         );
     }
 
+    /**
+     * إعادة بناء الملخّص لكل المنتجات (مخزونها >= minCurrentStock) في جملة SQL واحدة:
+     * - متوسط الطلب = AVG(GREATEST(yhat, 0)) خلال الفترة
+     * - تاريخ النفاد = أول يوم يصبح فيه الطلب التراكمي (window function) >= المخزون الحالي
+     * - الكمية المقترحة = GREATEST(avg * coverageDays - stock, 0)
+     *
+     * @return عدد المنتجات التي تم تحديثها
+     */
+    public int rebuildSummaries(LocalDate fromDate, LocalDate toDate,
+                                BigDecimal minCurrentStock, int coverageDays) {
+        String sql = """
+                WITH stock AS (
+                    SELECT product_id, total_qty
+                    FROM public.v_product_current_stock
+                    WHERE total_qty >= ?
+                ),
+                demand AS (
+                    SELECT f.product_id,
+                           f.forecast_date,
+                           GREATEST(f.yhat, 0) AS qty,
+                           SUM(GREATEST(f.yhat, 0)) OVER (
+                               PARTITION BY f.product_id ORDER BY f.forecast_date
+                           ) AS cumulative_qty
+                    FROM public.product_daily_forecast f
+                    JOIN stock s ON s.product_id = f.product_id
+                    WHERE f.forecast_date BETWEEN ? AND ?
+                ),
+                summary AS (
+                    SELECT s.product_id,
+                           s.total_qty AS current_stock,
+                           COALESCE(ROUND(AVG(d.qty), 2), 0) AS avg_daily_demand,
+                           MIN(d.forecast_date) FILTER (WHERE d.cumulative_qty >= s.total_qty)
+                               AS expected_stockout_date
+                    FROM stock s
+                    LEFT JOIN demand d ON d.product_id = s.product_id
+                    GROUP BY s.product_id, s.total_qty
+                )
+                INSERT INTO public.product_stock_forecast_summary
+                    (product_id, current_stock, avg_daily_demand,
+                     expected_stockout_date, recommended_reorder_qty, generated_at)
+                SELECT product_id,
+                       current_stock,
+                       avg_daily_demand,
+                       expected_stockout_date,
+                       GREATEST(avg_daily_demand * ? - current_stock, 0),
+                       now()
+                FROM summary
+                ON CONFLICT (product_id)
+                DO UPDATE SET
+                    current_stock = EXCLUDED.current_stock,
+                    avg_daily_demand = EXCLUDED.avg_daily_demand,
+                    expected_stockout_date = EXCLUDED.expected_stockout_date,
+                    recommended_reorder_qty = EXCLUDED.recommended_reorder_qty,
+                    generated_at = now()
+                """;
+
+        return jdbcTemplate.update(sql,
+                minCurrentStock,
+                Date.valueOf(fromDate),
+                Date.valueOf(toDate),
+                coverageDays
+        );
+    }
+
     public ProductStockForecastSummaryRow findByProductId(Long productId) {
         String sql = """
                 SELECT product_id, current_stock, avg_daily_demand,
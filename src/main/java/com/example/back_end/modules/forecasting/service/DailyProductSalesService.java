@@ -0,0 +1,110 @@
+package com.example.back_end.modules.forecasting.service;
+
+import com.example.back_end.modules.forecasting.repository.DailyProductSalesRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the daily_product_sales fact table current.
+ *
+ * - per order: refreshed after the payment / return commits (StockPostingDispatcher), in a
+ *   transaction of its own so it never depends on the stock posting succeeding
+ * - sweep: orders whose refresh was lost (queue full, failure, restart)
+ * - backfill: rebuilds a whole date range, one chunk of days per transaction
+ */
+@Service
+@Slf4j
+public class DailyProductSalesService {
+
+    private final DailyProductSalesRepository dailyProductSalesRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${forecasting.sales-facts.backfill-chunk-days:31}")
+    private int chunkDays = 31;
+
+    @Value("${forecasting.sales-facts.sweep-batch-size:200}")
+    private int sweepBatchSize = 200;
+
+    @Value("${forecasting.sales-facts.sweep-grace-seconds:60}")
+    private int sweepGraceSeconds = 60;
+
+    public DailyProductSalesService(DailyProductSalesRepository dailyProductSalesRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.dailyProductSalesRepository = dailyProductSalesRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Refresh the rows of a paid order, or of the original order of a return order
+     *
+     * @return false when the order was already refreshed or is not finished
+     */
+    public boolean refreshForOrder(Long orderId) {
+        Boolean refreshed = transactionTemplate.execute(status -> {
+            Long factsOrderId = dailyProductSalesRepository.claimOrderRefresh(orderId);
+            if (factsOrderId == null) {
+                return false;
+            }
+            dailyProductSalesRepository.refreshForOrder(factsOrderId);
+            return true;
+        });
+        return Boolean.TRUE.equals(refreshed);
+    }
+
+    /**
+     * Catch-up for finished orders whose rows were never refreshed
+     */
+    @Scheduled(fixedDelayString = "${forecasting.sales-facts.sweep-interval:PT1M}")
+    public void refreshPending() {
+        List<Long> pending = dailyProductSalesRepository.findUnrefreshedOrders(sweepGraceSeconds, sweepBatchSize);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int refreshed = 0;
+        for (Long orderId : pending) {
+            try {
+                if (refreshForOrder(orderId)) {
+                    refreshed++;
+                }
+            } catch (RuntimeException e) {
+                log.error("daily_product_sales refresh failed for order {}, will retry on next sweep", orderId, e);
+            }
+        }
+        log.info("Sales facts sweep: {} of {} pending orders refreshed", refreshed, pending.size());
+    }
+
+    /**
+     * إعادة بناء جدول المبيعات اليومية للفترة [fromDate, toDate]
+     *
+     * @return عدد الصفوف (يوم × منتج) المكتوبة
+     */
+    public int rebuild(LocalDate fromDate, LocalDate toDate) {
+        if (fromDate == null || toDate == null || fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("fromDate must be on or before toDate");
+        }
+
+        int rows = 0;
+        for (LocalDate chunkFrom = fromDate; !chunkFrom.isAfter(toDate); chunkFrom = chunkFrom.plusDays(chunkDays)) {
+            LocalDate chunkTo = min(chunkFrom.plusDays(chunkDays - 1L), toDate);
+            LocalDate from = chunkFrom;
+            Integer written = transactionTemplate.execute(status ->
+                    dailyProductSalesRepository.rebuildRange(from, chunkTo));
+            rows += written != null ? written : 0;
+        }
+
+        log.info("Rebuilt daily_product_sales from {} to {}: {} rows", fromDate, toDate, rows);
+        return rows;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.back_end.modules.forecasting.service;
+
+import com.example.back_end.modules.forecasting.dto.BatchForecastResponseDTO;
+import com.example.back_end.modules.forecasting.dto.ForecastBatchProgressDTO;
+import com.example.back_end.modules.forecasting.dto.ForecastPointDTO;
+import com.example.back_end.modules.forecasting.dto.ForecastRequestDTO;
+import com.example.back_end.modules.forecasting.dto.ForecastResponseDTO;
+import com.example.back_end.modules.forecasting.dto.ProductForecastBatchItemDTO;
+import com.example.back_end.modules.forecasting.repository.ProductDailyForecastRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs the forecast of many products against the FastAPI service.
+ *
+ * Up to `concurrency` products are in flight at once. Every call has a timeout, and
+ * 5xx, timeout and connection errors are retried with exponential backoff. A circuit
+ * breaker stops calling the service after repeated failures; products meeting an open
+ * circuit wait for it to half-open and try again, giving up after `circuit-breaker.max-wait`.
+ *
+ * Forecasts are stored in multi-product batches of `write-batch-size` products.
+ * Progress can be read while the run is going.
+ */
+@Component
+@Slf4j
+public class ForecastBatchRunner {
+
+    private final ForecastingService forecastingService;
+    private final ProductDailyForecastRepository forecastRepository;
+    private final ForecastCircuitBreaker circuitBreaker;
+
+    private final int concurrency;
+    private final Duration callTimeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final int writeBatchSize;
+    private final Duration circuitMaxWait;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RunProgress progress;
+
+    public ForecastBatchRunner(ForecastingService forecastingService,
+                               ProductDailyForecastRepository forecastRepository,
+                               @Value("${forecasting.batch.concurrency:8}") int concurrency,
+                               @Value("${forecasting.batch.call-timeout:PT30S}") Duration callTimeout,
+                               @Value("${forecasting.batch.max-retries:3}") int maxRetries,
+                               @Value("${forecasting.batch.retry-backoff:PT0.5S}") Duration retryBackoff,
+                               @Value("${forecasting.batch.write-batch-size:50}") int writeBatchSize,
+                               @Value("${forecasting.batch.circuit-breaker.failure-threshold:10}") int failureThreshold,
+                               @Value("${forecasting.batch.circuit-breaker.open-duration:PT30S}") Duration openDuration,
+                               @Value("${forecasting.batch.circuit-breaker.max-wait:PT2M}") Duration circuitMaxWait) {
+        this.forecastingService = forecastingService;
+        this.forecastRepository = forecastRepository;
+        this.concurrency = Math.max(1, concurrency);
+        this.callTimeout = callTimeout;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoff = retryBackoff;
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+        this.circuitMaxWait = circuitMaxWait;
+        this.circuitBreaker = new ForecastCircuitBreaker(failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    /**
+     * Forecast the given products and store the results. Blocks until the run is finished.
+     *
+     * @throws IllegalStateException when another batch run is in progress
+     */
+    public BatchForecastResponseDTO run(List<Long> productIds, int horizonDays, LocalDate fromDate, LocalDate toDate) {
+        return run(productIds, horizonDays, fromDate, toDate, items -> { });
+    }
+
+    /**
+     * Same as {@link #run(List, int, LocalDate, LocalDate)}; onGroupStored receives the results of each
+     * group of products right after their forecasts were stored (used for job checkpoints).
+     */
+    public BatchForecastResponseDTO run(List<Long> productIds, int horizonDays, LocalDate fromDate, LocalDate toDate,
+                                        Consumer<List<ProductForecastBatchItemDTO>> onGroupStored) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A forecast batch is already running");
+        }
+
+        RunProgress run = new RunProgress(productIds.size());
+        progress = run;
+        try {
+            List<ProductForecastBatchItemDTO> details = Flux.fromIterable(productIds)
+                    .flatMapSequential(productId -> forecastOne(productId, horizonDays, fromDate, toDate), concurrency)
+                    .buffer(writeBatchSize)
+                    .concatMap(outcomes -> Mono.fromCallable(() -> store(outcomes, run, onGroupStored))
+                            .subscribeOn(Schedulers.boundedElastic()))
+                    .flatMapIterable(items -> items)
+                    .collectList()
+                    .block();
+
+            BatchForecastResponseDTO result = new BatchForecastResponseDTO();
+            result.setTotalProducts(productIds.size());
+            result.setSuccessCount(run.success.get());
+            result.setSkippedCount(run.skipped.get());
+            result.setErrorCount(run.errors.get());
+            result.setDetails(details);
+            return result;
+        } finally {
+            run.finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Progress of the current (or last) run, null when nothing ran yet
+     */
+    public ForecastBatchProgressDTO getProgress() {
+        RunProgress run = progress;
+        if (run == null) {
+            return null;
+        }
+        ForecastBatchProgressDTO dto = new ForecastBatchProgressDTO();
+        dto.setRunning(run.finishedAt == null);
+        dto.setStartedAt(run.startedAt);
+        dto.setFinishedAt(run.finishedAt);
+        dto.setTotalProducts(run.total);
+        dto.setCompletedProducts(run.completed.get());
+        dto.setSuccessCount(run.success.get());
+        dto.setSkippedCount(run.skipped.get());
+        dto.setErrorCount(run.errors.get());
+        dto.setCircuitState(circuitBreaker.getState().name());
+        return dto;
+    }
+
+    private Mono<Outcome> forecastOne(Long productId, int horizonDays, LocalDate fromDate, LocalDate toDate) {
+        return Mono.fromCallable(() -> forecastingService.buildRequest(productId, horizonDays, fromDate, toDate))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(this::callWithPolicies)
+                .map(response -> toOutcome(productId, response))
+                .defaultIfEmpty(skipped(productId, "SKIPPED_NO_DATA",
+                        "No sales or forecast data available for this product in the given period."))
+                .onErrorResume(e -> Mono.just(failed(productId, e)));
+    }
+
+    private Mono<ForecastResponseDTO> callWithPolicies(ForecastRequestDTO request) {
+        return Mono.defer(() -> {
+                    if (!circuitBreaker.tryAcquire()) {
+                        return Mono.error(new ForecastCircuitBreaker.CircuitOpenException());
+                    }
+                    return forecastingService.requestForecast(request)
+                            .timeout(callTimeout)
+                            // a cancelled probe never reports, it must not keep the circuit half-open forever
+                            .doOnCancel(circuitBreaker::releaseProbe)
+                            .doOnSuccess(response -> circuitBreaker.recordSuccess())
+                            .doOnError(e -> {
+                                if (isRetryable(e)) {
+                                    circuitBreaker.recordFailure();
+                                } else {
+                                    // 4xx: the service answered, it is the request that was rejected
+                                    circuitBreaker.recordSuccess();
+                                }
+                            });
+                })
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .filter(this::isRetryable)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .retryWhen(waitForCircuit());
+    }
+
+    /**
+     * Retry a product that met an open circuit once the open duration has passed (or, while the
+     * half-open probe is out, after the retry backoff). Gives up when the wait would go past
+     * circuitMaxWait counted from the first rejection.
+     */
+    private Retry waitForCircuit() {
+        return Retry.from(signals -> {
+            AtomicReference<Instant> giveUpAt = new AtomicReference<>();
+            return signals.concatMap(signal -> {
+                if (!(signal.failure() instanceof ForecastCircuitBreaker.CircuitOpenException)) {
+                    return Mono.error(signal.failure());
+                }
+                Instant now = Instant.now();
+                giveUpAt.compareAndSet(null, now.plus(circuitMaxWait));
+                Duration wait = circuitBreaker.remainingOpen();
+                if (wait.compareTo(retryBackoff) < 0) {
+                    wait = retryBackoff;
+                }
+                if (now.plus(wait).isAfter(giveUpAt.get())) {
+                    return Mono.error(signal.failure());
+                }
+                return Mono.delay(wait);
+            });
+        });
+    }
+
+    private boolean isRetryable(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+        return e instanceof TimeoutException || e instanceof WebClientRequestException;
+    }
+
+    private Outcome toOutcome(Long productId, ForecastResponseDTO response) {
+        if (response.getForecast() == null || response.getForecast().isEmpty()) {
+            return skipped(productId, "SKIPPED_NO_DATA",
+                    "No sales or forecast data available for this product in the given period.");
+        }
+        ProductForecastBatchItemDTO item = item(productId, "SUCCESS", "Forecast generated and stored successfully.");
+        item.setForecastPoints(response.getForecast().size());
+        return new Outcome(item, response.getForecast());
+    }
+
+    private Outcome failed(Long productId, Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            String body = responseException.getResponseBodyAsString();
+            if (responseException.getStatusCode().value() == 400 && body.contains("Not enough data points")) {
+                return skipped(productId, "SKIPPED_NOT_ENOUGH_DATA",
+                        "Not enough data points to build forecast (from FastAPI).");
+            }
+            log.error("Batch forecast: product {} error from FastAPI, status={}, body={}",
+                    productId, responseException.getStatusCode(), body);
+            return new Outcome(item(productId, "ERROR",
+                    "Error calling forecasting service: " + responseException.getStatusCode()), null);
+        }
+        if (e instanceof ForecastCircuitBreaker.CircuitOpenException) {
+            return new Outcome(item(productId, "ERROR", "Forecasting service unavailable (circuit open)."), null);
+        }
+        if (e instanceof TimeoutException) {
+            log.error("Batch forecast: product {} timed out after {}", productId, callTimeout);
+            return new Outcome(item(productId, "ERROR", "Forecasting service timed out."), null);
+        }
+        log.error("Batch forecast: product {} unexpected error.", productId, e);
+        return new Outcome(item(productId, "ERROR", "Unexpected error: " + e.getMessage()), null);
+    }
+
+    /**
+     * Write the successful forecasts of one group of products in a single batch and count the outcomes
+     */
+    private List<ProductForecastBatchItemDTO> store(List<Outcome> outcomes, RunProgress run,
+                                                    Consumer<List<ProductForecastBatchItemDTO>> onGroupStored) {
+        Map<Long, List<ForecastPointDTO>> points = new LinkedHashMap<>();
+        for (Outcome outcome : outcomes) {
+            if (outcome.points() != null) {
+                points.put(outcome.item().getProductId(), outcome.points());
+            }
+        }
+
+        try {
+            forecastRepository.upsertForecasts(points);
+        } catch (Exception e) {
+            log.error("Batch forecast: storing forecasts of {} products failed", points.size(), e);
+            for (Outcome outcome : outcomes) {
+                if (outcome.points() != null) {
+                    outcome.item().setStatus("ERROR");
+                    outcome.item().setMessage("Error storing forecast: " + e.getMessage());
+                    outcome.item().setForecastPoints(null);
+                }
+            }
+        }
+
+        for (Outcome outcome : outcomes) {
+            switch (outcome.item().getStatus()) {
+                case "SUCCESS" -> run.success.incrementAndGet();
+                case "ERROR" -> run.errors.incrementAndGet();
+                default -> run.skipped.incrementAndGet();
+            }
+        }
+        int completed = run.completed.addAndGet(outcomes.size());
+        log.info("Batch forecast progress: {}/{} products (success={}, skipped={}, errors={}, circuit={})",
+                completed, run.total, run.success.get(), run.skipped.get(), run.errors.get(),
+                circuitBreaker.getState());
+
+        List<ProductForecastBatchItemDTO> items = outcomes.stream().map(Outcome::item).toList();
+        onGroupStored.accept(items);
+        return items;
+    }
+
+    private static Outcome skipped(Long productId, String status, String message) {
+        return new Outcome(item(productId, status, message), null);
+    }
+
+    private static ProductForecastBatchItemDTO item(Long productId, String status, String message) {
+        ProductForecastBatchItemDTO item = new ProductForecastBatchItemDTO();
+        item.setProductId(productId);
+        item.setStatus(status);
+        item.setMessage(message);
+        return item;
+    }
+
+    /**
+     * Result of one product; points are set only for a forecast that still has to be stored
+     */
+    private record Outcome(ProductForecastBatchItemDTO item, List<ForecastPointDTO> points) {
+    }
+
+    private static class RunProgress {
+        final int total;
+        final Instant startedAt = Instant.now();
+        volatile Instant finishedAt;
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger success = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+
+        RunProgress(int total) {
+            this.total = total;
+        }
+    }
+}
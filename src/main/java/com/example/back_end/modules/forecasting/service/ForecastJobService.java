@@ -0,0 +1,206 @@
+package com.example.back_end.modules.forecasting.service;
+
+import com.example.back_end.exception.ResourceNotFoundException;
+import com.example.back_end.modules.forecasting.dto.ForecastJobDTO;
+import com.example.back_end.modules.forecasting.dto.ForecastJobItemDTO;
+import com.example.back_end.modules.forecasting.repository.ForecastJobRepository;
+import com.example.back_end.modules.forecasting.repository.ForecastingProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Batch forecast as a background job.
+ *
+ * The job and the result of every product are stored in forecast_jobs / forecast_job_items,
+ * checkpointed after each group of products. A resumed job (explicitly, or on startup after
+ * a crash) only runs the products that are not SUCCESS yet.
+ */
+@Service
+@Slf4j
+public class ForecastJobService {
+
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private final ForecastJobRepository jobRepository;
+    private final ForecastingProductRepository forecastingProductRepository;
+    private final ForecastBatchRunner forecastBatchRunner;
+    private final Executor executor;
+    private final TaskScheduler taskScheduler;
+
+    // jobs submitted to the executor and not finished yet
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+
+    @Value("${forecasting.jobs.resume-on-startup:true}")
+    private boolean resumeOnStartup = true;
+
+    @Value("${forecasting.jobs.progress-interval:PT1S}")
+    private Duration progressInterval = Duration.ofSeconds(1);
+
+    @Value("${forecasting.jobs.stream-timeout:PT30M}")
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+    public ForecastJobService(ForecastJobRepository jobRepository,
+                              ForecastingProductRepository forecastingProductRepository,
+                              ForecastBatchRunner forecastBatchRunner,
+                              @Qualifier("forecastJobExecutor") Executor executor,
+                              TaskScheduler taskScheduler) {
+        this.jobRepository = jobRepository;
+        this.forecastingProductRepository = forecastingProductRepository;
+        this.forecastBatchRunner = forecastBatchRunner;
+        this.executor = executor;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * إنشاء job جديد وتشغيله في الخلفية
+     */
+    public ForecastJobDTO startJob(int horizonDays, LocalDate fromDate, LocalDate toDate, int minPoints) {
+        Long jobId = jobRepository.createJob(horizonDays, fromDate, toDate, minPoints);
+        submit(jobId);
+        return getJob(jobId);
+    }
+
+    /**
+     * استئناف job (FAILED أو توقف بسبب إعادة التشغيل): المنتجات الناجحة لا تُعاد
+     */
+    public ForecastJobDTO resumeJob(Long jobId) {
+        ForecastJobDTO job = getJob(jobId);
+        if (activeJobs.contains(jobId)) {
+            throw new IllegalStateException("Forecast job " + jobId + " is already running");
+        }
+        if (COMPLETED.equals(job.getStatus()) && job.getErrorCount() == 0) {
+            return job;
+        }
+        submit(jobId);
+        return getJob(jobId);
+    }
+
+    public ForecastJobDTO getJob(Long jobId) {
+        return jobRepository.findJob(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Forecast job not found: " + jobId));
+    }
+
+    public List<ForecastJobDTO> listJobs(int limit) {
+        return jobRepository.findRecentJobs(Math.min(Math.max(limit, 1), 100));
+    }
+
+    public List<ForecastJobItemDTO> getItems(Long jobId, String status, int page, int size) {
+        getJob(jobId);
+        int pageSize = Math.min(Math.max(size, 1), 500);
+        return jobRepository.findItems(jobId, status, pageSize, Math.max(page, 0) * pageSize);
+    }
+
+    /**
+     * Server-Sent Events: حدث "progress" كل progressInterval حتى ينتهي الـ job
+     */
+    public SseEmitter streamProgress(Long jobId) {
+        getJob(jobId);
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+        Runnable cancel = () -> {
+            ScheduledFuture<?> future = task.get();
+            if (future != null) {
+                future.cancel(false);
+            }
+        };
+
+        task.set(taskScheduler.scheduleAtFixedRate(() -> {
+            try {
+                ForecastJobDTO job = getJob(jobId);
+                emitter.send(SseEmitter.event().name("progress").data(job));
+                if (isFinished(job) && !activeJobs.contains(jobId)) {
+                    emitter.complete();
+                    cancel.run();
+                }
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+                cancel.run();
+            }
+        }, progressInterval));
+
+        emitter.onCompletion(cancel);
+        emitter.onTimeout(cancel);
+        emitter.onError(e -> cancel.run());
+        return emitter;
+    }
+
+    /**
+     * الـ jobs التي كانت تعمل عند توقف السيرفر تُستأنف تلقائياً
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        for (Long jobId : jobRepository.findUnfinishedJobIds()) {
+            log.info("Resuming unfinished forecast job {}", jobId);
+            submit(jobId);
+        }
+    }
+
+    /**
+     * تنفيذ الـ job (على الـ forecastJobExecutor)
+     */
+    void runJob(Long jobId) {
+        try {
+            ForecastJobDTO job = getJob(jobId);
+            jobRepository.markRunning(jobId);
+
+            // أول تشغيل: تسجيل المنتجات المؤهَّلة كـ PENDING
+            if (job.getTotalProducts() == 0) {
+                List<Long> eligible = forecastingProductRepository.findEligibleProductIds(
+                        job.getFromDate(), job.getToDate(), job.getMinPoints());
+                jobRepository.addItems(jobId, eligible);
+            }
+
+            List<Long> productIds = jobRepository.findProductIdsToRun(jobId);
+            log.info("Forecast job {}: {} products to run", jobId, productIds.size());
+
+            forecastBatchRunner.run(productIds, job.getHorizonDays(), job.getFromDate(), job.getToDate(),
+                    items -> jobRepository.saveItems(jobId, items));
+
+            jobRepository.markFinished(jobId, COMPLETED, null);
+            log.info("Forecast job {} completed", jobId);
+        } catch (Exception e) {
+            log.error("Forecast job {} failed", jobId, e);
+            jobRepository.markFinished(jobId, FAILED, e.getMessage());
+        } finally {
+            activeJobs.remove(jobId);
+        }
+    }
+
+    private void submit(Long jobId) {
+        if (!activeJobs.add(jobId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> runJob(jobId));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(jobId);
+            jobRepository.markFinished(jobId, FAILED, "Too many forecast jobs queued, resume it later");
+            log.warn("Forecast job {} rejected: executor queue full", jobId);
+        }
+    }
+
+    private static boolean isFinished(ForecastJobDTO job) {
+        return COMPLETED.equals(job.getStatus()) || FAILED.equals(job.getStatus());
+    }
+}
@@ -9,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -32,13 +33,50 @@ public class ForecastingService {
                                                           LocalDate fromDate,
                                                           LocalDate toDate) {
 
+        ForecastRequestDTO requestDTO = buildRequest(productId, horizonDays, fromDate, toDate);
+        if (requestDTO == null) {
+            return null;
+        }
+
+        // 4) استدعاء FastAPI
+        ForecastResponseDTO response;
+        try {
+            response = requestForecast(requestDTO).block();
+            response.setProductId(productId);
+        } catch (WebClientResponseException e) {
+            log.error("Error calling forecasting service: status={}, body={}",
+                    e.getStatusCode(), e.getResponseBodyAsString(), e);
+            throw e;
+        } catch (Exception e) {
+            log.error("Error calling forecasting service", e);
+            throw e;
+        }
+
+        if (response == null || response.getForecast() == null) {
+            log.warn("Empty forecast response for productId={}", productId);
+            return response;
+        }
+
+        // 5) تخزين النتائج في جدول product_daily_forecast
+        forecastRepository.upsertForecast(productId, response.getForecast());
+
+        return response;
+    }
+
+    /**
+     * بناء طلب التنبؤ من السلسلة الزمنية للمنتج (null إذا لا يوجد مبيعات في الفترة)
+     */
+    public ForecastRequestDTO buildRequest(Long productId,
+                                           int horizonDays,
+                                           LocalDate fromDate,
+                                           LocalDate toDate) {
+
         // 1) جلب السلسلة الزمنية من الـ view
         List<DailyProductSalesRow> rows =
                 dataRepository.findDailySalesForProduct(productId, fromDate, toDate);
 
         if (rows.isEmpty()) {
             log.warn("No sales data found for productId={} between {} and {}", productId, fromDate, toDate);
-            // ممكن ترجع null أو ترمي Exception حسب ما تفضّل
             return null;
         }
 
@@ -66,35 +104,18 @@ public class ForecastingService {
         // نستخدم هذين الـ regressors كبداية
         requestDTO.setRegressors(List.of("promo_any_flag", "avg_discount_pct"));
         requestDTO.setSeries(series);
+        return requestDTO;
+    }
 
-        // 4) استدعاء FastAPI
-        ForecastResponseDTO response;
-        try {
-            response = forecastingWebClient.post()
-                    .uri("/api/v1/forecast/product")
-                    .bodyValue(requestDTO)
-                    .retrieve()
-                    .bodyToMono(ForecastResponseDTO.class)
-                    .block(); // ممكن لاحقاً تحوّلها لـ reactive بالكامل
-            response.setProductId(productId);
-        } catch (WebClientResponseException e) {
-            log.error("Error calling forecasting service: status={}, body={}",
-                    e.getStatusCode(), e.getResponseBodyAsString(), e);
-            throw e;
-        } catch (Exception e) {
-            log.error("Error calling forecasting service", e);
-            throw e;
-        }
-
-        if (response == null || response.getForecast() == null) {
-            log.warn("Empty forecast response for productId={}", productId);
-            return response;
-        }
-
-        // 5) تخزين النتائج في جدول product_daily_forecast
-        forecastRepository.upsertForecast(productId, response.getForecast());
-
-        return response;
+    /**
+     * استدعاء FastAPI بدون block (يستخدمه الـ batch runner)
+     */
+    public Mono<ForecastResponseDTO> requestForecast(ForecastRequestDTO requestDTO) {
+        return forecastingWebClient.post()
+                .uri("/api/v1/forecast/product")
+                .bodyValue(requestDTO)
+                .retrieve()
+                .bodyToMono(ForecastResponseDTO.class);
     }
 
     public ForecastResponseDTO getStoredForecastForProduct(Long productId,
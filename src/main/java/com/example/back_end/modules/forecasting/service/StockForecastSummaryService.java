@@ -20,6 +20,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class StockForecastSummaryService {
 
+    // عدد أيام التغطية المستهدفة عند حساب الكمية المقترحة لإعادة الطلب
+    private static final int TARGET_COVERAGE_DAYS = 14;
+
     private final ProductCurrentStockRepository currentStockRepository;
     private final ProductDailyForecastRepository forecastRepository;
     private final ProductStockForecastSummaryRepository summaryRepository;
@@ -98,9 +101,8 @@ public class StockForecastSummaryService {
         }
 
         // 5) حساب الكمية المقترحة لإعادة الطلب
-        int targetCoverageDays = 14; // ممكن نخلّيها configurable لاحقاً
         BigDecimal targetStock =
-                avgDailyDemand.multiply(BigDecimal.valueOf(targetCoverageDays));
+                avgDailyDemand.multiply(BigDecimal.valueOf(TARGET_COVERAGE_DAYS));
 
         BigDecimal recommendedReorderQty =
                 targetStock.subtract(currentStock != null ? currentStock : BigDecimal.ZERO);
@@ -147,22 +149,12 @@ public class StockForecastSummaryService {
             minCurrentStock = BigDecimal.ZERO;
         }
 
-        // نجيب كل المنتجات من ال View مع فلتر على المخزون
-        List<ProductCurrentStockViewRow> products =
-                currentStockRepository.findAllWithMinTotalQty(minCurrentStock);
-
-        int processedCount = 0;
+        // نفس حسابات rebuildSummaryForProduct لكن لكل المنتجات في جملة SQL واحدة
+        LocalDate today = LocalDate.now();
+        LocalDate toDate = today.plusDays(horizonDays - 1);
 
-        for (ProductCurrentStockViewRow p : products) {
-            Long productId = p.getProductId();
-            try {
-                rebuildSummaryForProduct(productId, horizonDays);
-                processedCount++;
-            } catch (Exception ex) {
-                // ما نوقف الـ Batch لو منتج واحد عمل مشكلة
-                log.error("Error rebuilding stock forecast summary for productId={}", productId, ex);
-            }
-        }
+        int processedCount = summaryRepository.rebuildSummaries(
+                today, toDate, minCurrentStock, TARGET_COVERAGE_DAYS);
 
         log.info("Batch stock forecast summary completed. horizonDays={}, minCurrentStock={}, processedCount={}",
                 horizonDays, minCurrentStock, processedCount);
@@ -26,6 +26,7 @@ public class BundleApplicationResult {
 
     /**
      * ID of the applied bundle offer
+     * When several bundles are applied, this is the one with the largest total discount
      */
     private Long offerId;
 
@@ -50,6 +51,17 @@ public class BundleApplicationResult {
      */
     private Map<Long, BigDecimal> itemDiscounts;
 
+    /**
+     * Map of item offers: itemId -> bundle offer ID
+     * An item shared by several bundles gets the bundle contributing most of its discount
+     */
+    private Map<Long, Long> itemOfferIds;
+
+    /**
+     * Map of applied bundles: offerId -> number of instances applied
+     */
+    private Map<Long, Integer> bundleInstances;
+
     /**
      * Initialize with default values
      */
@@ -58,6 +70,8 @@ public class BundleApplicationResult {
         result.setBundleApplied(false);
         result.setTotalDiscount(BigDecimal.ZERO);
         result.setItemDiscounts(new HashMap<>());
+        result.setItemOfferIds(new HashMap<>());
+        result.setBundleInstances(new HashMap<>());
         return result;
     }
 }
\ No newline at end of file
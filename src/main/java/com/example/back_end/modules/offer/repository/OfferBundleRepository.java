@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,6 +23,16 @@ public interface OfferBundleRepository extends JpaRepository<OfferBundle, Long>
     @Query("SELECT ob FROM OfferBundle ob WHERE ob.offer.id = :offerId")
     List<OfferBundle> findByOfferId(@Param("offerId") Long offerId);
 
+    /**
+     * Find bundle items for several offers at once
+     * Used to build the bundle index without one query per bundle
+     *
+     * @param offerIds The offer IDs
+     * @return List of OfferBundle items for all given offers
+     */
+    @Query("SELECT ob FROM OfferBundle ob WHERE ob.offer.id IN :offerIds")
+    List<OfferBundle> findByOfferIdIn(@Param("offerIds") Collection<Long> offerIds);
+
     /**
      * Delete all bundle items for a specific offer
      * Used when deleting or updating a bundle offer
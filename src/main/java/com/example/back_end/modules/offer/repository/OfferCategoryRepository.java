@@ -7,10 +7,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OfferCategoryRepository extends JpaRepository<OfferCategory, OfferCategory.OfferCategoryId> {
 
     @Modifying
     @Query("DELETE FROM OfferCategory oc WHERE oc.offer.id = :offerId")
     void deleteByOfferId(@Param("offerId") Long offerId);
+
+    @Query("SELECT oc FROM OfferCategory oc WHERE oc.offer.id IN :offerIds")
+    List<OfferCategory> findByOfferIdIn(@Param("offerIds") Collection<Long> offerIds);
 }
\ No newline at end of file
@@ -18,4 +18,7 @@ public interface OfferProductRepository extends JpaRepository<OfferProduct, Offe
            "LEFT JOIN FETCH op.product " +
            "WHERE op.offer.id = :offerId")
     java.util.List<OfferProduct> findByOfferId(@Param("offerId") Long offerId);
+
+    @Query("SELECT op FROM OfferProduct op WHERE op.offer.id IN :offerIds")
+    java.util.List<OfferProduct> findByOfferIdIn(@Param("offerIds") java.util.Collection<Long> offerIds);
 }
\ No newline at end of file
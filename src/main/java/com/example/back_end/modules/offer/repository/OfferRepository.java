@@ -96,4 +96,11 @@ public interface OfferRepository extends JpaRepository<Offer, Long>, JpaSpecific
 """)
     List<Offer> findActiveBundleOffers(@Param("now") LocalDateTime now);
 
+    /**
+     * Find enabled offers that have not ended yet (including ones that start later)
+     * Used to build the in-memory OfferIndex
+     */
+    @Query("SELECT o FROM Offer o WHERE o.isActive = true AND o.endAt >= :now")
+    List<Offer> findIndexableOffers(@Param("now") LocalDateTime now);
+
 }
\ No newline at end of file
@@ -7,10 +7,21 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface OrderOfferRepository extends JpaRepository<OrderOffer, Long> {
 
     @Modifying
     @Query("DELETE FROM OrderOffer oo WHERE oo.offer.id = :offerId")
     void deleteByOfferId(@Param("offerId") Long offerId);
+
+    /**
+     * Find ORDER offers that are enabled and not ended yet, with their offer loaded
+     * Used to build the in-memory OfferIndex
+     */
+    @Query("SELECT oo FROM OrderOffer oo JOIN FETCH oo.offer o " +
+            "WHERE o.isActive = true AND o.endAt >= :now")
+    List<OrderOffer> findIndexableOrderOffers(@Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.example.back_end.modules.offer.service;
+
+import com.example.back_end.modules.offer.entity.Offer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Compiled BUNDLE offer: the offer plus its required productId -> quantity.
+ * Immutable, held by {@link BundleIndex}.
+ */
+public record BundleDefinition(Offer offer, Map<Long, BigDecimal> requirements) {
+
+    public BundleDefinition {
+        requirements = Map.copyOf(requirements);
+    }
+
+    public Long offerId() {
+        return offer.getId();
+    }
+
+    public boolean isLive(LocalDateTime now) {
+        return OfferIndex.isLive(offer, now);
+    }
+
+    /**
+     * How many complete instances of this bundle fit into the available quantities
+     */
+    public int maxInstances(Map<Long, BigDecimal> available) {
+        if (requirements.isEmpty()) {
+            return 0;
+        }
+
+        int max = Integer.MAX_VALUE;
+        for (Map.Entry<Long, BigDecimal> required : requirements.entrySet()) {
+            BigDecimal qty = available.get(required.getKey());
+            if (qty == null || qty.compareTo(required.getValue()) < 0) {
+                return 0;
+            }
+            max = Math.min(max, qty.divide(required.getValue(), 0, RoundingMode.FLOOR).intValue());
+        }
+        return max;
+    }
+}
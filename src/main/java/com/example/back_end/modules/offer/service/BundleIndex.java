@@ -0,0 +1,60 @@
+package com.example.back_end.modules.offer.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Inverted index productId -> BUNDLE offers that require the product.
+ *
+ * Only bundles that share a product with the basket are ever looked at,
+ * so lookup cost depends on the basket, not on the number of active bundles.
+ * Immutable; OfferIndex replaces it on rebuild.
+ */
+public final class BundleIndex {
+
+    public static final BundleIndex EMPTY = new BundleIndex(List.of());
+
+    private final Map<Long, List<BundleDefinition>> bundlesByProduct;
+    private final int size;
+
+    public BundleIndex(Collection<BundleDefinition> bundles) {
+        Map<Long, List<BundleDefinition>> byProduct = new HashMap<>();
+        for (BundleDefinition bundle : bundles) {
+            for (Long productId : bundle.requirements().keySet()) {
+                byProduct.computeIfAbsent(productId, k -> new ArrayList<>()).add(bundle);
+            }
+        }
+        byProduct.replaceAll((productId, list) -> List.copyOf(list));
+
+        this.bundlesByProduct = Collections.unmodifiableMap(byProduct);
+        this.size = bundles.size();
+    }
+
+    /**
+     * Live bundles that fit at least once into the basket quantities (productId -> qty)
+     */
+    public List<BundleDefinition> candidatesFor(Map<Long, BigDecimal> basketQuantities, LocalDateTime now) {
+        Set<Long> seen = new HashSet<>();
+        List<BundleDefinition> candidates = new ArrayList<>();
+
+        for (Long productId : basketQuantities.keySet()) {
+            List<BundleDefinition> bundles = bundlesByProduct.get(productId);
+            if (bundles == null) {
+                continue;
+            }
+            for (BundleDefinition bundle : bundles) {
+                if (seen.add(bundle.offerId())
+                        && bundle.isLive(now)
+                        && bundle.maxInstances(basketQuantities) > 0) {
+                    candidates.add(bundle);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -1,20 +1,15 @@
 package com.example.back_end.modules.offer.service;
 import com.example.back_end.modules.offer.dto.BundleApplicationResult;
 import com.example.back_end.modules.offer.entity.Offer;
-import com.example.back_end.modules.offer.entity.OfferBundle;
-import com.example.back_end.modules.offer.repository.OfferBundleRepository;
-import com.example.back_end.modules.offer.repository.OfferRepository;
 import com.example.back_end.modules.sales.order.entity.OrderItem;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service for detecting and applying BUNDLE offers
@@ -25,23 +20,21 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BundleOfferService {
 
-    private final OfferRepository offerRepository;
-    private final OfferBundleRepository offerBundleRepository;
-    private final OfferCalculator offerCalculator;
+    private final OfferIndex offerIndex;
+    private final BundleSolver bundleSolver;
 
     /**
      * Detect and apply bundle offers to order items
      *
      * This method:
-     * 1. Finds all active bundle offers
-     * 2. Checks which bundles are satisfied by current order items
-     * 3. Applies the best bundle offer
-     * 4. Distributes discount across bundle items
+     * 1. Finds active bundle offers sharing a product with the order (in-memory bundle index)
+     * 2. Keeps the bundles that fit into the order at least once
+     * 3. Chooses non-overlapping bundles (and repeated instances) with the maximum total discount
+     * 4. Distributes each bundle's discount across its items
      *
      * @param orderItems All items in the order
      * @return BundleApplicationResult with applied bundle info
      */
-    @Transactional(readOnly = true)
     public BundleApplicationResult detectAndApplyBundles(List<OrderItem> orderItems) {
         BundleApplicationResult result = BundleApplicationResult.empty();
 
@@ -50,166 +43,110 @@ public class BundleOfferService {
             return result;
         }
 
-        LocalDateTime now = LocalDateTime.now();
+        // Basket per product: quantity, unit price and the line holding it
+        Map<Long, BigDecimal> quantities = new HashMap<>();
+        Map<Long, BigDecimal> unitPrices = new HashMap<>();
+        Map<Long, OrderItem> itemsByProduct = new HashMap<>();
 
-        // Get all active bundle offers
-        List<Offer> activeBundleOffers = offerRepository.findActiveBundleOffers(now);
-
-        if (activeBundleOffers.isEmpty()) {
-            log.debug("No active BUNDLE offers found");
-            result.setBundleApplied(false);
-            return result;
-        }
-
-        // Find the best applicable bundle
-        Offer bestBundle = null;
-        BigDecimal bestDiscount = BigDecimal.ZERO;
-        Map<Long, BigDecimal> bestDistribution = null;
-
-        for (Offer bundleOffer : activeBundleOffers) {
-            // Check if this bundle is satisfied
-            BundleCheckResult checkResult = isBundleSatisfied(bundleOffer, orderItems);
-
-            if (checkResult.isSatisfied()) {
-                // Calculate discount
-                BigDecimal bundleTotal = checkResult.getBundleTotal();
-                BigDecimal discount = offerCalculator.calculateDiscount(bundleOffer, bundleTotal);
-
-                if (discount.compareTo(bestDiscount) > 0) {
-                    bestDiscount = discount;
-                    bestBundle = bundleOffer;
-                    bestDistribution = distributeDiscount(
-                            checkResult.getBundleItems(),
-                            discount,
-                            bundleTotal
-                    );
-
-                    log.debug("Found better BUNDLE offer: {} with discount ${}",
-                            bundleOffer.getCode(), discount);
-                }
+        for (OrderItem item : orderItems) {
+            if (item.getProduct() == null || item.getProduct().getId() == null) {
+                continue;
             }
+            Long productId = item.getProduct().getId();
+            quantities.merge(productId, item.getQuantity(), BigDecimal::add);
+            unitPrices.putIfAbsent(productId, item.getUnitPrice());
+            itemsByProduct.putIfAbsent(productId, item);
         }
 
-        if (bestBundle != null) {
-            // Apply bundle
-            result.setBundleApplied(true);
-            result.setOfferId(bestBundle.getId());
-            result.setOfferCode(bestBundle.getCode());
-            result.setOfferTitle(bestBundle.getTitle());
-            result.setTotalDiscount(bestDiscount);
-            result.setItemDiscounts(bestDistribution);
-
-            log.info("Applied BUNDLE offer '{}' (ID: {}): total discount ${}",
-                    bestBundle.getTitle(), bestBundle.getId(), bestDiscount);
-        } else {
+        List<BundleDefinition> candidates = offerIndex.findBundleCandidates(quantities, LocalDateTime.now());
+
+        if (candidates.isEmpty()) {
+            log.debug("No applicable BUNDLE offers for order items");
             result.setBundleApplied(false);
+            return result;
         }
 
-        return result;
-    }
-
-    /**
-     * Check if a bundle offer is satisfied by current order items
-     */
-    private BundleCheckResult isBundleSatisfied(Offer bundleOffer, List<OrderItem> orderItems) {
-        BundleCheckResult result = BundleCheckResult.unsatisfied();
-
-        // Get required products for this bundle
-        List<OfferBundle> requiredItems = offerBundleRepository.findByOfferId(bundleOffer.getId());
+        BundleSolver.Allocation allocation = bundleSolver.solve(candidates, quantities, unitPrices);
 
-        if (requiredItems.isEmpty()) {
-            result.setSatisfied(false);
+        if (allocation.isEmpty()) {
+            result.setBundleApplied(false);
             return result;
         }
 
-        // Create a map of available quantities in order
-        Map<Long, BigDecimal> availableQuantities = orderItems.stream()
-                .collect(Collectors.toMap(
-                        item -> item.getProduct().getId(),
-                        OrderItem::getQuantity,
-                        BigDecimal::add
-                ));
-
-        // Check if all required products are present with sufficient quantities
-        Map<Long, OrderItem> bundleItemsMap = new HashMap<>();
-        BigDecimal bundleTotal = BigDecimal.ZERO;
-
-        for (OfferBundle required : requiredItems) {
-            Long productId = required.getProduct().getId();
-            BigDecimal requiredQty = required.getRequiredQty();
-
-            // Find this product in order items
-            Optional<OrderItem> orderItemOpt = orderItems.stream()
-                    .filter(item -> item.getProduct().getId().equals(productId))
-                    .findFirst();
-
-            if (orderItemOpt.isEmpty()) {
-                // Required product not in order
-                result.setSatisfied(false);
-                return result;
-            }
+        // Distribute every applied bundle over its items
+        Map<Long, BigDecimal> itemDiscounts = new HashMap<>();
+        Map<Long, Map<Long, BigDecimal>> itemShares = new HashMap<>();
+        BundleSolver.BundleUse biggest = null;
 
-            OrderItem orderItem = orderItemOpt.get();
-            BigDecimal availableQty = orderItem.getQuantity();
+        for (BundleSolver.BundleUse use : allocation.uses()) {
+            distributeDiscount(use, itemsByProduct, unitPrices, itemDiscounts, itemShares);
+            result.getBundleInstances().put(use.bundle().offerId(), use.instances());
 
-            if (availableQty.compareTo(requiredQty) < 0) {
-                // Insufficient quantity
-                log.debug("Bundle not satisfied: product {} has qty {} but requires {}",
-                        productId, availableQty, requiredQty);
-                result.setSatisfied(false);
-                return result;
+            if (biggest == null || use.totalDiscount().compareTo(biggest.totalDiscount()) > 0) {
+                biggest = use;
             }
 
-            // Calculate this item's contribution to bundle total
-            // (use required quantity, not all available)
-            BigDecimal itemTotal = orderItem.getUnitPrice().multiply(requiredQty);
-            bundleTotal = bundleTotal.add(itemTotal);
-
-            bundleItemsMap.put(orderItem.getId(), orderItem);
+            log.debug("BUNDLE '{}' applied {} time(s): discount ${}",
+                    use.bundle().offer().getCode(), use.instances(), use.totalDiscount());
         }
 
-        // Bundle is satisfied!
-        result.setSatisfied(true);
-        result.setBundleItems(bundleItemsMap);
-        result.setBundleTotal(bundleTotal);
+        // An item shared by several bundles is tagged with the bundle giving it most of its discount
+        itemShares.forEach((itemId, shares) -> result.getItemOfferIds().put(itemId,
+                Collections.max(shares.entrySet(), Map.Entry.comparingByValue()).getKey()));
+
+        Offer bestBundle = biggest.bundle().offer();
+        result.setBundleApplied(true);
+        result.setOfferId(bestBundle.getId());
+        result.setOfferCode(bestBundle.getCode());
+        result.setOfferTitle(bestBundle.getTitle());
+        result.setTotalDiscount(allocation.totalDiscount());
+        result.setItemDiscounts(itemDiscounts);
 
-        log.debug("BUNDLE satisfied: offer={}, total=${}, items={}",
-                bundleOffer.getCode(), bundleTotal, bundleItemsMap.size());
+        log.info("Applied {} BUNDLE offer(s) to order items: total discount ${}",
+                allocation.uses().size(), allocation.totalDiscount());
 
         return result;
     }
 
     /**
-     * Distribute bundle discount across bundle items proportionally
+     * Distribute a bundle's discount across its items proportionally to the value
+     * each item contributes (unit price x consumed quantity). The last item takes the
+     * rounding remainder so the shares add up to the bundle discount exactly.
      */
-    private Map<Long, BigDecimal> distributeDiscount(
-            Map<Long, OrderItem> bundleItems,
-            BigDecimal totalDiscount,
-            BigDecimal bundleTotal) {
-
-        Map<Long, BigDecimal> distribution = new HashMap<>();
-
-        for (Map.Entry<Long, OrderItem> entry : bundleItems.entrySet()) {
-            Long itemId = entry.getKey();
-            OrderItem item = entry.getValue();
-
-            // Calculate item's line total (before discount)
-            BigDecimal itemLineTotal = item.getUnitPrice().multiply(item.getQuantity());
-
-            // Proportional discount for this item
-            BigDecimal itemDiscount = totalDiscount
-                    .multiply(itemLineTotal)
-                    .divide(bundleTotal, 2, RoundingMode.HALF_UP);
+    private void distributeDiscount(BundleSolver.BundleUse use,
+                                    Map<Long, OrderItem> itemsByProduct,
+                                    Map<Long, BigDecimal> unitPrices,
+                                    Map<Long, BigDecimal> itemDiscounts,
+                                    Map<Long, Map<Long, BigDecimal>> itemShares) {
+        BigDecimal totalDiscount = use.totalDiscount();
+        BigDecimal bundleTotal = use.instanceValue().multiply(BigDecimal.valueOf(use.instances()));
+        BigDecimal distributed = BigDecimal.ZERO;
+
+        List<Map.Entry<Long, BigDecimal>> requirements = new ArrayList<>(use.bundle().requirements().entrySet());
+        requirements.sort(Map.Entry.comparingByKey());
+
+        for (int i = 0; i < requirements.size(); i++) {
+            Long productId = requirements.get(i).getKey();
+            OrderItem item = itemsByProduct.get(productId);
+
+            BigDecimal itemDiscount;
+            if (i == requirements.size() - 1) {
+                itemDiscount = totalDiscount.subtract(distributed);
+            } else {
+                BigDecimal consumedValue = unitPrices.get(productId)
+                        .multiply(requirements.get(i).getValue())
+                        .multiply(BigDecimal.valueOf(use.instances()));
+                itemDiscount = bundleTotal.signum() == 0 ? BigDecimal.ZERO : totalDiscount
+                        .multiply(consumedValue)
+                        .divide(bundleTotal, 2, RoundingMode.HALF_UP);
+            }
+            distributed = distributed.add(itemDiscount);
 
-            distribution.put(itemId, itemDiscount);
+            itemDiscounts.merge(item.getId(), itemDiscount, BigDecimal::add);
+            itemShares.computeIfAbsent(item.getId(), k -> new HashMap<>())
+                    .merge(use.bundle().offerId(), itemDiscount, BigDecimal::add);
 
-            log.debug("Bundle item {}: lineTotal=${}, discount=${}",
-                    itemId, itemLineTotal, itemDiscount);
+            log.debug("Bundle item {}: discount=${}", item.getId(), itemDiscount);
         }
-
-        return distribution;
     }
-
-
-
-}
\ No newline at end of file
+}
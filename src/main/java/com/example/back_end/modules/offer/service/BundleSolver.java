@@ -0,0 +1,184 @@
+package com.example.back_end.modules.offer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Chooses how many instances of each candidate bundle to apply so that the
+ * total bundle discount is maximal and no basket unit is used twice.
+ *
+ * Depth-first branch and bound over the candidates (highest discount first,
+ * most instances first), pruned with an optimistic bound. The first path explored
+ * is the greedy allocation, so if the node budget runs out the result is never
+ * worse than greedy.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BundleSolver {
+
+    static final int MAX_NODES = 100_000;
+
+    private final OfferCalculator offerCalculator;
+
+    /**
+     * @param candidates Bundles that fit at least once into the basket
+     * @param available Basket quantities: productId -> qty
+     * @param unitPrices Basket unit prices: productId -> price
+     * @return Best allocation found (empty when no bundle gives a discount)
+     */
+    public Allocation solve(List<BundleDefinition> candidates,
+                            Map<Long, BigDecimal> available,
+                            Map<Long, BigDecimal> unitPrices) {
+        List<BundleUse> options = new ArrayList<>();
+
+        for (BundleDefinition bundle : candidates) {
+            BigDecimal instanceValue = instanceValue(bundle, unitPrices);
+            if (instanceValue == null) {
+                continue;
+            }
+            BigDecimal discount = offerCalculator.calculateDiscount(bundle.offer(), instanceValue);
+            if (discount.compareTo(BigDecimal.ZERO) > 0) {
+                options.add(new BundleUse(bundle, 0, instanceValue, discount));
+            }
+        }
+
+        if (options.isEmpty()) {
+            return Allocation.EMPTY;
+        }
+
+        options.sort(Comparator.comparing(BundleUse::instanceDiscount).reversed()
+                .thenComparing(use -> use.bundle().offerId()));
+
+        Search search = new Search(options, new HashMap<>(available));
+        search.explore(0, BigDecimal.ZERO);
+
+        if (search.nodes > MAX_NODES) {
+            log.warn("Bundle solver hit node budget ({} candidates), using best allocation found", options.size());
+        }
+
+        List<BundleUse> uses = new ArrayList<>();
+        for (int i = 0; i < options.size(); i++) {
+            if (search.bestCounts[i] > 0) {
+                BundleUse option = options.get(i);
+                uses.add(new BundleUse(option.bundle(), search.bestCounts[i],
+                        option.instanceValue(), option.instanceDiscount()));
+            }
+        }
+        return new Allocation(List.copyOf(uses), search.bestTotal);
+    }
+
+    private static BigDecimal instanceValue(BundleDefinition bundle, Map<Long, BigDecimal> unitPrices) {
+        BigDecimal value = BigDecimal.ZERO;
+        for (Map.Entry<Long, BigDecimal> required : bundle.requirements().entrySet()) {
+            BigDecimal unitPrice = unitPrices.get(required.getKey());
+            if (unitPrice == null) {
+                return null;
+            }
+            value = value.add(unitPrice.multiply(required.getValue()));
+        }
+        return value;
+    }
+
+    /**
+     * Mutable search state for one solve() call
+     */
+    private static final class Search {
+
+        private final List<BundleUse> options;
+        private final Map<Long, BigDecimal> remaining;
+        private final int[] counts;
+
+        private int[] bestCounts;
+        private BigDecimal bestTotal = BigDecimal.ZERO;
+        private int nodes;
+
+        Search(List<BundleUse> options, Map<Long, BigDecimal> remaining) {
+            this.options = options;
+            this.remaining = remaining;
+            this.counts = new int[options.size()];
+            this.bestCounts = new int[options.size()];
+        }
+
+        void explore(int index, BigDecimal total) {
+            if (++nodes > MAX_NODES) {
+                return;
+            }
+
+            if (total.compareTo(bestTotal) > 0) {
+                bestTotal = total;
+                bestCounts = counts.clone();
+            }
+
+            if (index == options.size() || total.add(upperBound(index)).compareTo(bestTotal) <= 0) {
+                return;
+            }
+
+            BundleUse option = options.get(index);
+            int max = option.bundle().maxInstances(remaining);
+
+            for (int k = max; k >= 0; k--) {
+                counts[index] = k;
+                consume(option.bundle(), k, false);
+                explore(index + 1, total.add(option.instanceDiscount().multiply(BigDecimal.valueOf(k))));
+                consume(option.bundle(), k, true);
+            }
+            counts[index] = 0;
+        }
+
+        /**
+         * Optimistic bound: every remaining bundle applied as often as it fits on its own
+         */
+        private BigDecimal upperBound(int from) {
+            BigDecimal bound = BigDecimal.ZERO;
+            for (int i = from; i < options.size(); i++) {
+                BundleUse option = options.get(i);
+                int max = option.bundle().maxInstances(remaining);
+                if (max > 0) {
+                    bound = bound.add(option.instanceDiscount().multiply(BigDecimal.valueOf(max)));
+                }
+            }
+            return bound;
+        }
+
+        private void consume(BundleDefinition bundle, int instances, boolean release) {
+            if (instances == 0) {
+                return;
+            }
+            BigDecimal factor = BigDecimal.valueOf(release ? instances : -instances);
+            for (Map.Entry<Long, BigDecimal> required : bundle.requirements().entrySet()) {
+                remaining.merge(required.getKey(), required.getValue().multiply(factor), BigDecimal::add);
+            }
+        }
+    }
+
+    /**
+     * A bundle applied a number of times
+     *
+     * @param instanceValue Basket value of one instance (before discount)
+     * @param instanceDiscount Discount of one instance
+     */
+    public record BundleUse(BundleDefinition bundle, int instances,
+                            BigDecimal instanceValue, BigDecimal instanceDiscount) {
+
+        public BigDecimal totalDiscount() {
+            return instanceDiscount.multiply(BigDecimal.valueOf(instances));
+        }
+    }
+
+    /**
+     * Result of a solve: bundles applied and the total discount
+     */
+    public record Allocation(List<BundleUse> uses, BigDecimal totalDiscount) {
+
+        public static final Allocation EMPTY = new Allocation(List.of(), BigDecimal.ZERO);
+
+        public boolean isEmpty() {
+            return uses.isEmpty();
+        }
+    }
+}
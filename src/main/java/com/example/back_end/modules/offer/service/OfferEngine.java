@@ -3,8 +3,6 @@ package com.example.back_end.modules.offer.service;
 import com.example.back_end.modules.offer.dto.OfferApplicationResult;
 import com.example.back_end.modules.offer.entity.Offer;
 import com.example.back_end.modules.offer.entity.OrderOffer;
-import com.example.back_end.modules.offer.repository.OfferRepository;
-import com.example.back_end.modules.offer.repository.OrderOfferRepository;
 import com.example.back_end.modules.sales.order.entity.Order;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,7 +26,7 @@ import java.util.Optional;
 @Slf4j
 public class OfferEngine {
 
-    private final OrderOfferRepository orderOfferRepository;
+    private final OfferIndex offerIndex;
     private final OfferCalculator offerCalculator; // 🔥 نستخدم الـ Calculator الموجود!
 
     /**
@@ -87,8 +85,8 @@ public class OfferEngine {
      * Returns the offer with highest discount
      */
     private Optional<OrderOffer> findBestOrderOffer(BigDecimal subtotal) {
-        // Get all order offers
-        List<OrderOffer> orderOffers = orderOfferRepository.findAll();
+        // Get active order offers whose threshold is met (sorted by threshold, from the in-memory index)
+        List<OrderOffer> orderOffers = offerIndex.findOrderOffers(subtotal, LocalDateTime.now());
 
         OrderOffer bestOffer = null;
         BigDecimal bestDiscount = BigDecimal.ZERO;
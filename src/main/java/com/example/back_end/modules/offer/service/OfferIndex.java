@@ -0,0 +1,359 @@
+package com.example.back_end.modules.offer.service;
+
+import com.example.back_end.modules.catalog.product.entity.ProductCategory;
+import com.example.back_end.modules.catalog.product.repository.ProductCategoryRepository;
+import com.example.back_end.modules.offer.entity.Offer;
+import com.example.back_end.modules.offer.entity.OfferBundle;
+import com.example.back_end.modules.offer.entity.OfferCategory;
+import com.example.back_end.modules.offer.entity.OfferProduct;
+import com.example.back_end.modules.offer.entity.OrderOffer;
+import com.example.back_end.modules.offer.repository.OfferBundleRepository;
+import com.example.back_end.modules.offer.repository.OfferCategoryRepository;
+import com.example.back_end.modules.offer.repository.OfferProductRepository;
+import com.example.back_end.modules.offer.repository.OfferRepository;
+import com.example.back_end.modules.offer.repository.OrderOfferRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of offers used by the POS pricing path.
+ *
+ * Holds productId -> PRODUCT offers, categoryId -> CATEGORY offers (plus productId -> categoryIds
+ * for the categories that have offers), productId -> BUNDLE offers ({@link BundleIndex})
+ * and ORDER offers sorted by minimum order amount.
+ * Lookups are answered from memory; the index is rebuilt lazily when:
+ * - an offer is created/updated/deleted (see {@link #invalidate()})
+ * - the earliest start_at/end_at boundary among indexed offers has passed
+ * - the snapshot is older than pos.offers.index.max-age (catches changes made outside the app)
+ *
+ * Offers that start later are indexed too; every lookup still checks the validity window,
+ * so results are exact even between rebuilds.
+ */
+@Component
+@Slf4j
+public class OfferIndex {
+
+    private final OfferRepository offerRepository;
+    private final OfferProductRepository offerProductRepository;
+    private final OfferCategoryRepository offerCategoryRepository;
+    private final OfferBundleRepository offerBundleRepository;
+    private final OrderOfferRepository orderOfferRepository;
+    private final ProductCategoryRepository productCategoryRepository;
+    private final TransactionTemplate readOnlyTx;
+
+    @Value("${pos.offers.index.max-age:PT5M}")
+    private Duration maxAge;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public OfferIndex(OfferRepository offerRepository,
+                      OfferProductRepository offerProductRepository,
+                      OfferCategoryRepository offerCategoryRepository,
+                      OfferBundleRepository offerBundleRepository,
+                      OrderOfferRepository orderOfferRepository,
+                      ProductCategoryRepository productCategoryRepository,
+                      PlatformTransactionManager transactionManager) {
+        this.offerRepository = offerRepository;
+        this.offerProductRepository = offerProductRepository;
+        this.offerCategoryRepository = offerCategoryRepository;
+        this.offerBundleRepository = offerBundleRepository;
+        this.orderOfferRepository = orderOfferRepository;
+        this.productCategoryRepository = productCategoryRepository;
+
+        // Build in a separate read-only transaction so cached entities never belong
+        // to the persistence context of the order being priced
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * Active PRODUCT offers for a product at the given time
+     */
+    public List<Offer> findProductOffers(Long productId, LocalDateTime now) {
+        return liveOffers(current(now).productOffers().get(productId), now);
+    }
+
+    /**
+     * Active CATEGORY offers for any category the product belongs to (deduplicated)
+     */
+    public List<Offer> findCategoryOffers(Long productId, LocalDateTime now) {
+        Snapshot s = current(now);
+        List<Long> categoryIds = s.productCategories().get(productId);
+        if (categoryIds == null) {
+            return List.of();
+        }
+
+        Map<Long, Offer> offers = new LinkedHashMap<>();
+        for (Long categoryId : categoryIds) {
+            for (Offer offer : liveOffers(s.categoryOffers().get(categoryId), now)) {
+                offers.putIfAbsent(offer.getId(), offer);
+            }
+        }
+        return new ArrayList<>(offers.values());
+    }
+
+    /**
+     * Live BUNDLE offers that share a product with the basket and fit into it at least once
+     *
+     * @param basketQuantities productId -> quantity in the basket
+     */
+    public List<BundleDefinition> findBundleCandidates(Map<Long, BigDecimal> basketQuantities, LocalDateTime now) {
+        return current(now).bundles().candidatesFor(basketQuantities, now);
+    }
+
+    /**
+     * Every product with a live PRODUCT or CATEGORY offer -> the offer to show for it
+     * (its PRODUCT offer before a CATEGORY one, lowest offer id first), in offer id order.
+     * Precomputed per snapshot: a snapshot is only used until the next start/end boundary,
+     * so the set of live offers cannot change while it is served.
+     */
+    public Map<Long, Offer> findProductsOnOffer(LocalDateTime now) {
+        return current(now).productsOnOffer();
+    }
+
+    /**
+     * The offer with the given ID if it is indexed and valid at the given time, otherwise null
+     */
+    public Offer findLiveOffer(Long offerId, LocalDateTime now) {
+        Offer offer = current(now).offers().get(offerId);
+        return offer != null && isLive(offer, now) ? offer : null;
+    }
+
+    /**
+     * Active ORDER offers whose minimum order amount is met by the subtotal.
+     * Offers are returned in ascending threshold order.
+     */
+    public List<OrderOffer> findOrderOffers(BigDecimal subtotal, LocalDateTime now) {
+        List<OrderOffer> result = new ArrayList<>();
+        for (OrderOffer orderOffer : current(now).orderOffers()) {
+            if (minAmount(orderOffer).compareTo(subtotal) > 0) {
+                break; // sorted by threshold - nothing further can match
+            }
+            if (isLive(orderOffer.getOffer(), now)) {
+                result.add(orderOffer);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mark the index stale. Inside a transaction the rebuild is deferred until after commit,
+     * so a rolled back change never reaches the index.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation.incrementAndGet();
+                }
+            });
+        } else {
+            generation.incrementAndGet();
+        }
+    }
+
+    // ========================================
+    // Helper Methods
+    // ========================================
+
+    private Snapshot current(LocalDateTime now) {
+        Snapshot s = snapshot;
+        if (isUsable(s, now)) {
+            return s;
+        }
+
+        synchronized (this) {
+            s = snapshot;
+            if (!isUsable(s, now)) {
+                s = readOnlyTx.execute(status -> build(now));
+                snapshot = s;
+            }
+            return s;
+        }
+    }
+
+    private boolean isUsable(Snapshot s, LocalDateTime now) {
+        return s != null
+                && s.generation() == generation.get()
+                && now.isBefore(s.nextBoundary())
+                && now.isBefore(s.builtAt().plus(maxAge));
+    }
+
+    private Snapshot build(LocalDateTime now) {
+        long gen = generation.get();
+
+        List<Offer> offers = offerRepository.findIndexableOffers(now);
+
+        List<Long> productOfferIds = new ArrayList<>();
+        List<Long> categoryOfferIds = new ArrayList<>();
+        List<Long> bundleOfferIds = new ArrayList<>();
+        Map<Long, Offer> offersById = new HashMap<>();
+        LocalDateTime nextBoundary = LocalDateTime.MAX;
+
+        for (Offer offer : offers) {
+            offersById.put(offer.getId(), offer);
+            if (offer.getOfferType() == Offer.OfferType.PRODUCT) {
+                productOfferIds.add(offer.getId());
+            } else if (offer.getOfferType() == Offer.OfferType.CATEGORY) {
+                categoryOfferIds.add(offer.getId());
+            } else if (offer.getOfferType() == Offer.OfferType.BUNDLE) {
+                bundleOfferIds.add(offer.getId());
+            }
+
+            if (offer.getStartAt().isAfter(now) && offer.getStartAt().isBefore(nextBoundary)) {
+                nextBoundary = offer.getStartAt();
+            }
+            if (offer.getEndAt().isBefore(nextBoundary)) {
+                nextBoundary = offer.getEndAt();
+            }
+        }
+
+        // PRODUCT offers: productId -> offers
+        Map<Long, List<Offer>> productOffers = new HashMap<>();
+        if (!productOfferIds.isEmpty()) {
+            for (OfferProduct op : offerProductRepository.findByOfferIdIn(productOfferIds)) {
+                productOffers.computeIfAbsent(op.getId().getProductId(), k -> new ArrayList<>())
+                        .add(offersById.get(op.getId().getOfferId()));
+            }
+        }
+
+        // CATEGORY offers: categoryId -> offers, and productId -> categoryIds for those categories
+        Map<Long, List<Offer>> categoryOffers = new HashMap<>();
+        Map<Long, List<Long>> productCategories = new HashMap<>();
+        if (!categoryOfferIds.isEmpty()) {
+            for (OfferCategory oc : offerCategoryRepository.findByOfferIdIn(categoryOfferIds)) {
+                categoryOffers.computeIfAbsent(oc.getId().getCategoryId(), k -> new ArrayList<>())
+                        .add(offersById.get(oc.getId().getOfferId()));
+            }
+            if (!categoryOffers.isEmpty()) {
+                for (ProductCategory pc : productCategoryRepository.findByCategoryIdIn(categoryOffers.keySet())) {
+                    productCategories.computeIfAbsent(pc.getProductId(), k -> new ArrayList<>())
+                            .add(pc.getCategoryId());
+                }
+            }
+        }
+
+        // BUNDLE offers: productId -> bundles requiring it
+        Map<Long, Map<Long, BigDecimal>> bundleRequirements = new HashMap<>();
+        if (!bundleOfferIds.isEmpty()) {
+            for (OfferBundle ob : offerBundleRepository.findByOfferIdIn(bundleOfferIds)) {
+                bundleRequirements.computeIfAbsent(ob.getOffer().getId(), k -> new HashMap<>())
+                        .merge(ob.getProduct().getId(), ob.getRequiredQty(), BigDecimal::add);
+            }
+        }
+        List<BundleDefinition> bundles = new ArrayList<>(bundleRequirements.size());
+        bundleRequirements.forEach((offerId, requirements) ->
+                bundles.add(new BundleDefinition(offersById.get(offerId), requirements)));
+
+        // ORDER offers sorted by threshold
+        List<OrderOffer> orderOffers = new ArrayList<>(orderOfferRepository.findIndexableOrderOffers(now));
+        orderOffers.sort(Comparator.comparing(OfferIndex::minAmount));
+
+        log.info("Built offer index: {} offers, {} products, {} categories, {} bundles, {} order offers",
+                offers.size(), productOffers.size(), categoryOffers.size(), bundles.size(), orderOffers.size());
+
+        return new Snapshot(gen, now, nextBoundary, Collections.unmodifiableMap(offersById),
+                freeze(productOffers), freeze(categoryOffers), freeze(productCategories),
+                new BundleIndex(bundles), List.copyOf(orderOffers),
+                productsOnOffer(productOffers, categoryOffers, productCategories, now));
+    }
+
+    private static Map<Long, Offer> productsOnOffer(Map<Long, List<Offer>> productOffers,
+                                                    Map<Long, List<Offer>> categoryOffers,
+                                                    Map<Long, List<Long>> productCategories,
+                                                    LocalDateTime now) {
+        Comparator<Map.Entry<Long, Offer>> byOfferThenProduct = Comparator
+                .comparing((Map.Entry<Long, Offer> e) -> e.getValue().getId())
+                .thenComparing(Map.Entry::getKey);
+
+        Map<Long, Offer> viaProduct = new HashMap<>();
+        productOffers.forEach((productId, offers) -> firstLive(offers, now)
+                .ifPresent(offer -> viaProduct.put(productId, offer)));
+
+        Map<Long, Offer> viaCategory = new HashMap<>();
+        productCategories.forEach((productId, categoryIds) -> {
+            if (viaProduct.containsKey(productId)) {
+                return;
+            }
+            categoryIds.stream()
+                    .map(categoryOffers::get)
+                    .filter(Objects::nonNull)
+                    .flatMap(List::stream)
+                    .filter(offer -> isLive(offer, now))
+                    .min(Comparator.comparing(Offer::getId))
+                    .ifPresent(offer -> viaCategory.put(productId, offer));
+        });
+
+        Map<Long, Offer> result = new LinkedHashMap<>(viaProduct.size() + viaCategory.size());
+        viaProduct.entrySet().stream().sorted(byOfferThenProduct).forEach(e -> result.put(e.getKey(), e.getValue()));
+        viaCategory.entrySet().stream().sorted(byOfferThenProduct).forEach(e -> result.put(e.getKey(), e.getValue()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static Optional<Offer> firstLive(List<Offer> offers, LocalDateTime now) {
+        return offers.stream()
+                .filter(offer -> isLive(offer, now))
+                .min(Comparator.comparing(Offer::getId));
+    }
+
+    private static List<Offer> liveOffers(List<Offer> offers, LocalDateTime now) {
+        if (offers == null) {
+            return List.of();
+        }
+        List<Offer> live = new ArrayList<>(offers.size());
+        for (Offer offer : offers) {
+            if (isLive(offer, now)) {
+                live.add(offer);
+            }
+        }
+        return live;
+    }
+
+    static boolean isLive(Offer offer, LocalDateTime now) {
+        return Boolean.TRUE.equals(offer.getIsActive())
+                && !now.isBefore(offer.getStartAt())
+                && !now.isAfter(offer.getEndAt());
+    }
+
+    private static BigDecimal minAmount(OrderOffer orderOffer) {
+        return orderOffer.getMinOrderAmount() != null ? orderOffer.getMinOrderAmount() : BigDecimal.ZERO;
+    }
+
+    private static <T> Map<Long, List<T>> freeze(Map<Long, List<T>> map) {
+        Map<Long, List<T>> frozen = new HashMap<>(map.size() * 2);
+        map.forEach((key, value) -> frozen.put(key, List.copyOf(value)));
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    /**
+     * Immutable view of the offers at build time
+     */
+    private record Snapshot(
+            long generation,
+            LocalDateTime builtAt,
+            LocalDateTime nextBoundary,
+            Map<Long, Offer> offers,
+            Map<Long, List<Offer>> productOffers,
+            Map<Long, List<Offer>> categoryOffers,
+            Map<Long, List<Long>> productCategories,
+            BundleIndex bundles,
+            List<OrderOffer> orderOffers,
+            Map<Long, Offer> productsOnOffer
+    ) {
+    }
+}
@@ -36,6 +36,7 @@ public class OfferServiceImpl implements OfferService {
     private final CategoryRepository categoryRepository;
     private final OfferMapper offerMapper;
     private final EntityManager entityManager;
+    private final OfferIndex offerIndex;
 
     @Override
     public OfferResponseDTO createOffer(OfferRequestDTO requestDTO) {
@@ -86,6 +87,8 @@ public class OfferServiceImpl implements OfferService {
         // Fetch complete offer with relationships
         offer = fetchOfferWithRelationships(offer.getId(), requestDTO.getOfferType());
 
+        offerIndex.invalidate();
+
         log.info("Successfully created offer with ID: {}", offer.getId());
         log.info("Offer products count after fetch: {}", offer.getOfferProducts().size());
         
@@ -137,6 +140,8 @@ public class OfferServiceImpl implements OfferService {
         offer = offerRepository.save(offer);
         offer = fetchOfferWithRelationships(offer.getId(), requestDTO.getOfferType());
 
+        offerIndex.invalidate();
+
         log.info("Successfully updated offer with ID: {}", id);
         return offerMapper.toResponseDTO(offer);
     }
@@ -192,6 +197,7 @@ public class OfferServiceImpl implements OfferService {
         }
 
         offerRepository.deleteById(id);
+        offerIndex.invalidate();
         log.info("Successfully deleted offer with ID: {}", id);
     }
 
@@ -204,6 +210,7 @@ public class OfferServiceImpl implements OfferService {
 
         offer.setIsActive(!offer.getIsActive());
         offer = offerRepository.save(offer);
+        offerIndex.invalidate();
 
         log.info("Successfully toggled offer status to: {}", offer.getIsActive());
         return offerMapper.toResponseDTO(offer);
@@ -1,11 +1,9 @@
 package com.example.back_end.modules.offer.service;
 
 import com.example.back_end.modules.offer.entity.Offer;
-import com.example.back_end.modules.offer.repository.OfferRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -22,7 +20,7 @@ import java.util.Optional;
 @Slf4j
 public class ProductOfferService {
 
-    private final OfferRepository offerRepository;
+    private final OfferIndex offerIndex;
     private final OfferCalculator offerCalculator;
 
     /**
@@ -33,12 +31,11 @@ public class ProductOfferService {
      * @param quantity The quantity being ordered
      * @return Optional containing the best offer, or empty if no offers found
      */
-    @Transactional(readOnly = true)
     public Optional<Offer> findBestProductOffer(Long productId, BigDecimal unitPrice, BigDecimal quantity) {
         LocalDateTime now = LocalDateTime.now();
         
-        // Find all active PRODUCT offers for this product
-        List<Offer> activeOffers = offerRepository.findActiveProductOffersForProduct(productId, now);
+        // Find all active PRODUCT offers for this product (served from the in-memory index)
+        List<Offer> activeOffers = offerIndex.findProductOffers(productId, now);
         
         if (activeOffers.isEmpty()) {
             log.debug("No active PRODUCT offers found for product ID: {}", productId);
@@ -2,17 +2,20 @@ package com.example.back_end.modules.publicapi.products.service;
 
 import com.example.back_end.modules.catalog.product.entity.Product;
 import com.example.back_end.modules.catalog.product.repository.ProductRepository;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductSearchHitProjection;
+import com.example.back_end.modules.catalog.product.service.ProductSuggestionIndex;
 import com.example.back_end.modules.publicapi.products.dto.PublicProductDTO;
 import com.example.back_end.modules.publicapi.products.dto.PublicProductListResponse;
 import com.example.back_end.modules.store_product.entity.StockSnapshot;
 import com.example.back_end.modules.store_product.repository.StockSnapshotRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,6 +25,7 @@ public class PublicProductServiceImpl implements PublicProductService {
 
     private final ProductRepository productRepository;
     private final StockSnapshotRepository stockSnapshotRepository;
+    private final ProductSuggestionIndex suggestionIndex;
 
     // Minimum similarity threshold for search (typo tolerance)
     private static final float SEARCH_MIN_SIMILARITY = 0.25f;
@@ -42,23 +46,9 @@ public class PublicProductServiceImpl implements PublicProductService {
 
         String normalizedQuery = query.trim();
 
-        // Use fuzzy search with pg_trgm (typo-tolerant, active products only)
-        List<Product> products = productRepository.fuzzySearch(
-                normalizedQuery,
-                SEARCH_MIN_SIMILARITY
-        );
-
-        // Apply limit
+        // Use fuzzy search with pg_trgm (typo-tolerant, active products only), limited in SQL
         int maxResults = Math.min(Math.max(limit, 1), 200);
-        List<PublicProductDTO> items = products.stream()
-                .limit(maxResults)
-                .map(this::toPublicDTO)
-                .collect(Collectors.toList());
-
-        return PublicProductListResponse.builder()
-                .items(items)
-                .total(products.size())
-                .build();
+        return fuzzySearch(normalizedQuery, SEARCH_MIN_SIMILARITY, maxResults);
     }
 
     @Override
@@ -76,7 +66,10 @@ public class PublicProductServiceImpl implements PublicProductService {
 
     @Override
     public boolean isAvailable(Long id) {
-        StockSnapshot s = stockSnapshotRepository.findById(id).orElse(null);
+        return isAvailable(stockSnapshotRepository.findById(id).orElse(null));
+    }
+
+    private static boolean isAvailable(StockSnapshot s) {
         BigDecimal store = s != null && s.getStoreQty() != null ? s.getStoreQty() : BigDecimal.ZERO;
         BigDecimal wh = s != null && s.getWarehouseQty() != null ? s.getWarehouseQty() : BigDecimal.ZERO;
         return store.add(wh).compareTo(BigDecimal.ZERO) > 0;
@@ -95,37 +88,61 @@ public class PublicProductServiceImpl implements PublicProductService {
         String normalizedQuery = query.trim();
 
         // Use fuzzy search with higher threshold for suggestions (stricter)
-        List<Product> products = productRepository.fuzzySearch(
-                normalizedQuery,
-                SUGGESTIONS_MIN_SIMILARITY
-        );
-
         // Lower default limit for suggestions (typeahead use case)
         int maxResults = Math.min(Math.max(limit, 1), 50);
-        List<PublicProductDTO> items = products.stream()
-                .limit(maxResults)
-                .map(this::toPublicDTO)
+        if (!suggestionIndex.isLoaded()) {
+            return fuzzySearch(normalizedQuery, SUGGESTIONS_MIN_SIMILARITY, maxResults);
+        }
+
+        // Answered from the in-memory index; only availability is read from the database
+        ProductSuggestionIndex.Result result =
+                suggestionIndex.suggest(normalizedQuery, SUGGESTIONS_MIN_SIMILARITY, maxResults);
+        Map<Long, StockSnapshot> stock = new HashMap<>();
+        if (!result.items().isEmpty()) {
+            List<Long> ids = result.items().stream().map(ProductSuggestionIndex.Suggestion::productId).toList();
+            stockSnapshotRepository.findAllById(ids).forEach(s -> stock.put(s.getProductId(), s));
+        }
+
+        List<PublicProductDTO> items = result.items().stream()
+                .map(suggestion -> PublicProductDTO.builder()
+                        .id(suggestion.productId())
+                        .name(suggestion.name())
+                        .price(suggestion.price())
+                        .available(isAvailable(stock.get(suggestion.productId())))
+                        .build())
+                .collect(Collectors.toList());
+
+        return PublicProductListResponse.builder()
+                .items(items)
+                .total(result.total())
+                .build();
+    }
+
+    private PublicProductListResponse fuzzySearch(String query, float minSimilarity, int maxResults) {
+        productRepository.setWordSimilarityThreshold(minSimilarity);
+        List<ProductSearchHitProjection> hits = productRepository.fuzzySearch(query, maxResults);
+
+        List<PublicProductDTO> items = hits.stream()
+                .map(hit -> PublicProductDTO.builder()
+                        .id(hit.getId())
+                        .name(hit.getName())
+                        .price(hit.getPrice())
+                        .available(Boolean.TRUE.equals(hit.getAvailable()))
+                        .build())
                 .collect(Collectors.toList());
 
         return PublicProductListResponse.builder()
                 .items(items)
-                .total(products.size())
+                .total(hits.isEmpty() ? 0 : hits.get(0).getTotal().intValue())
                 .build();
     }
 
     private PublicProductDTO toPublicDTO(Product p) {
-        StockSnapshot s = stockSnapshotRepository.findById(p.getId()).orElse(null);
-        boolean available = false;
-        if (s != null) {
-            BigDecimal store = s.getStoreQty() != null ? s.getStoreQty() : BigDecimal.ZERO;
-            BigDecimal wh = s.getWarehouseQty() != null ? s.getWarehouseQty() : BigDecimal.ZERO;
-            available = store.add(wh).compareTo(BigDecimal.ZERO) > 0;
-        }
         return PublicProductDTO.builder()
                 .id(p.getId())
                 .name(p.getName())
                 .price(p.getDefaultPrice())
-                .available(available)
+                .available(isAvailable(p.getId()))
                 .build();
     }
 }
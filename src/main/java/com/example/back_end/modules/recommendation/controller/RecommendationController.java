@@ -8,10 +8,15 @@ import com.example.back_end.modules.recommendation.dto.PurchaseEventDTO;
 import com.example.back_end.modules.recommendation.dto.TrendingProductDTO;
 import com.example.back_end.modules.recommendation.dto.UserHistoryItemDTO;
 import com.example.back_end.modules.recommendation.service.RecommendationService;
+import com.example.back_end.modules.recommendation.service.TrainingExportFormat;
+import com.example.back_end.modules.recommendation.service.TrainingExportService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -21,6 +26,7 @@ import java.util.List;
 public class RecommendationController {
 
     private final RecommendationService recommendationService;
+    private final TrainingExportService trainingExportService;
 
     @GetMapping("/users/{customerId}/history")
     public ResponseEntity<List<UserHistoryItemDTO>> getUserHistory(
@@ -51,11 +57,13 @@ public class RecommendationController {
     @GetMapping("/trending")
     public ResponseEntity<List<TrendingProductDTO>> getTrending(
             @RequestParam(defaultValue = "30") int days,
-            @RequestParam(defaultValue = "20") int limit
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "0") double halfLifeDays
     ) {
         int safeDays = Math.max(days, 1);
         int safeLimit = Math.min(Math.max(limit, 1), 2000);
-        List<TrendingProductDTO> result = recommendationService.getTrending(safeDays, safeLimit);
+        double safeHalfLifeDays = Double.isNaN(halfLifeDays) ? 0 : Math.max(halfLifeDays, 0);
+        List<TrendingProductDTO> result = recommendationService.getTrending(safeDays, safeLimit, safeHalfLifeDays);
         if (result.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
@@ -101,6 +109,52 @@ public class RecommendationController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * All purchase events after an order, streamed as NDJSON or CSV; resume with the last orderId
+     */
+    @GetMapping("/training/purchase-events/export")
+    public void exportPurchaseEventsForTraining(
+            @RequestParam(name = "after_order_id", defaultValue = "0") long afterOrderId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) throws IOException {
+        TrainingExportFormat exportFormat = startExport(format, response);
+        trainingExportService.exportPurchaseEvents(Math.max(afterOrderId, 0), exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * All catalog products after a product, streamed as NDJSON or CSV; resume with the last productId
+     */
+    @GetMapping("/training/product-catalog/export")
+    public void exportProductCatalogForTraining(
+            @RequestParam(name = "after_product_id", defaultValue = "0") long afterProductId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) throws IOException {
+        TrainingExportFormat exportFormat = startExport(format, response);
+        trainingExportService.exportProductCatalog(Math.max(afterProductId, 0), exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * All customers after a customer, streamed as NDJSON or CSV; resume with the last userId
+     */
+    @GetMapping("/training/customers/export")
+    public void exportCustomersForTraining(
+            @RequestParam(name = "after_customer_id", defaultValue = "0") long afterCustomerId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) throws IOException {
+        TrainingExportFormat exportFormat = startExport(format, response);
+        trainingExportService.exportCustomers(Math.max(afterCustomerId, 0), exportFormat, response.getOutputStream());
+    }
+
+    private static TrainingExportFormat startExport(String format, HttpServletResponse response) {
+        TrainingExportFormat exportFormat = TrainingExportFormat.of(format);
+        response.setContentType(exportFormat.mediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        return exportFormat;
+    }
+
     @PostMapping("/offers/active-by-products")
     public ResponseEntity<List<ProductOfferEnrichmentDTO>> getActiveOffersByProducts(
             @RequestBody List<Long> productIds
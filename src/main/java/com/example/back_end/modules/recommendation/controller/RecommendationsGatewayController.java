@@ -5,6 +5,7 @@ import com.example.back_end.modules.recommendation.dto.RecommendationsResponseDT
 import com.example.back_end.modules.recommendation.service.RecommendationsGatewayService;
 import com.example.back_end.modules.register.entity.Customer;
 import com.example.back_end.modules.register.repository.CustomerRepository;
+import com.example.back_end.security.JwtPrincipal;
 import com.example.back_end.security.JwtService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +16,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/recommendations")
@@ -28,7 +30,7 @@ public class RecommendationsGatewayController {
 
     @GetMapping("/customers/me")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<RecommendationsResponseDTO> getRecommendationsForCurrentCustomer(
+    public Mono<ResponseEntity<RecommendationsResponseDTO>> getRecommendationsForCurrentCustomer(
             @RequestParam(name = "topK", defaultValue = "10") int topK,
             @RequestParam(name = "candidateLimit", defaultValue = "500") int candidateLimit,
             @RequestParam(name = "inStockOnly", defaultValue = "true") boolean inStockOnly,
@@ -50,10 +52,10 @@ public class RecommendationsGatewayController {
         String bearerToken = resolveBearerToken(authorizationHeader, authentication);
 
         // Step 3: Call recommendation service with actual customerId from customers table
-        RecommendationsResponseDTO body = recommendationsGatewayService
-                .getRecommendations(customerId.longValue(), bearerToken, safeTopK, safeCandidateLimit, inStockOnly);
-
-        return ResponseEntity.ok(body);
+        // (async: the request thread is released while the recommender is called)
+        return recommendationsGatewayService
+                .getRecommendations(customerId.longValue(), bearerToken, safeTopK, safeCandidateLimit, inStockOnly)
+                .map(ResponseEntity::ok);
     }
 
     /**
@@ -93,8 +95,13 @@ public class RecommendationsGatewayController {
         }
 
         // Case 2: UsernamePasswordAuthenticationToken (current custom filter setup)
-        // Principal is email (String), so we need to extract userId from the JWT token itself
-        String email = (String) authentication.getPrincipal();
+        // Principal carries the claims verified by JwtAuthenticationFilter
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal && principal.userId() != null) {
+            return principal.userId();
+        }
+
+        // Otherwise read userId from the JWT token itself
+        String email = authentication.getName();
 
         if (StringUtils.hasText(authorizationHeader) && authorizationHeader.startsWith("Bearer ")) {
             try {
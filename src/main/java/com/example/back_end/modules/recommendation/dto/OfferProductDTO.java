@@ -0,0 +1,20 @@
+package com.example.back_end.modules.recommendation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Display fields of an active product that is on offer (used to fill the offers row)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfferProductDTO {
+    private Long productId;
+    private String name;
+    private String categoryName;
+    private BigDecimal price;
+}
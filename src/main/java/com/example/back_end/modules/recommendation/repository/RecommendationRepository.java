@@ -1,6 +1,7 @@
 package com.example.back_end.modules.recommendation.repository;
 
 import com.example.back_end.modules.recommendation.dto.CustomerDTO;
+import com.example.back_end.modules.recommendation.dto.OfferProductDTO;
 import com.example.back_end.modules.recommendation.dto.ProductCandidateDTO;
 import com.example.back_end.modules.recommendation.dto.ProductCatalogDTO;
 import com.example.back_end.modules.recommendation.dto.ProductOfferEnrichmentDTO;
@@ -10,12 +11,15 @@ import com.example.back_end.modules.recommendation.dto.TrendingProductDTO;
 import com.example.back_end.modules.recommendation.dto.UserHistoryItemDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -62,6 +66,18 @@ public class RecommendationRepository {
         }
     };
 
+    private static final RowMapper<OfferProductDTO> OFFER_PRODUCT_ROW_MAPPER = new RowMapper<>() {
+        @Override
+        public OfferProductDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return new OfferProductDTO(
+                    rs.getLong("product_id"),
+                    rs.getString("name"),
+                    rs.getString("category_name"),
+                    rs.getBigDecimal("default_price")
+            );
+        }
+    };
+
     private static final RowMapper<PurchaseEventDTO> PURCHASE_EVENT_ROW_MAPPER = new RowMapper<>() {
         @Override
         public PurchaseEventDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -170,12 +186,21 @@ public class RecommendationRepository {
         return jdbcTemplate.query(sql, PRODUCT_CANDIDATE_ROW_MAPPER, inStockOnly, limit);
     }
 
-    public List<TrendingProductDTO> findTrending(int days, int limit) {
+    /**
+     * Quantity per product over the last {@code days} calendar days (today included),
+     * the same windows as {@code TrendingCounters}
+     *
+     * @param halfLifeDays when positive, each day counts half as much every halfLifeDays days back
+     */
+    public List<TrendingProductDTO> findTrending(int days, int limit, double halfLifeDays) {
         String sql = """
             WITH t AS (
-                SELECT product_id, SUM(quantity) AS score
+                SELECT product_id,
+                       SUM(quantity * CASE WHEN ? > 0
+                                           THEN power(0.5, (current_date - event_time::date) / ?)
+                                           ELSE 1 END) AS score
                 FROM public.v_reco_purchase_events
-                WHERE event_time >= now() - (? * INTERVAL '1 day')
+                WHERE event_time >= current_date - (? - 1)
                 GROUP BY product_id
             )
             SELECT t.product_id, c.name, c.category_name, t.score
@@ -184,7 +209,46 @@ public class RecommendationRepository {
             ORDER BY t.score DESC
             LIMIT ?
             """;
-        return jdbcTemplate.query(sql, TRENDING_ROW_MAPPER, days, limit);
+        return jdbcTemplate.query(sql, TRENDING_ROW_MAPPER, halfLifeDays, halfLifeDays, days, limit);
+    }
+
+    /**
+     * Name and category of the given products that are in the catalog (active), in the order
+     * given; the score is left empty
+     */
+    public List<TrendingProductDTO> findCatalogProductsInOrder(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+            SELECT c.product_id, c.name, c.category_name, NULL::numeric AS score
+            FROM unnest(?::bigint[]) WITH ORDINALITY AS ids(id, ord)
+            JOIN public.v_reco_product_catalog c ON c.product_id = ids.id
+            ORDER BY ids.ord
+            """;
+        return jdbcTemplate.query(sql, TRENDING_ROW_MAPPER, (Object) productIds.toArray(new Long[0]));
+    }
+
+    /**
+     * Quantity sold per product and day since {@code fromDay}: product_id, day, quantity.
+     * Streamed, needs a transaction.
+     */
+    public void streamDailyPurchaseQuantities(LocalDate fromDay, int fetchSize, RowCallbackHandler handler) {
+        String sql = """
+            SELECT product_id, event_time::date AS day, SUM(quantity) AS quantity
+            FROM public.v_reco_purchase_events
+            WHERE event_time >= ?
+            GROUP BY product_id, event_time::date
+            """;
+        stream(sql, fetchSize, handler, fromDay);
+    }
+
+    /**
+     * Runs a first statement, so a REPEATABLE READ transaction takes its snapshot now
+     * instead of at its first real query
+     */
+    public void takeSnapshot() {
+        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
     }
 
     public List<PurchaseEventDTO> findPurchaseEventsForTraining(int limit, int offset) {
@@ -198,6 +262,84 @@ public class RecommendationRepository {
         return jdbcTemplate.query(sql, PURCHASE_EVENT_ROW_MAPPER, limit, offset);
     }
 
+    /**
+     * Receives one (customer, product) purchase pair at a time
+     */
+    @FunctionalInterface
+    public interface PurchasePairConsumer {
+        void accept(long customerId, long productId);
+    }
+
+    /**
+     * Every distinct (customer, product) purchase, grouped by customer, streamed in fetchSize
+     * batches instead of being loaded into a list. Needs a transaction (PostgreSQL only
+     * streams with autocommit off).
+     */
+    public void streamPurchasePairs(int fetchSize, PurchasePairConsumer consumer) {
+        String sql = """
+            SELECT DISTINCT user_id, product_id
+            FROM public.v_reco_purchase_events
+            ORDER BY user_id, product_id
+            """;
+        stream(sql, fetchSize, rs -> consumer.accept(rs.getLong(1), rs.getLong(2)));
+    }
+
+    /**
+     * Purchase events of orders after {@code afterOrderId}, by order then product:
+     * order_id, user_id, product_id, event_time. Streamed, needs a transaction.
+     */
+    public void streamPurchaseEventsAfter(long afterOrderId, int fetchSize, RowCallbackHandler handler) {
+        String sql = """
+            SELECT order_id, user_id, product_id, event_time
+            FROM public.v_reco_purchase_events
+            WHERE order_id > ?
+            ORDER BY order_id, product_id
+            """;
+        stream(sql, fetchSize, handler, afterOrderId);
+    }
+
+    /**
+     * Catalog rows after {@code afterProductId}, by product: product_id, name, category_name,
+     * type, current_price, total_qty. Streamed, needs a transaction.
+     */
+    public void streamProductCatalogAfter(long afterProductId, int fetchSize, RowCallbackHandler handler) {
+        String sql = """
+            SELECT product_id, name, category_name, type, current_price, total_qty
+            FROM public.v_reco_product_catalog
+            WHERE product_id > ?
+            ORDER BY product_id
+            """;
+        stream(sql, fetchSize, handler, afterProductId);
+    }
+
+    /**
+     * Customers after {@code afterCustomerId}, by id: user_id, gender. Streamed, needs a transaction.
+     */
+    public void streamCustomersAfter(long afterCustomerId, int fetchSize, RowCallbackHandler handler) {
+        String sql = """
+            SELECT id AS user_id, gender
+            FROM public.customers
+            WHERE id > ?
+            ORDER BY id
+            """;
+        stream(sql, fetchSize, handler, afterCustomerId);
+    }
+
+    /**
+     * Forward-only, read-only cursor fetching {@code fetchSize} rows at a time, so memory does not
+     * grow with the result
+     */
+    private void stream(String sql, int fetchSize, RowCallbackHandler handler, Object... args) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        }, handler);
+    }
+
     public List<ProductCatalogDTO> findProductCatalogForTraining(int limit, int offset) {
         String sql = """
             SELECT product_id, name, category_name, type, current_price, total_qty
@@ -294,6 +436,35 @@ public class RecommendationRepository {
         return jdbcTemplate.query(sql, PRODUCT_OFFER_ENRICHMENT_ROW_MAPPER, ids, ids);
     }
 
+    /**
+     * The first {@code limit} active products among the given ids, in the order given,
+     * with their first category name (one query for the whole list)
+     */
+    public List<OfferProductDTO> findActiveProductsInOrder(List<Long> productIds, int limit) {
+        if (productIds == null || productIds.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        String sql = """
+            SELECT p.id AS product_id,
+                   p.name,
+                   p.default_price,
+                   (SELECT c.name
+                    FROM product_categories pc
+                    JOIN categories c ON c.id = pc.category_id
+                    WHERE pc.product_id = p.id
+                    ORDER BY c.id
+                    LIMIT 1) AS category_name
+            FROM unnest(?::bigint[]) WITH ORDINALITY AS ids(id, ord)
+            JOIN products p ON p.id = ids.id
+            WHERE p.is_active = true
+            ORDER BY ids.ord
+            LIMIT ?
+            """;
+
+        return jdbcTemplate.query(sql, OFFER_PRODUCT_ROW_MAPPER, productIds.toArray(new Long[0]), limit);
+    }
+
     public List<ProductOfferEnrichmentDTO> findActiveOffersPaginated(int limit, int offset) {
         String sql = """
             WITH ranked_offers AS (
@@ -0,0 +1,358 @@
+package com.example.back_end.modules.recommendation.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Item-item co-occurrence model: for every product its most similar products (cosine over
+ * the customers who bought both), plus how many customers bought it.
+ *
+ * One flat little-endian buffer, written as is to disk and memory-mapped back
+ * ({@link #map(Path)}), so loading costs nothing and the model lives outside the heap:
+ * <pre>
+ * int   magic, int itemCount, int neighborCount, long trainedAt (epoch millis)
+ * long  productIds[itemCount]       ascending, row i is productIds[i]
+ * int   buyers[itemCount]           distinct customers per product
+ * int   popularity[itemCount]       row numbers, most bought first
+ * int   offsets[itemCount + 1]      row i's neighbors are offsets[i] .. offsets[i + 1]
+ * int   neighbors[neighborCount]    row numbers, most similar first
+ * float scores[neighborCount]
+ * </pre>
+ * Immutable and safe to share between threads.
+ */
+public final class ItemItemModel {
+
+    /**
+     * A recommended product and its score
+     */
+    public record Scored(long productId, float score) {
+    }
+
+    static final int MAGIC = 0x52494931; // "RII1"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8;
+    // history positions past this weigh the same
+    private static final int MAX_DECAY_STEPS = 20;
+    private static final float RECENCY_DECAY = 0.9f;
+
+    private final ByteBuffer buffer;
+    private final int itemCount;
+    private final long trainedAt;
+    private final LongBuffer productIds;
+    private final IntBuffer buyers;
+    private final IntBuffer popularity;
+    private final IntBuffer offsets;
+    private final IntBuffer neighbors;
+    private final FloatBuffer scores;
+
+    private ItemItemModel(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an item-item model");
+        }
+        this.itemCount = buffer.getInt(4);
+        int neighborCount = buffer.getInt(8);
+        this.trainedAt = buffer.getLong(12);
+        if (itemCount < 0 || neighborCount < 0 || buffer.capacity() != sizeOf(itemCount, neighborCount)) {
+            throw new IllegalArgumentException("Truncated item-item model");
+        }
+
+        int position = HEADER_BYTES;
+        this.productIds = slice(position, itemCount * 8L).asLongBuffer();
+        position += itemCount * 8;
+        this.buyers = slice(position, itemCount * 4L).asIntBuffer();
+        position += itemCount * 4;
+        this.popularity = slice(position, itemCount * 4L).asIntBuffer();
+        position += itemCount * 4;
+        this.offsets = slice(position, (itemCount + 1) * 4L).asIntBuffer();
+        position += (itemCount + 1) * 4;
+        this.neighbors = slice(position, neighborCount * 4L).asIntBuffer();
+        position += neighborCount * 4;
+        this.scores = slice(position, neighborCount * 4L).asFloatBuffer();
+    }
+
+    /**
+     * Build a model from its arrays (the trainer's output)
+     */
+    static ItemItemModel of(long[] productIds, int[] buyers, int[] offsets, int[] neighbors, float[] scores,
+                            long trainedAt) {
+        int itemCount = productIds.length;
+        int neighborCount = neighbors.length;
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(sizeOf(itemCount, neighborCount)))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(itemCount).putInt(neighborCount).putLong(trainedAt);
+        for (long productId : productIds) {
+            buffer.putLong(productId);
+        }
+        for (int count : buyers) {
+            buffer.putInt(count);
+        }
+        for (int row : popularityOrder(buyers)) {
+            buffer.putInt(row);
+        }
+        for (int offset : offsets) {
+            buffer.putInt(offset);
+        }
+        for (int neighbor : neighbors) {
+            buffer.putInt(neighbor);
+        }
+        for (float score : scores) {
+            buffer.putFloat(score);
+        }
+        return new ItemItemModel(buffer.flip());
+    }
+
+    /**
+     * Memory-map a model written by {@link #writeTo(Path)}
+     */
+    public static ItemItemModel map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ItemItemModel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write the model next to the target and move it into place, so a reader never maps half a file
+     */
+    public void writeTo(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer source = buffer.duplicate().clear();
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public int itemCount() {
+        return itemCount;
+    }
+
+    public long trainedAt() {
+        return trainedAt;
+    }
+
+    /**
+     * Products similar to what the customer bought, best first, without the ones they bought.
+     * Each history item adds its neighbors' similarity, recent purchases weigh more.
+     *
+     * @param history product ids, most recent first (repeats are ignored)
+     */
+    public List<Scored> recommend(long[] history, int limit) {
+        if (history.length == 0 || limit <= 0 || itemCount == 0) {
+            return List.of();
+        }
+        int[] owned = new int[history.length];
+        int ownedCount = 0;
+        for (long productId : history) {
+            int row = rowOf(productId);
+            if (row >= 0 && indexOf(owned, ownedCount, row) < 0) {
+                owned[ownedCount++] = row;
+            }
+        }
+        if (ownedCount == 0) {
+            return List.of();
+        }
+
+        // sparse accumulator: dense scores, plus the rows touched
+        float[] accumulated = new float[itemCount];
+        int[] touched = new int[Math.min(itemCount, offsets.get(itemCount))];
+        int touchedCount = 0;
+        float weight = 1f;
+        for (int h = 0; h < ownedCount; h++) {
+            int row = owned[h];
+            for (int k = offsets.get(row), end = offsets.get(row + 1); k < end; k++) {
+                int neighbor = neighbors.get(k);
+                if (accumulated[neighbor] == 0f) {
+                    touched[touchedCount++] = neighbor;
+                }
+                accumulated[neighbor] += weight * scores.get(k);
+            }
+            if (h < MAX_DECAY_STEPS) {
+                weight *= RECENCY_DECAY;
+            }
+        }
+        for (int h = 0; h < ownedCount; h++) {
+            accumulated[owned[h]] = 0f;
+        }
+
+        int[] best = TopK.select(touched, touchedCount, accumulated, limit);
+        List<Scored> result = new ArrayList<>(best.length);
+        for (int row : best) {
+            result.add(new Scored(productIds.get(row), accumulated[row]));
+        }
+        return result;
+    }
+
+    /**
+     * The most bought products, score = share of customers who bought them
+     */
+    public List<Scored> popular(int limit) {
+        int count = Math.min(Math.max(limit, 0), itemCount);
+        int mostBuyers = itemCount == 0 ? 0 : buyers.get(popularity.get(0));
+        List<Scored> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int row = popularity.get(i);
+            result.add(new Scored(productIds.get(row), (float) buyers.get(row) / mostBuyers));
+        }
+        return result;
+    }
+
+    /**
+     * Similar products of one product, best first (empty when it is unknown)
+     */
+    public List<Scored> similarTo(long productId) {
+        int row = rowOf(productId);
+        if (row < 0) {
+            return List.of();
+        }
+        List<Scored> result = new ArrayList<>();
+        for (int k = offsets.get(row), end = offsets.get(row + 1); k < end; k++) {
+            result.add(new Scored(productIds.get(neighbors.get(k)), scores.get(k)));
+        }
+        return result;
+    }
+
+    private int rowOf(long productId) {
+        int low = 0;
+        int high = itemCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = productIds.get(mid);
+            if (value < productId) {
+                low = mid + 1;
+            } else if (value > productId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer slice(int position, long length) {
+        return buffer.slice(position, Math.toIntExact(length)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long sizeOf(int itemCount, int neighborCount) {
+        return HEADER_BYTES + itemCount * (8L + 4 + 4) + (itemCount + 1) * 4L + neighborCount * (4L + 4);
+    }
+
+    private static int[] popularityOrder(int[] buyers) {
+        return IntStream.range(0, buyers.length)
+                .boxed()
+                .sorted((a, b) -> buyers[a] != buyers[b] ? Integer.compare(buyers[b], buyers[a]) : Integer.compare(a, b))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static int indexOf(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Partial selection of the best rows by score, without boxing
+     */
+    static final class TopK {
+
+        private TopK() {
+        }
+
+        /**
+         * Up to {@code limit} of {@code candidates[0..count)} with a positive score, best first
+         * (ties: lower row first)
+         */
+        static int[] select(int[] candidates, int count, float[] score, int limit) {
+            // min-heap of the best rows so far, worst at the root
+            int[] heap = new int[Math.min(limit, count)];
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                int row = candidates[i];
+                if (score[row] <= 0f) {
+                    continue;
+                }
+                if (size < heap.length) {
+                    heap[size] = row;
+                    siftUp(heap, size++, score);
+                } else if (size > 0 && better(row, heap[0], score)) {
+                    heap[0] = row;
+                    siftDown(heap, size, score);
+                }
+            }
+            int[] result = Arrays.copyOf(heap, size);
+            // drain the heap: worst first, filled from the back
+            for (int end = size - 1; end >= 0; end--) {
+                result[end] = heap[0];
+                heap[0] = heap[end];
+                siftDown(heap, end, score);
+            }
+            return result;
+        }
+
+        private static boolean better(int a, int b, float[] score) {
+            return score[a] > score[b] || (score[a] == score[b] && a < b);
+        }
+
+        private static void siftUp(int[] heap, int index, float[] score) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!better(heap[parent], heap[index], score)) {
+                    break;
+                }
+                swap(heap, parent, index);
+                index = parent;
+            }
+        }
+
+        private static void siftDown(int[] heap, int size, float[] score) {
+            int index = 0;
+            while (true) {
+                int left = 2 * index + 1;
+                if (left >= size) {
+                    return;
+                }
+                int worst = left;
+                int right = left + 1;
+                if (right < size && better(heap[left], heap[right], score)) {
+                    worst = right;
+                }
+                if (!better(heap[index], heap[worst], score)) {
+                    return;
+                }
+                swap(heap, index, worst);
+                index = worst;
+            }
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
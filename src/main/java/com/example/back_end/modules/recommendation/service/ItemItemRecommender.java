@@ -0,0 +1,137 @@
+package com.example.back_end.modules.recommendation.service;
+
+import com.example.back_end.modules.recommendation.dto.UserHistoryItemDTO;
+import com.example.back_end.modules.recommendation.repository.RecommendationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Built-in item-item recommender, used when the external recommender is unavailable.
+ *
+ * The model ({@link ItemItemModel}) is trained from v_reco_purchase_events
+ * ({@link ItemItemTrainer}), written to recommendation.item-item.model-path and memory-mapped.
+ * On startup an existing file is mapped as is; otherwise, and every
+ * recommendation.item-item.retrain-interval, the model is retrained, rewritten and remapped.
+ * Until a model is available {@link #isLoaded()} is false and lookups return nothing.
+ */
+@Component
+@Slf4j
+public class ItemItemRecommender {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final RecommendationRepository recommendationRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final Path modelPath;
+    private final ItemItemTrainer trainer;
+    private final int historyLimit;
+
+    private volatile ItemItemModel model;
+
+    public ItemItemRecommender(RecommendationRepository recommendationRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${recommendation.item-item.model-path:data/recommendation/item-item.bin}") String modelPath,
+                               @Value("${recommendation.item-item.max-neighbors:50}") int maxNeighbors,
+                               @Value("${recommendation.item-item.history-limit:50}") int historyLimit) {
+        this.recommendationRepository = recommendationRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx.setReadOnly(true);
+        this.modelPath = Paths.get(modelPath).toAbsolutePath().normalize();
+        this.trainer = new ItemItemTrainer(maxNeighbors);
+        this.historyLimit = historyLimit;
+    }
+
+    public boolean isLoaded() {
+        return model != null;
+    }
+
+    /**
+     * Products for the customer from their latest purchases, best first; empty for a customer
+     * without history or before the model is loaded
+     */
+    public List<ItemItemModel.Scored> recommendFor(Long customerId, int limit) {
+        ItemItemModel current = model;
+        if (current == null || customerId == null) {
+            return List.of();
+        }
+        List<UserHistoryItemDTO> history = recommendationRepository.findUserHistory(customerId, historyLimit);
+        long[] productIds = history.stream().mapToLong(UserHistoryItemDTO::getProductId).toArray();
+        return current.recommend(productIds, limit);
+    }
+
+    /**
+     * The most bought products; empty before the model is loaded
+     */
+    public List<ItemItemModel.Scored> popular(int limit) {
+        ItemItemModel current = model;
+        return current == null ? List.of() : current.popular(limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (Files.isRegularFile(modelPath)) {
+            try {
+                model = ItemItemModel.map(modelPath);
+                log.info("Mapped item-item model {}: {} products", modelPath, model.itemCount());
+                return;
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Could not map item-item model {} - retraining", modelPath, e);
+            }
+        }
+        retrain();
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.item-item.retrain-interval:PT6H}",
+               initialDelayString = "${recommendation.item-item.retrain-interval:PT6H}")
+    public synchronized void retrain() {
+        try {
+            long start = System.nanoTime();
+            Pairs pairs = new Pairs();
+            readOnlyTx.executeWithoutResult(status ->
+                    recommendationRepository.streamPurchasePairs(FETCH_SIZE, pairs::add));
+            ItemItemModel trained = trainer.train(pairs.customerIds, pairs.productIds, pairs.size,
+                                                  ForkJoinPool.commonPool());
+            trained.writeTo(modelPath);
+            model = ItemItemModel.map(modelPath);
+            log.info("Trained item-item model from {} purchase pairs: {} products in {} ms",
+                     pairs.size, trained.itemCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not train the item-item model", e);
+        }
+    }
+
+    /**
+     * Growable primitive columns of (customer, product)
+     */
+    private static final class Pairs {
+        private long[] customerIds = new long[1024];
+        private long[] productIds = new long[1024];
+        private int size;
+
+        void add(long customerId, long productId) {
+            if (size == customerIds.length) {
+                customerIds = Arrays.copyOf(customerIds, size * 2);
+                productIds = Arrays.copyOf(productIds, size * 2);
+            }
+            customerIds[size] = customerId;
+            productIds[size] = productId;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.back_end.modules.recommendation.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Trains an {@link ItemItemModel} from (customer, product) purchase pairs.
+ *
+ * Both sparse matrices are kept in CSR form over primitive arrays (no boxed maps):
+ * customer -> products and its transpose product -> customers. Row i of the
+ * co-occurrence matrix is accumulated by walking product i's customers and their products;
+ * rows are independent, so ranges of rows are computed in parallel on a fork-join pool,
+ * each leaf reusing one dense scratch row. Similarity is cosine,
+ * co(i, j) / sqrt(buyers(i) * buyers(j)), and only the best {@code maxNeighbors} per row are kept.
+ */
+public final class ItemItemTrainer {
+
+    // rows per fork-join leaf
+    private static final int LEAF_ROWS = 64;
+
+    private final int maxNeighbors;
+
+    public ItemItemTrainer(int maxNeighbors) {
+        if (maxNeighbors <= 0) {
+            throw new IllegalArgumentException("maxNeighbors must be positive");
+        }
+        this.maxNeighbors = maxNeighbors;
+    }
+
+    /**
+     * @param customerIds one entry per pair, pairs grouped by customer
+     * @param productIds  the product of each pair; repeats within a customer are ignored
+     * @param pairCount   number of pairs in use
+     */
+    public ItemItemModel train(long[] customerIds, long[] productIds, int pairCount, ForkJoinPool pool) {
+        long[] items = distinctSorted(productIds, pairCount);
+        int itemCount = items.length;
+
+        // customer -> products (CSR), products as row numbers
+        int[] customerOffsets = new int[pairCount + 1];
+        int[] customerItems = new int[pairCount];
+        int customerCount = 0;
+        int filled = 0;
+        for (int p = 0; p < pairCount; p++) {
+            if (p == 0 || customerIds[p] != customerIds[p - 1]) {
+                customerOffsets[customerCount++] = filled;
+            }
+            int row = Arrays.binarySearch(items, productIds[p]);
+            if (indexOf(customerItems, customerOffsets[customerCount - 1], filled, row) < 0) {
+                customerItems[filled++] = row;
+            }
+        }
+        customerOffsets[customerCount] = filled;
+
+        // product -> customers (CSR), the transpose
+        int[] buyers = new int[itemCount];
+        for (int k = 0; k < filled; k++) {
+            buyers[customerItems[k]]++;
+        }
+        int[] itemOffsets = new int[itemCount + 1];
+        for (int i = 0; i < itemCount; i++) {
+            itemOffsets[i + 1] = itemOffsets[i] + buyers[i];
+        }
+        int[] itemCustomers = new int[filled];
+        int[] cursor = Arrays.copyOf(itemOffsets, itemCount);
+        for (int c = 0; c < customerCount; c++) {
+            for (int k = customerOffsets[c]; k < customerOffsets[c + 1]; k++) {
+                itemCustomers[cursor[customerItems[k]]++] = c;
+            }
+        }
+
+        int[][] rowNeighbors = new int[itemCount][];
+        float[][] rowScores = new float[itemCount][];
+        pool.invoke(new Rows(0, itemCount, new Matrices(customerOffsets, customerItems, itemOffsets,
+                itemCustomers, buyers), rowNeighbors, rowScores));
+
+        int[] offsets = new int[itemCount + 1];
+        for (int i = 0; i < itemCount; i++) {
+            offsets[i + 1] = offsets[i] + rowNeighbors[i].length;
+        }
+        int[] neighbors = new int[offsets[itemCount]];
+        float[] scores = new float[offsets[itemCount]];
+        for (int i = 0; i < itemCount; i++) {
+            System.arraycopy(rowNeighbors[i], 0, neighbors, offsets[i], rowNeighbors[i].length);
+            System.arraycopy(rowScores[i], 0, scores, offsets[i], rowScores[i].length);
+        }
+        return ItemItemModel.of(items, buyers, offsets, neighbors, scores, System.currentTimeMillis());
+    }
+
+    private record Matrices(int[] customerOffsets, int[] customerItems,
+                            int[] itemOffsets, int[] itemCustomers, int[] buyers) {
+    }
+
+    private final class Rows extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final Matrices m;
+        private final int[][] rowNeighbors;
+        private final float[][] rowScores;
+
+        Rows(int from, int to, Matrices m, int[][] rowNeighbors, float[][] rowScores) {
+            this.from = from;
+            this.to = to;
+            this.m = m;
+            this.rowNeighbors = rowNeighbors;
+            this.rowScores = rowScores;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Rows(from, mid, m, rowNeighbors, rowScores),
+                          new Rows(mid, to, m, rowNeighbors, rowScores));
+                return;
+            }
+            int itemCount = m.buyers().length;
+            float[] score = new float[itemCount];
+            int[] touched = new int[itemCount];
+            for (int i = from; i < to; i++) {
+                int touchedCount = 0;
+                for (int k = m.itemOffsets()[i]; k < m.itemOffsets()[i + 1]; k++) {
+                    int customer = m.itemCustomers()[k];
+                    for (int q = m.customerOffsets()[customer]; q < m.customerOffsets()[customer + 1]; q++) {
+                        int j = m.customerItems()[q];
+                        if (j != i && score[j]++ == 0f) {
+                            touched[touchedCount++] = j;
+                        }
+                    }
+                }
+                for (int t = 0; t < touchedCount; t++) {
+                    int j = touched[t];
+                    score[j] = (float) (score[j] / Math.sqrt((double) m.buyers()[i] * m.buyers()[j]));
+                }
+
+                int[] best = ItemItemModel.TopK.select(touched, touchedCount, score, maxNeighbors);
+                float[] bestScores = new float[best.length];
+                for (int b = 0; b < best.length; b++) {
+                    bestScores[b] = score[best[b]];
+                }
+                rowNeighbors[i] = best;
+                rowScores[i] = bestScores;
+
+                for (int t = 0; t < touchedCount; t++) {
+                    score[touched[t]] = 0f;
+                }
+            }
+        }
+    }
+
+    private static long[] distinctSorted(long[] values, int count) {
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    private static int indexOf(int[] values, int from, int to, int value) {
+        for (int i = from; i < to; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.back_end.modules.recommendation.service;
+
+import com.example.back_end.modules.recommendation.dto.RecommendationItemDTO;
+import com.example.back_end.modules.recommendation.dto.RecommendationsResponseDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Recommendation answers per customer, plus the rows that are the same for every customer.
+ *
+ * - per customer (customerId, topK, inStockOnly): the mapped response, fresh for
+ *   recommendation.gateway.cache.ttl and then served stale for another
+ *   recommendation.gateway.cache.stale-ttl while the gateway refreshes it in the background;
+ *   LRU, at most recommendation.gateway.cache.max-entries
+ * - shared (topK, inStockOnly): the popular and verified offers rows, fresh for the ttl;
+ *   customer responses reference these lists instead of holding their own copies
+ *
+ * A customer's entries are evicted when they buy something ({@link #evictCustomer(Long)}).
+ */
+@Component
+public class RecommendationCache {
+
+    /**
+     * Everything a customer's answer depends on
+     */
+    public record Key(Long customerId, int topK, boolean inStockOnly) {
+    }
+
+    public record SharedKey(int topK, boolean inStockOnly) {
+    }
+
+    /**
+     * Rows that do not depend on the customer
+     */
+    public record SharedRows(List<RecommendationItemDTO> popular, List<RecommendationItemDTO> offers) {
+    }
+
+    /**
+     * A cached answer; stale ones should be refreshed
+     */
+    public record Hit(RecommendationsResponseDTO response, boolean stale) {
+    }
+
+    private record Entry<V>(V value, long storedAt) {
+    }
+
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final LongSupplier nanoClock;
+
+    // guarded by themselves
+    private final Map<Key, Entry<RecommendationsResponseDTO>> entries;
+    private final Map<SharedKey, Entry<SharedRows>> shared = new HashMap<>();
+
+    @Autowired
+    public RecommendationCache(@Value("${recommendation.gateway.cache.ttl:PT1M}") Duration ttl,
+                               @Value("${recommendation.gateway.cache.stale-ttl:PT10M}") Duration staleTtl,
+                               @Value("${recommendation.gateway.cache.max-entries:5000}") int maxEntries) {
+        this(ttl, staleTtl, maxEntries, System::nanoTime);
+    }
+
+    RecommendationCache(Duration ttl, Duration staleTtl, int maxEntries, LongSupplier nanoClock) {
+        this.ttlNanos = ttl.toNanos();
+        this.staleNanos = staleTtl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry<RecommendationsResponseDTO>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The cached answer (fresh or stale), or null when there is none or it is too old to serve
+     */
+    public Hit get(Key key) {
+        long age;
+        RecommendationsResponseDTO response;
+        synchronized (entries) {
+            Entry<RecommendationsResponseDTO> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            age = nanoClock.getAsLong() - entry.storedAt();
+            if (age >= ttlNanos + staleNanos) {
+                entries.remove(key);
+                return null;
+            }
+            response = entry.value();
+        }
+        return new Hit(response, age >= ttlNanos);
+    }
+
+    public void put(Key key, RecommendationsResponseDTO response) {
+        long now = nanoClock.getAsLong();
+        synchronized (entries) {
+            entries.put(key, new Entry<>(response, now));
+        }
+    }
+
+    /**
+     * Fresh shared rows, or null
+     */
+    public SharedRows getShared(SharedKey key) {
+        synchronized (shared) {
+            Entry<SharedRows> entry = shared.get(key);
+            if (entry == null || nanoClock.getAsLong() - entry.storedAt() >= ttlNanos) {
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    public void putShared(SharedKey key, SharedRows rows) {
+        long now = nanoClock.getAsLong();
+        synchronized (shared) {
+            shared.put(key, new Entry<>(rows, now));
+        }
+    }
+
+    /**
+     * Drop every cached answer of a customer. Inside a transaction it happens after commit,
+     * so the next lookup already sees the new purchase.
+     */
+    public void evictCustomer(Long customerId) {
+        if (customerId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeCustomer(customerId);
+                }
+            });
+        } else {
+            removeCustomer(customerId);
+        }
+    }
+
+    private void removeCustomer(Long customerId) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> customerId.equals(key.customerId()));
+        }
+    }
+}
@@ -11,13 +11,18 @@ import com.example.back_end.modules.recommendation.repository.RecommendationRepo
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class RecommendationService {
 
     private final RecommendationRepository recommendationRepository;
+    private final TrendingCounters trendingCounters;
 
     public List<UserHistoryItemDTO> getUserHistory(Long customerId, int limit) {
         return recommendationRepository.findUserHistory(customerId, limit);
@@ -27,8 +32,29 @@ public class RecommendationService {
         return recommendationRepository.findProductCandidates(limit, inStockOnly);
     }
 
-    public List<TrendingProductDTO> getTrending(int days, int limit) {
-        return recommendationRepository.findTrending(days, limit);
+    /**
+     * From the in-memory {@link TrendingCounters} when the window is within their retention,
+     * from v_reco_purchase_events otherwise (or before they are loaded)
+     */
+    public List<TrendingProductDTO> getTrending(int days, int limit, double halfLifeDays) {
+        if (!trendingCounters.isLoaded() || days > trendingCounters.retentionDays()) {
+            return recommendationRepository.findTrending(days, limit, halfLifeDays);
+        }
+        int scale = halfLifeDays > 0 ? 4 : 2;
+        // inactive products are dropped by the catalog lookup, so ask for a few more
+        List<TrendingCounters.Trend> top = trendingCounters.top(days, limit * 2, halfLifeDays);
+        Map<Long, Double> quantities = new HashMap<>();
+        for (TrendingCounters.Trend trend : top) {
+            quantities.put(trend.productId(), trend.quantity());
+        }
+        List<Long> productIds = top.stream().map(TrendingCounters.Trend::productId).toList();
+        List<TrendingProductDTO> result = recommendationRepository.findCatalogProductsInOrder(productIds).stream()
+                .limit(limit)
+                .toList();
+        for (TrendingProductDTO product : result) {
+            product.setScore(BigDecimal.valueOf(quantities.get(product.getProductId())).setScale(scale, RoundingMode.HALF_UP));
+        }
+        return result;
     }
 
     public List<PurchaseEventDTO> getPurchaseEventsForTraining(int limit, int offset) {
@@ -1,80 +1,209 @@
 package com.example.back_end.modules.recommendation.service;
 
-import com.example.back_end.modules.catalog.product.entity.Product;
-import com.example.back_end.modules.catalog.product.repository.ProductRepository;
 import com.example.back_end.modules.offer.entity.Offer;
-import com.example.back_end.modules.offer.repository.OfferRepository;
+import com.example.back_end.modules.offer.service.OfferIndex;
 import com.example.back_end.modules.recommendation.dto.*;
 import com.example.back_end.modules.recommendation.dto.service.*;
-import lombok.RequiredArgsConstructor;
+import com.example.back_end.modules.recommendation.repository.RecommendationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+/**
+ * Recommendations for the POS / customer app, from the external recommender with a database fallback.
+ *
+ * Nothing here blocks the request thread: the remote call runs on the WebClient event loop and
+ * the database work (offer verification, fallback) on the bounded elastic scheduler.
+ * A lookup waits at most recommendation.gateway.latency-budget for the recommender; after that
+ * it answers with the database fallback right away, while the remote call keeps running
+ * (up to recommendation.gateway.remote-timeout) and warms {@link RecommendationCache}
+ * for the customer's next lookup.
+ *
+ * The fallback ranks "For You" and "Popular" with the built-in {@link ItemItemRecommender}
+ * when its model is loaded, and lists products on offer otherwise.
+ *
+ * Cached answers past their ttl are still served (stale-while-revalidate) and refreshed in the
+ * background. Concurrent misses and refreshes for the same key share one remote call.
+ *
+ * Metrics: recommendation.gateway.requests{outcome=cache_hit|stale_hit|remote|timeout_fallback|error_fallback}
+ * and recommendation.gateway.remote.latency.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RecommendationsGatewayService {
 
+    static final String OUTCOME_CACHE_HIT = "cache_hit";
+    static final String OUTCOME_STALE_HIT = "stale_hit";
+    static final String OUTCOME_REMOTE = "remote";
+    static final String OUTCOME_TIMEOUT_FALLBACK = "timeout_fallback";
+    static final String OUTCOME_ERROR_FALLBACK = "error_fallback";
+
     private final WebClient recommendationWebClient;
-    private final OfferRepository offerRepository;
-    private final ProductRepository productRepository;
-
-    public RecommendationsResponseDTO getRecommendations(Long customerId,
-                                                         String bearerToken,
-                                                         int topK,
-                                                         int candidateLimit,
-                                                         boolean inStockOnly) {
-        try {
-            log.debug("Calling recommendation service for customer {} with topK={}", customerId, topK);
-
-            RecommendationServiceResponse serviceResponse = recommendationWebClient
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/recommendations/pos/customers/{customerId}")
-                            .queryParam("topK", topK)
-                            .queryParam("candidateLimit", candidateLimit)
-                            .queryParam("inStockOnly", inStockOnly)
-                            .build(customerId))
-                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
-                    .accept(MediaType.APPLICATION_JSON)
-                    .retrieve()
-                    .onStatus(status -> status.isError(), response -> {
-                        log.error("Recommendation service returned error status: {}", response.statusCode());
-                        return Mono.error(new IllegalStateException("Recommendation service error"));
-                    })
-                    .bodyToMono(RecommendationServiceResponse.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .onErrorResume(throwable -> {
-                        log.warn("Error calling recommendation service: {}", throwable.getMessage());
-                        return Mono.empty();
-                    })
-                    .block();
-
-            if (serviceResponse == null) {
-                log.warn("Recommendation service unavailable or returned null - using database fallback for customer {}", customerId);
-                return createFallbackWithDatabaseOffers(customerId, topK);
+    private final OfferIndex offerIndex;
+    private final RecommendationRepository recommendationRepository;
+    private final RecommendationCache cache;
+    private final ItemItemRecommender itemItemRecommender;
+    private final MeterRegistry meterRegistry;
+    private final Duration latencyBudget;
+    private final Duration remoteTimeout;
+    private final Timer remoteLatency;
+
+    // remote calls in progress, so a key is refreshed once however many lookups arrive meanwhile
+    private final Map<RecommendationCache.Key, Mono<RecommendationsResponseDTO>> inFlight = new ConcurrentHashMap<>();
+
+    public RecommendationsGatewayService(WebClient recommendationWebClient,
+                                         OfferIndex offerIndex,
+                                         RecommendationRepository recommendationRepository,
+                                         RecommendationCache cache,
+                                         ItemItemRecommender itemItemRecommender,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${recommendation.gateway.latency-budget:PT0.15S}") Duration latencyBudget,
+                                         @Value("${recommendation.gateway.remote-timeout:PT10S}") Duration remoteTimeout) {
+        this.recommendationWebClient = recommendationWebClient;
+        this.offerIndex = offerIndex;
+        this.recommendationRepository = recommendationRepository;
+        this.cache = cache;
+        this.itemItemRecommender = itemItemRecommender;
+        this.meterRegistry = meterRegistry;
+        this.latencyBudget = latencyBudget;
+        this.remoteTimeout = remoteTimeout;
+        this.remoteLatency = Timer.builder("recommendation.gateway.remote.latency")
+                .description("Time until the recommender answered (or failed)")
+                .register(meterRegistry);
+    }
+
+    public Mono<RecommendationsResponseDTO> getRecommendations(Long customerId,
+                                                               String bearerToken,
+                                                               int topK,
+                                                               int candidateLimit,
+                                                               boolean inStockOnly) {
+        RecommendationCache.Key key = new RecommendationCache.Key(customerId, topK, inStockOnly);
+        RecommendationCache.Hit hit = cache.get(key);
+        if (hit != null) {
+            if (hit.stale()) {
+                count(OUTCOME_STALE_HIT);
+                refresh(key, candidateLimit, bearerToken).subscribe();
+            } else {
+                count(OUTCOME_CACHE_HIT);
             }
+            return Mono.just(hit.response());
+        }
 
-            return mapToFrontend(customerId, serviceResponse);
-        } catch (Exception ex) {
-            log.warn("Failed to fetch recommendations for customer {}: {} - using database fallback",
-                     customerId, ex.getMessage());
-            return createFallbackWithDatabaseOffers(customerId, topK);
+        // Subscribed here, so the call completes and fills the cache even when this request stops waiting
+        Mono<RecommendationsResponseDTO> remote = refresh(key, candidateLimit, bearerToken);
+        remote.subscribe();
+
+        return remote
+                .timeout(latencyBudget)
+                .doOnNext(response -> count(OUTCOME_REMOTE))
+                .onErrorResume(TimeoutException.class, e -> {
+                    log.info("Recommendation service did not answer within {} for customer {} - using database fallback",
+                             latencyBudget, customerId);
+                    return fallback(customerId, topK, OUTCOME_TIMEOUT_FALLBACK);
+                })
+                .switchIfEmpty(Mono.defer(() -> fallback(customerId, topK, OUTCOME_ERROR_FALLBACK)));
+    }
+
+    /**
+     * The in-flight remote call for the key, or a new one. The returned Mono replays its result,
+     * so any number of subscribers share one request.
+     */
+    private Mono<RecommendationsResponseDTO> refresh(RecommendationCache.Key key, int candidateLimit, String bearerToken) {
+        Mono<RecommendationsResponseDTO> running = inFlight.get(key);
+        if (running != null) {
+            return running;
         }
+        AtomicReference<Mono<RecommendationsResponseDTO>> self = new AtomicReference<>();
+        Mono<RecommendationsResponseDTO> call = callRecommender(key, candidateLimit, bearerToken)
+                // leave inFlight before the answer is cached, so no lookup joins a finished call
+                .doOnNext(response -> {
+                    inFlight.remove(key, self.get());
+                    cache.put(key, response);
+                })
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(call);
+        running = inFlight.putIfAbsent(key, call);
+        return running != null ? running : call;
+    }
+
+    /**
+     * Remote answer mapped for the frontend; empty when the recommender failed
+     */
+    private Mono<RecommendationsResponseDTO> callRecommender(RecommendationCache.Key key, int candidateLimit, String bearerToken) {
+        Long customerId = key.customerId();
+        return Mono.defer(() -> {
+                    log.debug("Calling recommendation service for customer {} with topK={}", customerId, key.topK());
+                    return recommendationWebClient
+                            .get()
+                            .uri(uriBuilder -> uriBuilder
+                                    .path("/recommendations/pos/customers/{customerId}")
+                                    .queryParam("topK", key.topK())
+                                    .queryParam("candidateLimit", candidateLimit)
+                                    .queryParam("inStockOnly", key.inStockOnly())
+                                    .build(customerId))
+                            .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .retrieve()
+                            .onStatus(status -> status.isError(), response -> {
+                                log.error("Recommendation service returned error status: {}", response.statusCode());
+                                return Mono.error(new IllegalStateException("Recommendation service error"));
+                            })
+                            .bodyToMono(RecommendationServiceResponse.class);
+                })
+                .timeout(remoteTimeout)
+                .transform(this::timed)
+                // mapping verifies offers and may read products
+                .publishOn(Schedulers.boundedElastic())
+                .map(serviceResponse -> mapToFrontend(key, serviceResponse))
+                .onErrorResume(throwable -> {
+                    log.warn("Error calling recommendation service for customer {}: {}", customerId, throwable.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private <T> Mono<T> timed(Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return call.doFinally(signal -> sample.stop(remoteLatency));
+        });
+    }
+
+    private Mono<RecommendationsResponseDTO> fallback(Long customerId, int topK, String outcome) {
+        count(outcome);
+        return Mono.fromCallable(() -> createFallbackWithDatabaseOffers(customerId, topK))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    log.error("Database fallback failed for customer {}: {}", customerId, e.getMessage(), e);
+                    return Mono.just(createFallback(customerId, topK));
+                });
     }
 
-    private RecommendationsResponseDTO mapToFrontend(Long customerId, RecommendationServiceResponse serviceResponse) {
+    private void count(String outcome) {
+        meterRegistry.counter("recommendation.gateway.requests", "outcome", outcome).increment();
+    }
+
+    private RecommendationsResponseDTO mapToFrontend(RecommendationCache.Key key, RecommendationServiceResponse serviceResponse) {
+        Long customerId = key.customerId();
         // Logging for debugging empty recommendations
         log.info("=== Recommendation Service Response for customerId {} (from customers table) ===", customerId);
         log.info("Status: {}", serviceResponse.getStatus());
@@ -116,13 +245,22 @@ public class RecommendationsGatewayService {
         RecommendationRowsDTO rows = new RecommendationRowsDTO();
         if (serviceRows != null) {
             rows.setForYou(mapItems(serviceRows.getForYou()));
-            rows.setPopular(mapItems(serviceRows.getPopular()));
 
-            // معالجة خاصة لقائمة offers: تصفية وإكمال
-            int topK = (serviceMeta != null && serviceMeta.getTopK() != null)
-                        ? serviceMeta.getTopK()
-                        : 10;
-            rows.setOffers(filterAndCompleteOffers(serviceRows.getOffers(), topK));
+            // popular and offers are the same for every customer: built once per ttl and shared
+            RecommendationCache.SharedKey sharedKey = new RecommendationCache.SharedKey(key.topK(), key.inStockOnly());
+            RecommendationCache.SharedRows shared = cache.getShared(sharedKey);
+            if (shared == null) {
+                // معالجة خاصة لقائمة offers: تصفية وإكمال
+                int topK = (serviceMeta != null && serviceMeta.getTopK() != null)
+                            ? serviceMeta.getTopK()
+                            : 10;
+                shared = new RecommendationCache.SharedRows(
+                        Collections.unmodifiableList(mapItems(serviceRows.getPopular())),
+                        Collections.unmodifiableList(filterAndCompleteOffers(serviceRows.getOffers(), topK)));
+                cache.putShared(sharedKey, shared);
+            }
+            rows.setPopular(shared.popular());
+            rows.setOffers(shared.offers());
         } else {
             rows.setForYou(Collections.emptyList());
             rows.setPopular(Collections.emptyList());
@@ -174,6 +312,9 @@ public class RecommendationsGatewayService {
      * Filter offers list to include only products that actually have active offers in database,
      * and complete the list from database if needed.
      *
+     * Active offers come from the in-memory OfferIndex (one lookup per response); only the
+     * completion reads products, in one query.
+     *
      * @param serviceOffers List from recommendation service
      * @param topK Target number of items
      * @return Filtered and completed list of products with offers
@@ -183,21 +324,17 @@ public class RecommendationsGatewayService {
                   serviceOffers != null ? serviceOffers.size() : 0, topK);
 
         List<RecommendationItemDTO> result = new ArrayList<>();
-        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Offer> productsOnOffer = offerIndex.findProductsOnOffer(LocalDateTime.now());
 
-        // Step 1: Verify each product from recommendation service has an active offer in database
+        // Step 1: Keep only products from recommendation service that have an active offer
         if (serviceOffers != null && !serviceOffers.isEmpty()) {
             for (RecommendationServiceItem serviceItem : serviceOffers) {
                 if (serviceItem.getProductId() == null) {
                     continue;
                 }
 
-                // Check if this product has an active offer in database
-                boolean hasActiveOffer = checkProductHasActiveOffer(serviceItem.getProductId(), now);
-
-                if (hasActiveOffer) {
-                    RecommendationItemDTO item = mapItem(serviceItem);
-                    result.add(item);
+                if (productsOnOffer.containsKey(serviceItem.getProductId())) {
+                    result.add(mapItem(serviceItem));
                     log.debug("Product {} has active offer - keeping in list", serviceItem.getProductId());
                 } else {
                     log.debug("Product {} has NO active offer - removing from list", serviceItem.getProductId());
@@ -213,7 +350,7 @@ public class RecommendationsGatewayService {
             int needed = topK - result.size();
             log.info("Need {} more items with offers to reach topK={}", needed, topK);
 
-            List<RecommendationItemDTO> additionalOffers = getProductsWithActiveOffers(result, needed);
+            List<RecommendationItemDTO> additionalOffers = getProductsWithActiveOffers(productsOnOffer, result, needed);
             result.addAll(additionalOffers);
 
             log.info("Added {} additional products with offers from database", additionalOffers.size());
@@ -229,132 +366,45 @@ public class RecommendationsGatewayService {
     }
 
     /**
-     * Check if a product has any active offer in database.
-     *
-     * @param productId Product ID to check
-     * @param now Current timestamp
-     * @return true if product has at least one active offer
-     */
-    private boolean checkProductHasActiveOffer(Long productId, LocalDateTime now) {
-        // Check PRODUCT type offers
-        List<Offer> productOffers = offerRepository.findActiveProductOffersForProduct(productId, now);
-        if (!productOffers.isEmpty()) {
-            return true;
-        }
-
-        // Check CATEGORY type offers
-        List<Offer> categoryOffers = offerRepository.findActiveCategoryOffersForProduct(productId, now);
-        return !categoryOffers.isEmpty();
-    }
-
-    /**
-     * Get products with active offers from database.
-     * Excludes products already in the result list.
+     * Get active products with active offers, excluding products already in the result list.
      *
+     * @param productsOnOffer productId -> offer, from OfferIndex
      * @param existingItems Items already in the result
      * @param limit Maximum number of items to fetch
      * @return List of products with active offers
      */
-    private List<RecommendationItemDTO> getProductsWithActiveOffers(List<RecommendationItemDTO> existingItems, int limit) {
-        LocalDateTime now = LocalDateTime.now();
-
-        // Get all active offers
-        List<Offer> activeOffers = offerRepository.findActiveOffers(now);
-
-        if (activeOffers.isEmpty()) {
+    private List<RecommendationItemDTO> getProductsWithActiveOffers(Map<Long, Offer> productsOnOffer,
+                                                                    List<RecommendationItemDTO> existingItems,
+                                                                    int limit) {
+        if (productsOnOffer.isEmpty()) {
             log.warn("No active offers found in database");
             return Collections.emptyList();
         }
 
-        log.debug("Found {} active offers in database", activeOffers.size());
-
-        // Collect product IDs already in result to avoid duplicates
-        List<Long> existingProductIds = existingItems.stream()
+        Set<Long> existingProductIds = existingItems.stream()
                 .map(RecommendationItemDTO::getProductId)
-                .collect(Collectors.toList());
+                .collect(Collectors.toSet());
+        List<Long> candidateIds = productsOnOffer.keySet().stream()
+                .filter(productId -> !existingProductIds.contains(productId))
+                .toList();
 
-        List<RecommendationItemDTO> additionalItems = new ArrayList<>();
-
-        // Process each offer to extract products
-        for (Offer offer : activeOffers) {
-            if (additionalItems.size() >= limit) {
-                break;
-            }
-
-            // Get products from PRODUCT type offers
-            if (offer.getOfferType() == Offer.OfferType.PRODUCT && offer.getOfferProducts() != null) {
-                for (var offerProduct : offer.getOfferProducts()) {
-                    if (additionalItems.size() >= limit) {
-                        break;
-                    }
-
-                    Product product = offerProduct.getProduct();
-                    if (product != null &&
-                        product.getIsActive() &&
-                        !existingProductIds.contains(product.getId())) {
-
-                        RecommendationItemDTO item = createItemFromProduct(product, offer);
-                        additionalItems.add(item);
-                        existingProductIds.add(product.getId());
-                    }
-                }
-            }
-
-            // Get products from CATEGORY type offers
-            if (offer.getOfferType() == Offer.OfferType.CATEGORY && offer.getOfferCategories() != null) {
-                for (var offerCategory : offer.getOfferCategories()) {
-                    if (additionalItems.size() >= limit) {
-                        break;
-                    }
-
-                    var category = offerCategory.getCategory();
-                    if (category != null) {
-                        // Get products in this category from database
-                        List<Product> categoryProducts = productRepository.findProductsByCategoryId(category.getId());
-
-                        for (Product product : categoryProducts) {
-                            if (additionalItems.size() >= limit) {
-                                break;
-                            }
-
-                            if (product != null &&
-                                product.getIsActive() &&
-                                !existingProductIds.contains(product.getId())) {
-
-                                RecommendationItemDTO item = createItemFromProduct(product, offer);
-                                additionalItems.add(item);
-                                existingProductIds.add(product.getId());
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        return additionalItems;
+        return recommendationRepository.findActiveProductsInOrder(candidateIds, limit).stream()
+                .map(product -> createItemFromProduct(product, productsOnOffer.get(product.getProductId())))
+                .collect(Collectors.toList());
     }
 
     /**
-     * Create RecommendationItemDTO from Product and Offer.
+     * Create RecommendationItemDTO from an offered product and its offer.
      *
-     * @param product Product entity
+     * @param product Product on offer
      * @param offer Offer entity
      * @return RecommendationItemDTO
      */
-    private RecommendationItemDTO createItemFromProduct(Product product, Offer offer) {
+    private RecommendationItemDTO createItemFromProduct(OfferProductDTO product, Offer offer) {
         RecommendationItemDTO item = new RecommendationItemDTO();
-        item.setProductId(product.getId());
+        item.setProductId(product.getProductId());
         item.setName(product.getName());
-
-        // Get category name (first category if multiple)
-        String categoryName = null;
-        if (product.getCategories() != null && !product.getCategories().isEmpty()) {
-            var firstCategory = product.getCategories().iterator().next();
-            if (firstCategory != null) {
-                categoryName = firstCategory.getName();
-            }
-        }
-        item.setCategoryName(categoryName);
+        item.setCategoryName(product.getCategoryName());
 
         // Default score for database items
         item.setScore(0.75);
@@ -368,8 +418,8 @@ public class RecommendationsGatewayService {
             offerInfo.setDiscountPercent(offer.getDiscountValue().intValue());
         } else {
             // For fixed amount, calculate approximate percentage based on product price
-            if (product.getDefaultPrice() != null && product.getDefaultPrice().doubleValue() > 0) {
-                int approxPercent = (int) ((offer.getDiscountValue().doubleValue() / product.getDefaultPrice().doubleValue()) * 100);
+            if (product.getPrice() != null && product.getPrice().doubleValue() > 0) {
+                int approxPercent = (int) ((offer.getDiscountValue().doubleValue() / product.getPrice().doubleValue()) * 100);
                 offerInfo.setDiscountPercent(Math.min(approxPercent, 100));
             } else {
                 offerInfo.setDiscountPercent(10); // Default
@@ -384,8 +434,54 @@ public class RecommendationsGatewayService {
     }
 
     /**
-     * Create fallback response with actual offers from database when recommendation service is unavailable.
-     * This provides a better user experience than returning empty lists.
+     * Create RecommendationItemDTO from a product ranked by the item-item model.
+     *
+     * @param product Recommended product
+     * @param score Model score
+     * @param offer Its active offer, or null
+     * @return RecommendationItemDTO
+     */
+    private RecommendationItemDTO createItemFromModel(OfferProductDTO product, double score, Offer offer) {
+        if (offer != null) {
+            RecommendationItemDTO item = createItemFromProduct(product, offer);
+            item.setScore(score);
+            item.setBaseScore(score);
+            return item;
+        }
+        RecommendationItemDTO item = new RecommendationItemDTO();
+        item.setProductId(product.getProductId());
+        item.setName(product.getName());
+        item.setCategoryName(product.getCategoryName());
+        item.setScore(score);
+        item.setBaseScore(score);
+        item.setHasOffer(false);
+        item.setOfferBoost(0.0);
+        return item;
+    }
+
+    /**
+     * Item-item model results as items, keeping their order and skipping inactive products
+     */
+    private List<RecommendationItemDTO> itemsFromModel(List<ItemItemModel.Scored> ranked,
+                                                       Map<Long, Offer> productsOnOffer,
+                                                       int limit) {
+        if (ranked.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Float> scores = ranked.stream()
+                .collect(Collectors.toMap(ItemItemModel.Scored::productId, ItemItemModel.Scored::score));
+        List<Long> ids = ranked.stream().map(ItemItemModel.Scored::productId).toList();
+        return recommendationRepository.findActiveProductsInOrder(ids, limit).stream()
+                .map(product -> createItemFromModel(product, scores.get(product.getProductId()),
+                                                    productsOnOffer.get(product.getProductId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Create fallback response when recommendation service is unavailable.
+     * "For You" and "Popular" come from the item-item model (the customer's purchase history and
+     * the most bought products); without a model, or for a customer without history, they fall
+     * back to the products with active offers.
      *
      * @param customerId Customer ID
      * @param topK Target number of items
@@ -402,11 +498,22 @@ public class RecommendationsGatewayService {
         RecommendationRowsDTO rows = new RecommendationRowsDTO();
 
         // Get products with active offers from database
-        List<RecommendationItemDTO> offersFromDb = getProductsWithActiveOffers(Collections.emptyList(), topK);
-
-        // Use offers for all three categories when service is down
-        rows.setForYou(offersFromDb.isEmpty() ? Collections.emptyList() : offersFromDb.subList(0, Math.min(offersFromDb.size(), topK)));
-        rows.setPopular(offersFromDb.isEmpty() ? Collections.emptyList() : offersFromDb.subList(0, Math.min(offersFromDb.size(), topK)));
+        Map<Long, Offer> productsOnOffer = offerIndex.findProductsOnOffer(LocalDateTime.now());
+        List<RecommendationItemDTO> offersFromDb = getProductsWithActiveOffers(
+                productsOnOffer, Collections.emptyList(), topK);
+        List<RecommendationItemDTO> offersTopK = offersFromDb.isEmpty()
+                ? Collections.emptyList()
+                : offersFromDb.subList(0, Math.min(offersFromDb.size(), topK));
+
+        // Ranked slightly past topK: inactive products are dropped afterwards
+        int candidates = topK * 2;
+        List<RecommendationItemDTO> forYou = itemsFromModel(
+                itemItemRecommender.recommendFor(customerId, candidates), productsOnOffer, topK);
+        List<RecommendationItemDTO> popular = itemsFromModel(
+                itemItemRecommender.popular(candidates), productsOnOffer, topK);
+
+        rows.setForYou(!forYou.isEmpty() ? forYou : !popular.isEmpty() ? popular : offersTopK);
+        rows.setPopular(!popular.isEmpty() ? popular : offersTopK);
         rows.setOffers(offersFromDb);
         dto.setRows(rows);
 
@@ -415,7 +522,7 @@ public class RecommendationsGatewayService {
         meta.setNumForYou(rows.getForYou().size());
         meta.setNumPopular(rows.getPopular().size());
         meta.setNumOffers(rows.getOffers().size());
-        meta.setIsColdStart(true); // Mark as cold start since we're using fallback
+        meta.setIsColdStart(forYou.isEmpty()); // no personal ranking without purchase history
         meta.setIsStale(false);
         meta.setUserSegment("fallback");
         dto.setMeta(meta);
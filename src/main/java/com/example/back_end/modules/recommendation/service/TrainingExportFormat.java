@@ -0,0 +1,167 @@
+package com.example.back_end.modules.recommendation.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Output formats of the training exports. Rows are written one at a time to the stream,
+ * nothing is buffered beyond the writer's own buffer.
+ */
+public enum TrainingExportFormat {
+
+    /**
+     * One JSON object per line, keys as in the list endpoints' DTOs
+     */
+    NDJSON("application/x-ndjson") {
+        @Override
+        public RowWriter open(OutputStream out, String... columns) throws IOException {
+            JsonGenerator generator = JSON.createGenerator(out);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            return new RowWriter() {
+                private boolean empty = true;
+
+                @Override
+                public void row(Object... values) throws IOException {
+                    empty = false;
+                    generator.writeStartObject();
+                    for (int i = 0; i < columns.length; i++) {
+                        generator.writeFieldName(columns[i]);
+                        Object value = values[i];
+                        if (value == null) {
+                            generator.writeNull();
+                        } else if (value instanceof Long number) {
+                            generator.writeNumber(number);
+                        } else if (value instanceof BigDecimal number) {
+                            generator.writeNumber(number);
+                        } else {
+                            generator.writeString(text(value));
+                        }
+                    }
+                    generator.writeEndObject();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (!empty) {
+                        generator.writeRaw('\n');
+                    }
+                    generator.close();
+                }
+            };
+        }
+    },
+
+    /**
+     * RFC 4180: header line, fields quoted when they contain a separator, quote or line break
+     */
+    CSV("text/csv") {
+        @Override
+        public RowWriter open(OutputStream out, String... columns) throws IOException {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writeLine(writer, columns);
+            return new RowWriter() {
+                @Override
+                public void row(Object... values) throws IOException {
+                    writeLine(writer, values);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.flush();
+                }
+            };
+        }
+
+        private void writeLine(Writer writer, Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeField(writer, text(values[i]));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(Writer writer, String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    };
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final String mediaType;
+
+    TrainingExportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Start writing rows with the given columns; closing the writer flushes it but leaves
+     * {@code out} open
+     */
+    public abstract RowWriter open(OutputStream out, String... columns) throws IOException;
+
+    /**
+     * The format for a request parameter (case-insensitive)
+     */
+    public static TrainingExportFormat of(String name) {
+        for (TrainingExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + name);
+    }
+
+    /**
+     * Values: Long, BigDecimal, String, LocalDateTime (ISO-8601) or null
+     */
+    public interface RowWriter extends AutoCloseable {
+
+        void row(Object... values) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static String text(Object value) {
+        if (value instanceof LocalDateTime time) {
+            return time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        if (value instanceof BigDecimal number) {
+            return number.toPlainString();
+        }
+        return value.toString();
+    }
+}
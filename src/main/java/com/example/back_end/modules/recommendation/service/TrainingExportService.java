@@ -0,0 +1,77 @@
+package com.example.back_end.modules.recommendation.service;
+
+import com.example.back_end.modules.recommendation.repository.RecommendationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+/**
+ * Streaming exports of the recommender training data.
+ *
+ * Each export reads a forward-only cursor ({@link #FETCH_SIZE} rows per round trip) and writes
+ * every row to the output as it arrives, so memory use is the same for 10k or 50M rows.
+ * Exports resume with a keyset cursor (the last exported id) instead of an offset, so every
+ * request starts with an index seek however deep it is.
+ */
+@Service
+@RequiredArgsConstructor
+public class TrainingExportService {
+
+    static final int FETCH_SIZE = 5_000;
+
+    private final RecommendationRepository recommendationRepository;
+
+    /**
+     * Purchase events of orders after {@code afterOrderId}, whole orders at a time
+     */
+    @Transactional(readOnly = true)
+    public void exportPurchaseEvents(long afterOrderId, TrainingExportFormat format, OutputStream out) throws IOException {
+        try (TrainingExportFormat.RowWriter writer = format.open(out, "orderId", "userId", "productId", "eventTime")) {
+            unchecked(() -> recommendationRepository.streamPurchaseEventsAfter(afterOrderId, FETCH_SIZE, rs ->
+                    write(writer, rs.getLong("order_id"), rs.getLong("user_id"), rs.getLong("product_id"),
+                          rs.getObject("event_time", LocalDateTime.class))));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportProductCatalog(long afterProductId, TrainingExportFormat format, OutputStream out) throws IOException {
+        try (TrainingExportFormat.RowWriter writer = format.open(out,
+                "productId", "name", "categoryName", "type", "currentPrice", "totalQty")) {
+            unchecked(() -> recommendationRepository.streamProductCatalogAfter(afterProductId, FETCH_SIZE, rs ->
+                    write(writer, rs.getLong("product_id"), rs.getString("name"), rs.getString("category_name"),
+                          rs.getString("type"), rs.getBigDecimal("current_price"), rs.getBigDecimal("total_qty"))));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportCustomers(long afterCustomerId, TrainingExportFormat format, OutputStream out) throws IOException {
+        try (TrainingExportFormat.RowWriter writer = format.open(out, "userId", "gender")) {
+            unchecked(() -> recommendationRepository.streamCustomersAfter(afterCustomerId, FETCH_SIZE, rs ->
+                    write(writer, rs.getLong("user_id"), rs.getString("gender"))));
+        }
+    }
+
+    private static void write(TrainingExportFormat.RowWriter writer, Object... values) {
+        try {
+            writer.row(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Row callbacks cannot throw IOException; unwrap it again for the caller
+     */
+    private static void unchecked(Runnable export) throws IOException {
+        try {
+            export.run();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
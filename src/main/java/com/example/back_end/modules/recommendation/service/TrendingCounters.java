@@ -0,0 +1,349 @@
+package com.example.back_end.modules.recommendation.service;
+
+import com.example.back_end.modules.recommendation.repository.RecommendationRepository;
+import com.example.back_end.modules.sales.order.entity.OrderItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Quantity sold per product and day over the last recommendation.trending.retention-days,
+ * answering trending queries without aggregating v_reco_purchase_events.
+ *
+ * Counters are a ring of daily buckets: one slot per retained day (slot = epoch day mod retention),
+ * a slot is cleared when a newer day reuses it. Per product the slots are contiguous, so a query
+ * walks one short run per product and then keeps the best ones with a top-K heap.
+ *
+ * Seeded from v_reco_purchase_events when the application is ready and reseeded every
+ * recommendation.trending.reseed-interval (catches changes made outside the app). In between,
+ * paid orders are added and orders leaving PAID (returns) subtracted after commit, mirroring
+ * the view. The seed reads one REPEATABLE READ snapshot; changes applied once it is taken are
+ * replayed on top of the seed, earlier ones are already in it. Until the first seed
+ * {@link #isLoaded()} is false.
+ */
+@Component
+@Slf4j
+public class TrendingCounters {
+
+    /**
+     * A product and its (weighted) quantity over the window
+     */
+    public record Trend(long productId, double quantity) {
+    }
+
+    private record Delta(long epochDay, long productId, double quantity) {
+    }
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final RecommendationRepository recommendationRepository;
+    private final TransactionTemplate seedTx;
+    private final int retentionDays;
+    private final Clock clock;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // guarded by lock
+    private Buckets buckets;
+    // live changes applied after the seed took its snapshot, replayed on top of it
+    private List<Delta> pending;
+
+    private volatile boolean loaded;
+
+    @Autowired
+    public TrendingCounters(RecommendationRepository recommendationRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${recommendation.trending.retention-days:90}") int retentionDays) {
+        this(recommendationRepository, transactionManager, retentionDays, Clock.systemDefaultZone());
+    }
+
+    TrendingCounters(RecommendationRepository recommendationRepository,
+                     PlatformTransactionManager transactionManager,
+                     int retentionDays,
+                     Clock clock) {
+        if (retentionDays <= 0) {
+            throw new IllegalArgumentException("retentionDays must be positive");
+        }
+        this.recommendationRepository = recommendationRepository;
+        this.seedTx = new TransactionTemplate(transactionManager);
+        this.seedTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.seedTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.seedTx.setReadOnly(true);
+        this.retentionDays = retentionDays;
+        this.clock = clock;
+        this.buckets = new Buckets(retentionDays);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int retentionDays() {
+        return retentionDays;
+    }
+
+    /**
+     * The best selling products of the last {@code days} days (today included), best first.
+     *
+     * @param halfLifeDays when positive, a day's quantity counts half as much every halfLifeDays
+     *                     days back; otherwise every day counts the same
+     */
+    public List<Trend> top(int days, int limit, double halfLifeDays) {
+        if (days <= 0 || days > retentionDays) {
+            throw new IllegalArgumentException("days must be between 1 and " + retentionDays);
+        }
+        long today = LocalDate.now(clock).toEpochDay();
+        double[] weights = new double[days];
+        for (int age = 0; age < days; age++) {
+            weights[age] = halfLifeDays > 0 ? Math.pow(0.5, age / halfLifeDays) : 1;
+        }
+
+        lock.readLock().lock();
+        try {
+            return buckets.top(today, weights, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count a paid order's quantities (product id -> quantity) on its day, after commit
+     */
+    public void recordSale(LocalDateTime eventTime, Map<Long, BigDecimal> quantities) {
+        afterCommit(eventTime, quantities, 1);
+    }
+
+    /**
+     * Take back an order's quantities that were counted by {@link #recordSale}, after commit
+     */
+    public void removeSale(LocalDateTime eventTime, Map<Long, BigDecimal> quantities) {
+        afterCommit(eventTime, quantities, -1);
+    }
+
+    /**
+     * Quantity per product of the order lines, as {@link #recordSale} / {@link #removeSale} take them
+     * (lines without a product are skipped)
+     */
+    public static Map<Long, BigDecimal> quantitiesByProduct(List<OrderItem> items) {
+        Map<Long, BigDecimal> quantities = new HashMap<>();
+        for (OrderItem item : items) {
+            if (item.getProduct() != null && item.getQuantity() != null) {
+                quantities.merge(item.getProduct().getId(), item.getQuantity(), BigDecimal::add);
+            }
+        }
+        return quantities;
+    }
+
+    private void afterCommit(LocalDateTime eventTime, Map<Long, BigDecimal> quantities, int sign) {
+        if (eventTime == null || quantities.isEmpty()) {
+            return;
+        }
+        long epochDay = eventTime.toLocalDate().toEpochDay();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(epochDay, quantities, sign);
+                }
+            });
+        } else {
+            apply(epochDay, quantities, sign);
+        }
+    }
+
+    void apply(long epochDay, Map<Long, BigDecimal> quantities, int sign) {
+        long today = LocalDate.now(clock).toEpochDay();
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, BigDecimal> entry : quantities.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) {
+                    continue;
+                }
+                double quantity = sign * entry.getValue().doubleValue();
+                buckets.add(epochDay, entry.getKey(), quantity, today);
+                if (pending != null) {
+                    pending.add(new Delta(epochDay, entry.getKey(), quantity));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reseed();
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.trending.reseed-interval:PT6H}",
+               initialDelayString = "${recommendation.trending.reseed-interval:PT6H}")
+    public synchronized void reseed() {
+        try {
+            LocalDate today = LocalDate.now(clock);
+            long todayEpochDay = today.toEpochDay();
+            Buckets seeded = new Buckets(retentionDays);
+            seedTx.executeWithoutResult(status -> {
+                // a sale committed before the snapshot is in the seed, one applied after it is recorded
+                recommendationRepository.takeSnapshot();
+                lock.writeLock().lock();
+                try {
+                    pending = new ArrayList<>();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                recommendationRepository.streamDailyPurchaseQuantities(
+                        today.minusDays(retentionDays - 1L), FETCH_SIZE, rs -> seeded.add(
+                                rs.getObject("day", Date.class).toLocalDate().toEpochDay(),
+                                rs.getLong("product_id"),
+                                rs.getDouble("quantity"),
+                                todayEpochDay));
+            });
+
+            lock.writeLock().lock();
+            try {
+                long now = LocalDate.now(clock).toEpochDay();
+                for (Delta delta : pending) {
+                    seeded.add(delta.epochDay(), delta.productId(), delta.quantity(), now);
+                }
+                buckets = seeded;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Seeded trending counters: {} products over {} days", seeded.productCount(), retentionDays);
+        } catch (RuntimeException e) {
+            log.warn("Could not seed the trending counters", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The counters themselves; not thread-safe
+     */
+    static final class Buckets {
+
+        private final int days;
+        // epoch day held by each slot, Long.MIN_VALUE when unused
+        private final long[] slotDay;
+        private final Map<Long, Integer> rows = new HashMap<>();
+        private long[] productIds = new long[256];
+        // row-major: counts[row * days + slot]
+        private double[] counts;
+
+        Buckets(int days) {
+            this.days = days;
+            this.slotDay = new long[days];
+            Arrays.fill(slotDay, Long.MIN_VALUE);
+            this.counts = new double[productIds.length * days];
+        }
+
+        int productCount() {
+            return rows.size();
+        }
+
+        /**
+         * Add to a product's day; days outside the retained window ending today are ignored
+         */
+        void add(long epochDay, long productId, double quantity, long today) {
+            if (epochDay > today || epochDay <= today - days) {
+                return;
+            }
+            int slot = (int) Math.floorMod(epochDay, (long) days);
+            if (slotDay[slot] != epochDay) {
+                if (slotDay[slot] > epochDay) {
+                    return; // a newer day already owns the slot
+                }
+                clearSlot(slot);
+                slotDay[slot] = epochDay;
+            }
+            int row = row(productId); // may grow counts
+            counts[row * days + slot] += quantity;
+        }
+
+        List<Trend> top(long today, double[] weights, int limit) {
+            int[] slots = new int[weights.length];
+            int validSlots = 0;
+            double[] slotWeights = new double[weights.length];
+            for (int age = 0; age < weights.length; age++) {
+                long day = today - age;
+                int slot = (int) Math.floorMod(day, (long) days);
+                if (slotDay[slot] == day) {
+                    slots[validSlots] = slot;
+                    slotWeights[validSlots++] = weights[age];
+                }
+            }
+
+            int productCount = rows.size();
+            float[] score = new float[productCount];
+            double[] exact = new double[productCount];
+            int[] candidates = new int[productCount];
+            int candidateCount = 0;
+            for (int row = 0; row < productCount; row++) {
+                int base = row * days;
+                double sum = 0;
+                for (int s = 0; s < validSlots; s++) {
+                    sum += slotWeights[s] * counts[base + slots[s]];
+                }
+                if (sum > 0) {
+                    exact[row] = sum;
+                    score[row] = (float) sum;
+                    candidates[candidateCount++] = row;
+                }
+            }
+
+            int[] best = ItemItemModel.TopK.select(candidates, candidateCount, score, limit);
+            List<Trend> result = new ArrayList<>(best.length);
+            for (int row : best) {
+                result.add(new Trend(productIds[row], exact[row]));
+            }
+            return result;
+        }
+
+        private int row(long productId) {
+            Integer row = rows.get(productId);
+            if (row != null) {
+                return row;
+            }
+            int next = rows.size();
+            if (next == productIds.length) {
+                productIds = Arrays.copyOf(productIds, next * 2);
+                counts = Arrays.copyOf(counts, next * 2 * days);
+            }
+            productIds[next] = productId;
+            rows.put(productId, next);
+            return next;
+        }
+
+        private void clearSlot(int slot) {
+            for (int row = 0, n = rows.size(); row < n; row++) {
+                counts[row * days + slot] = 0;
+            }
+        }
+    }
+}
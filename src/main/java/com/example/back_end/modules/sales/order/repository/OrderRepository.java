@@ -47,49 +47,47 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT COALESCE(SUM(o.grandTotal), 0) FROM Order o WHERE o.session.id = :sessionId AND o.status = 'PAID'")
     BigDecimal sumSalesBySession(@Param("sessionId") Long sessionId);
 
+    // Dashboard queries below read the hourly rollups (V26), "from" is expected on an hour boundary
+
     // Total sales amount (grand_total) for PAID orders in period
     @Query(value = """
         SELECT COALESCE(SUM(grand_total), 0)
-        FROM orders
-        WHERE status = 'PAID'
-          AND paid_at >= :from
+        FROM sales_hourly
+        WHERE bucket_start >= :from
         """, nativeQuery = true)
     BigDecimal sumSalesSince(@Param("from") LocalDateTime from);
 
     // Count PAID orders in period
     @Query(value = """
-        SELECT COUNT(*)
-        FROM orders
-        WHERE status = 'PAID'
-          AND paid_at >= :from
+        SELECT COALESCE(SUM(orders_count), 0)::bigint
+        FROM sales_hourly
+        WHERE bucket_start >= :from
         """, nativeQuery = true)
     Long countOrdersSince(@Param("from") LocalDateTime from);
 
     // Daily sales aggregation (date, total amount, count)
     @Query(value = """
         SELECT 
-            paid_at::date AS saleDate,
+            bucket_start::date AS saleDate,
             SUM(grand_total) AS totalAmount,
-            COUNT(*) AS orderCount
-        FROM orders
-        WHERE status = 'PAID'
-          AND paid_at >= :from
-        GROUP BY paid_at::date
-        ORDER BY paid_at::date
+            SUM(orders_count)::bigint AS orderCount
+        FROM sales_hourly
+        WHERE bucket_start >= :from
+        GROUP BY bucket_start::date
+        ORDER BY bucket_start::date
         """, nativeQuery = true)
     List<StoreDailySalesProjection> findDailySalesSince(@Param("from") LocalDateTime from);
 
     // Weekly sales trend with revenue (line chart data)
     @Query(value = """
         SELECT 
-            paid_at::date AS saleDate,
+            bucket_start::date AS saleDate,
             SUM(grand_total) AS revenue,
-            COUNT(*) AS orders
-        FROM orders
-        WHERE status = 'PAID'
-          AND paid_at >= :from
-        GROUP BY paid_at::date
-        ORDER BY paid_at::date
+            SUM(orders_count)::bigint AS orders
+        FROM sales_hourly
+        WHERE bucket_start >= :from
+        GROUP BY bucket_start::date
+        ORDER BY bucket_start::date
         """, nativeQuery = true)
     List<StoreWeeklySalesProjection> findWeeklySalesTrend(@Param("from") LocalDateTime from);
 
@@ -97,14 +95,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query(value = """
         SELECT 
             c.name AS categoryName,
-            COUNT(DISTINCT oi.product_id) AS productCount
-        FROM orders o
-        JOIN order_items oi ON oi.order_id = o.id
-        JOIN products p ON p.id = oi.product_id
+            COUNT(DISTINCT s.product_id) AS productCount
+        FROM sales_product_hourly s
+        JOIN products p ON p.id = s.product_id
         JOIN product_categories pc ON pc.product_id = p.id
         JOIN categories c ON c.id = pc.category_id
-        WHERE o.status = 'PAID'
-          AND o.paid_at >= :from
+        WHERE s.bucket_start >= :from
         GROUP BY c.name
         ORDER BY productCount DESC
         """, nativeQuery = true)
@@ -116,15 +112,13 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             p.id AS productId,
             p.name AS productName,
             p.sku AS sku,
-            SUM(oi.quantity) AS sold,
-            SUM(oi.line_total) AS revenue
-        FROM orders o
-        JOIN order_items oi ON oi.order_id = o.id
-        JOIN products p ON p.id = oi.product_id
-        WHERE o.status = 'PAID'
-          AND o.paid_at >= :from
+            SUM(s.qty_sold) AS sold,
+            SUM(s.revenue) AS revenue
+        FROM sales_product_hourly s
+        JOIN products p ON p.id = s.product_id
+        WHERE s.bucket_start >= :from
         GROUP BY p.id, p.name, p.sku
-        ORDER BY SUM(oi.quantity) DESC
+        ORDER BY SUM(s.qty_sold) DESC
         LIMIT :limit
         """, nativeQuery = true)
     List<StoreTopProductProjection> findTopProducts(@Param("from") LocalDateTime from, @Param("limit") int limit);
@@ -134,15 +128,13 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         SELECT 
             p.id AS productId,
             p.name AS productName,
-            SUM(oi.quantity) AS sold,
-            SUM(oi.line_total) AS revenue
-        FROM orders o
-        JOIN order_items oi ON oi.order_id = o.id
-        JOIN products p ON p.id = oi.product_id
-        WHERE o.status = 'PAID'
-          AND o.paid_at >= :from
+            SUM(s.qty_sold) AS sold,
+            SUM(s.revenue) AS revenue
+        FROM sales_product_hourly s
+        JOIN products p ON p.id = s.product_id
+        WHERE s.bucket_start >= :from
         GROUP BY p.id, p.name
-        ORDER BY SUM(oi.quantity) DESC
+        ORDER BY SUM(s.qty_sold) DESC
         LIMIT 1
         """, nativeQuery = true)
     StoreTopProductProjection findMostPopularProduct(@Param("from") LocalDateTime from);
@@ -0,0 +1,277 @@
+package com.example.back_end.modules.sales.order.service;
+
+import com.example.back_end.modules.offer.dto.BundleApplicationResult;
+import com.example.back_end.modules.offer.dto.OfferApplicationResult;
+import com.example.back_end.modules.offer.entity.Offer;
+import com.example.back_end.modules.offer.service.BundleOfferService;
+import com.example.back_end.modules.offer.service.CategoryOfferService;
+import com.example.back_end.modules.offer.service.OfferEngine;
+import com.example.back_end.modules.offer.service.OfferIndex;
+import com.example.back_end.modules.offer.service.ProductOfferService;
+import com.example.back_end.modules.sales.order.entity.Order;
+import com.example.back_end.modules.sales.order.entity.OrderItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Prices a POS basket after a single line changed.
+ *
+ * Works on the in-memory item list loaded once by OrderService:
+ * - BUNDLE offers are re-evaluated for the basket (they can lock or release any line)
+ * - PRODUCT/CATEGORY offers are re-evaluated for the changed line, for lines whose bundle
+ *   membership changed or whose stored offer is no longer valid, and for lines of products
+ *   that have a live PRODUCT/CATEGORY offer in the OfferIndex
+ * - ORDER offer and totals are recomputed from the in-memory line totals
+ *
+ * Nothing is read from or written to the database here; the caller persists the returned dirty lines.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BasketPricingEngine {
+
+    private static final BigDecimal TAX_RATE = BigDecimal.valueOf(0.10);
+
+    private final ProductOfferService productOfferService;
+    private final CategoryOfferService categoryOfferService;
+    private final BundleOfferService bundleOfferService;
+    private final OfferEngine offerEngine;
+    private final OfferIndex offerIndex;
+
+    /**
+     * Reprice the basket and update order totals
+     *
+     * @param order The order (totals are updated in place)
+     * @param items All current items of the order
+     * @param changedItemId ID of the added/updated line, or null when a line was removed
+     * @return Lines whose offer, discount or line total changed
+     */
+    public List<OrderItem> reprice(Order order, List<OrderItem> items, Long changedItemId) {
+        Map<Long, LinePricing> before = new HashMap<>();
+        for (OrderItem item : items) {
+            before.put(item.getId(), LinePricing.of(item));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        // Step 1: BUNDLE offers (highest priority)
+        Map<Long, BigDecimal> bundleDiscounts = Map.of();
+        Map<Long, Long> bundleOfferIds = Map.of();
+        Long bundleOfferId = null;
+        if (!items.isEmpty()) {
+            BundleApplicationResult bundleResult = bundleOfferService.detectAndApplyBundles(items);
+            if (Boolean.TRUE.equals(bundleResult.getBundleApplied())) {
+                bundleDiscounts = bundleResult.getItemDiscounts();
+                bundleOfferIds = bundleResult.getItemOfferIds();
+                bundleOfferId = bundleResult.getOfferId();
+            }
+        }
+
+        // Step 2: item level offers, only where the price can actually have changed
+        for (OrderItem item : items) {
+            BigDecimal bundleDiscount = bundleDiscounts.get(item.getId());
+            if (bundleDiscount != null) {
+                item.setOfferId(bundleOfferIds.getOrDefault(item.getId(), bundleOfferId));
+                item.setLineDiscount(bundleDiscount);
+                recalculateLineTotal(item);
+            } else if (item.getId().equals(changedItemId) || needsRepricing(item, now)) {
+                applyRegularItemOffer(item);
+                recalculateLineTotal(item);
+            }
+        }
+
+        // Step 3: ORDER offer + totals
+        recalculateOrderTotals(order, items);
+
+        List<OrderItem> dirty = new ArrayList<>();
+        for (OrderItem item : items) {
+            if (item.getId().equals(changedItemId) || !LinePricing.of(item).sameAs(before.get(item.getId()))) {
+                dirty.add(item);
+            }
+        }
+
+        log.debug("Repriced order {}: {} lines, {} dirty", order.getId(), items.size(), dirty.size());
+        return dirty;
+    }
+
+    /**
+     * A line outside any bundle keeps its stored pricing unless it still carries a bundle offer
+     * (it just left a bundle), its PRODUCT/CATEGORY offer is no longer valid, or a PRODUCT/CATEGORY
+     * offer is live for its product (one may have started, or beat the stored one, since the line
+     * was priced). Offer-less lines of products without live offers are the ones skipped.
+     */
+    private boolean needsRepricing(OrderItem item, LocalDateTime now) {
+        if (item.getOfferId() != null) {
+            Offer offer = offerIndex.findLiveOffer(item.getOfferId(), now);
+            if (offer == null
+                    || (offer.getOfferType() != Offer.OfferType.PRODUCT
+                    && offer.getOfferType() != Offer.OfferType.CATEGORY)) {
+                return true;
+            }
+        }
+        if (item.getProduct() == null || item.getProduct().getId() == null) {
+            return false;
+        }
+        Long productId = item.getProduct().getId();
+        return !offerIndex.findProductOffers(productId, now).isEmpty()
+                || !offerIndex.findCategoryOffers(productId, now).isEmpty();
+    }
+
+    /**
+     * Apply regular item offer (Product or Category)
+     * Only called for items NOT in a bundle
+     */
+    private void applyRegularItemOffer(OrderItem item) {
+        if (item.getProduct() == null || item.getProduct().getId() == null) {
+            return;
+        }
+
+        Offer bestOffer = null;
+        BigDecimal bestDiscount = BigDecimal.ZERO;
+        String offerType = null;
+
+        // Priority 1: PRODUCT offer
+        Optional<Offer> productOffer = productOfferService.findBestProductOffer(
+                item.getProduct().getId(),
+                item.getUnitPrice(),
+                item.getQuantity()
+        );
+
+        if (productOffer.isPresent()) {
+            BigDecimal discount = productOfferService.calculateProductOfferDiscount(
+                    productOffer.get(),
+                    item.getUnitPrice(),
+                    item.getQuantity()
+            );
+
+            if (discount.compareTo(BigDecimal.ZERO) > 0) {
+                bestOffer = productOffer.get();
+                bestDiscount = discount;
+                offerType = "PRODUCT";
+            }
+        }
+
+        // Priority 2: CATEGORY offer (if no product offer)
+        if (bestOffer == null) {
+            Optional<Offer> categoryOffer = categoryOfferService.findBestCategoryOffer(
+                    item.getProduct().getId(),
+                    item.getUnitPrice(),
+                    item.getQuantity()
+            );
+
+            if (categoryOffer.isPresent()) {
+                BigDecimal discount = categoryOfferService.calculateCategoryOfferDiscount(
+                        categoryOffer.get(),
+                        item.getUnitPrice(),
+                        item.getQuantity()
+                );
+
+                if (discount.compareTo(BigDecimal.ZERO) > 0) {
+                    bestOffer = categoryOffer.get();
+                    bestDiscount = discount;
+                    offerType = "CATEGORY";
+                }
+            }
+        }
+
+        // Apply best offer found
+        if (bestOffer != null) {
+            item.setOfferId(bestOffer.getId());
+            item.setLineDiscount(bestDiscount);
+
+            log.info("Applied {} offer to item {}: offer '{}' (ID={}), discount=${}",
+                    offerType, item.getId(), bestOffer.getTitle(), bestOffer.getId(), bestDiscount);
+        } else {
+            item.setOfferId(null);
+            item.setLineDiscount(BigDecimal.ZERO);
+        }
+    }
+
+    /**
+     * Recalculate line total after discount applied
+     */
+    private void recalculateLineTotal(OrderItem item) {
+        BigDecimal lineDiscount = item.getLineDiscount() != null ?
+                item.getLineDiscount() : BigDecimal.ZERO;
+        BigDecimal taxAmount = item.getTaxAmount() != null ?
+                item.getTaxAmount() : BigDecimal.ZERO;
+
+        BigDecimal lineTotal = item.getUnitPrice()
+                .multiply(item.getQuantity())
+                .subtract(lineDiscount)
+                .add(taxAmount);
+
+        item.setLineTotal(lineTotal);
+    }
+
+    /**
+     * Recalculate order totals
+     *
+     * Flow:
+     * 1. Calculate subtotal from order items (after product/category/bundle discounts)
+     * 2. Apply ORDER-level offer automatically (threshold-based)
+     * 3. Calculate tax on (subtotal - order_discount)
+     * 4. Calculate grand total
+     */
+    private void recalculateOrderTotals(Order order, List<OrderItem> items) {
+        // Step 1: Calculate subtotal from items (includes item-level discounts)
+        BigDecimal subtotal = items.stream()
+                .map(OrderItem::getLineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        order.setSubtotal(subtotal);
+
+        // Step 2: Apply ORDER-level offer automatically (threshold-based)
+        try {
+            OfferApplicationResult orderOfferResult = offerEngine.applyOrderOffer(order, subtotal);
+
+            log.debug("ORDER offer applied: {}, discount: ${}",
+                    orderOfferResult.getOfferApplied(), orderOfferResult.getDiscountAmount());
+
+        } catch (Exception e) {
+            log.error("Error applying ORDER offer: ", e);
+            order.setDiscountAmount(BigDecimal.ZERO);
+        }
+
+        BigDecimal orderDiscount = order.getDiscountAmount() != null ?
+                order.getDiscountAmount() : BigDecimal.ZERO;
+
+        // Step 3: Calculate tax on (subtotal - order_discount)
+        BigDecimal taxableAmount = subtotal.subtract(orderDiscount);
+        BigDecimal taxAmount = taxableAmount.multiply(TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+        order.setTaxAmount(taxAmount);
+
+        // Step 4: Calculate grand total
+        BigDecimal grandTotal = subtotal
+                .subtract(orderDiscount)
+                .add(taxAmount);
+        order.setGrandTotal(grandTotal);
+    }
+
+    /**
+     * Priced fields of a line, used to detect which rows actually changed
+     */
+    private record LinePricing(Long offerId, BigDecimal lineDiscount, BigDecimal lineTotal) {
+
+        static LinePricing of(OrderItem item) {
+            return new LinePricing(item.getOfferId(), item.getLineDiscount(), item.getLineTotal());
+        }
+
+        boolean sameAs(LinePricing other) {
+            return other != null
+                    && Objects.equals(offerId, other.offerId)
+                    && sameAmount(lineDiscount, other.lineDiscount)
+                    && sameAmount(lineTotal, other.lineTotal);
+        }
+
+        private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+            return a == null ? b == null : b != null && a.compareTo(b) == 0;
+        }
+    }
+}
@@ -7,13 +7,9 @@ import com.example.back_end.modules.cashier.repository.SessionRepository;
 import com.example.back_end.modules.catalog.product.entity.Product;
 import com.example.back_end.modules.catalog.product.repository.ProductRepository;
 import com.example.back_end.modules.customer.dto.CustomerOrdersResponseDTO;
-import com.example.back_end.modules.offer.dto.OfferApplicationResult;
-import com.example.back_end.modules.offer.entity.Offer;
-import com.example.back_end.modules.offer.service.BundleOfferService;
-import com.example.back_end.modules.offer.dto.BundleApplicationResult;
-import com.example.back_end.modules.offer.service.CategoryOfferService;
-import com.example.back_end.modules.offer.service.OfferEngine;
-import com.example.back_end.modules.offer.service.ProductOfferService;
+import com.example.back_end.modules.dashboard.cache.EvictStoreDashboards;
+import com.example.back_end.modules.recommendation.service.RecommendationCache;
+import com.example.back_end.modules.recommendation.service.TrendingCounters;
 import com.example.back_end.modules.register.entity.Customer;
 import com.example.back_end.modules.register.repository.CustomerRepository;
 import com.example.back_end.modules.sales.order.dto.OrderDTO;
@@ -24,6 +20,7 @@ import com.example.back_end.modules.sales.order.repository.OrderItemRepository;
 import com.example.back_end.modules.sales.order.repository.OrderRepository;
 import com.example.back_end.modules.sales.payment.entity.Payment;
 import com.example.back_end.modules.sales.payment.repository.PaymentRepository;
+import com.example.back_end.modules.stock.service.StockPostingDispatcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
@@ -58,10 +55,10 @@ public class OrderService {
     private final ProductRepository productRepository;
     private final CustomerRepository customerRepository;
     private final OrderMapper orderMapper;
-    private final ProductOfferService productOfferService;
-    private final CategoryOfferService categoryOfferService;
-    private final BundleOfferService bundleOfferService;
-    private final OfferEngine offerEngine;
+    private final BasketPricingEngine basketPricingEngine;
+    private final StockPostingDispatcher stockPostingDispatcher;
+    private final RecommendationCache recommendationCache;
+    private final TrendingCounters trendingCounters;
 
     /**
      * Create new order
@@ -116,9 +113,11 @@ public class OrderService {
             throw new BusinessRuleException("Product is not active");
         }
 
+        // Load the basket once - everything below works on this list
+        List<OrderItem> items = new ArrayList<>(orderItemRepository.findByOrderId(order.getId()));
+
         // Check if item already exists
-        Optional<OrderItem> existingItem = orderItemRepository
-                .findByOrderIdAndProductId(request.getOrderId(), request.getProductId());
+        Optional<OrderItem> existingItem = findItemForProduct(items, request.getProductId());
 
         OrderItem item;
         if (existingItem.isPresent()) {
@@ -132,28 +131,15 @@ public class OrderService {
             item.setProduct(product);
             item.setUnitPrice(product.getDefaultPrice());
             item.setQuantity(request.getQuantity());
-        }
-
-        // Initialize with no discount
-        item.setLineDiscount(BigDecimal.ZERO);
-        item.setOfferId(null);
-
-        // Calculate initial line total (will be recalculated after offers)
-        BigDecimal lineTotal = item.getUnitPrice().multiply(item.getQuantity());
-        item.setLineTotal(lineTotal);
-
-        orderItemRepository.save(item);
-
-        // Apply offers to ALL items (checks bundles first!)
-        applyOffersToItems(order);
-
-        // Recalculate totals for all items
-        recalculateItemTotals(order);
+            item.setLineDiscount(BigDecimal.ZERO);
 
-        // Recalculate order totals
-        recalculateOrderTotals(order);
+            // Initial line total (repriced below); new lines need an ID before bundle detection
+            item.setLineTotal(item.getUnitPrice().multiply(item.getQuantity()));
+            item = orderItemRepository.save(item);
+            items.add(item);
+        }
 
-        return getOrderById(order.getId());
+        return repriceAndRespond(order, items, item.getId());
     }
 
     /**
@@ -175,9 +161,9 @@ public class OrderService {
             throw new BusinessRuleException("Quantity change cannot be zero");
         }
 
-        // نجيب الـ item باستخدام (orderId + productId)
-        OrderItem item = orderItemRepository
-                .findByOrderIdAndProductId(request.getOrderId(), request.getProductId())
+        // نجيب الـ items مرة وحدة ونلاقي الـ item باستخدام (orderId + productId)
+        List<OrderItem> items = new ArrayList<>(orderItemRepository.findByOrderId(request.getOrderId()));
+        OrderItem item = findItemForProduct(items, request.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Order item not found for this order and product"));
 
         Order order = item.getOrder();
@@ -188,22 +174,19 @@ public class OrderService {
         BigDecimal currentQty = item.getQuantity();
         BigDecimal newQuantity = currentQty.add(delta);
 
+        Long changedItemId;
         if (newQuantity.compareTo(BigDecimal.ZERO) <= 0) {
             // لو النتيجة صفر أو أقل → نحذف الـ item من الطلب
+            items.remove(item);
             orderItemRepository.delete(item);
+            changedItemId = null;
         } else {
             item.setQuantity(newQuantity);
-            orderItemRepository.save(item);
+            changedItemId = item.getId();
         }
 
-        // Re-apply offers (bundle might change!)
-        applyOffersToItems(order);
-
-        // Recalculate totals
-        recalculateItemTotals(order);
-        recalculateOrderTotals(order);
-
-        return getOrderById(order.getId());
+        // Re-price (bundle might change!)
+        return repriceAndRespond(order, items, changedItemId);
     }
 
     /**
@@ -219,16 +202,12 @@ public class OrderService {
             throw new BusinessRuleException("Cannot modify paid order");
         }
 
+        List<OrderItem> items = new ArrayList<>(orderItemRepository.findByOrderId(order.getId()));
+        items.removeIf(i -> i.getId().equals(itemId));
         orderItemRepository.delete(item);
 
-        // Re-apply offers (bundle might change!)
-        applyOffersToItems(order);
-
-        // Recalculate order totals
-        recalculateItemTotals(order);
-        recalculateOrderTotals(order);
-
-        return getOrderById(order.getId());
+        // Re-price (bundle might change!)
+        return repriceAndRespond(order, items, null);
     }
 
     /**
@@ -277,6 +256,7 @@ public class OrderService {
     /**
      * Process payment for order
      */
+    @EvictStoreDashboards
     @Transactional
     public OrderDTO.OrderResponse processPayment(OrderDTO.PaymentRequest request) {
         Order order = orderRepository.findById(request.getOrderId())
@@ -330,6 +310,16 @@ public class OrderService {
         order.setPaidAt(LocalDateTime.now());
         orderRepository.save(order);
 
+        // Stock is posted asynchronously after commit (SALE movements + snapshot)
+        stockPostingDispatcher.saleCompleted(order.getId());
+
+        // The customer's cached recommendations predate this purchase
+        recommendationCache.evictCustomer(order.getCustomerId());
+        // Trending counts the orders v_reco_purchase_events does: paid, with a customer
+        if (order.getCustomerId() != null) {
+            trendingCounters.recordSale(order.getPaidAt(), TrendingCounters.quantitiesByProduct(orderItemRepository.findByOrderId(order.getId())));
+        }
+
         return getOrderById(order.getId());
     }
 
@@ -538,198 +528,29 @@ public class OrderService {
     }
 
     /**
-     * Apply offers to ALL order items
-     *
-     * Priority:
-     * 1. BUNDLE offer (highest) - locks items from other offers
-     * 2. PRODUCT offer
-     * 3. CATEGORY offer
-     *
-     * @param order The order containing items
-     */
-    private void applyOffersToItems(Order order) {
-        List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
-
-        if (items.isEmpty()) {
-            return;
-        }
-
-        // Step 1: Check for BUNDLE offers (highest priority)
-        BundleApplicationResult bundleResult = // ✅ صح
-                bundleOfferService.detectAndApplyBundles(items);
-
-        Set<Long> itemsInBundle = new HashSet<>();
-
-        if (bundleResult.getBundleApplied()) {
-            // Apply bundle discounts to items
-            Map<Long, BigDecimal> bundleDiscounts = bundleResult.getItemDiscounts();
-
-            for (OrderItem item : items) {
-                if (bundleDiscounts.containsKey(item.getId())) {
-                    // This item is part of bundle
-                    BigDecimal discount = bundleDiscounts.get(item.getId());
-                    item.setOfferId(bundleResult.getOfferId());
-                    item.setLineDiscount(discount);
-                    itemsInBundle.add(item.getId());
-
-                    log.info("Applied BUNDLE discount to item {}: ${}", item.getId(), discount);
-                }
-            }
-        }
-
-        // Step 2: For items NOT in bundle, apply Product/Category offers
-        for (OrderItem item : items) {
-            if (!itemsInBundle.contains(item.getId())) {
-                // Not in bundle - apply regular item offers
-                applyRegularItemOffer(item);
-            }
-        }
-
-        // Save all items
-        orderItemRepository.saveAll(items);
-    }
-
-    /**
-     * Apply regular item offer (Product or Category)
-     * Only called for items NOT in a bundle
+     * Find the basket line for a product in the already loaded items
      */
-    private void applyRegularItemOffer(OrderItem item) {
-        if (item.getProduct() == null || item.getProduct().getId() == null) {
-            return;
-        }
-
-        Offer bestOffer = null;
-        BigDecimal bestDiscount = BigDecimal.ZERO;
-        String offerType = null;
-
-        // Priority 1: PRODUCT offer
-        Optional<Offer> productOffer = productOfferService.findBestProductOffer(
-                item.getProduct().getId(),
-                item.getUnitPrice(),
-                item.getQuantity()
-        );
-
-        if (productOffer.isPresent()) {
-            BigDecimal discount = productOfferService.calculateProductOfferDiscount(
-                    productOffer.get(),
-                    item.getUnitPrice(),
-                    item.getQuantity()
-            );
-
-            if (discount.compareTo(BigDecimal.ZERO) > 0) {
-                bestOffer = productOffer.get();
-                bestDiscount = discount;
-                offerType = "PRODUCT";
-            }
-        }
-
-        // Priority 2: CATEGORY offer (if no product offer)
-        if (bestOffer == null) {
-            Optional<Offer> categoryOffer = categoryOfferService.findBestCategoryOffer(
-                    item.getProduct().getId(),
-                    item.getUnitPrice(),
-                    item.getQuantity()
-            );
-
-            if (categoryOffer.isPresent()) {
-                BigDecimal discount = categoryOfferService.calculateCategoryOfferDiscount(
-                        categoryOffer.get(),
-                        item.getUnitPrice(),
-                        item.getQuantity()
-                );
-
-                if (discount.compareTo(BigDecimal.ZERO) > 0) {
-                    bestOffer = categoryOffer.get();
-                    bestDiscount = discount;
-                    offerType = "CATEGORY";
-                }
-            }
-        }
-
-        // Apply best offer found
-        if (bestOffer != null) {
-            item.setOfferId(bestOffer.getId());
-            item.setLineDiscount(bestDiscount);
-
-            log.info("Applied {} offer to item {}: offer '{}' (ID={}), discount=${}",
-                    offerType, item.getId(), bestOffer.getTitle(), bestOffer.getId(), bestDiscount);
-        } else {
-            item.setOfferId(null);
-            item.setLineDiscount(BigDecimal.ZERO);
-        }
-    }
-
-    /**
-     * Recalculate line totals for all items after discounts applied
-     */
-    private void recalculateItemTotals(Order order) {
-        List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
-
-        for (OrderItem item : items) {
-            BigDecimal lineDiscount = item.getLineDiscount() != null ?
-                    item.getLineDiscount() : BigDecimal.ZERO;
-            BigDecimal taxAmount = item.getTaxAmount() != null ?
-                    item.getTaxAmount() : BigDecimal.ZERO;
-
-            BigDecimal lineTotal = item.getUnitPrice()
-                    .multiply(item.getQuantity())
-                    .subtract(lineDiscount)
-                    .add(taxAmount);
-
-            item.setLineTotal(lineTotal);
-        }
-
-        orderItemRepository.saveAll(items);
+    private Optional<OrderItem> findItemForProduct(List<OrderItem> items, Long productId) {
+        return items.stream()
+                .filter(i -> i.getProduct() != null && productId.equals(i.getProduct().getId()))
+                .findFirst();
     }
 
     /**
-     * Recalculate order totals
+     * Reprice the basket after a line change, write only the rows that changed
+     * and build the response from memory (no reload).
      *
-     * Flow:
-     * 1. Calculate subtotal from order items (after product/category/bundle discounts)
-     * 2. Apply ORDER-level offer automatically (threshold-based)
-     * 3. Calculate tax on (subtotal - order_discount)
-     * 4. Calculate grand total
+     * Unpaid orders have no payments, so the payment list is always empty here.
      */
-    private void recalculateOrderTotals(Order order) {
-        List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
+    private OrderDTO.OrderResponse repriceAndRespond(Order order, List<OrderItem> items, Long changedItemId) {
+        List<OrderItem> dirtyItems = basketPricingEngine.reprice(order, items, changedItemId);
 
-        // Step 1: Calculate subtotal from items (includes item-level discounts)
-        BigDecimal subtotal = items.stream()
-                .map(OrderItem::getLineTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        order.setSubtotal(subtotal);
-
-        // Step 2: Apply ORDER-level offer automatically (threshold-based)
-        try {
-            OfferApplicationResult orderOfferResult = offerEngine.applyOrderOffer(order, subtotal);
-            BigDecimal orderDiscount = orderOfferResult.getDiscountAmount();
-
-            log.debug("ORDER offer applied: {}, discount: ${}",
-                    orderOfferResult.getOfferApplied(), orderDiscount);
-
-        } catch (Exception e) {
-            log.error("Error applying ORDER offer: ", e);
-            order.setDiscountAmount(BigDecimal.ZERO);
+        if (!dirtyItems.isEmpty()) {
+            orderItemRepository.saveAll(dirtyItems);
         }
-
-        BigDecimal orderDiscount = order.getDiscountAmount() != null ?
-                order.getDiscountAmount() : BigDecimal.ZERO;
-
-        // Step 3: Calculate tax on (subtotal - order_discount)
-        BigDecimal taxRate = BigDecimal.valueOf(0.10);
-        BigDecimal taxableAmount = subtotal.subtract(orderDiscount);
-        BigDecimal taxAmount = taxableAmount.multiply(taxRate).setScale(2, RoundingMode.HALF_UP);
-        order.setTaxAmount(taxAmount);
-
-        // Step 4: Calculate grand total
-        BigDecimal grandTotal = subtotal
-                .subtract(orderDiscount)
-                .add(taxAmount);
-        order.setGrandTotal(grandTotal);
-
         orderRepository.save(order);
+
+        return orderMapper.toOrderResponse(order, items, List.of());
     }
 
     /**
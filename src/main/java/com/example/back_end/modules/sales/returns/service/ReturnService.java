@@ -4,6 +4,8 @@ import com.example.back_end.exception.BusinessRuleException;
 import com.example.back_end.exception.ResourceNotFoundException;
 import com.example.back_end.modules.cashier.entity.Session;
 import com.example.back_end.modules.cashier.repository.SessionRepository;
+import com.example.back_end.modules.dashboard.cache.EvictStoreDashboards;
+import com.example.back_end.modules.recommendation.service.TrendingCounters;
 import com.example.back_end.modules.sales.order.entity.Order;
 import com.example.back_end.modules.sales.order.entity.OrderItem;
 import com.example.back_end.modules.sales.order.repository.OrderItemRepository;
@@ -14,6 +16,7 @@ import com.example.back_end.modules.sales.returns.config.ReturnProperties;
 import com.example.back_end.modules.sales.returns.dto.ReturnDTO;
 import com.example.back_end.modules.sales.returns.entity.ReturnItem;
 import com.example.back_end.modules.sales.returns.repository.ReturnItemRepository;
+import com.example.back_end.modules.stock.service.StockPostingDispatcher;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,7 +39,10 @@ public class ReturnService {
     private final PaymentRepository paymentRepository;
     private final SessionRepository sessionRepository;
     private final ReturnProperties returnProperties;
+    private final StockPostingDispatcher stockPostingDispatcher;
+    private final TrendingCounters trendingCounters;
 
+    @EvictStoreDashboards
     @Transactional
     public ReturnDTO.ReturnResponse createReturn(ReturnDTO.CreateReturnRequest request) {
         Order originalOrder = orderRepository.findById(request.getOriginalOrderId())
@@ -163,6 +169,9 @@ public class ReturnService {
         // Update original order status based on whether all items are fully returned
         updateOriginalOrderReturnStatus(originalOrder);
 
+        // Returned quantities go back to store stock asynchronously after commit
+        stockPostingDispatcher.returnCompleted(savedReturnOrder.getId());
+
         return ReturnDTO.ReturnResponse.builder()
                 .returnOrderId(savedReturnOrder.getId())
                 .originalOrderId(originalOrder.getId())
@@ -229,8 +238,15 @@ public class ReturnService {
             }
         }
 
+        boolean wasPaid = originalOrder.getStatus() == Order.OrderStatus.PAID;
         originalOrder.setStatus(allReturned ? Order.OrderStatus.RETURNED : Order.OrderStatus.PARTIALLY_RETURNED);
         orderRepository.save(originalOrder);
+
+        // v_reco_purchase_events only has PAID orders: the whole order leaves trending
+        if (wasPaid && originalOrder.getCustomerId() != null) {
+            LocalDateTime eventTime = originalOrder.getPaidAt() != null ? originalOrder.getPaidAt() : originalOrder.getCreatedAt();
+            trendingCounters.removeSale(eventTime, TrendingCounters.quantitiesByProduct(originalItems));
+        }
     }
 
     private BigDecimal normalizeQty(BigDecimal qty) {
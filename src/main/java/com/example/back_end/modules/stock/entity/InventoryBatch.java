@@ -4,6 +4,7 @@ import com.example.back_end.modules.catalog.product.entity.Product;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashSet;
@@ -39,6 +40,15 @@ public class InventoryBatch {
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
+    // Balances are maintained in SQL by InventoryBatchLedger with every batch link (read-only here)
+    @Column(name = "remaining_qty", precision = 10, scale = 2, nullable = false, updatable = false)
+    @Builder.Default
+    private BigDecimal remainingQty = BigDecimal.ZERO;
+
+    @Column(name = "store_remaining_qty", precision = 10, scale = 2, nullable = false, updatable = false)
+    @Builder.Default
+    private BigDecimal storeRemainingQty = BigDecimal.ZERO;
+
     @OneToMany(mappedBy = "batch", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private Set<InventoryMovementBatch> movementBatches = new HashSet<>();
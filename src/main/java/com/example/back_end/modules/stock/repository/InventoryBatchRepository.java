@@ -2,8 +2,12 @@ package com.example.back_end.modules.stock.repository;
 
 import com.example.back_end.modules.stock.entity.InventoryBatch;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -20,5 +24,34 @@ public interface InventoryBatchRepository extends JpaRepository<InventoryBatch,
     List<InventoryBatch> findByExpirationDateBefore(LocalDate date);
 
     List<InventoryBatch> findByExpirationDateBetween(LocalDate startDate, LocalDate endDate);
-}
 
+    // Batches still holding warehouse stock, earliest expiration first (batches without expiration last)
+    List<InventoryBatch> findByProductIdAndRemainingQtyGreaterThanOrderByExpirationDateAscIdAsc(
+            Long productId, BigDecimal minQty);
+
+    // FIFO candidates for a warehouse-out allocation, locked in FIFO order until commit
+    // (a concurrent allocation of the same product waits for them)
+    @Query(value = """
+        SELECT *
+        FROM inventory_batches
+        WHERE product_id = :productId
+          AND remaining_qty > 0
+        ORDER BY expiration_date NULLS LAST, id
+        FOR UPDATE
+        """, nativeQuery = true)
+    List<InventoryBatch> lockWarehouseFifo(@Param("productId") Long productId);
+
+    // Relative balance update; returns 0 (nothing changed) if a balance would go negative
+    @Modifying
+    @Query(value = """
+        UPDATE inventory_batches
+        SET remaining_qty = remaining_qty + :warehouseDelta,
+            store_remaining_qty = store_remaining_qty + :storeDelta
+        WHERE id = :batchId
+          AND remaining_qty + :warehouseDelta >= 0
+          AND store_remaining_qty + :storeDelta >= 0
+        """, nativeQuery = true)
+    int applyBalanceDelta(@Param("batchId") Long batchId,
+                          @Param("warehouseDelta") BigDecimal warehouseDelta,
+                          @Param("storeDelta") BigDecimal storeDelta);
+}
@@ -0,0 +1,211 @@
+package com.example.back_end.modules.stock.repository;
+
+import com.example.back_end.modules.stock.enums.InventoryLocationType;
+import com.example.back_end.modules.stock.enums.InventoryRefType;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchAllocation;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchBalance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch writes for multi-line receiving and transfers.
+ *
+ * Each method sends one batch (or one statement) for a whole chunk of lines instead
+ * of a round trip per movement, batch and batch link.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryBulkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Movement to insert (moved_at is set by the database)
+     */
+    public record NewMovement(Long productId, InventoryLocationType locationType, InventoryRefType refType,
+                              BigDecimal qtyChange, BigDecimal unitCost, String note) {
+    }
+
+    /**
+     * A product's batch for one expiration date
+     */
+    public record BatchKey(Long productId, LocalDate expirationDate) {
+    }
+
+    /**
+     * @return generated movement ids, in the order of the given movements
+     */
+    public List<Long> insertMovements(List<NewMovement> movements) {
+        return insertReturningIds("""
+                INSERT INTO public.inventory_movements
+                    (product_id, location_type, ref_type, qty_change, unit_cost, note, moved_at)
+                VALUES (?, ?, ?, ?, ?, ?, now())
+                """, movements.size(), (ps, i) -> {
+            NewMovement m = movements.get(i);
+            ps.setLong(1, m.productId());
+            ps.setString(2, m.locationType().name());
+            ps.setString(3, m.refType().name());
+            ps.setBigDecimal(4, m.qtyChange());
+            ps.setBigDecimal(5, m.unitCost());
+            ps.setString(6, m.note());
+        });
+    }
+
+    /**
+     * Existing batches of the given products, keyed by (product, expiration date).
+     * When several batches share an expiration date the oldest one is used, like
+     * findFirstByProductIdAndExpirationDate.
+     */
+    public Map<BatchKey, Long> findBatches(Collection<Long> productIds) {
+        Map<BatchKey, Long> batches = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return batches;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    SELECT id, product_id, expiration_date
+                    FROM public.inventory_batches
+                    WHERE product_id = ANY(?) AND expiration_date IS NOT NULL
+                    ORDER BY id
+                    """);
+            ps.setArray(1, con.createArrayOf("bigint", productIds.toArray()));
+            return ps;
+        }, rs -> {
+            BatchKey key = new BatchKey(rs.getLong("product_id"), rs.getDate("expiration_date").toLocalDate());
+            batches.putIfAbsent(key, rs.getLong("id"));
+        });
+        return batches;
+    }
+
+    /**
+     * @return generated batch ids, in the order of the given keys
+     */
+    public List<Long> insertBatches(List<BatchKey> keys) {
+        return insertReturningIds("""
+                INSERT INTO public.inventory_batches (product_id, expiration_date, created_at)
+                VALUES (?, ?, now())
+                """, keys.size(), (ps, i) -> {
+            BatchKey key = keys.get(i);
+            ps.setLong(1, key.productId());
+            if (key.expirationDate() != null) {
+                ps.setDate(2, Date.valueOf(key.expirationDate()));
+            } else {
+                ps.setNull(2, Types.DATE);
+            }
+        });
+    }
+
+    /**
+     * PURCHASE links: insert them and add the quantities to the warehouse balance of each batch
+     */
+    public void insertReceiptLinks(List<BatchAllocation> allocations) {
+        insertLinks(allocations);
+        applyBalances(allocations, 1, 0);
+    }
+
+    /**
+     * Warehouse batches of the given products still holding stock, in FIFO order per product.
+     * Rows are locked for the rest of the transaction, in this order; batches locked by a
+     * concurrent transfer are waited for.
+     */
+    public List<BatchBalance> lockWarehouseBalances(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    SELECT id AS batch_id, product_id, remaining_qty AS qty
+                    FROM public.inventory_batches
+                    WHERE product_id = ANY(?) AND remaining_qty > 0
+                    ORDER BY product_id, expiration_date NULLS LAST, id
+                    FOR UPDATE
+                    """);
+            ps.setArray(1, con.createArrayOf("bigint", productIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> new BatchBalance(rs.getLong("batch_id"), rs.getLong("product_id"), rs.getBigDecimal("qty")));
+    }
+
+    /**
+     * Warehouse-out TRANSFER links: insert them and move the quantities from the warehouse
+     * to the store balance of each batch
+     */
+    public void insertTransferLinks(List<BatchAllocation> allocations) {
+        insertLinks(allocations);
+        applyBalances(allocations, -1, 1);
+    }
+
+    private void insertLinks(List<BatchAllocation> allocations) {
+        if (allocations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO public.inventory_movement_batches (batch_id, inventory_movement_id, qty)
+                VALUES (?, ?, ?)
+                """, allocations, allocations.size(), (ps, allocation) -> {
+            ps.setLong(1, allocation.batchId());
+            ps.setLong(2, allocation.movementId());
+            ps.setBigDecimal(3, allocation.qty());
+        });
+    }
+
+    private void applyBalances(List<BatchAllocation> allocations, int warehouseSign, int storeSign) {
+        if (allocations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                UPDATE public.inventory_batches
+                SET remaining_qty = remaining_qty + ?,
+                    store_remaining_qty = store_remaining_qty + ?
+                WHERE id = ?
+                """, allocations, allocations.size(), (ps, allocation) -> {
+            ps.setBigDecimal(1, allocation.qty().multiply(BigDecimal.valueOf(warehouseSign)));
+            ps.setBigDecimal(2, allocation.qty().multiply(BigDecimal.valueOf(storeSign)));
+            ps.setLong(3, allocation.batchId());
+        });
+    }
+
+    private interface RowSetter {
+        void set(PreparedStatement ps, int i) throws SQLException;
+    }
+
+    private List<Long> insertReturningIds(String sql, int size, RowSetter setter) {
+        if (size == 0) {
+            return List.of();
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setter.set(ps, i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                }, keyHolder);
+
+        List<Long> ids = new ArrayList<>(size);
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.get("id")).longValue());
+        }
+        return ids;
+    }
+}
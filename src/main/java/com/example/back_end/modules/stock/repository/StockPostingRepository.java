@@ -0,0 +1,271 @@
+package com.example.back_end.modules.stock.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Set-based SQL for posting SALE/RETURN inventory movements of an order.
+ *
+ * Every statement works on one order (ref_id) at a time, so posting an order
+ * costs a fixed number of round trips whatever the number of lines.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockPostingRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * One movement of the order being posted (qty is always positive)
+     */
+    public record PostedMovement(Long movementId, Long productId, BigDecimal qty) {
+    }
+
+    /**
+     * Quantity still available in a batch for the current allocation
+     */
+    public record BatchBalance(Long batchId, Long productId, BigDecimal qty) {
+    }
+
+    /**
+     * Part of a movement taken from (SALE) or put back into (RETURN) a batch
+     */
+    public record BatchAllocation(Long movementId, Long batchId, BigDecimal qty) {
+    }
+
+    private static final RowMapper<PostedMovement> POSTED_MOVEMENT_MAPPER = (rs, rowNum) -> new PostedMovement(
+            rs.getLong("id"), rs.getLong("product_id"), rs.getBigDecimal("qty_change").abs());
+
+    private static final RowMapper<BatchBalance> BATCH_BALANCE_MAPPER = (rs, rowNum) -> new BatchBalance(
+            rs.getLong("batch_id"), rs.getLong("product_id"), rs.getBigDecimal("qty"));
+
+    /**
+     * Mark a paid order as posted. Returns false when it is already posted (or not a paid sale),
+     * which makes posting idempotent: the mark is rolled back with the movements on failure.
+     */
+    public boolean claimSale(Long orderId) {
+        return jdbcTemplate.update("""
+                UPDATE public.orders
+                SET stock_posted_at = now()
+                WHERE id = ?
+                  AND stock_posted_at IS NULL
+                  AND parent_order_id IS NULL
+                  AND paid_at IS NOT NULL
+                """, orderId) == 1;
+    }
+
+    /**
+     * Mark a return order as posted and return its original order id. Null when it is already
+     * posted, or when the sale of the original order is not posted yet (the return waits for it,
+     * so stock is never given back for a sale that was not taken out).
+     */
+    public Long claimReturn(Long returnOrderId) {
+        List<Long> parents = jdbcTemplate.queryForList("""
+                UPDATE public.orders r
+                SET stock_posted_at = now()
+                WHERE r.id = ?
+                  AND r.stock_posted_at IS NULL
+                  AND r.parent_order_id IS NOT NULL
+                  AND r.status = 'RETURNED'
+                  AND EXISTS (SELECT 1 FROM public.orders o
+                              WHERE o.id = r.parent_order_id AND o.stock_posted_at IS NOT NULL)
+                RETURNING r.parent_order_id
+                """, Long.class, returnOrderId);
+        return parents.isEmpty() ? null : parents.get(0);
+    }
+
+    /**
+     * One STORE SALE movement per product of the order (lines of the same product are summed)
+     */
+    public List<PostedMovement> insertSaleMovements(Long orderId) {
+        return jdbcTemplate.query("""
+                INSERT INTO public.inventory_movements
+                    (product_id, location_type, ref_type, ref_id, qty_change, unit_cost, moved_at, note)
+                SELECT oi.product_id, 'STORE', 'SALE', oi.order_id, -SUM(oi.quantity), p.default_cost, now(),
+                       'Sale from order'
+                FROM public.order_items oi
+                JOIN public.products p ON p.id = oi.product_id
+                WHERE oi.order_id = ?
+                GROUP BY oi.order_id, oi.product_id, p.default_cost
+                HAVING SUM(oi.quantity) > 0
+                RETURNING id, product_id, qty_change
+                """, POSTED_MOVEMENT_MAPPER, orderId);
+    }
+
+    /**
+     * One STORE RETURN movement per product of the return order
+     */
+    public List<PostedMovement> insertReturnMovements(Long returnOrderId) {
+        return jdbcTemplate.query("""
+                INSERT INTO public.inventory_movements
+                    (product_id, location_type, ref_type, ref_id, qty_change, unit_cost, moved_at, note)
+                SELECT oi.product_id, 'STORE', 'RETURN', ri.return_order_id, SUM(ri.returned_qty), p.default_cost, now(),
+                       'Return from order'
+                FROM public.return_items ri
+                JOIN public.order_items oi ON oi.id = ri.original_order_item_id
+                JOIN public.products p ON p.id = oi.product_id
+                WHERE ri.return_order_id = ?
+                GROUP BY ri.return_order_id, oi.product_id, p.default_cost
+                HAVING SUM(ri.returned_qty) > 0
+                RETURNING id, product_id, qty_change
+                """, POSTED_MOVEMENT_MAPPER, returnOrderId);
+    }
+
+    /**
+     * Store-side balance of every batch of the products sold by the order, in FIFO order
+     * (earliest expiration first, batches without expiration last), read from
+     * inventory_batches.store_remaining_qty.
+     *
+     * The rows are locked for the rest of the posting transaction, in this order, so a
+     * concurrent posting or transfer of the same products waits instead of allocating
+     * from the same balances.
+     */
+    public List<BatchBalance> findStoreBatchBalances(Long orderId) {
+        return jdbcTemplate.query("""
+                SELECT ib.id AS batch_id, ib.product_id, ib.store_remaining_qty AS qty
+                FROM public.inventory_batches ib
+                WHERE ib.product_id IN (
+                    SELECT product_id FROM public.inventory_movements
+                    WHERE ref_type = 'SALE' AND ref_id = ?
+                )
+                  AND ib.store_remaining_qty > 0
+                ORDER BY ib.product_id, ib.expiration_date NULLS LAST, ib.id
+                FOR UPDATE OF ib
+                """, BATCH_BALANCE_MAPPER, orderId);
+    }
+
+    /**
+     * Quantity of each batch the original order sold and that has not been returned yet,
+     * in the same FIFO order as the sale
+     */
+    public List<BatchBalance> findReturnableBatchBalances(Long originalOrderId) {
+        return jdbcTemplate.query("""
+                SELECT imb.batch_id, im.product_id,
+                       SUM(CASE WHEN im.ref_type = 'SALE' THEN imb.qty ELSE -imb.qty END) AS qty
+                FROM public.inventory_movements im
+                JOIN public.inventory_movement_batches imb ON imb.inventory_movement_id = im.id
+                JOIN public.inventory_batches ib ON ib.id = imb.batch_id
+                WHERE (im.ref_type = 'SALE' AND im.ref_id = ?)
+                   OR (im.ref_type = 'RETURN' AND im.ref_id IN (
+                           SELECT id FROM public.orders WHERE parent_order_id = ?))
+                GROUP BY imb.batch_id, im.product_id, ib.expiration_date
+                HAVING SUM(CASE WHEN im.ref_type = 'SALE' THEN imb.qty ELSE -imb.qty END) > 0
+                ORDER BY im.product_id, ib.expiration_date NULLS LAST, imb.batch_id
+                """, BATCH_BALANCE_MAPPER, originalOrderId, originalOrderId);
+    }
+
+    public void insertBatchAllocations(List<BatchAllocation> allocations) {
+        if (allocations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO public.inventory_movement_batches (batch_id, inventory_movement_id, qty)
+                VALUES (?, ?, ?)
+                """, allocations, allocations.size(), (ps, allocation) -> {
+            ps.setLong(1, allocation.batchId());
+            ps.setLong(2, allocation.movementId());
+            ps.setBigDecimal(3, allocation.qty());
+        });
+    }
+
+    /**
+     * Move inventory_batches.store_remaining_qty by the allocated quantities
+     * (sign -1 for SALE links, +1 for RETURN links)
+     */
+    public void applyStoreBalanceDeltas(List<BatchAllocation> allocations, int sign) {
+        if (allocations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                UPDATE public.inventory_batches
+                SET store_remaining_qty = store_remaining_qty + ?
+                WHERE id = ?
+                """, allocations, allocations.size(), (ps, allocation) -> {
+            ps.setBigDecimal(1, sign < 0 ? allocation.qty().negate() : allocation.qty());
+            ps.setLong(2, allocation.batchId());
+        });
+    }
+
+    /**
+     * Apply the STORE SALE movements of a paid order to stock_snapshot in a single statement
+     * (relative update, creates missing snapshot rows, products in id order).
+     *
+     * The goods have left the store, so the sale is applied even when the snapshot does not
+     * hold enough: store_qty then goes below zero until stock is transferred in.
+     *
+     * @return the products whose store_qty is now below zero
+     */
+    public List<Long> applySaleSnapshotDeltas(Long orderId) {
+        return jdbcTemplate.queryForList("""
+                WITH applied AS (
+                    INSERT INTO public.stock_snapshot (product_id, store_qty, warehouse_qty, last_updated_at)
+                    SELECT product_id, SUM(qty_change), 0, now()
+                    FROM public.inventory_movements
+                    WHERE ref_type = 'SALE' AND ref_id = ? AND location_type = 'STORE'
+                    GROUP BY product_id
+                    ORDER BY product_id
+                    ON CONFLICT (product_id)
+                    DO UPDATE SET
+                        store_qty = COALESCE(stock_snapshot.store_qty, 0) + EXCLUDED.store_qty,
+                        last_updated_at = EXCLUDED.last_updated_at
+                    RETURNING product_id, store_qty
+                )
+                SELECT product_id FROM applied WHERE store_qty < 0 ORDER BY product_id
+                """, Long.class, orderId);
+    }
+
+    /**
+     * Apply the STORE movements of one order to stock_snapshot in a single statement
+     * (relative update, creates missing snapshot rows); for increases such as RETURN
+     */
+    public int applySnapshotDeltas(String refType, Long refId) {
+        return jdbcTemplate.update("""
+                INSERT INTO public.stock_snapshot (product_id, store_qty, warehouse_qty, last_updated_at)
+                SELECT product_id, SUM(qty_change), 0, now()
+                FROM public.inventory_movements
+                WHERE ref_type = ? AND ref_id = ? AND location_type = 'STORE'
+                GROUP BY product_id
+                ON CONFLICT (product_id)
+                DO UPDATE SET
+                    store_qty = COALESCE(stock_snapshot.store_qty, 0) + EXCLUDED.store_qty,
+                    last_updated_at = EXCLUDED.last_updated_at
+                """, refType, refId);
+    }
+
+    /**
+     * Finished orders whose stock is not posted yet (oldest first): paid sales and return orders
+     * created before the given grace period. Returns are only listed once their original sale is posted.
+     */
+    public List<UnpostedOrder> findUnpostedOrders(int graceSeconds, int limit) {
+        return jdbcTemplate.query("""
+                SELECT o.id, o.parent_order_id
+                FROM public.orders o
+                WHERE o.stock_posted_at IS NULL
+                  AND ((o.parent_order_id IS NULL AND o.paid_at IS NOT NULL
+                        AND o.status IN ('PAID', 'PARTIALLY_RETURNED', 'RETURNED')
+                        AND o.paid_at < now() - make_interval(secs => ?))
+                    OR (o.parent_order_id IS NOT NULL AND o.status = 'RETURNED'
+                        AND o.created_at < now() - make_interval(secs => ?)
+                        AND EXISTS (SELECT 1 FROM public.orders p
+                                    WHERE p.id = o.parent_order_id AND p.stock_posted_at IS NOT NULL)))
+                ORDER BY o.id
+                LIMIT ?
+                """, (rs, rowNum) -> new UnpostedOrder(rs.getLong("id"), rs.getObject("parent_order_id", Long.class)),
+                graceSeconds, graceSeconds, limit);
+    }
+
+    /**
+     * @param parentOrderId null for a sale, the original order for a return
+     */
+    public record UnpostedOrder(Long orderId, Long parentOrderId) {
+
+        public boolean isReturn() {
+            return parentOrderId != null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.back_end.modules.stock.service;
+
+import com.example.back_end.modules.stock.entity.InventoryBatch;
+import com.example.back_end.modules.stock.entity.InventoryMovement;
+import com.example.back_end.modules.stock.entity.InventoryMovementBatch;
+import com.example.back_end.modules.stock.entity.InventoryMovementBatchId;
+import com.example.back_end.modules.stock.repository.InventoryBatchRepository;
+import com.example.back_end.modules.stock.repository.InventoryMovementBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Writes movement-batch links and keeps inventory_batches.remaining_qty /
+ * store_remaining_qty in step with them, in the caller's transaction.
+ *
+ * All warehouse batch links go through here so the balances never need to be
+ * recomputed from the link history.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryBatchLedger {
+
+    private final InventoryBatchRepository batchRepository;
+    private final InventoryMovementBatchRepository movementBatchRepository;
+
+    /**
+     * PURCHASE into a batch (warehouse balance increases)
+     */
+    public void receive(InventoryBatch batch, InventoryMovement movement, BigDecimal qty) {
+        link(batch, movement, qty);
+        batchRepository.applyBalanceDelta(batch.getId(), qty, BigDecimal.ZERO);
+    }
+
+    /**
+     * WASTED from a batch (warehouse balance decreases)
+     *
+     * @throws IllegalArgumentException when the batch does not hold enough quantity
+     */
+    public void waste(InventoryBatch batch, InventoryMovement movement, BigDecimal qty) {
+        if (batchRepository.applyBalanceDelta(batch.getId(), qty.negate(), BigDecimal.ZERO) == 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot waste %s units. Available quantity in batch: %s", qty, batch.getRemainingQty()));
+        }
+        link(batch, movement, qty);
+    }
+
+    /**
+     * Warehouse -> store TRANSFER: take the quantity from the product's batches, earliest expiration first.
+     * The batches are locked until commit, so concurrent transfers of the product allocate one after another.
+     *
+     * Stock received without an expiration date has no batch, so the batches may hold less than the
+     * quantity (or nothing): what they cover is linked and the rest is returned unlinked. The caller has
+     * already taken the whole quantity from stock_snapshot.warehouse_qty, which is the real limit.
+     *
+     * @return Quantity that was not allocated to batches
+     * @throws IllegalStateException when a batch balance changed under the lock
+     */
+    public BigDecimal transferToStore(Long productId, InventoryMovement warehouseOut, BigDecimal qty) {
+        List<InventoryBatch> batches = batchRepository.lockWarehouseFifo(productId);
+
+        BigDecimal remainingToAllocate = qty;
+        for (InventoryBatch batch : batches) {
+            if (remainingToAllocate.signum() <= 0) {
+                break;
+            }
+
+            BigDecimal qtyFromBatch = remainingToAllocate.min(batch.getRemainingQty());
+            if (batchRepository.applyBalanceDelta(batch.getId(), qtyFromBatch.negate(), qtyFromBatch) == 0) {
+                throw new IllegalStateException(String.format(
+                        "Batch %s no longer holds %s in the warehouse", batch.getId(), qtyFromBatch));
+            }
+            link(batch, warehouseOut, qtyFromBatch);
+
+            log.info("Linked warehouse out movement {} to batch {} (expiration: {}) with qty: {}",
+                    warehouseOut.getId(), batch.getId(), batch.getExpirationDate(), qtyFromBatch);
+
+            remainingToAllocate = remainingToAllocate.subtract(qtyFromBatch);
+        }
+
+        if (remainingToAllocate.signum() > 0 && !batches.isEmpty()) {
+            log.warn("Warehouse out movement {} (product {}): {} not covered by batches, left unlinked",
+                    warehouseOut.getId(), productId, remainingToAllocate);
+        }
+        return remainingToAllocate;
+    }
+
+    private void link(InventoryBatch batch, InventoryMovement movement, BigDecimal qty) {
+        InventoryMovementBatch movementBatch = InventoryMovementBatch.builder()
+                .id(new InventoryMovementBatchId(batch.getId(), movement.getId()))
+                .batch(batch)
+                .inventoryMovement(movement)
+                .qty(qty) // Positive quantity for the batch link
+                .build();
+        movementBatchRepository.save(movementBatch);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.back_end.modules.stock.service;
+
+import com.example.back_end.modules.forecasting.service.DailyProductSalesService;
+import com.example.back_end.modules.stock.repository.StockPostingRepository;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.UnpostedOrder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs stock posting off the checkout/return request thread.
+ *
+ * Sales and returns are queued after their transaction commits; the periodic sweep
+ * picks up anything that was not posted (queue full, failure, restart).
+ *
+ * The queued task first refreshes the order's daily_product_sales rows in a transaction of
+ * its own, then posts the stock, so the fact table never depends on the posting succeeding
+ * (DailyProductSalesService sweeps refreshes that were lost).
+ */
+@Component
+@Slf4j
+public class StockPostingDispatcher {
+
+    private final StockPostingService stockPostingService;
+    private final StockPostingRepository stockPostingRepository;
+    private final DailyProductSalesService dailyProductSalesService;
+    private final Executor executor;
+
+    @Value("${pos.stock.posting.sweep-batch-size:200}")
+    private int sweepBatchSize;
+
+    @Value("${pos.stock.posting.sweep-grace-seconds:60}")
+    private int sweepGraceSeconds;
+
+    public StockPostingDispatcher(StockPostingService stockPostingService,
+                                  StockPostingRepository stockPostingRepository,
+                                  DailyProductSalesService dailyProductSalesService,
+                                  @Qualifier("stockPostingExecutor") Executor executor) {
+        this.stockPostingService = stockPostingService;
+        this.stockPostingRepository = stockPostingRepository;
+        this.dailyProductSalesService = dailyProductSalesService;
+        this.executor = executor;
+    }
+
+    /**
+     * Post SALE stock for a paid order once the payment transaction commits
+     */
+    public void saleCompleted(Long orderId) {
+        afterCommit(() -> submit(orderId, false));
+    }
+
+    /**
+     * Post RETURN stock for a return order once the return transaction commits
+     */
+    public void returnCompleted(Long returnOrderId) {
+        afterCommit(() -> submit(returnOrderId, true));
+    }
+
+    /**
+     * Catch-up for orders that were paid/returned but never posted
+     */
+    @Scheduled(fixedDelayString = "${pos.stock.posting.sweep-interval:PT1M}")
+    public void postPending() {
+        List<UnpostedOrder> pending = stockPostingRepository.findUnpostedOrders(sweepGraceSeconds, sweepBatchSize);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int posted = 0;
+        for (UnpostedOrder order : pending) {
+            if (post(order.orderId(), order.isReturn())) {
+                posted++;
+            }
+        }
+        log.info("Stock posting sweep: {} of {} pending orders posted", posted, pending.size());
+    }
+
+    private void submit(Long orderId, boolean isReturn) {
+        try {
+            executor.execute(() -> {
+                refreshSalesFacts(orderId);
+                post(orderId, isReturn);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Stock posting queue full, order {} left for the sweep", orderId);
+        }
+    }
+
+    private void refreshSalesFacts(Long orderId) {
+        try {
+            dailyProductSalesService.refreshForOrder(orderId);
+        } catch (Exception e) {
+            log.error("daily_product_sales refresh failed for order {}, will retry on next sweep", orderId, e);
+        }
+    }
+
+    private boolean post(Long orderId, boolean isReturn) {
+        try {
+            return isReturn
+                    ? stockPostingService.postReturn(orderId)
+                    : stockPostingService.postSale(orderId);
+        } catch (Exception e) {
+            log.error("Stock posting failed for order {}, will retry on next sweep", orderId, e);
+            return false;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.back_end.modules.stock.service;
+
+import com.example.back_end.modules.dashboard.cache.EvictInventoryDashboards;
+import com.example.back_end.modules.stock.enums.InventoryRefType;
+import com.example.back_end.modules.stock.repository.StockPostingRepository;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchAllocation;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchBalance;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.PostedMovement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Posts the stock effect of finished orders:
+ * - paid order   -> STORE SALE movements (FIFO batch links) and store_qty decrease
+ * - return order -> STORE RETURN movements (back into the batches the sale used) and store_qty increase
+ *
+ * Each posting runs in one transaction that first claims the order (orders.stock_posted_at),
+ * so posting the same order twice is a no-op. The daily_product_sales rows of the order are
+ * refreshed separately (DailyProductSalesService), so a posting failure never loses a sale there.
+ *
+ * stock_snapshot is updated before the batches, like transfers do, so writers of the same
+ * product lock its snapshot row first and then wait for each other's batches. Checkout does not
+ * check store stock, so a sale is always posted: a product sold beyond its store_qty (or without
+ * a snapshot row) goes below zero and is logged, and the part no batch covers stays unlinked.
+ * A return waits until the sale of its original order is posted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockPostingService {
+
+    private final StockPostingRepository stockPostingRepository;
+
+    /**
+     * @return true when the sale was posted by this call, false when it was already posted
+     */
+    @Transactional
+    @EvictInventoryDashboards
+    public boolean postSale(Long orderId) {
+        if (!stockPostingRepository.claimSale(orderId)) {
+            log.debug("Stock for order {} already posted or order not paid", orderId);
+            return false;
+        }
+
+        List<PostedMovement> movements = stockPostingRepository.insertSaleMovements(orderId);
+        if (movements.isEmpty()) {
+            return true;
+        }
+
+        List<Long> shortProducts = stockPostingRepository.applySaleSnapshotDeltas(orderId);
+        if (!shortProducts.isEmpty()) {
+            log.warn("Order {} sold more than the store stock of products {}, their store_qty is now negative",
+                    orderId, shortProducts);
+        }
+
+        List<BatchAllocation> allocations = allocateFifo(movements,
+                stockPostingRepository.findStoreBatchBalances(orderId));
+        stockPostingRepository.insertBatchAllocations(allocations);
+        stockPostingRepository.applyStoreBalanceDeltas(allocations, -1);
+
+        log.info("Posted SALE stock for order {}: {} products, {} batch links",
+                orderId, movements.size(), allocations.size());
+        return true;
+    }
+
+    /**
+     * @return true when the return was posted by this call, false when it was already posted
+     */
+    @Transactional
+    @EvictInventoryDashboards
+    public boolean postReturn(Long returnOrderId) {
+        Long originalOrderId = stockPostingRepository.claimReturn(returnOrderId);
+        if (originalOrderId == null) {
+            log.debug("Stock for return order {} already posted, not a return or its sale is not posted yet",
+                    returnOrderId);
+            return false;
+        }
+
+        List<PostedMovement> movements = stockPostingRepository.insertReturnMovements(returnOrderId);
+        if (movements.isEmpty()) {
+            return true;
+        }
+
+        stockPostingRepository.applySnapshotDeltas(InventoryRefType.RETURN.name(), returnOrderId);
+
+        List<BatchAllocation> allocations = allocateFifo(movements,
+                stockPostingRepository.findReturnableBatchBalances(originalOrderId));
+        stockPostingRepository.insertBatchAllocations(allocations);
+        stockPostingRepository.applyStoreBalanceDeltas(allocations, 1);
+
+        log.info("Posted RETURN stock for return order {} (original {}): {} products, {} batch links",
+                returnOrderId, originalOrderId, movements.size(), allocations.size());
+        return true;
+    }
+
+    /**
+     * Split each movement over the batches of its product in the given (FIFO) order.
+     * Quantity not covered by any batch stays unlinked (stock that was never received through a batch).
+     * Several movements of the same product consume the batch balances one after another.
+     */
+    public static List<BatchAllocation> allocateFifo(List<PostedMovement> movements, List<BatchBalance> balances) {
+        Map<Long, List<BatchBalance>> balancesByProduct = new HashMap<>();
+        Map<Long, BigDecimal> leftByBatch = new HashMap<>();
+        for (BatchBalance balance : balances) {
+            balancesByProduct.computeIfAbsent(balance.productId(), k -> new ArrayList<>()).add(balance);
+            leftByBatch.put(balance.batchId(), balance.qty());
+        }
+
+        List<BatchAllocation> allocations = new ArrayList<>();
+        for (PostedMovement movement : movements) {
+            BigDecimal remaining = movement.qty();
+
+            for (BatchBalance balance : balancesByProduct.getOrDefault(movement.productId(), List.of())) {
+                if (remaining.signum() <= 0) {
+                    break;
+                }
+                BigDecimal left = leftByBatch.get(balance.batchId());
+                if (left.signum() <= 0) {
+                    continue;
+                }
+                BigDecimal qty = remaining.min(left);
+                allocations.add(new BatchAllocation(movement.movementId(), balance.batchId(), qty));
+                leftByBatch.put(balance.batchId(), left.subtract(qty));
+                remaining = remaining.subtract(qty);
+            }
+
+            if (remaining.signum() > 0) {
+                log.warn("Movement {} (product {}): {} not covered by batches",
+                        movement.movementId(), movement.productId(), remaining);
+            }
+        }
+        return allocations;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.back_end.modules.store_product.controller;
 
 import com.example.back_end.modules.store_product.dto.AdjustQuantityDTO;
+import com.example.back_end.modules.store_product.dto.BulkStockRequestDTO;
+import com.example.back_end.modules.store_product.dto.BulkStockResponseDTO;
 import com.example.back_end.modules.store_product.dto.StoreProductResponseDTO;
 import com.example.back_end.modules.store_product.dto.StoreTransferRequestDTO;
 import com.example.back_end.modules.store_product.dto.WasteRequestDTO;
@@ -44,6 +46,30 @@ public class StoreProductController {
         return ResponseEntity.ok(service.transferFromInventoryToStore(dto));
     }
 
+    // Bulk add to inventory (PURCHASE), one result per line
+    @PostMapping("/bulk/add-to-inventory")
+    public ResponseEntity<BulkStockResponseDTO> bulkAddToInventory(
+            @Valid @RequestBody BulkStockRequestDTO dto) {
+
+        return ResponseEntity.ok(service.bulkAddToInventory(dto.getLines()));
+    }
+
+    // Bulk re-stock of existing products, one result per line
+    @PostMapping("/bulk/restock")
+    public ResponseEntity<BulkStockResponseDTO> bulkRestock(
+            @Valid @RequestBody BulkStockRequestDTO dto) {
+
+        return ResponseEntity.ok(service.bulkRestock(dto.getLines()));
+    }
+
+    // Bulk transfer WAREHOUSE → STORE, one result per line
+    @PostMapping("/bulk/transfer-to-store")
+    public ResponseEntity<BulkStockResponseDTO> bulkTransferToStore(
+            @Valid @RequestBody BulkStockRequestDTO dto) {
+
+        return ResponseEntity.ok(service.bulkTransferFromInventoryToStore(dto.getLines()));
+    }
+
     // Transfer STORE → WAREHOUSE
     @PostMapping("/transfer-to-inventory")
     public ResponseEntity<StoreProductResponseDTO> transferToInventory(
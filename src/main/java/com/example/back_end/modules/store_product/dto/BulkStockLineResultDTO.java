@@ -0,0 +1,32 @@
+package com.example.back_end.modules.store_product.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStockLineResultDTO {
+
+    private int line; // index of the line in the request (0-based)
+    private Long productId;
+    private boolean success;
+    private String error; // null when success
+
+    private Long movementId; // PURCHASE movement, or the warehouse-out TRANSFER movement
+    private Long batchId; // only for receiving lines with an expiration date
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate expirationDate;
+
+    private BigDecimal quantity;
+
+    // Product quantities after the whole request was applied
+    private BigDecimal storeQty;
+    private BigDecimal warehouseQty;
+}
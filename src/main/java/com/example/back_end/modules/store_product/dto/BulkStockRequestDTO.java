@@ -0,0 +1,21 @@
+package com.example.back_end.modules.store_product.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStockRequestDTO {
+
+    // Lines are validated one by one by the service, so a bad line is reported in its result
+    // instead of rejecting the whole request
+    @NotEmpty
+    @Size(max = 5000)
+    private List<StoreTransferRequestDTO> lines;
+}
@@ -0,0 +1,18 @@
+package com.example.back_end.modules.store_product.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStockResponseDTO {
+
+    private int totalLines;
+    private int succeeded;
+    private int failed;
+    private List<BulkStockLineResultDTO> results;
+}
@@ -14,39 +14,31 @@ import java.time.LocalDateTime;
 import java.util.List;
 public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
 
+    // استعلامات الـ Dashboard تقرأ inventory_movement_hourly (V26)، و from على بداية ساعة
+
     // إجمالي الدخول خلال فترة (WAREHOUSE فقط)
     @Query(value = """
-        SELECT COALESCE(SUM(
-                   CASE 
-                       WHEN qty_change > 0 THEN qty_change 
-                       ELSE 0 
-                   END
-               ), 0)
-        FROM inventory_movements
-        WHERE moved_at >= :from
+        SELECT COALESCE(SUM(qty_in), 0)
+        FROM inventory_movement_hourly
+        WHERE bucket_start >= :from
           AND location_type = 'WAREHOUSE'
         """, nativeQuery = true)
     BigDecimal sumInSince(@Param("from") LocalDateTime from);
 
     // إجمالي الخروج خلال فترة (WAREHOUSE فقط)
     @Query(value = """
-        SELECT COALESCE(ABS(SUM(
-                   CASE 
-                       WHEN qty_change < 0 THEN qty_change 
-                       ELSE 0 
-                   END
-               )), 0)
-        FROM inventory_movements
-        WHERE moved_at >= :from
+        SELECT COALESCE(SUM(qty_out), 0)
+        FROM inventory_movement_hourly
+        WHERE bucket_start >= :from
           AND location_type = 'WAREHOUSE'
         """, nativeQuery = true)
     BigDecimal sumOutSince(@Param("from") LocalDateTime from);
 
     // عدد الحركات في WAREHOUSE فقط
     @Query(value = """
-        SELECT COUNT(*)
-        FROM inventory_movements
-        WHERE moved_at >= :from
+        SELECT COALESCE(SUM(movements_count), 0)::bigint
+        FROM inventory_movement_hourly
+        WHERE bucket_start >= :from
           AND location_type = 'WAREHOUSE'
         """, nativeQuery = true)
     Long countMovementsSince(@Param("from") LocalDateTime from);
@@ -79,12 +71,12 @@ public interface InventoryMovementRepository extends JpaRepository<InventoryMove
     // أكثر منتج حركة في آخر فترة (WAREHOUSE فقط)
     @Query(value = """
         SELECT product_id
-        FROM inventory_movements
-        WHERE product_id IS NOT NULL
+        FROM inventory_movement_hourly
+        WHERE product_id <> 0
           AND location_type = 'WAREHOUSE'
-          AND moved_at >= :from
+          AND bucket_start >= :from
         GROUP BY product_id
-        ORDER BY SUM(ABS(qty_change)) DESC
+        ORDER BY SUM(qty_in + qty_out) DESC
         LIMIT 1
         """, nativeQuery = true)
     Long findMostMovedProductIdSince(@Param("from") LocalDateTime from);
@@ -92,37 +84,31 @@ public interface InventoryMovementRepository extends JpaRepository<InventoryMove
     // Weekly Movement Trend (per day) في المخزن فقط
     @Query(value = """
         SELECT 
-            im.moved_at::date AS movementDate,
-            COALESCE(SUM(CASE WHEN qty_change > 0 THEN qty_change ELSE 0 END), 0)  AS totalIn,
-            COALESCE(ABS(SUM(CASE WHEN qty_change < 0 THEN qty_change ELSE 0 END)), 0) AS totalOut
-        FROM inventory_movements im
-        WHERE im.moved_at >= :from
-          AND im.location_type = 'WAREHOUSE'
-        GROUP BY im.moved_at::date
-        ORDER BY im.moved_at::date
+            h.bucket_start::date AS movementDate,
+            COALESCE(SUM(h.qty_in), 0)  AS totalIn,
+            COALESCE(SUM(h.qty_out), 0) AS totalOut
+        FROM inventory_movement_hourly h
+        WHERE h.bucket_start >= :from
+          AND h.location_type = 'WAREHOUSE'
+        GROUP BY h.bucket_start::date
+        ORDER BY h.bucket_start::date
         """, nativeQuery = true)
     List<InventoryWeeklyMovementProjection> findWeeklyMovementSince(@Param("from") LocalDateTime from);
 
     @Query(value = """
     SELECT 
         c.name AS categoryName,
-        COALESCE(SUM(CASE 
-            WHEN im.qty_change > 0 THEN im.qty_change 
-            ELSE 0 
-        END), 0) AS totalIn,
-        COALESCE(SUM(CASE 
-            WHEN im.qty_change < 0 THEN ABS(im.qty_change) 
-            ELSE 0 
-        END), 0) AS totalOut
-    FROM inventory_movements im
+        COALESCE(SUM(h.qty_in), 0) AS totalIn,
+        COALESCE(SUM(h.qty_out), 0) AS totalOut
+    FROM inventory_movement_hourly h
     JOIN products p 
-        ON p.id = im.product_id
+        ON p.id = h.product_id
     JOIN product_categories pc
         ON pc.product_id = p.id
     JOIN categories c
         ON c.id = pc.category_id
-    WHERE im.moved_at >= :from
-      AND im.location_type = 'WAREHOUSE'
+    WHERE h.bucket_start >= :from
+      AND h.location_type = 'WAREHOUSE'
     GROUP BY c.name
     ORDER BY c.name
     """, nativeQuery = true)
@@ -133,17 +119,17 @@ public interface InventoryMovementRepository extends JpaRepository<InventoryMove
     @Query(value = """
     SELECT 
         c.name AS categoryName,
-        SUM(ABS(im.qty_change)) AS totalSalesQty
-    FROM inventory_movements im
+        SUM(h.qty_in + h.qty_out) AS totalSalesQty
+    FROM inventory_movement_hourly h
     JOIN products p 
-        ON p.id = im.product_id
+        ON p.id = h.product_id
     JOIN product_categories pc
         ON pc.product_id = p.id
     JOIN categories c
         ON c.id = pc.category_id
-    WHERE im.moved_at >= :from
-      AND im.location_type = 'STORE'
-      AND im.ref_type = 'SALE'
+    WHERE h.bucket_start >= :from
+      AND h.location_type = 'STORE'
+      AND h.ref_type = 'SALE'
     GROUP BY c.name
     ORDER BY totalSalesQty DESC
     """, nativeQuery = true)
@@ -156,18 +142,18 @@ public interface InventoryMovementRepository extends JpaRepository<InventoryMove
         p.id AS productId,
         p.name AS productName,
         COALESCE(c.name, '') AS categoryName,
-        SUM(ABS(im.qty_change)) AS totalMovementQty
-    FROM inventory_movements im
+        SUM(h.qty_in + h.qty_out) AS totalMovementQty
+    FROM inventory_movement_hourly h
     JOIN products p 
-        ON p.id = im.product_id
+        ON p.id = h.product_id
     LEFT JOIN product_categories pc
         ON pc.product_id = p.id
     LEFT JOIN categories c
         ON c.id = pc.category_id
-    WHERE im.moved_at >= :from
-      AND im.location_type = 'WAREHOUSE'
+    WHERE h.bucket_start >= :from
+      AND h.location_type = 'WAREHOUSE'
     GROUP BY p.id, p.name, c.name
-    ORDER BY SUM(ABS(im.qty_change)) DESC
+    ORDER BY SUM(h.qty_in + h.qty_out) DESC
     LIMIT :limit
     """, nativeQuery = true)
     List<InventoryTopProductProjection> findTopMovedProductsLastWeek(
@@ -0,0 +1,126 @@
+package com.example.back_end.modules.store_product.repository;
+
+import com.example.back_end.modules.store_product.entity.StockSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Atomic stock_snapshot mutations.
+ *
+ * Quantities are changed with relative SQL updates (qty = qty + delta) instead of
+ * read-modify-write in Java, so concurrent movements of the same product never lose
+ * an update. Decreases are guarded in the same statement: the row is only changed
+ * if no decreased quantity goes below zero. Increases are always applied, so a store_qty
+ * that a posted sale took below zero can be refilled.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockSnapshotDeltaRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Store/warehouse change of one product (one entry per product per call)
+     */
+    public record SnapshotDelta(Long productId, BigDecimal storeDelta, BigDecimal warehouseDelta) {
+    }
+
+    private static final RowMapper<StockSnapshot> SNAPSHOT_MAPPER = (rs, rowNum) -> StockSnapshot.builder()
+            .productId(rs.getLong("product_id"))
+            .storeQty(rs.getBigDecimal("store_qty"))
+            .warehouseQty(rs.getBigDecimal("warehouse_qty"))
+            .lastUpdatedAt(rs.getTimestamp("last_updated_at").toInstant())
+            .build();
+
+    /**
+     * Apply store/warehouse deltas to one product.
+     *
+     * @return the updated snapshot, or empty when a decrease would make a quantity negative
+     *         (nothing is changed in that case)
+     */
+    public Optional<StockSnapshot> applyDelta(Long productId, BigDecimal storeDelta, BigDecimal warehouseDelta) {
+        List<StockSnapshot> rows;
+
+        if (storeDelta.signum() >= 0 && warehouseDelta.signum() >= 0) {
+            // Increase only: first movement of a product creates its snapshot row
+            rows = jdbcTemplate.query("""
+                    INSERT INTO public.stock_snapshot (product_id, store_qty, warehouse_qty, last_updated_at)
+                    VALUES (?, ?, ?, now())
+                    ON CONFLICT (product_id)
+                    DO UPDATE SET
+                        store_qty = COALESCE(stock_snapshot.store_qty, 0) + EXCLUDED.store_qty,
+                        warehouse_qty = COALESCE(stock_snapshot.warehouse_qty, 0) + EXCLUDED.warehouse_qty,
+                        last_updated_at = EXCLUDED.last_updated_at
+                    RETURNING product_id, store_qty, warehouse_qty, last_updated_at
+                    """, SNAPSHOT_MAPPER, productId, storeDelta, warehouseDelta);
+        } else {
+            // Any decrease needs an existing row with enough stock
+            rows = jdbcTemplate.query("""
+                    UPDATE public.stock_snapshot
+                    SET store_qty = COALESCE(store_qty, 0) + ?,
+                        warehouse_qty = COALESCE(warehouse_qty, 0) + ?,
+                        last_updated_at = now()
+                    WHERE product_id = ?
+                      AND (? >= 0 OR COALESCE(store_qty, 0) + ? >= 0)
+                      AND (? >= 0 OR COALESCE(warehouse_qty, 0) + ? >= 0)
+                    RETURNING product_id, store_qty, warehouse_qty, last_updated_at
+                    """, SNAPSHOT_MAPPER, storeDelta, warehouseDelta, productId,
+                    storeDelta, storeDelta, warehouseDelta, warehouseDelta);
+        }
+
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Apply the deltas of many products in one statement, with the same rules as {@link #applyDelta}.
+     *
+     * @return the updated snapshots; a product is missing from the result when one of its
+     *         quantities would go negative (nothing is changed for that product)
+     */
+    public List<StockSnapshot> applyDeltas(List<SnapshotDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+
+        boolean increaseOnly = deltas.stream()
+                .allMatch(d -> d.storeDelta().signum() >= 0 && d.warehouseDelta().signum() >= 0);
+        String sql = increaseOnly
+                ? """
+                INSERT INTO public.stock_snapshot (product_id, store_qty, warehouse_qty, last_updated_at)
+                SELECT d.product_id, d.store_delta, d.warehouse_delta, now()
+                FROM unnest(?::bigint[], ?::numeric[], ?::numeric[]) AS d(product_id, store_delta, warehouse_delta)
+                ON CONFLICT (product_id)
+                DO UPDATE SET
+                    store_qty = COALESCE(stock_snapshot.store_qty, 0) + EXCLUDED.store_qty,
+                    warehouse_qty = COALESCE(stock_snapshot.warehouse_qty, 0) + EXCLUDED.warehouse_qty,
+                    last_updated_at = EXCLUDED.last_updated_at
+                RETURNING product_id, store_qty, warehouse_qty, last_updated_at
+                """
+                : """
+                UPDATE public.stock_snapshot s
+                SET store_qty = COALESCE(s.store_qty, 0) + d.store_delta,
+                    warehouse_qty = COALESCE(s.warehouse_qty, 0) + d.warehouse_delta,
+                    last_updated_at = now()
+                FROM unnest(?::bigint[], ?::numeric[], ?::numeric[]) AS d(product_id, store_delta, warehouse_delta)
+                WHERE s.product_id = d.product_id
+                  AND (d.store_delta >= 0 OR COALESCE(s.store_qty, 0) + d.store_delta >= 0)
+                  AND (d.warehouse_delta >= 0 OR COALESCE(s.warehouse_qty, 0) + d.warehouse_delta >= 0)
+                RETURNING s.product_id, s.store_qty, s.warehouse_qty, s.last_updated_at
+                """;
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", deltas.stream().map(SnapshotDelta::productId).toArray()));
+            ps.setArray(2, con.createArrayOf("numeric", deltas.stream().map(SnapshotDelta::storeDelta).toArray()));
+            ps.setArray(3, con.createArrayOf("numeric", deltas.stream().map(SnapshotDelta::warehouseDelta).toArray()));
+            return ps;
+        }, SNAPSHOT_MAPPER);
+    }
+}
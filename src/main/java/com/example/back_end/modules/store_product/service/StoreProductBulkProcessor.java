@@ -0,0 +1,386 @@
+package com.example.back_end.modules.store_product.service;
+
+import com.example.back_end.modules.catalog.product.entity.Product;
+import com.example.back_end.modules.catalog.product.repository.ProductRepository;
+import com.example.back_end.modules.stock.enums.InventoryLocationType;
+import com.example.back_end.modules.stock.enums.InventoryRefType;
+import com.example.back_end.modules.stock.repository.InventoryBulkRepository;
+import com.example.back_end.modules.stock.repository.InventoryBulkRepository.BatchKey;
+import com.example.back_end.modules.stock.repository.InventoryBulkRepository.NewMovement;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchAllocation;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchBalance;
+import com.example.back_end.modules.store_product.dto.BulkStockLineResultDTO;
+import com.example.back_end.modules.store_product.dto.BulkStockResponseDTO;
+import com.example.back_end.modules.store_product.dto.StoreTransferRequestDTO;
+import com.example.back_end.modules.store_product.entity.StockSnapshot;
+import com.example.back_end.modules.store_product.repository.StockSnapshotDeltaRepository;
+import com.example.back_end.modules.store_product.repository.StockSnapshotDeltaRepository.SnapshotDelta;
+import com.example.back_end.modules.store_product.repository.StockSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-line receiving and warehouse -> store transfers.
+ *
+ * All lines are validated first (one product query, one snapshot query); invalid lines are
+ * reported in their result and skipped. The valid lines are then written in chunks: per chunk
+ * one snapshot statement, one movement batch, one batch-link batch and one balance batch.
+ * Runs in the caller's transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StoreProductBulkProcessor {
+
+    private final ProductRepository productRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final StockSnapshotDeltaRepository snapshotDeltaRepository;
+    private final InventoryBulkRepository bulkRepository;
+
+    @Value("${inventory.bulk.chunk-size:500}")
+    private int chunkSize = 500;
+
+    /**
+     * PURCHASE lines into the warehouse (add-to-inventory, or re-stock when requireExistingStock)
+     */
+    public BulkStockResponseDTO receive(List<StoreTransferRequestDTO> lines, boolean requireExistingStock) {
+        BulkStockLineResultDTO[] results = new BulkStockLineResultDTO[lines.size()];
+        Map<Long, Product> products = loadProducts(lines);
+        Map<Long, StockSnapshot> snapshots = requireExistingStock ? loadSnapshots(products.keySet()) : new HashMap<>();
+
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            StoreTransferRequestDTO line = lines.get(i);
+            String error = validateLine(line, products);
+            if (error == null && requireExistingStock && !hasStock(snapshots.get(line.getProductId()))) {
+                error = "Product must have existing inventory to re-stock. Use add-to-inventory for new products.";
+            }
+            if (error != null) {
+                results[i] = failed(i, line, error);
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(accepted)) {
+            receiveChunk(lines, chunk, products, requireExistingStock, snapshots, results);
+        }
+
+        return response(results, snapshots);
+    }
+
+    /**
+     * TRANSFER lines warehouse -> store. Lines are accepted in order while the product's
+     * warehouse quantity covers them; the rest fail with the quantity that was left.
+     * Like the single-line transfer, a line of a batch-tracked product also fails when its
+     * batches (FIFO, after the earlier lines) cannot cover it.
+     */
+    public BulkStockResponseDTO transferToStore(List<StoreTransferRequestDTO> lines) {
+        BulkStockLineResultDTO[] results = new BulkStockLineResultDTO[lines.size()];
+        Map<Long, Product> products = loadProducts(lines);
+        Map<Long, StockSnapshot> snapshots = loadSnapshots(products.keySet());
+
+        Map<Long, BigDecimal> available = new HashMap<>();
+        snapshots.forEach((productId, snapshot) -> available.put(productId, nvl(snapshot.getWarehouseQty())));
+
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            StoreTransferRequestDTO line = lines.get(i);
+            String error = validateLine(line, products);
+            if (error == null) {
+                BigDecimal left = available.getOrDefault(line.getProductId(), BigDecimal.ZERO);
+                if (line.getQuantity().compareTo(left) > 0) {
+                    error = "Not enough quantity in warehouse. Available: " + left + ", requested: " + line.getQuantity();
+                } else {
+                    available.put(line.getProductId(), left.subtract(line.getQuantity()));
+                }
+            }
+            if (error != null) {
+                results[i] = failed(i, line, error);
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(accepted)) {
+            transferChunk(lines, chunk, products, snapshots, results);
+        }
+
+        return response(results, snapshots);
+    }
+
+    private void receiveChunk(List<StoreTransferRequestDTO> lines, List<Integer> chunk, Map<Long, Product> products,
+                              boolean restock, Map<Long, StockSnapshot> snapshots, BulkStockLineResultDTO[] results) {
+        // snapshot first, one upsert for the chunk
+        Map<Long, BigDecimal> warehouseDeltas = new LinkedHashMap<>();
+        for (int i : chunk) {
+            warehouseDeltas.merge(lines.get(i).getProductId(), lines.get(i).getQuantity(), BigDecimal::add);
+        }
+        applySnapshotDeltas(warehouseDeltas.entrySet().stream()
+                .map(e -> new SnapshotDelta(e.getKey(), BigDecimal.ZERO, e.getValue()))
+                .toList(), snapshots);
+
+        List<NewMovement> movements = new ArrayList<>(chunk.size());
+        for (int i : chunk) {
+            StoreTransferRequestDTO line = lines.get(i);
+            String note = line.getNote() != null ? line.getNote() : (restock ? "Re-stock" : null);
+            movements.add(new NewMovement(line.getProductId(), InventoryLocationType.WAREHOUSE,
+                    InventoryRefType.PURCHASE, line.getQuantity(), unitCost(line, products), note));
+        }
+        List<Long> movementIds = bulkRepository.insertMovements(movements);
+
+        // batches: merge by (product, expiration date) like the single-line endpoints
+        Map<BatchKey, Long> batchIds = new HashMap<>();
+        List<BatchKey> missing = List.of();
+        List<BatchKey> wantedKeys = chunk.stream()
+                .map(lines::get)
+                .filter(line -> line.getExpirationDate() != null)
+                .map(line -> new BatchKey(line.getProductId(), line.getExpirationDate()))
+                .distinct()
+                .toList();
+        if (!wantedKeys.isEmpty()) {
+            batchIds.putAll(bulkRepository.findBatches(
+                    wantedKeys.stream().map(BatchKey::productId).collect(Collectors.toSet())));
+            missing = wantedKeys.stream().filter(key -> !batchIds.containsKey(key)).toList();
+            List<Long> createdIds = bulkRepository.insertBatches(missing);
+            for (int k = 0; k < missing.size(); k++) {
+                batchIds.put(missing.get(k), createdIds.get(k));
+            }
+        }
+
+        List<BatchAllocation> links = new ArrayList<>();
+        for (int c = 0; c < chunk.size(); c++) {
+            int i = chunk.get(c);
+            StoreTransferRequestDTO line = lines.get(i);
+            Long batchId = line.getExpirationDate() != null
+                    ? batchIds.get(new BatchKey(line.getProductId(), line.getExpirationDate()))
+                    : null;
+            if (batchId != null) {
+                links.add(new BatchAllocation(movementIds.get(c), batchId, line.getQuantity()));
+            }
+            results[i] = succeeded(i, line, movementIds.get(c), batchId);
+        }
+        bulkRepository.insertReceiptLinks(links);
+
+        log.info("Bulk receiving chunk: {} lines, {} products, {} new batches",
+                chunk.size(), warehouseDeltas.size(), missing.size());
+    }
+
+    private void transferChunk(List<StoreTransferRequestDTO> lines, List<Integer> chunk, Map<Long, Product> products,
+                               Map<Long, StockSnapshot> snapshots, BulkStockLineResultDTO[] results) {
+        Map<Long, BigDecimal> deltas = new LinkedHashMap<>();
+        for (int i : chunk) {
+            deltas.merge(lines.get(i).getProductId(), lines.get(i).getQuantity(), BigDecimal::add);
+        }
+        // guarded update: a product whose warehouse quantity dropped since validation is not changed
+        Set<Long> applied = applySnapshotDeltas(deltas.entrySet().stream()
+                .map(e -> new SnapshotDelta(e.getKey(), e.getValue(), e.getValue().negate()))
+                .toList(), snapshots);
+
+        // FIFO (First Expired First Out) over the batches of all products of the chunk,
+        // locked after the snapshot rows like the single-line transfer does
+        FifoBalances balances = new FifoBalances(bulkRepository.lockWarehouseBalances(applied));
+
+        List<Integer> lineIndexes = new ArrayList<>(chunk.size());
+        List<List<BatchAllocation>> lineAllocations = new ArrayList<>(chunk.size());
+        for (int i : chunk) {
+            StoreTransferRequestDTO line = lines.get(i);
+            if (!applied.contains(line.getProductId())) {
+                results[i] = failed(i, line, "Not enough quantity in warehouse (changed by a concurrent update)");
+                continue;
+            }
+            // the snapshot covers the line: the batches give what they hold, the rest moves unlinked
+            List<BatchAllocation> taken = balances.take(line.getProductId(), line.getQuantity());
+            BigDecimal unlinked = line.getQuantity().subtract(taken.stream()
+                    .map(BatchAllocation::qty).reduce(BigDecimal.ZERO, BigDecimal::add));
+            if (!taken.isEmpty() && unlinked.signum() > 0) {
+                log.warn("Bulk transfer of product {}: {} not covered by warehouse batches, left unlinked",
+                        line.getProductId(), unlinked);
+            }
+            lineIndexes.add(i);
+            lineAllocations.add(taken);
+        }
+
+        List<NewMovement> movements = new ArrayList<>(lineIndexes.size() * 2);
+        for (int i : lineIndexes) {
+            StoreTransferRequestDTO line = lines.get(i);
+            BigDecimal unitCost = unitCost(line, products);
+            movements.add(new NewMovement(line.getProductId(), InventoryLocationType.WAREHOUSE,
+                    InventoryRefType.TRANSFER, line.getQuantity().negate(), unitCost, line.getNote()));
+            movements.add(new NewMovement(line.getProductId(), InventoryLocationType.STORE,
+                    InventoryRefType.TRANSFER, line.getQuantity(), unitCost, line.getNote()));
+        }
+        List<Long> movementIds = bulkRepository.insertMovements(movements);
+
+        List<BatchAllocation> allocations = new ArrayList<>();
+        for (int k = 0; k < lineIndexes.size(); k++) {
+            int i = lineIndexes.get(k);
+            Long warehouseOutId = movementIds.get(k * 2);
+            for (BatchAllocation taken : lineAllocations.get(k)) {
+                allocations.add(new BatchAllocation(warehouseOutId, taken.batchId(), taken.qty()));
+            }
+            results[i] = succeeded(i, lines.get(i), warehouseOutId, null);
+        }
+        bulkRepository.insertTransferLinks(allocations);
+
+        log.info("Bulk transfer chunk: {} lines, {} products, {} batch links",
+                lineIndexes.size(), applied.size(), allocations.size());
+    }
+
+    private Set<Long> applySnapshotDeltas(List<SnapshotDelta> deltas, Map<Long, StockSnapshot> snapshots) {
+        Set<Long> applied = new HashSet<>();
+        for (StockSnapshot snapshot : snapshotDeltaRepository.applyDeltas(deltas)) {
+            snapshots.put(snapshot.getProductId(), snapshot);
+            applied.add(snapshot.getProductId());
+        }
+        return applied;
+    }
+
+    private Map<Long, Product> loadProducts(List<StoreTransferRequestDTO> lines) {
+        Set<Long> ids = lines.stream()
+                .map(StoreTransferRequestDTO::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    private Map<Long, StockSnapshot> loadSnapshots(Set<Long> productIds) {
+        return snapshotRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(StockSnapshot::getProductId, Function.identity(), (a, b) -> a, HashMap::new));
+    }
+
+    private static String validateLine(StoreTransferRequestDTO line, Map<Long, Product> products) {
+        if (line == null || line.getProductId() == null) {
+            return "Product ID is required";
+        }
+        if (!products.containsKey(line.getProductId())) {
+            return "Product not found: " + line.getProductId();
+        }
+        if (line.getQuantity() == null || line.getQuantity().signum() <= 0) {
+            return "Quantity must be greater than 0";
+        }
+        if (line.getUnitCost() != null && line.getUnitCost().signum() < 0) {
+            return "Unit cost must be >= 0";
+        }
+        if (line.getNote() != null && line.getNote().length() > 255) {
+            return "Note must be at most 255 characters";
+        }
+        return null;
+    }
+
+    private static boolean hasStock(StockSnapshot snapshot) {
+        return snapshot != null
+                && (nvl(snapshot.getWarehouseQty()).signum() > 0 || nvl(snapshot.getStoreQty()).signum() > 0);
+    }
+
+    private static BigDecimal unitCost(StoreTransferRequestDTO line, Map<Long, Product> products) {
+        if (line.getUnitCost() != null) {
+            return line.getUnitCost();
+        }
+        BigDecimal defaultCost = products.get(line.getProductId()).getDefaultCost();
+        return defaultCost != null ? defaultCost : BigDecimal.ZERO;
+    }
+
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        int size = Math.max(1, chunkSize);
+        for (int from = 0; from < indexes.size(); from += size) {
+            chunks.add(indexes.subList(from, Math.min(from + size, indexes.size())));
+        }
+        return chunks;
+    }
+
+    private static BulkStockLineResultDTO failed(int index, StoreTransferRequestDTO line, String error) {
+        return BulkStockLineResultDTO.builder()
+                .line(index)
+                .productId(line != null ? line.getProductId() : null)
+                .quantity(line != null ? line.getQuantity() : null)
+                .success(false)
+                .error(error)
+                .build();
+    }
+
+    private static BulkStockLineResultDTO succeeded(int index, StoreTransferRequestDTO line, Long movementId, Long batchId) {
+        return BulkStockLineResultDTO.builder()
+                .line(index)
+                .productId(line.getProductId())
+                .quantity(line.getQuantity())
+                .success(true)
+                .movementId(movementId)
+                .batchId(batchId)
+                .expirationDate(batchId != null ? line.getExpirationDate() : null)
+                .build();
+    }
+
+    private static BulkStockResponseDTO response(BulkStockLineResultDTO[] results, Map<Long, StockSnapshot> snapshots) {
+        int succeeded = 0;
+        for (BulkStockLineResultDTO result : results) {
+            if (result.isSuccess()) {
+                succeeded++;
+                StockSnapshot snapshot = snapshots.get(result.getProductId());
+                if (snapshot != null) {
+                    result.setStoreQty(nvl(snapshot.getStoreQty()));
+                    result.setWarehouseQty(nvl(snapshot.getWarehouseQty()));
+                }
+            }
+        }
+        return BulkStockResponseDTO.builder()
+                .totalLines(results.length)
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Locked warehouse batch balances, spent line by line in FIFO order per product
+     */
+    private static final class FifoBalances {
+
+        private final Map<Long, List<BatchBalance>> byProduct = new HashMap<>();
+        private final Map<Long, BigDecimal> leftByBatch = new HashMap<>();
+
+        FifoBalances(List<BatchBalance> balances) {
+            for (BatchBalance balance : balances) {
+                byProduct.computeIfAbsent(balance.productId(), k -> new ArrayList<>()).add(balance);
+                leftByBatch.put(balance.batchId(), balance.qty());
+            }
+        }
+
+        /**
+         * Take up to the quantity from the product's batches in FIFO order (movement ids left
+         * null). Empty when the product has no batch stock (not batch-tracked); short of the
+         * quantity when its batches hold less.
+         */
+        List<BatchAllocation> take(Long productId, BigDecimal qty) {
+            List<BatchAllocation> taken = new ArrayList<>();
+            BigDecimal remaining = qty;
+            for (BatchBalance batch : byProduct.getOrDefault(productId, List.of())) {
+                if (remaining.signum() <= 0) {
+                    break;
+                }
+                BigDecimal left = leftByBatch.get(batch.batchId());
+                if (left.signum() <= 0) {
+                    continue;
+                }
+                BigDecimal fromBatch = remaining.min(left);
+                taken.add(new BatchAllocation(null, batch.batchId(), fromBatch));
+                leftByBatch.put(batch.batchId(), left.subtract(fromBatch));
+                remaining = remaining.subtract(fromBatch);
+            }
+            return taken;
+        }
+    }
+
+    private static BigDecimal nvl(BigDecimal v) {
+        return v == null ? BigDecimal.ZERO : v;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.back_end.modules.store_product.service;
 
 import com.example.back_end.modules.store_product.dto.AdjustQuantityDTO;
+import com.example.back_end.modules.store_product.dto.BulkStockResponseDTO;
 import com.example.back_end.modules.store_product.dto.StoreProductResponseDTO;
 import com.example.back_end.modules.store_product.dto.StoreTransferRequestDTO;
 import org.springframework.data.domain.Page;
@@ -8,6 +9,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 
 public interface StoreProductService {
 
@@ -54,4 +56,11 @@ public interface StoreProductService {
 
     // Get wasted products (products that have waste movements)
     Page<StoreProductResponseDTO> getWastedProducts(String q, Pageable pageable);
+
+    // Bulk variants (e.g. a whole supplier delivery in one call), with a result per line
+    BulkStockResponseDTO bulkAddToInventory(List<StoreTransferRequestDTO> lines);
+
+    BulkStockResponseDTO bulkRestock(List<StoreTransferRequestDTO> lines);
+
+    BulkStockResponseDTO bulkTransferFromInventoryToStore(List<StoreTransferRequestDTO> lines);
 }
@@ -2,21 +2,22 @@ package com.example.back_end.modules.store_product.service;
 
 import com.example.back_end.modules.catalog.product.entity.Product;
 import com.example.back_end.modules.catalog.product.repository.ProductRepository;
+import com.example.back_end.modules.dashboard.cache.EvictInventoryDashboards;
 import com.example.back_end.modules.store_product.dto.AdjustQuantityDTO;
+import com.example.back_end.modules.store_product.dto.BulkStockResponseDTO;
 import com.example.back_end.modules.store_product.dto.StoreProductResponseDTO;
 import com.example.back_end.modules.store_product.dto.StoreTransferRequestDTO;
 import com.example.back_end.modules.store_product.entity.StockSnapshot;
 import com.example.back_end.modules.store_product.mapper.StoreProductMapper;
 import com.example.back_end.modules.store_product.repository.InventoryMovementRepository;
+import com.example.back_end.modules.store_product.repository.StockSnapshotDeltaRepository;
 import com.example.back_end.modules.store_product.repository.StockSnapshotRepository;
 import com.example.back_end.modules.stock.entity.InventoryBatch;
 import com.example.back_end.modules.stock.entity.InventoryMovement;
-import com.example.back_end.modules.stock.entity.InventoryMovementBatch;
-import com.example.back_end.modules.stock.entity.InventoryMovementBatchId;
 import com.example.back_end.modules.stock.enums.InventoryLocationType;
 import com.example.back_end.modules.stock.enums.InventoryRefType;
 import com.example.back_end.modules.stock.repository.InventoryBatchRepository;
-import com.example.back_end.modules.stock.repository.InventoryMovementBatchRepository;
+import com.example.back_end.modules.stock.service.InventoryBatchLedger;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,9 +29,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -40,11 +39,14 @@ public class StoreProductServiceImpl implements StoreProductService {
 
     private final ProductRepository productRepository;
     private final StockSnapshotRepository snapshotRepository;
+    private final StockSnapshotDeltaRepository snapshotDeltaRepository;
     private final InventoryMovementRepository movementRepository;
     private final InventoryBatchRepository batchRepository;
-    private final InventoryMovementBatchRepository movementBatchRepository;
+    private final InventoryBatchLedger batchLedger;
+    private final StoreProductBulkProcessor bulkProcessor;
 
     @Override
+    @EvictInventoryDashboards
     public StoreProductResponseDTO addToInventory(StoreTransferRequestDTO dto) {
         log.info("=== addToInventory called ===");
         log.info("Received DTO - productId: {}, quantity: {}, expirationDate: {}, unitCost: {}", 
@@ -64,10 +66,6 @@ public class StoreProductServiceImpl implements StoreProductService {
         BigDecimal unitCost = dto.getUnitCost() != null ? dto.getUnitCost() : 
                 (product.getDefaultCost() != null ? product.getDefaultCost() : BigDecimal.ZERO);
 
-        // load / create snapshot
-        StockSnapshot snapshot = getOrCreateSnapshot(product.getId());
-        BigDecimal currentWarehouseQty = nvl(snapshot.getWarehouseQty());
-
         // Always create a new movement (for audit trail)
         log.info("Creating new inventory movement with qtyChange: {}", qty);
         InventoryMovement purchaseMove = InventoryMovement.builder()
@@ -103,32 +101,21 @@ public class StoreProductServiceImpl implements StoreProductService {
             }
 
             // Always create a new movement_batch record (audit trail - records every movement)
-            InventoryMovementBatchId movementBatchId = new InventoryMovementBatchId(batch.getId(), purchaseMove.getId());
-            InventoryMovementBatch movementBatch = InventoryMovementBatch.builder()
-                    .id(movementBatchId)
-                    .batch(batch)
-                    .inventoryMovement(purchaseMove)
-                    .qty(qty)
-                    .build();
-            movementBatchRepository.save(movementBatch);
+            batchLedger.receive(batch, purchaseMove, qty);
             log.info("Saved movement-batch link - batchId: {}, movementId: {}, qty: {} (new record for audit trail)", 
-                    batch.getId(), purchaseMove.getId(), movementBatch.getQty());
+                    batch.getId(), purchaseMove.getId(), qty);
         }
 
-        // update snapshot
-        BigDecimal newWarehouseQty = currentWarehouseQty.add(qty);
-        log.info("Updating snapshot - current: {}, adding: {}, new: {}", 
-                currentWarehouseQty, qty, newWarehouseQty);
-        snapshot.setWarehouseQty(newWarehouseQty);
-        snapshot.setLastUpdatedAt(Instant.now());
-        snapshot = snapshotRepository.save(snapshot);
-        log.info("Saved snapshot - warehouseQty: {}", snapshot.getWarehouseQty());
+        // update snapshot (atomic delta, creates the row on first receipt)
+        StockSnapshot snapshot = applyStockDelta(product.getId(), BigDecimal.ZERO, qty);
+        log.info("Saved snapshot - added: {}, warehouseQty: {}", qty, snapshot.getWarehouseQty());
         log.info("=== addToInventory completed ===");
 
         return StoreProductMapper.fromSnapshotForTransfer(product, snapshot);
     }
 
     @Override
+    @EvictInventoryDashboards
     public StoreProductResponseDTO transferFromInventoryToStore(StoreTransferRequestDTO dto) {
         Product product = productRepository.findById(dto.getProductId())
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + dto.getProductId()));
@@ -138,14 +125,9 @@ public class StoreProductServiceImpl implements StoreProductService {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
 
-        // load / create snapshot and validate warehouse has enough
-        StockSnapshot snapshot = getOrCreateSnapshot(product.getId());
-        BigDecimal availableWarehouse = nvl(snapshot.getWarehouseQty());
-
-        if (availableWarehouse.compareTo(qty) < 0) {
-            throw new IllegalArgumentException("Not enough quantity in warehouse. " +
-                    "Available: " + availableWarehouse + ", requested: " + qty);
-        }
+        // move quantity in the snapshot first: fails if the warehouse does not have enough,
+        // and locks the product row so concurrent transfers allocate batches one at a time
+        StockSnapshot snapshot = applyStockDelta(product.getId(), qty, qty.negate());
 
         BigDecimal unitCost = dto.getUnitCost() != null ? dto.getUnitCost() : 
                 (product.getDefaultCost() != null ? product.getDefaultCost() : BigDecimal.ZERO);
@@ -171,100 +153,14 @@ public class StoreProductServiceImpl implements StoreProductService {
                 .build();
         movementRepository.save(storeIn);
 
-        // If product has batches, allocate quantity using FIFO (First Expired First Out)
-        List<InventoryBatch> batches = batchRepository.findByProductId(product.getId());
-        if (!batches.isEmpty()) {
-            // Get batches with remaining quantities, sorted by expiration date (earliest first)
-            List<BatchWithRemainingQty> batchesWithRemaining = batches.stream()
-                    .map(batch -> {
-                        final Long batchId = batch.getId();
-                        
-                        // Calculate total quantity in batch (sum of all movement_batches)
-                        BigDecimal totalQty = movementBatchRepository.findByBatch_Id(batchId).stream()
-                                .map(InventoryMovementBatch::getQty)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                        // Calculate wasted quantity for this batch
-                        BigDecimal wastedQty = movementRepository.findByProductId(product.getId()).stream()
-                                .filter(m -> m.getRefType() == InventoryRefType.WASTED)
-                                .flatMap(m -> m.getBatches().stream())
-                                .filter(mb -> mb.getBatch().getId().equals(batchId))
-                                .map(InventoryMovementBatch::getQty)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                        // Calculate transferred out quantity (warehouse out transfers)
-                        BigDecimal transferredOutQty = movementRepository.findByProductId(product.getId()).stream()
-                                .filter(m -> m.getRefType() == InventoryRefType.TRANSFER 
-                                        && m.getLocationType() == InventoryLocationType.WAREHOUSE
-                                        && m.getQtyChange().signum() < 0) // Negative qtyChange means out
-                                .flatMap(m -> m.getBatches().stream())
-                                .filter(mb -> mb.getBatch().getId().equals(batchId))
-                                .map(InventoryMovementBatch::getQty)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                        BigDecimal remainingQty = totalQty.subtract(wastedQty).subtract(transferredOutQty);
-                        
-                        return new BatchWithRemainingQty(batch, remainingQty);
-                    })
-                    .filter(b -> b.remainingQty.compareTo(BigDecimal.ZERO) > 0) // Only batches with remaining quantity
-                    .sorted(Comparator.comparing(b -> b.batch.getExpirationDate(), 
-                            Comparator.nullsLast(Comparator.naturalOrder()))) // Sort by expiration date (earliest first, nulls last)
-                    .collect(Collectors.toList());
-
-            // Allocate quantity using FIFO
-            BigDecimal remainingToAllocate = qty;
-            for (BatchWithRemainingQty batchInfo : batchesWithRemaining) {
-                if (remainingToAllocate.compareTo(BigDecimal.ZERO) <= 0) {
-                    break;
-                }
-
-                BigDecimal qtyToAllocateFromBatch = remainingToAllocate.min(batchInfo.remainingQty);
-                
-                // Link warehouse out movement to this batch
-                InventoryMovementBatchId movementBatchId = new InventoryMovementBatchId(
-                        batchInfo.batch.getId(), warehouseOut.getId());
-                InventoryMovementBatch movementBatch = InventoryMovementBatch.builder()
-                        .id(movementBatchId)
-                        .batch(batchInfo.batch)
-                        .inventoryMovement(warehouseOut)
-                        .qty(qtyToAllocateFromBatch) // Positive quantity for the batch link
-                        .build();
-                movementBatchRepository.save(movementBatch);
-                log.info("Linked warehouse out movement {} to batch {} (expiration: {}) with qty: {}",
-                        warehouseOut.getId(), batchInfo.batch.getId(), 
-                        batchInfo.batch.getExpirationDate(), qtyToAllocateFromBatch);
-
-                remainingToAllocate = remainingToAllocate.subtract(qtyToAllocateFromBatch);
-            }
-
-            if (remainingToAllocate.compareTo(BigDecimal.ZERO) > 0) {
-                log.warn("Could not fully allocate transfer quantity {} to batches. Remaining unallocated: {}", 
-                        qty, remainingToAllocate);
-                // This shouldn't happen if validation is correct, but log it just in case
-            }
-        }
-
-        // update snapshot
-        snapshot.setWarehouseQty(availableWarehouse.subtract(qty));
-        snapshot.setStoreQty(nvl(snapshot.getStoreQty()).add(qty));
-        snapshot.setLastUpdatedAt(Instant.now());
-        snapshotRepository.save(snapshot);
+        // allocate quantity to batches using FIFO (First Expired First Out)
+        batchLedger.transferToStore(product.getId(), warehouseOut, qty);
 
         return StoreProductMapper.fromSnapshotForTransfer(product, snapshot);
     }
 
-    // Helper class for batch allocation
-    private static class BatchWithRemainingQty {
-        InventoryBatch batch;
-        BigDecimal remainingQty;
-
-        BatchWithRemainingQty(InventoryBatch batch, BigDecimal remainingQty) {
-            this.batch = batch;
-            this.remainingQty = remainingQty;
-        }
-    }
-
     @Override
+    @EvictInventoryDashboards
     public StoreProductResponseDTO transferFromStoreToInventory(StoreTransferRequestDTO dto) {
         Product product = productRepository.findById(dto.getProductId())
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + dto.getProductId()));
@@ -274,14 +170,8 @@ public class StoreProductServiceImpl implements StoreProductService {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
 
-        // load / create snapshot and validate store has enough
-        StockSnapshot snapshot = getOrCreateSnapshot(product.getId());
-        BigDecimal availableStore = nvl(snapshot.getStoreQty());
-
-        if (availableStore.compareTo(qty) < 0) {
-            throw new IllegalArgumentException("Not enough quantity in store. " +
-                    "Available: " + availableStore + ", requested: " + qty);
-        }
+        // move quantity in the snapshot first (fails if the store does not have enough)
+        StockSnapshot snapshot = applyStockDelta(product.getId(), qty.negate(), qty);
 
         BigDecimal unitCost = dto.getUnitCost() != null ? dto.getUnitCost() : 
                 (product.getDefaultCost() != null ? product.getDefaultCost() : BigDecimal.ZERO);
@@ -307,16 +197,11 @@ public class StoreProductServiceImpl implements StoreProductService {
                 .build();
         movementRepository.save(warehouseIn);
 
-        // update snapshot
-        snapshot.setStoreQty(availableStore.subtract(qty));
-        snapshot.setWarehouseQty(nvl(snapshot.getWarehouseQty()).add(qty));
-        snapshot.setLastUpdatedAt(Instant.now());
-        snapshotRepository.save(snapshot);
-
         return StoreProductMapper.fromSnapshotForTransfer(product, snapshot);
     }
 
     @Override
+    @EvictInventoryDashboards
     public StoreProductResponseDTO removeFromStore(StoreTransferRequestDTO dto) {
         // Removing from store means transferring store → warehouse
         // Same operation as transferFromStoreToInventory
@@ -324,6 +209,7 @@ public class StoreProductServiceImpl implements StoreProductService {
     }
 
     @Override
+    @EvictInventoryDashboards
     public StoreProductResponseDTO increaseStoreQuantity(AdjustQuantityDTO dto) {
         Product product = productRepository.findById(dto.getProductId())
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + dto.getProductId()));
@@ -333,9 +219,6 @@ public class StoreProductServiceImpl implements StoreProductService {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
 
-        StockSnapshot snapshot = getOrCreateSnapshot(product.getId());
-        BigDecimal currentStoreQty = nvl(snapshot.getStoreQty());
-
         // create ADJUSTMENT movement
         InventoryMovement adjustment = InventoryMovement.builder()
                 .product(product)
@@ -347,14 +230,13 @@ public class StoreProductServiceImpl implements StoreProductService {
         movementRepository.save(adjustment);
 
         // update snapshot
-        snapshot.setStoreQty(currentStoreQty.add(qty));
-        snapshot.setLastUpdatedAt(Instant.now());
-        snapshotRepository.save(snapshot);
+        StockSnapshot snapshot = applyStockDelta(product.getId(), qty, BigDecimal.ZERO);
 
         return StoreProductMapper.fromSnapshotForTransfer(product, snapshot);
     }
 
     @Override
+    @EvictInventoryDashboards
     public StoreProductResponseDTO decreaseStoreQuantity(AdjustQuantityDTO dto) {
         Product product = productRepository.findById(dto.getProductId())
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + dto.getProductId()));
@@ -364,13 +246,8 @@ public class StoreProductServiceImpl implements StoreProductService {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
 
-        StockSnapshot snapshot = getOrCreateSnapshot(product.getId());
-        BigDecimal currentStoreQty = nvl(snapshot.getStoreQty());
-
-        if (currentStoreQty.compareTo(qty) < 0) {
-            throw new IllegalArgumentException("Not enough quantity in store. " +
-                    "Available: " + currentStoreQty + ", requested: " + qty);
-        }
+        // update snapshot first (fails if the store does not have enough)
+        StockSnapshot snapshot = applyStockDelta(product.getId(), qty.negate(), BigDecimal.ZERO);
 
         // create ADJUSTMENT movement (negative)
         InventoryMovement adjustment = InventoryMovement.builder()
@@ -382,15 +259,11 @@ public class StoreProductServiceImpl implements StoreProductService {
                 .build();
         movementRepository.save(adjustment);
 
-        // update snapshot
-        snapshot.setStoreQty(currentStoreQty.subtract(qty));
-        snapshot.setLastUpdatedAt(Instant.now());
-        snapshotRepository.save(snapshot);
-
         return StoreProductMapper.fromSnapshotForTransfer(product, snapshot);
     }
 
     @Override
+    @EvictInventoryDashboards
     public StoreProductResponseDTO increaseWarehouseQuantity(AdjustQuantityDTO dto) {
         Product product = productRepository.findById(dto.getProductId())
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + dto.getProductId()));
@@ -400,9 +273,6 @@ public class StoreProductServiceImpl implements StoreProductService {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
 
-        StockSnapshot snapshot = getOrCreateSnapshot(product.getId());
-        BigDecimal currentWarehouseQty = nvl(snapshot.getWarehouseQty());
-
         // create ADJUSTMENT movement
         InventoryMovement adjustment = InventoryMovement.builder()
                 .product(product)
@@ -414,14 +284,13 @@ public class StoreProductServiceImpl implements StoreProductService {
         movementRepository.save(adjustment);
 
         // update snapshot
-        snapshot.setWarehouseQty(currentWarehouseQty.add(qty));
-        snapshot.setLastUpdatedAt(Instant.now());
-        snapshotRepository.save(snapshot);
+        StockSnapshot snapshot = applyStockDelta(product.getId(), BigDecimal.ZERO, qty);
 
         return StoreProductMapper.fromSnapshotForTransfer(product, snapshot);
     }
 
     @Override
+    @EvictInventoryDashboards
     public StoreProductResponseDTO decreaseWarehouseQuantity(AdjustQuantityDTO dto) {
         Product product = productRepository.findById(dto.getProductId())
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + dto.getProductId()));
@@ -431,13 +300,8 @@ public class StoreProductServiceImpl implements StoreProductService {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
 
-        StockSnapshot snapshot = getOrCreateSnapshot(product.getId());
-        BigDecimal currentWarehouseQty = nvl(snapshot.getWarehouseQty());
-
-        if (currentWarehouseQty.compareTo(qty) < 0) {
-            throw new IllegalArgumentException("Not enough quantity in warehouse. " +
-                    "Available: " + currentWarehouseQty + ", requested: " + qty);
-        }
+        // update snapshot first (fails if the warehouse does not have enough)
+        StockSnapshot snapshot = applyStockDelta(product.getId(), BigDecimal.ZERO, qty.negate());
 
         // create ADJUSTMENT movement (negative)
         InventoryMovement adjustment = InventoryMovement.builder()
@@ -449,11 +313,6 @@ public class StoreProductServiceImpl implements StoreProductService {
                 .build();
         movementRepository.save(adjustment);
 
-        // update snapshot
-        snapshot.setWarehouseQty(currentWarehouseQty.subtract(qty));
-        snapshot.setLastUpdatedAt(Instant.now());
-        snapshotRepository.save(snapshot);
-
         return StoreProductMapper.fromSnapshotForTransfer(product, snapshot);
     }
 
@@ -504,49 +363,19 @@ public class StoreProductServiceImpl implements StoreProductService {
         productRepository.findById(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + productId));
 
-        // Get all batches for the product
-        java.util.List<InventoryBatch> batches = batchRepository.findByProductId(productId);
-
-        // Calculate total quantity, wasted quantity, and transferred out quantity for each batch
-        return batches.stream()
-                .map(batch -> {
-                    final Long batchId = batch.getId();
-                    
-                    // Calculate total purchased/added quantity (only positive movements like PURCHASE)
-                    // This is the correct total - we should NOT include wasted/transferred quantities in the total
-                    BigDecimal totalQty = movementBatchRepository.sumPurchasedQuantityByBatchId(batchId);
-
-                    // Calculate wasted quantity for this batch (using direct SQL query for accuracy)
-                    BigDecimal wastedQty = movementBatchRepository.sumWastedQuantityByBatchId(batchId);
-
-                    // Calculate transferred out quantity (warehouse out transfers) using direct SQL query
-                    BigDecimal transferredOutQty = movementBatchRepository.sumTransferredOutQuantityByBatchId(batchId);
-
-                    // Calculate remaining quantity (purchased - wasted - transferred out)
-                    BigDecimal remainingQty = totalQty.subtract(wastedQty).subtract(transferredOutQty);
-
-                    // Log batch details for debugging (INFO level to ensure it's visible)
-                    log.info("getBatchesForProduct - Batch {} (expiration: {}) - totalQty: {}, wastedQty: {}, transferredOutQty: {}, remainingQty: {}",
-                            batchId, batch.getExpirationDate(), totalQty, wastedQty, transferredOutQty, remainingQty);
-
-                    return com.example.back_end.modules.store_product.dto.ProductBatchDTO.builder()
-                            .batchId(batch.getId())
-                            .expirationDate(batch.getExpirationDate())
-                            .totalQuantity(remainingQty) // Return remaining quantity in warehouse
-                            .build();
-                })
-                .peek(batch -> log.info("getBatchesForProduct - Before filter: batch {} with totalQuantity: {}", 
-                        batch.getBatchId(), batch.getTotalQuantity()))
-                .filter(batch -> {
-                    boolean shouldInclude = batch.getTotalQuantity().compareTo(BigDecimal.ZERO) > 0;
-                    log.info("getBatchesForProduct - Batch {} (expiration: {}) - totalQuantity: {}, shouldInclude: {}",
-                            batch.getBatchId(), batch.getExpirationDate(), batch.getTotalQuantity(), shouldInclude);
-                    return shouldInclude;
-                }) // Only batches with remaining quantity > 0
+        // Batches still holding warehouse stock, earliest expiration first
+        return batchRepository.findByProductIdAndRemainingQtyGreaterThanOrderByExpirationDateAscIdAsc(productId, BigDecimal.ZERO)
+                .stream()
+                .map(batch -> com.example.back_end.modules.store_product.dto.ProductBatchDTO.builder()
+                        .batchId(batch.getId())
+                        .expirationDate(batch.getExpirationDate())
+                        .totalQuantity(batch.getRemainingQty()) // Return remaining quantity in warehouse
+                        .build())
                 .collect(java.util.stream.Collectors.toList());
     }
 
     @Override
+    @EvictInventoryDashboards
     public StoreProductResponseDTO restock(StoreTransferRequestDTO dto) {
         log.info("=== restock called ===");
         log.info("Received DTO - productId: {}, quantity: {}, expirationDate: {}, unitCost: {}",
@@ -573,10 +402,6 @@ public class StoreProductServiceImpl implements StoreProductService {
         BigDecimal unitCost = dto.getUnitCost() != null ? dto.getUnitCost() :
                 (product.getDefaultCost() != null ? product.getDefaultCost() : BigDecimal.ZERO);
 
-        // load snapshot
-        StockSnapshot snapshot = getOrCreateSnapshot(product.getId());
-        BigDecimal currentWarehouseQty = nvl(snapshot.getWarehouseQty());
-
         // Always create a new movement (for audit trail)
         log.info("Creating new inventory movement with qtyChange: {}", qty);
         InventoryMovement purchaseMove = InventoryMovement.builder()
@@ -612,28 +437,20 @@ public class StoreProductServiceImpl implements StoreProductService {
             }
 
             // Always create a new movement_batch record (audit trail - records every movement)
-            InventoryMovementBatchId movementBatchId = new InventoryMovementBatchId(batch.getId(), purchaseMove.getId());
-            InventoryMovementBatch movementBatch = InventoryMovementBatch.builder()
-                    .id(movementBatchId)
-                    .batch(batch)
-                    .inventoryMovement(purchaseMove)
-                    .qty(qty)
-                    .build();
-            movementBatchRepository.save(movementBatch);
+            batchLedger.receive(batch, purchaseMove, qty);
             log.info("Saved movement-batch link - batchId: {}, movementId: {}, qty: {} (new record for audit trail)",
-                    batch.getId(), purchaseMove.getId(), movementBatch.getQty());
+                    batch.getId(), purchaseMove.getId(), qty);
         }
 
         // update snapshot
-        snapshot.setWarehouseQty(currentWarehouseQty.add(qty));
-        snapshot.setLastUpdatedAt(Instant.now());
-        snapshotRepository.save(snapshot);
+        StockSnapshot snapshot = applyStockDelta(product.getId(), BigDecimal.ZERO, qty);
         log.info("Updated stock snapshot for product ID: {} - new warehouseQty: {}", product.getId(), snapshot.getWarehouseQty());
 
         return StoreProductMapper.fromSnapshotForTransfer(product, snapshot);
     }
 
     @Override
+    @EvictInventoryDashboards
     public com.example.back_end.modules.store_product.dto.WasteResponseDTO recordWaste(
             com.example.back_end.modules.store_product.dto.WasteRequestDTO dto) {
         log.info("=== recordWaste called ===");
@@ -658,35 +475,17 @@ public class StoreProductServiceImpl implements StoreProductService {
                 throw new IllegalArgumentException("Batch does not belong to the specified product");
             }
 
-            // Check available quantity in batch
-            final Long batchId = batch.getId(); // Make final for lambda
-            BigDecimal batchTotalQty = movementBatchRepository.findByBatch_Id(batchId).stream()
-                    .map(InventoryMovementBatch::getQty)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            // Subtract wasted quantities from batch total
-            BigDecimal batchWastedQty = movementRepository.findByProductId(product.getId()).stream()
-                    .filter(m -> m.getRefType() == InventoryRefType.WASTED)
-                    .flatMap(m -> m.getBatches().stream())
-                    .filter(mb -> mb.getBatch().getId().equals(batchId))
-                    .map(InventoryMovementBatch::getQty)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal availableQty = batchTotalQty.subtract(batchWastedQty);
-            if (qty.compareTo(availableQty) > 0) {
+            // Check available quantity in batch (re-checked atomically when the link is written)
+            if (qty.compareTo(batch.getRemainingQty()) > 0) {
                 throw new IllegalArgumentException(
-                        String.format("Cannot waste %s units. Available quantity in batch: %s", qty, availableQty));
+                        String.format("Cannot waste %s units. Available quantity in batch: %s", qty, batch.getRemainingQty()));
             }
         }
 
-        // Load snapshot - waste is always from warehouse
-        StockSnapshot snapshot = getOrCreateSnapshot(product.getId());
-        BigDecimal currentQty = nvl(snapshot.getWarehouseQty());
-
-        if (qty.compareTo(currentQty) > 0) {
-            throw new IllegalArgumentException(
-                    String.format("Cannot waste %s units. Available warehouse quantity: %s", qty, currentQty));
-        }
+        // Update snapshot first - waste is always from warehouse
+        StockSnapshot snapshot = snapshotDeltaRepository.applyDelta(product.getId(), BigDecimal.ZERO, qty.negate())
+                .orElseThrow(() -> new IllegalArgumentException(String.format(
+                        "Cannot waste %s units. Available warehouse quantity: %s", qty, currentWarehouseQty(product.getId()))));
 
         // Get unit cost
         BigDecimal unitCost = product.getDefaultCost() != null ? product.getDefaultCost() : BigDecimal.ZERO;
@@ -706,22 +505,11 @@ public class StoreProductServiceImpl implements StoreProductService {
 
         // Link to batch if provided
         if (batch != null) {
-            InventoryMovementBatchId movementBatchId = new InventoryMovementBatchId(batch.getId(), wasteMove.getId());
-            InventoryMovementBatch movementBatch = InventoryMovementBatch.builder()
-                    .id(movementBatchId)
-                    .batch(batch)
-                    .inventoryMovement(wasteMove)
-                    .qty(qty) // Positive quantity for the batch link
-                    .build();
-            movementBatchRepository.save(movementBatch);
+            batchLedger.waste(batch, wasteMove, qty);
             log.info("Saved movement-batch link - batchId: {}, movementId: {}, qty: {}",
-                    batch.getId(), wasteMove.getId(), movementBatch.getQty());
+                    batch.getId(), wasteMove.getId(), qty);
         }
 
-        // Update snapshot - always decrease warehouse quantity
-        snapshot.setWarehouseQty(currentQty.subtract(qty));
-        snapshot.setLastUpdatedAt(Instant.now());
-        snapshotRepository.save(snapshot);
         log.info("Updated stock snapshot - WAREHOUSE qty: {}", snapshot.getWarehouseQty());
 
         // Build response
@@ -773,6 +561,24 @@ public class StoreProductServiceImpl implements StoreProductService {
                 .map(StoreProductMapper::fromProjection);
     }
 
+    @Override
+    @EvictInventoryDashboards
+    public BulkStockResponseDTO bulkAddToInventory(List<StoreTransferRequestDTO> lines) {
+        return bulkProcessor.receive(lines, false);
+    }
+
+    @Override
+    @EvictInventoryDashboards
+    public BulkStockResponseDTO bulkRestock(List<StoreTransferRequestDTO> lines) {
+        return bulkProcessor.receive(lines, true);
+    }
+
+    @Override
+    @EvictInventoryDashboards
+    public BulkStockResponseDTO bulkTransferFromInventoryToStore(List<StoreTransferRequestDTO> lines) {
+        return bulkProcessor.transferToStore(lines);
+    }
+
     // helpers
     private StockSnapshot getOrCreateSnapshot(Long productId) {
         return snapshotRepository.findById(productId)
@@ -785,6 +591,30 @@ public class StoreProductServiceImpl implements StoreProductService {
                 );
     }
 
+    /**
+     * Atomically add the deltas to the product's snapshot (see StockSnapshotDeltaRepository).
+     * Throws when a decrease is larger than the available quantity.
+     */
+    private StockSnapshot applyStockDelta(Long productId, BigDecimal storeDelta, BigDecimal warehouseDelta) {
+        return snapshotDeltaRepository.applyDelta(productId, storeDelta, warehouseDelta)
+                .orElseThrow(() -> {
+                    if (warehouseDelta.signum() < 0) {
+                        return new IllegalArgumentException("Not enough quantity in warehouse. " +
+                                "Available: " + currentWarehouseQty(productId) + ", requested: " + warehouseDelta.negate());
+                    }
+                    return new IllegalArgumentException("Not enough quantity in store. " +
+                            "Available: " + currentStoreQty(productId) + ", requested: " + storeDelta.negate());
+                });
+    }
+
+    private BigDecimal currentWarehouseQty(Long productId) {
+        return snapshotRepository.findById(productId).map(s -> nvl(s.getWarehouseQty())).orElse(BigDecimal.ZERO);
+    }
+
+    private BigDecimal currentStoreQty(Long productId) {
+        return snapshotRepository.findById(productId).map(s -> nvl(s.getStoreQty())).orElse(BigDecimal.ZERO);
+    }
+
     private static BigDecimal nvl(BigDecimal v) {
         return v == null ? BigDecimal.ZERO : v;
     }
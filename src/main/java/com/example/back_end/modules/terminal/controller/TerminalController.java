@@ -7,6 +7,7 @@ import com.example.back_end.exception.NoTerminalPairedException;
 import com.example.back_end.exception.TerminalAlreadyPairedException;
 import com.example.back_end.modules.terminal.dto.*;
 import com.example.back_end.modules.terminal.repository.TerminalDeviceRepository;
+import com.example.back_end.modules.terminal.service.TerminalDeviceCache;
 import com.example.back_end.modules.terminal.service.TerminalOperationService;
 import com.example.back_end.modules.terminal.service.TerminalPairingService;
 import com.example.back_end.modules.terminal.service.TerminalService;
@@ -39,6 +40,7 @@ public class TerminalController {
     private final TerminalPairingService pairingService;
     private final TerminalOperationService terminalOperationService;
     private final TerminalDeviceRepository terminalDeviceRepository;
+    private final TerminalDeviceCache terminalDeviceCache;
     private final TerminalService terminalService;
 
 
@@ -157,6 +159,7 @@ public class TerminalController {
                         log.info("Unpairing browser from terminal {}", device.getTerminalId());
                         device.setRevokedAt(LocalDateTime.now());
                         terminalDeviceRepository.save(device);
+                        terminalDeviceCache.evict(device.getTokenHash());
                     });
 
             return ResponseEntity.ok(Map.of(
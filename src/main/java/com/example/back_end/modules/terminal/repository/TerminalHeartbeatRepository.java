@@ -0,0 +1,46 @@
+package com.example.back_end.modules.terminal.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Batched terminal_devices.last_seen_at updates
+ */
+@Repository
+@RequiredArgsConstructor
+public class TerminalHeartbeatRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Move last_seen_at of many active devices forward in one statement (never backwards)
+     *
+     * @return number of devices updated
+     */
+    public int touchLastSeen(Map<Long, LocalDateTime> lastSeenByDevice) {
+        if (lastSeenByDevice.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    UPDATE public.terminal_devices t
+                    SET last_seen_at = d.seen_at
+                    FROM unnest(?::bigint[], ?::timestamp[]) AS d(id, seen_at)
+                    WHERE t.id = d.id
+                      AND t.revoked_at IS NULL
+                      AND (t.last_seen_at IS NULL OR t.last_seen_at < d.seen_at)
+                    """);
+            ps.setArray(1, con.createArrayOf("bigint", lastSeenByDevice.keySet().toArray()));
+            ps.setArray(2, con.createArrayOf("timestamp", lastSeenByDevice.values().stream()
+                    .map(Timestamp::valueOf)
+                    .toArray()));
+            return ps;
+        });
+    }
+}
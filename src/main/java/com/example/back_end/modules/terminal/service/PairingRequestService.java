@@ -28,6 +28,7 @@ public class PairingRequestService {
 
     private final TerminalPairingCodeRepository pairingCodeRepository;
     private final TerminalDeviceRepository terminalDeviceRepository;
+    private final TerminalDeviceCache terminalDeviceCache;
     private final TerminalRepository terminalRepository;
     private final UserRepository userRepository;
 
@@ -135,6 +136,7 @@ public class PairingRequestService {
             oldDevicesForTerminal.forEach(device -> {
                 device.setRevokedAt(LocalDateTime.now());
                 terminalDeviceRepository.save(device);
+                terminalDeviceCache.evict(device.getTokenHash());
             });
 
             terminalDeviceRepository.flush();
@@ -161,6 +163,7 @@ public class PairingRequestService {
                 .build();
 
         terminalDeviceRepository.save(newDevice);
+        terminalDeviceCache.evict(newDevice.getTokenHash());
 
         // ✅ Flow 4.7: Mark request as USED
         request.setStatus("USED");
@@ -0,0 +1,109 @@
+package com.example.back_end.modules.terminal.service;
+
+import com.example.back_end.modules.terminal.repository.TerminalDeviceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Browser token hash -> active paired device, for BrowserTokenFilter (runs on every request).
+ *
+ * Unpaired browsers are cached too (as empty), so neither kind of request reads terminal_devices
+ * each time. Every place that pairs, revokes or deletes a device evicts its token hash; the ttl
+ * (pos.terminal.device-cache.ttl) only bounds changes made outside the app.
+ */
+@Component
+public class TerminalDeviceCache {
+
+    /**
+     * What a request needs to know about its paired device
+     */
+    public record ActiveDevice(Long deviceId, Long terminalId) {
+    }
+
+    private record Entry(Optional<ActiveDevice> device, long loadedAt) {
+    }
+
+    private final TerminalDeviceRepository terminalDeviceRepository;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    // guarded by itself
+    private final Map<String, Entry> entries;
+    private long generation;
+
+    @Autowired
+    public TerminalDeviceCache(TerminalDeviceRepository terminalDeviceRepository,
+                               @Value("${pos.terminal.device-cache.ttl:PT1M}") Duration ttl,
+                               @Value("${pos.terminal.device-cache.max-entries:1000}") int maxEntries) {
+        this(terminalDeviceRepository, ttl, maxEntries, System::nanoTime);
+    }
+
+    TerminalDeviceCache(TerminalDeviceRepository terminalDeviceRepository, Duration ttl, int maxEntries,
+                        LongSupplier nanoClock) {
+        this.terminalDeviceRepository = terminalDeviceRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * An evict while the row is being read wins: that lookup is returned but not cached
+     */
+    public Optional<ActiveDevice> findActive(String tokenHash) {
+        long now = nanoClock.getAsLong();
+        long loadGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(tokenHash);
+            if (entry != null && now - entry.loadedAt() < ttlNanos) {
+                return entry.device();
+            }
+            loadGeneration = generation;
+        }
+
+        Optional<ActiveDevice> device = terminalDeviceRepository.findByTokenHashAndRevokedAtIsNull(tokenHash)
+                .map(d -> new ActiveDevice(d.getId(), d.getTerminalId()));
+        synchronized (entries) {
+            if (generation == loadGeneration) {
+                entries.put(tokenHash, new Entry(device, now));
+            }
+        }
+        return device;
+    }
+
+    /**
+     * Forget a browser's pairing. Inside a transaction it is evicted again after commit,
+     * so a request that read the old row before the commit cannot keep it cached.
+     */
+    public void evict(String tokenHash) {
+        remove(tokenHash);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(tokenHash);
+                }
+            });
+        }
+    }
+
+    private void remove(String tokenHash) {
+        synchronized (entries) {
+            entries.remove(tokenHash);
+            generation++;
+        }
+    }
+}
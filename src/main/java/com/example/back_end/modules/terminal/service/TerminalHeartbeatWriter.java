@@ -0,0 +1,62 @@
+package com.example.back_end.modules.terminal.service;
+
+import com.example.back_end.modules.terminal.repository.TerminalHeartbeatRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces terminal heartbeats: requests only record "device seen now" in memory, and the latest
+ * time per device is written to terminal_devices.last_seen_at in one batched UPDATE every
+ * pos.terminal.heartbeat.flush-interval. last_seen_at therefore lags by at most one interval.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TerminalHeartbeatWriter {
+
+    private final TerminalHeartbeatRepository heartbeatRepository;
+
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void recordHeartbeat(Long deviceId) {
+        pending.put(deviceId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${pos.terminal.heartbeat.flush-interval:PT5S}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, LocalDateTime> batch = new HashMap<>();
+        Iterator<Map.Entry<Long, LocalDateTime>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, LocalDateTime> e = it.next();
+            // a heartbeat recorded meanwhile replaces the value and stays for the next flush
+            if (pending.remove(e.getKey(), e.getValue())) {
+                batch.put(e.getKey(), e.getValue());
+            }
+        }
+        try {
+            heartbeatRepository.touchLastSeen(batch);
+        } catch (RuntimeException ex) {
+            // not critical: put them back unless a newer heartbeat arrived
+            batch.forEach((deviceId, seenAt) -> pending.merge(deviceId, seenAt,
+                    (current, failed) -> current.isAfter(failed) ? current : failed));
+            log.debug("Failed to write {} terminal heartbeat(s): {}", batch.size(), ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -37,6 +37,8 @@ public class TerminalPairingService {
     private final TerminalPairingCodeRepository pairingCodeRepository;
     private final SessionRepository sessionRepository;
     private final SessionLifecycleService sessionLifecycleService;
+    private final TerminalDeviceCache terminalDeviceCache;
+    private final TerminalHeartbeatWriter heartbeatWriter;
 
     private static final Double DEFAULT_OPENING_FLOAT = 2000.0;
 
@@ -92,6 +94,7 @@ public class TerminalPairingService {
                 existingDevice.setRevokedAt(LocalDateTime.now());
                 terminalDeviceRepository.save(existingDevice);
                 terminalDeviceRepository.flush();
+                terminalDeviceCache.evict(existingDevice.getTokenHash());
             }
         }
 
@@ -115,6 +118,7 @@ public class TerminalPairingService {
                 .build();
 
         terminalDeviceRepository.save(newDevice);
+        terminalDeviceCache.evict(browserTokenHash);
 
         // Mark pairing code as used
         pairingCode.setUsedAt(LocalDateTime.now());
@@ -155,6 +159,7 @@ public class TerminalPairingService {
 
         currentDevice.setRevokedAt(LocalDateTime.now());
         terminalDeviceRepository.save(currentDevice);
+        terminalDeviceCache.evict(browserTokenHash);
 
         // 2. Perform new pairing
         PairingRequestDTO pairingRequest = PairingRequestDTO.builder()
@@ -181,6 +186,7 @@ public class TerminalPairingService {
         // ✅ Soft delete (revoke)
         device.setRevokedAt(LocalDateTime.now());
         terminalDeviceRepository.save(device);
+        terminalDeviceCache.evict(browserTokenHash);
 
         log.info("Successfully unpaired browser from terminal {}", terminalId);
     }
@@ -296,12 +302,8 @@ public class TerminalPairingService {
      * Update device last seen timestamp
      * @param browserTokenHash Hashed browser token
      */
-    @Transactional
     public void updateDeviceLastSeen(String browserTokenHash) {
-        terminalDeviceRepository.findByTokenHashAndRevokedAtIsNull(browserTokenHash)
-                .ifPresent(device -> {
-                    device.updateLastSeen();
-                    terminalDeviceRepository.save(device);
-                });
+        terminalDeviceCache.findActive(browserTokenHash)
+                .ifPresent(device -> heartbeatWriter.recordHeartbeat(device.deviceId()));
     }
 }
\ No newline at end of file
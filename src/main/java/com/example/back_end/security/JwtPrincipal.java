@@ -0,0 +1,23 @@
+package com.example.back_end.security;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Authenticated caller as read from a verified JWT; set as the principal by {@link JwtAuthenticationFilter}.
+ * {@link #getName()} is the email, so {@code authentication.getName()} keeps returning it.
+ *
+ * @param userId null for tokens issued without a userId claim
+ */
+public record JwtPrincipal(String email, String role, Long userId, Instant expiresAt) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
@@ -1,25 +1,58 @@
 package com.example.back_end.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Issues and verifies the HS256 tokens of the app.
+ *
+ * The signing key and the parser are built once. {@link #authenticate(String)} verifies a token
+ * once and keeps the result in a small LRU of verified tokens (keyed by the SHA-256 of the token,
+ * dropped at the token's exp), so a client sending the same bearer token on every request
+ * is not re-verified each time.
+ */
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
-    private String secretKey;
-
-    @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
-    private Long jwtExpiration;
+    private final Long jwtExpiration;
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    // token hash -> principal, LRU; guarded by itself
+    private final Map<String, JwtPrincipal> verified;
+
+    public JwtService(
+            @Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}") String secretKey,
+            @Value("${jwt.expiration:86400000}") Long jwtExpiration, // 24 hours in milliseconds
+            @Value("${jwt.verified-cache.max-entries:10000}") int verifiedCacheMaxEntries) {
+        this.jwtExpiration = jwtExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+                return size() > verifiedCacheMaxEntries;
+            }
+        };
+    }
 
     // ✅ Updated - now accepts userId
     public String generateToken(String email, String role, Long userId) {
@@ -64,60 +97,95 @@ public String generateToken(String email, String role, Integer userId) {
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
+    /**
+     * Verify a token (signature and exp) and read its caller, parsing it at most once
+     * while it stays in the verified cache.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public JwtPrincipal authenticate(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            JwtPrincipal cached = verified.get(key);
+            if (cached != null) {
+                if (cached.expiresAt().toEpochMilli() > now) {
+                    return cached;
+                }
+                verified.remove(key);
+            }
+        }
 
-    public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
+        Claims claims = extractAllClaims(token);
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            // never cached: without exp there is nothing to expire the entry by
+            return new JwtPrincipal(claims.getSubject(), claims.get("role", String.class),
+                    toUserId(claims.get("userId")), null);
+        }
+        JwtPrincipal principal = new JwtPrincipal(claims.getSubject(), claims.get("role", String.class),
+                toUserId(claims.get("userId")), expiration.toInstant());
+        synchronized (verified) {
+            verified.put(key, principal);
+        }
+        return principal;
     }
 
-    public String extractRole(String token) {
-        return extractAllClaims(token).get("role", String.class);
+    /**
+     * Drop verified tokens past their exp (the LRU bound only removes the least recently used)
+     */
+    @Scheduled(fixedDelayString = "${jwt.verified-cache.evict-interval:PT10M}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            Iterator<JwtPrincipal> it = verified.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expiresAt().toEpochMilli() <= now) {
+                    it.remove();
+                }
+            }
+        }
     }
 
-    // ✅ NEW - Extract userId from token
-    public Long extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        Object userIdObj = claims.get("userId");
-
-        if (userIdObj == null) {
-            return null;
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
+    }
 
-        // Handle both Integer and Long
-        if (userIdObj instanceof Integer) {
-            return ((Integer) userIdObj).longValue();
-        } else if (userIdObj instanceof Long) {
-            return (Long) userIdObj;
-        }
+    private static Long toUserId(Object userIdObj) {
+        return userIdObj instanceof Number n ? n.longValue() : null;
+    }
 
-        return null;
+    public String extractUsername(String token) {
+        return authenticate(token).email();
     }
 
-    public boolean isTokenValid(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+    public String extractRole(String token) {
+        return authenticate(token).role();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // ✅ NEW - Extract userId from token
+    public Long extractUserId(String token) {
+        return authenticate(token).userId();
     }
 
-    private Date extractExpiration(String token) {
-        return extractAllClaims(token).getExpiration();
+    public boolean isTokenValid(String token, String username) {
+        try {
+            return authenticate(token).email().equals(username);
+        } catch (ExpiredJwtException e) {
+            return false;
+        }
     }
 
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 }
\ No newline at end of file
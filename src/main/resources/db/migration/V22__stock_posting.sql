@@ -0,0 +1,29 @@
+-- =========================================================
+-- V22__stock_posting.sql
+-- Asynchronous SALE/RETURN stock posting
+--
+-- - orders.stock_posted_at marks an order whose inventory movements and
+--   stock_snapshot deltas have been written (set in the same transaction)
+-- - Existing orders are marked as posted so only new sales/returns are posted
+-- - One SALE/RETURN movement per (order, product, location) to keep posting idempotent
+-- =========================================================
+
+ALTER TABLE public.orders
+    ADD COLUMN IF NOT EXISTS stock_posted_at TIMESTAMP;
+
+UPDATE public.orders
+SET stock_posted_at = COALESCE(paid_at, created_at, now())
+WHERE stock_posted_at IS NULL
+  AND status IN ('PAID', 'RETURNED', 'PARTIALLY_RETURNED');
+
+-- Catch-up sweep: finished orders that are not posted yet
+CREATE INDEX IF NOT EXISTS ix_orders_stock_unposted
+    ON public.orders(id)
+    WHERE stock_posted_at IS NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_inventory_movements_order_posting
+    ON public.inventory_movements(ref_type, ref_id, product_id, location_type)
+    WHERE ref_type IN ('SALE', 'RETURN') AND ref_id IS NOT NULL;
+
+COMMENT ON COLUMN public.orders.stock_posted_at IS
+    'When SALE (paid order) or RETURN (return order) inventory movements were posted; NULL = not posted yet';
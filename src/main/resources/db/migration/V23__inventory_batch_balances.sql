@@ -0,0 +1,57 @@
+-- =========================================================
+-- V23__inventory_batch_balances.sql
+-- Per-batch remaining quantities, maintained with every batch link
+--
+-- remaining_qty       = in the warehouse: PURCHASE (+ warehouse TRANSFER in) - WASTED - warehouse TRANSFER out
+-- store_remaining_qty = in the store:     warehouse TRANSFER out - SALE + RETURN
+--
+-- FIFO allocation reads these columns directly (earliest expiration first)
+-- instead of summing inventory_movement_batches for every batch.
+-- =========================================================
+
+ALTER TABLE public.inventory_batches
+    ADD COLUMN IF NOT EXISTS remaining_qty NUMERIC(10,2) NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS store_remaining_qty NUMERIC(10,2) NOT NULL DEFAULT 0;
+
+-- Backfill from the existing movement-batch links
+UPDATE public.inventory_batches ib
+SET remaining_qty = GREATEST(t.warehouse_qty, 0),
+    store_remaining_qty = GREATEST(t.store_qty, 0)
+FROM (
+    SELECT imb.batch_id,
+           SUM(CASE
+                   WHEN im.ref_type = 'PURCHASE' THEN imb.qty
+                   WHEN im.ref_type = 'TRANSFER' AND im.location_type = 'WAREHOUSE' AND im.qty_change > 0 THEN imb.qty
+                   WHEN im.ref_type = 'TRANSFER' AND im.location_type = 'WAREHOUSE' AND im.qty_change < 0 THEN -imb.qty
+                   WHEN im.ref_type = 'WASTED' THEN -imb.qty
+                   ELSE 0
+               END) AS warehouse_qty,
+           SUM(CASE
+                   WHEN im.ref_type = 'TRANSFER' AND im.location_type = 'WAREHOUSE' AND im.qty_change < 0 THEN imb.qty
+                   WHEN im.ref_type = 'SALE' THEN -imb.qty
+                   WHEN im.ref_type = 'RETURN' THEN imb.qty
+                   ELSE 0
+               END) AS store_qty
+    FROM public.inventory_movement_batches imb
+    JOIN public.inventory_movements im ON im.id = imb.inventory_movement_id
+    GROUP BY imb.batch_id
+) t
+WHERE t.batch_id = ib.id;
+
+ALTER TABLE public.inventory_batches
+    ADD CONSTRAINT chk_inventory_batches_remaining_qty CHECK (remaining_qty >= 0),
+    ADD CONSTRAINT chk_inventory_batches_store_remaining_qty CHECK (store_remaining_qty >= 0);
+
+-- FIFO lookups only touch batches that still hold stock
+CREATE INDEX IF NOT EXISTS ix_inventory_batches_fifo_warehouse
+    ON public.inventory_batches(product_id, expiration_date, id)
+    WHERE remaining_qty > 0;
+
+CREATE INDEX IF NOT EXISTS ix_inventory_batches_fifo_store
+    ON public.inventory_batches(product_id, expiration_date, id)
+    WHERE store_remaining_qty > 0;
+
+COMMENT ON COLUMN public.inventory_batches.remaining_qty IS
+    'Quantity of this batch still in the warehouse (updated with every PURCHASE/TRANSFER/WASTED link)';
+COMMENT ON COLUMN public.inventory_batches.store_remaining_qty IS
+    'Quantity of this batch in the store (updated with every TRANSFER/SALE/RETURN link)';
@@ -0,0 +1,41 @@
+-- =========================================================
+-- V24__forecast_jobs.sql
+-- Asynchronous batch forecast jobs with per-product checkpoints
+--
+-- A job lists its eligible products in forecast_job_items when it starts.
+-- Each item is updated as soon as its forecast is stored, so a job that is
+-- resumed (after a crash or restart) only runs the items not marked SUCCESS.
+-- =========================================================
+
+CREATE TABLE IF NOT EXISTS public.forecast_jobs (
+    id              BIGSERIAL PRIMARY KEY,
+    status          VARCHAR(20) NOT NULL DEFAULT 'PENDING',  -- PENDING / RUNNING / COMPLETED / FAILED
+    horizon_days    INT NOT NULL,
+    from_date       DATE NOT NULL,
+    to_date         DATE NOT NULL,
+    min_points      INT NOT NULL,
+    total_products  INT NOT NULL DEFAULT 0,
+    success_count   INT NOT NULL DEFAULT 0,
+    skipped_count   INT NOT NULL DEFAULT 0,
+    error_count     INT NOT NULL DEFAULT 0,
+    error_message   TEXT,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT now(),
+    started_at      TIMESTAMPTZ,
+    finished_at     TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS ix_forecast_jobs_status
+    ON public.forecast_jobs(status);
+
+CREATE TABLE IF NOT EXISTS public.forecast_job_items (
+    job_id          BIGINT NOT NULL REFERENCES public.forecast_jobs(id) ON DELETE CASCADE,
+    product_id      BIGINT NOT NULL,
+    status          VARCHAR(30) NOT NULL DEFAULT 'PENDING',  -- PENDING / SUCCESS / SKIPPED_* / ERROR
+    message         TEXT,
+    forecast_points INT,
+    updated_at      TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (job_id, product_id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_forecast_job_items_job_status
+    ON public.forecast_job_items(job_id, status);
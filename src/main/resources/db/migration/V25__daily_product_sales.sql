@@ -0,0 +1,111 @@
+-- =========================================================
+-- V25__daily_product_sales.sql
+-- Daily product sales fact table (same columns as v_daily_product_sales_with_offers)
+--
+-- - compute_daily_product_sales(from, to): the view's aggregation limited to orders
+--   paid in [from, to], so a single day / order can be recomputed cheaply
+-- - daily_product_sales is refreshed per order when its stock is posted (sale / return)
+--   and can be rebuilt for any date range
+-- - Filled here from the view for the existing history
+-- =========================================================
+
+CREATE TABLE IF NOT EXISTS public.daily_product_sales (
+    sales_date          date    NOT NULL,
+    product_id          bigint  NOT NULL,
+    total_qty_sold      numeric NOT NULL,
+    total_revenue       numeric NOT NULL,
+    avg_unit_price      numeric,
+    orders_count        bigint  NOT NULL,
+    promo_product_flag  integer NOT NULL,
+    promo_category_flag integer NOT NULL,
+    promo_order_flag    integer NOT NULL,
+    promo_bundle_flag   integer NOT NULL,
+    promo_any_flag      integer NOT NULL,
+    avg_discount_pct    numeric NOT NULL,
+    updated_at          timestamp without time zone NOT NULL DEFAULT now(),
+
+    CONSTRAINT daily_product_sales_pkey
+        PRIMARY KEY (product_id, sales_date)
+);
+
+CREATE INDEX IF NOT EXISTS ix_daily_product_sales_date
+    ON public.daily_product_sales(sales_date);
+
+CREATE OR REPLACE FUNCTION public.compute_daily_product_sales(p_from date, p_to date)
+RETURNS TABLE (
+    sales_date          date,
+    product_id          bigint,
+    total_qty_sold      numeric,
+    total_revenue       numeric,
+    avg_unit_price      numeric,
+    orders_count        bigint,
+    promo_product_flag  integer,
+    promo_category_flag integer,
+    promo_order_flag    integer,
+    promo_bundle_flag   integer,
+    promo_any_flag      integer,
+    avg_discount_pct    numeric
+)
+LANGUAGE sql STABLE AS $$
+WITH order_lines AS (
+    SELECT
+        DATE(o.paid_at)               AS sales_date,
+        o.id                          AS order_id,
+        oi.product_id,
+        oi.quantity,
+        oi.unit_price,
+        oi.line_discount,
+        (oi.unit_price * oi.quantity) AS line_gross,
+        oi.line_total,
+        o.discount_total,
+        of_line.offer_type            AS line_offer_type
+    FROM public.orders o
+    JOIN public.order_items oi
+        ON oi.order_id = o.id
+    LEFT JOIN public.offers of_line
+        ON of_line.id = oi.offer_id
+    WHERE o.status = 'PAID'
+      AND o.paid_at >= p_from
+      AND o.paid_at < p_to + 1
+),
+order_lines_with_dist AS (
+    SELECT
+        ol.*,
+        CASE
+            WHEN SUM(ol.line_gross) OVER (PARTITION BY ol.order_id) > 0
+            THEN ol.discount_total
+                 * (ol.line_gross / SUM(ol.line_gross) OVER (PARTITION BY ol.order_id))
+            ELSE 0
+        END AS dist_order_discount
+    FROM order_lines ol
+)
+SELECT
+    sales_date,
+    product_id,
+    SUM(quantity),
+    SUM(line_total),
+    AVG(unit_price),
+    COUNT(DISTINCT order_id),
+    MAX(CASE WHEN line_offer_type = 'PRODUCT' THEN 1 ELSE 0 END),
+    MAX(CASE WHEN line_offer_type = 'CATEGORY' THEN 1 ELSE 0 END),
+    MAX(CASE WHEN line_offer_type = 'ORDER' OR discount_total > 0 THEN 1 ELSE 0 END),
+    MAX(CASE WHEN line_offer_type = 'BUNDLE' THEN 1 ELSE 0 END),
+    MAX(CASE WHEN line_offer_type IN ('PRODUCT', 'CATEGORY', 'BUNDLE') OR discount_total > 0 THEN 1 ELSE 0 END),
+    CASE
+        WHEN SUM(line_gross) > 0
+        THEN SUM(line_discount + dist_order_discount) / SUM(line_gross)
+        ELSE 0
+    END
+FROM order_lines_with_dist
+GROUP BY sales_date, product_id
+$$;
+
+INSERT INTO public.daily_product_sales
+    (sales_date, product_id, total_qty_sold, total_revenue, avg_unit_price, orders_count,
+     promo_product_flag, promo_category_flag, promo_order_flag, promo_bundle_flag,
+     promo_any_flag, avg_discount_pct)
+SELECT sales_date, product_id, total_qty_sold, total_revenue, avg_unit_price, orders_count,
+       promo_product_flag, promo_category_flag, promo_order_flag, promo_bundle_flag,
+       promo_any_flag, avg_discount_pct
+FROM public.v_daily_product_sales_with_offers
+ON CONFLICT (product_id, sales_date) DO NOTHING;
@@ -0,0 +1,197 @@
+-- =========================================================
+-- V26__hourly_sales_rollups.sql
+-- Hourly rollups behind the store / inventory dashboards
+--
+-- - sales_hourly:              PAID orders per hour (count, grand_total)
+-- - sales_product_hourly:      PAID order lines per hour and product
+-- - inventory_movement_hourly: movements per hour, product, location_type and ref_type
+--   (product_id = 0 for movements without a product)
+--
+-- Maintained by triggers in the writing transaction:
+-- - orders: an order entering PAID adds its totals, leaving PAID (return) subtracts them
+-- - inventory_movements: statement-level triggers add / subtract the inserted / deleted rows
+-- Category figures are read by joining product_categories to the product rollups.
+-- =========================================================
+
+CREATE TABLE IF NOT EXISTS public.sales_hourly (
+    bucket_start  timestamp without time zone PRIMARY KEY,
+    orders_count  bigint  NOT NULL,
+    grand_total   numeric NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS public.sales_product_hourly (
+    bucket_start  timestamp without time zone NOT NULL,
+    product_id    bigint  NOT NULL,
+    orders_count  bigint  NOT NULL,
+    qty_sold      numeric NOT NULL,
+    revenue       numeric NOT NULL,
+
+    CONSTRAINT sales_product_hourly_pkey
+        PRIMARY KEY (bucket_start, product_id)
+);
+
+CREATE TABLE IF NOT EXISTS public.inventory_movement_hourly (
+    bucket_start     timestamp without time zone NOT NULL,
+    product_id       bigint      NOT NULL,
+    location_type    varchar(20) NOT NULL,
+    ref_type         varchar(20) NOT NULL,
+    qty_in           numeric NOT NULL,
+    qty_out          numeric NOT NULL,
+    movements_count  bigint  NOT NULL,
+
+    CONSTRAINT inventory_movement_hourly_pkey
+        PRIMARY KEY (bucket_start, product_id, location_type, ref_type)
+);
+
+-- Recent movements list still reads the raw table
+CREATE INDEX IF NOT EXISTS ix_inventory_movements_moved_at
+    ON public.inventory_movements(moved_at DESC);
+
+
+-- -----------------------------------------------------------------
+-- 1) orders -> sales rollups
+-- -----------------------------------------------------------------
+CREATE OR REPLACE FUNCTION public.apply_order_sales_rollup(p_order_id bigint,
+                                                           p_paid_at timestamp,
+                                                           p_grand_total numeric,
+                                                           p_sign integer)
+RETURNS void AS $$
+DECLARE
+    v_bucket timestamp := date_trunc('hour', p_paid_at);
+BEGIN
+    INSERT INTO public.sales_hourly AS s (bucket_start, orders_count, grand_total)
+    VALUES (v_bucket, p_sign, p_sign * COALESCE(p_grand_total, 0))
+    ON CONFLICT (bucket_start) DO UPDATE SET
+        orders_count = s.orders_count + EXCLUDED.orders_count,
+        grand_total  = s.grand_total + EXCLUDED.grand_total;
+
+    INSERT INTO public.sales_product_hourly AS s (bucket_start, product_id, orders_count, qty_sold, revenue)
+    SELECT v_bucket, oi.product_id, p_sign, p_sign * SUM(oi.quantity), p_sign * SUM(oi.line_total)
+    FROM public.order_items oi
+    WHERE oi.order_id = p_order_id
+    GROUP BY oi.product_id
+    ON CONFLICT (bucket_start, product_id) DO UPDATE SET
+        orders_count = s.orders_count + EXCLUDED.orders_count,
+        qty_sold     = s.qty_sold + EXCLUDED.qty_sold,
+        revenue      = s.revenue + EXCLUDED.revenue;
+
+    IF p_sign < 0 THEN
+        DELETE FROM public.sales_hourly WHERE bucket_start = v_bucket AND orders_count <= 0;
+        DELETE FROM public.sales_product_hourly WHERE bucket_start = v_bucket AND orders_count <= 0;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION public.trg_orders_sales_rollup()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        IF OLD.status IS NOT DISTINCT FROM NEW.status
+           AND OLD.paid_at IS NOT DISTINCT FROM NEW.paid_at
+           AND OLD.grand_total IS NOT DISTINCT FROM NEW.grand_total THEN
+            RETURN NULL;
+        END IF;
+        IF OLD.status = 'PAID' AND OLD.paid_at IS NOT NULL THEN
+            PERFORM public.apply_order_sales_rollup(OLD.id, OLD.paid_at, OLD.grand_total, -1);
+        END IF;
+    END IF;
+
+    IF NEW.status = 'PAID' AND NEW.paid_at IS NOT NULL THEN
+        PERFORM public.apply_order_sales_rollup(NEW.id, NEW.paid_at, NEW.grand_total, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_orders_sales_rollup ON public.orders;
+CREATE TRIGGER trg_orders_sales_rollup
+AFTER INSERT OR UPDATE OF status, paid_at, grand_total ON public.orders
+FOR EACH ROW EXECUTE FUNCTION public.trg_orders_sales_rollup();
+
+
+-- -----------------------------------------------------------------
+-- 2) inventory_movements -> movement rollup (one upsert per statement)
+-- -----------------------------------------------------------------
+CREATE OR REPLACE FUNCTION public.trg_inventory_movements_rollup()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        INSERT INTO public.inventory_movement_hourly AS h
+            (bucket_start, product_id, location_type, ref_type, qty_in, qty_out, movements_count)
+        SELECT date_trunc('hour', COALESCE(moved_at, now())), COALESCE(product_id, 0), location_type, ref_type,
+               -SUM(GREATEST(qty_change, 0)), -SUM(GREATEST(-qty_change, 0)), -COUNT(*)
+        FROM old_rows
+        GROUP BY 1, 2, 3, 4
+        ON CONFLICT (bucket_start, product_id, location_type, ref_type) DO UPDATE SET
+            qty_in          = h.qty_in + EXCLUDED.qty_in,
+            qty_out         = h.qty_out + EXCLUDED.qty_out,
+            movements_count = h.movements_count + EXCLUDED.movements_count;
+
+        DELETE FROM public.inventory_movement_hourly h
+        USING (SELECT DISTINCT date_trunc('hour', COALESCE(moved_at, now())) AS bucket_start FROM old_rows) b
+        WHERE h.bucket_start = b.bucket_start
+          AND h.movements_count <= 0;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO public.inventory_movement_hourly AS h
+            (bucket_start, product_id, location_type, ref_type, qty_in, qty_out, movements_count)
+        SELECT date_trunc('hour', COALESCE(moved_at, now())), COALESCE(product_id, 0), location_type, ref_type,
+               SUM(GREATEST(qty_change, 0)), SUM(GREATEST(-qty_change, 0)), COUNT(*)
+        FROM new_rows
+        GROUP BY 1, 2, 3, 4
+        ON CONFLICT (bucket_start, product_id, location_type, ref_type) DO UPDATE SET
+            qty_in          = h.qty_in + EXCLUDED.qty_in,
+            qty_out         = h.qty_out + EXCLUDED.qty_out,
+            movements_count = h.movements_count + EXCLUDED.movements_count;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_inventory_movements_rollup_ins ON public.inventory_movements;
+CREATE TRIGGER trg_inventory_movements_rollup_ins
+AFTER INSERT ON public.inventory_movements
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION public.trg_inventory_movements_rollup();
+
+DROP TRIGGER IF EXISTS trg_inventory_movements_rollup_upd ON public.inventory_movements;
+CREATE TRIGGER trg_inventory_movements_rollup_upd
+AFTER UPDATE ON public.inventory_movements
+REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION public.trg_inventory_movements_rollup();
+
+DROP TRIGGER IF EXISTS trg_inventory_movements_rollup_del ON public.inventory_movements;
+CREATE TRIGGER trg_inventory_movements_rollup_del
+AFTER DELETE ON public.inventory_movements
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION public.trg_inventory_movements_rollup();
+
+
+-- -----------------------------------------------------------------
+-- 3) Backfill from existing orders / movements
+-- -----------------------------------------------------------------
+INSERT INTO public.sales_hourly (bucket_start, orders_count, grand_total)
+SELECT date_trunc('hour', paid_at), COUNT(*), COALESCE(SUM(grand_total), 0)
+FROM public.orders
+WHERE status = 'PAID'
+  AND paid_at IS NOT NULL
+GROUP BY 1
+ON CONFLICT (bucket_start) DO NOTHING;
+
+INSERT INTO public.sales_product_hourly (bucket_start, product_id, orders_count, qty_sold, revenue)
+SELECT date_trunc('hour', o.paid_at), oi.product_id, COUNT(DISTINCT o.id), SUM(oi.quantity), SUM(oi.line_total)
+FROM public.orders o
+JOIN public.order_items oi ON oi.order_id = o.id
+WHERE o.status = 'PAID'
+  AND o.paid_at IS NOT NULL
+GROUP BY 1, 2
+ON CONFLICT (bucket_start, product_id) DO NOTHING;
+
+INSERT INTO public.inventory_movement_hourly
+    (bucket_start, product_id, location_type, ref_type, qty_in, qty_out, movements_count)
+SELECT date_trunc('hour', COALESCE(moved_at, now())), COALESCE(product_id, 0), location_type, ref_type,
+       SUM(GREATEST(qty_change, 0)), SUM(GREATEST(-qty_change, 0)), COUNT(*)
+FROM public.inventory_movements
+GROUP BY 1, 2, 3, 4
+ON CONFLICT (bucket_start, product_id, location_type, ref_type) DO NOTHING;
@@ -0,0 +1,88 @@
+-- =========================================================
+-- V27__product_search_documents.sql
+-- One search document per product: name + SKU + all search terms
+--
+-- - Replaces the per-product MAX(similarity()) / EXISTS subqueries over product_search_terms
+--   with a single trigram-indexed column
+-- - Kept in sync by triggers on products (name, sku) and product_search_terms
+-- - Filled here for existing products
+-- =========================================================
+
+CREATE TABLE IF NOT EXISTS public.product_search_documents (
+    product_id  bigint PRIMARY KEY,
+    document    text   NOT NULL,
+    updated_at  timestamp without time zone NOT NULL DEFAULT now(),
+
+    CONSTRAINT fk_product_search_documents_product
+        FOREIGN KEY (product_id)
+        REFERENCES public.products(id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_search_documents_trgm
+    ON public.product_search_documents USING gin (document gin_trgm_ops);
+
+
+CREATE OR REPLACE FUNCTION public.refresh_product_search_document(p_product_id bigint)
+RETURNS void AS $$
+BEGIN
+    INSERT INTO public.product_search_documents AS d (product_id, document, updated_at)
+    SELECT p.id,
+           concat_ws(' ', p.name, p.sku,
+                     (SELECT string_agg(pst.term, ' ' ORDER BY pst.id)
+                      FROM public.product_search_terms pst
+                      WHERE pst.product_id = p.id)),
+           now()
+    FROM public.products p
+    WHERE p.id = p_product_id
+    ON CONFLICT (product_id) DO UPDATE SET
+        document   = EXCLUDED.document,
+        updated_at = EXCLUDED.updated_at;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION public.trg_products_search_document()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+       AND OLD.name IS NOT DISTINCT FROM NEW.name
+       AND OLD.sku IS NOT DISTINCT FROM NEW.sku THEN
+        RETURN NULL;
+    END IF;
+    PERFORM public.refresh_product_search_document(NEW.id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_products_search_document ON public.products;
+CREATE TRIGGER trg_products_search_document
+AFTER INSERT OR UPDATE OF name, sku ON public.products
+FOR EACH ROW EXECUTE FUNCTION public.trg_products_search_document();
+
+CREATE OR REPLACE FUNCTION public.trg_product_search_terms_document()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM public.refresh_product_search_document(OLD.product_id);
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.product_id <> OLD.product_id) THEN
+        PERFORM public.refresh_product_search_document(NEW.product_id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_product_search_terms_document ON public.product_search_terms;
+CREATE TRIGGER trg_product_search_terms_document
+AFTER INSERT OR UPDATE OR DELETE ON public.product_search_terms
+FOR EACH ROW EXECUTE FUNCTION public.trg_product_search_terms_document();
+
+
+INSERT INTO public.product_search_documents (product_id, document)
+SELECT p.id,
+       concat_ws(' ', p.name, p.sku,
+                 (SELECT string_agg(pst.term, ' ' ORDER BY pst.id)
+                  FROM public.product_search_terms pst
+                  WHERE pst.product_id = p.id))
+FROM public.products p
+ON CONFLICT (product_id) DO NOTHING;
@@ -0,0 +1,190 @@
+-- =========================================================
+-- V28__catalog_changes.sql
+-- Change sequence behind the POS catalog feed (GET /api/products/catalog?since=)
+--
+-- - catalog_changes: latest version per PRODUCT / OFFER, from catalog_change_seq
+-- - PRODUCT is touched by products (name, sku, price, tax, unit, active), product_categories,
+--   product_media and stock_snapshot when the store in-stock flag flips
+-- - OFFER is touched by offers, offer_products, offer_categories, offer_bundles, order_offers
+--
+-- The triggers are deferred to commit and take a transaction-scoped advisory lock before
+-- drawing a version, so versions become visible in commit order: a terminal that has seen
+-- version N never misses a change numbered below N that commits later.
+-- =========================================================
+
+CREATE SEQUENCE IF NOT EXISTS public.catalog_change_seq;
+
+CREATE TABLE IF NOT EXISTS public.catalog_changes (
+    entity_type  varchar(10) NOT NULL,
+    entity_id    bigint      NOT NULL,
+    version      bigint      NOT NULL,
+
+    CONSTRAINT catalog_changes_pkey
+        PRIMARY KEY (entity_type, entity_id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_catalog_changes_version
+    ON public.catalog_changes(version);
+
+CREATE OR REPLACE FUNCTION public.touch_catalog_change(p_type varchar, p_id bigint)
+RETURNS void AS $$
+BEGIN
+    IF p_id IS NULL THEN
+        RETURN;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtext('catalog_changes'));
+    INSERT INTO public.catalog_changes (entity_type, entity_id, version)
+    VALUES (p_type, p_id, nextval('public.catalog_change_seq'))
+    ON CONFLICT (entity_type, entity_id) DO UPDATE SET
+        version = EXCLUDED.version;
+END;
+$$ LANGUAGE plpgsql;
+
+
+-- -----------------------------------------------------------------
+-- 1) products
+-- -----------------------------------------------------------------
+CREATE OR REPLACE FUNCTION public.trg_catalog_product_change()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM public.touch_catalog_change('PRODUCT', OLD.product_id);
+    ELSE
+        PERFORM public.touch_catalog_change('PRODUCT', NEW.product_id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- products has no product_id column
+CREATE OR REPLACE FUNCTION public.trg_catalog_products_change()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM public.touch_catalog_change('PRODUCT', OLD.id);
+    ELSE
+        PERFORM public.touch_catalog_change('PRODUCT', NEW.id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_catalog_products_ins_del ON public.products;
+CREATE CONSTRAINT TRIGGER trg_catalog_products_ins_del
+AFTER INSERT OR DELETE ON public.products
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW EXECUTE FUNCTION public.trg_catalog_products_change();
+
+DROP TRIGGER IF EXISTS trg_catalog_products_upd ON public.products;
+CREATE CONSTRAINT TRIGGER trg_catalog_products_upd
+AFTER UPDATE ON public.products
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW
+WHEN (OLD.name IS DISTINCT FROM NEW.name
+      OR OLD.sku IS DISTINCT FROM NEW.sku
+      OR OLD.default_price IS DISTINCT FROM NEW.default_price
+      OR OLD.tax_rate IS DISTINCT FROM NEW.tax_rate
+      OR OLD.unit IS DISTINCT FROM NEW.unit
+      OR OLD.is_active IS DISTINCT FROM NEW.is_active)
+EXECUTE FUNCTION public.trg_catalog_products_change();
+
+DROP TRIGGER IF EXISTS trg_catalog_product_categories ON public.product_categories;
+CREATE CONSTRAINT TRIGGER trg_catalog_product_categories
+AFTER INSERT OR UPDATE OR DELETE ON public.product_categories
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW EXECUTE FUNCTION public.trg_catalog_product_change();
+
+DROP TRIGGER IF EXISTS trg_catalog_product_media ON public.product_media;
+CREATE CONSTRAINT TRIGGER trg_catalog_product_media
+AFTER INSERT OR UPDATE OR DELETE ON public.product_media
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW EXECUTE FUNCTION public.trg_catalog_product_change();
+
+DROP TRIGGER IF EXISTS trg_catalog_stock_ins_del ON public.stock_snapshot;
+CREATE CONSTRAINT TRIGGER trg_catalog_stock_ins_del
+AFTER INSERT OR DELETE ON public.stock_snapshot
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW EXECUTE FUNCTION public.trg_catalog_product_change();
+
+DROP TRIGGER IF EXISTS trg_catalog_stock_upd ON public.stock_snapshot;
+CREATE CONSTRAINT TRIGGER trg_catalog_stock_upd
+AFTER UPDATE ON public.stock_snapshot
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW
+WHEN ((COALESCE(OLD.store_qty, 0) > 0) IS DISTINCT FROM (COALESCE(NEW.store_qty, 0) > 0))
+EXECUTE FUNCTION public.trg_catalog_product_change();
+
+
+-- -----------------------------------------------------------------
+-- 2) offers
+-- -----------------------------------------------------------------
+CREATE OR REPLACE FUNCTION public.trg_catalog_offers_change()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM public.touch_catalog_change('OFFER', OLD.id);
+    ELSE
+        PERFORM public.touch_catalog_change('OFFER', NEW.id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION public.trg_catalog_offer_part_change()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM public.touch_catalog_change('OFFER', OLD.offer_id);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM public.touch_catalog_change('OFFER', NEW.offer_id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_catalog_offers ON public.offers;
+CREATE CONSTRAINT TRIGGER trg_catalog_offers
+AFTER INSERT OR UPDATE OR DELETE ON public.offers
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW EXECUTE FUNCTION public.trg_catalog_offers_change();
+
+DROP TRIGGER IF EXISTS trg_catalog_offer_products ON public.offer_products;
+CREATE CONSTRAINT TRIGGER trg_catalog_offer_products
+AFTER INSERT OR UPDATE OR DELETE ON public.offer_products
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW EXECUTE FUNCTION public.trg_catalog_offer_part_change();
+
+DROP TRIGGER IF EXISTS trg_catalog_offer_categories ON public.offer_categories;
+CREATE CONSTRAINT TRIGGER trg_catalog_offer_categories
+AFTER INSERT OR UPDATE OR DELETE ON public.offer_categories
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW EXECUTE FUNCTION public.trg_catalog_offer_part_change();
+
+DROP TRIGGER IF EXISTS trg_catalog_offer_bundles ON public.offer_bundles;
+CREATE CONSTRAINT TRIGGER trg_catalog_offer_bundles
+AFTER INSERT OR UPDATE OR DELETE ON public.offer_bundles
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW EXECUTE FUNCTION public.trg_catalog_offer_part_change();
+
+DROP TRIGGER IF EXISTS trg_catalog_order_offers ON public.order_offers;
+CREATE CONSTRAINT TRIGGER trg_catalog_order_offers
+AFTER INSERT OR UPDATE OR DELETE ON public.order_offers
+DEFERRABLE INITIALLY DEFERRED
+FOR EACH ROW EXECUTE FUNCTION public.trg_catalog_offer_part_change();
+
+
+-- -----------------------------------------------------------------
+-- 3) Existing catalog starts at the first versions
+-- -----------------------------------------------------------------
+INSERT INTO public.catalog_changes (entity_type, entity_id, version)
+SELECT 'PRODUCT', p.id, nextval('public.catalog_change_seq')
+FROM public.products p
+ORDER BY p.id
+ON CONFLICT (entity_type, entity_id) DO NOTHING;
+
+INSERT INTO public.catalog_changes (entity_type, entity_id, version)
+SELECT 'OFFER', o.id, nextval('public.catalog_change_seq')
+FROM public.offers o
+ORDER BY o.id
+ON CONFLICT (entity_type, entity_id) DO NOTHING;
@@ -0,0 +1,26 @@
+-- =========================================================
+-- V29__order_sales_facts_marker.sql
+-- daily_product_sales refresh no longer runs inside stock posting
+--
+-- - orders.sales_facts_at marks a paid order (or a return order) whose
+--   daily_product_sales rows have been refreshed (for a return: the rows
+--   of its original order)
+-- - Orders already posted were refreshed by the posting (or backfilled by V25);
+--   unposted ones are left NULL for the refresh sweep
+-- =========================================================
+
+ALTER TABLE public.orders
+    ADD COLUMN IF NOT EXISTS sales_facts_at TIMESTAMP;
+
+UPDATE public.orders
+SET sales_facts_at = stock_posted_at
+WHERE sales_facts_at IS NULL
+  AND stock_posted_at IS NOT NULL;
+
+-- Refresh sweep: finished orders whose fact rows are not refreshed yet
+CREATE INDEX IF NOT EXISTS ix_orders_sales_facts_pending
+    ON public.orders(id)
+    WHERE sales_facts_at IS NULL;
+
+COMMENT ON COLUMN public.orders.sales_facts_at IS
+    'When daily_product_sales was refreshed for this paid order (or, for a return order, its original order); NULL = not refreshed yet';
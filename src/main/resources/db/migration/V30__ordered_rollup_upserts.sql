@@ -0,0 +1,84 @@
+-- =========================================================
+-- V30__ordered_rollup_upserts.sql
+-- Rollup triggers (V26) upsert their rows in key order
+--
+-- The multi-row upserts into sales_product_hourly and inventory_movement_hourly
+-- locked their rows in whatever order GROUP BY produced. Two transactions touching
+-- the same rows in different orders (an order with several products, a bulk stock
+-- statement) could deadlock. Rows are now upserted in primary key order, so every
+-- writer takes the row locks in the same order.
+--
+-- sales_hourly keeps one row per hour that every payment in that hour updates;
+-- it is taken before the product rows, in the same order by every writer.
+-- =========================================================
+
+CREATE OR REPLACE FUNCTION public.apply_order_sales_rollup(p_order_id bigint,
+                                                           p_paid_at timestamp,
+                                                           p_grand_total numeric,
+                                                           p_sign integer)
+RETURNS void AS $$
+DECLARE
+    v_bucket timestamp := date_trunc('hour', p_paid_at);
+BEGIN
+    INSERT INTO public.sales_hourly AS s (bucket_start, orders_count, grand_total)
+    VALUES (v_bucket, p_sign, p_sign * COALESCE(p_grand_total, 0))
+    ON CONFLICT (bucket_start) DO UPDATE SET
+        orders_count = s.orders_count + EXCLUDED.orders_count,
+        grand_total  = s.grand_total + EXCLUDED.grand_total;
+
+    INSERT INTO public.sales_product_hourly AS s (bucket_start, product_id, orders_count, qty_sold, revenue)
+    SELECT v_bucket, oi.product_id, p_sign, p_sign * SUM(oi.quantity), p_sign * SUM(oi.line_total)
+    FROM public.order_items oi
+    WHERE oi.order_id = p_order_id
+    GROUP BY oi.product_id
+    ORDER BY oi.product_id
+    ON CONFLICT (bucket_start, product_id) DO UPDATE SET
+        orders_count = s.orders_count + EXCLUDED.orders_count,
+        qty_sold     = s.qty_sold + EXCLUDED.qty_sold,
+        revenue      = s.revenue + EXCLUDED.revenue;
+
+    IF p_sign < 0 THEN
+        DELETE FROM public.sales_hourly WHERE bucket_start = v_bucket AND orders_count <= 0;
+        DELETE FROM public.sales_product_hourly WHERE bucket_start = v_bucket AND orders_count <= 0;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION public.trg_inventory_movements_rollup()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        INSERT INTO public.inventory_movement_hourly AS h
+            (bucket_start, product_id, location_type, ref_type, qty_in, qty_out, movements_count)
+        SELECT date_trunc('hour', COALESCE(moved_at, now())), COALESCE(product_id, 0), location_type, ref_type,
+               -SUM(GREATEST(qty_change, 0)), -SUM(GREATEST(-qty_change, 0)), -COUNT(*)
+        FROM old_rows
+        GROUP BY 1, 2, 3, 4
+        ORDER BY 1, 2, 3, 4
+        ON CONFLICT (bucket_start, product_id, location_type, ref_type) DO UPDATE SET
+            qty_in          = h.qty_in + EXCLUDED.qty_in,
+            qty_out         = h.qty_out + EXCLUDED.qty_out,
+            movements_count = h.movements_count + EXCLUDED.movements_count;
+
+        DELETE FROM public.inventory_movement_hourly h
+        USING (SELECT DISTINCT date_trunc('hour', COALESCE(moved_at, now())) AS bucket_start FROM old_rows) b
+        WHERE h.bucket_start = b.bucket_start
+          AND h.movements_count <= 0;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO public.inventory_movement_hourly AS h
+            (bucket_start, product_id, location_type, ref_type, qty_in, qty_out, movements_count)
+        SELECT date_trunc('hour', COALESCE(moved_at, now())), COALESCE(product_id, 0), location_type, ref_type,
+               SUM(GREATEST(qty_change, 0)), SUM(GREATEST(-qty_change, 0)), COUNT(*)
+        FROM new_rows
+        GROUP BY 1, 2, 3, 4
+        ORDER BY 1, 2, 3, 4
+        ON CONFLICT (bucket_start, product_id, location_type, ref_type) DO UPDATE SET
+            qty_in          = h.qty_in + EXCLUDED.qty_in,
+            qty_out         = h.qty_out + EXCLUDED.qty_out,
+            movements_count = h.movements_count + EXCLUDED.movements_count;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,130 @@
+package com.example.back_end.common.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TtlCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Runnable> refreshTasks = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final TtlCache cache = new TtlCache("test", Duration.ofMinutes(1), Duration.ofMinutes(5), 2,
+            refreshTasks::add, now::get);
+
+    @Test
+    void freshEntryIsServedWithoutLoading() {
+        assertThat(cache.get("k", this::load)).isEqualTo("v1");
+        advance(Duration.ofSeconds(59));
+
+        assertThat(cache.get("k", this::load)).isEqualTo("v1");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(refreshTasks).isEmpty();
+    }
+
+    @Test
+    void staleEntryIsServedWhileOneBackgroundRefreshRuns() {
+        cache.get("k", this::load);
+        advance(Duration.ofMinutes(2));
+
+        assertThat(cache.get("k", this::load)).isEqualTo("v1");
+        assertThat(cache.get("k", this::load)).isEqualTo("v1");
+        assertThat(refreshTasks).hasSize(1);
+
+        refreshTasks.get(0).run();
+        assertThat(cache.get("k", this::load)).isEqualTo("v2");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void entryPastTheStaleWindowIsLoadedOnTheCaller() {
+        cache.get("k", this::load);
+        advance(Duration.ofMinutes(7));
+
+        assertThat(cache.get("k", this::load)).isEqualTo("v2");
+        assertThat(refreshTasks).isEmpty();
+    }
+
+    @Test
+    void evictDuringRefreshDropsTheRefreshedValue() {
+        cache.get("k", this::load);
+        advance(Duration.ofMinutes(2));
+
+        // the data changes (and the cache is cleared) after the refresh has read it
+        cache.get("k", () -> {
+            String value = load();
+            cache.evict("k");
+            return value;
+        });
+        refreshTasks.get(0).run();
+
+        assertThat(cache.get("k", this::load)).isEqualTo("v3");
+    }
+
+    @Test
+    void clearMarksFreshEntriesStaleSoTheNextReadServesThemAndReloadsOnce() {
+        cache.get("k", this::load);
+        cache.clear();
+
+        assertThat(cache.get("k", this::load)).isEqualTo("v1");
+        assertThat(cache.get("k", this::load)).isEqualTo("v1");
+        assertThat(refreshTasks).hasSize(1);
+
+        refreshTasks.get(0).run();
+        assertThat(cache.get("k", this::load)).isEqualTo("v2");
+    }
+
+    @Test
+    void clearDuringRefreshKeepsTheEntryStale() {
+        cache.get("k", this::load);
+        advance(Duration.ofMinutes(2));
+
+        // the data changes after the refresh has read it: its value is not stored as fresh
+        cache.get("k", () -> {
+            String value = load();
+            cache.clear();
+            return value;
+        });
+        refreshTasks.get(0).run();
+
+        assertThat(cache.get("k", this::load)).isEqualTo("v1");
+        refreshTasks.get(1).run();
+        assertThat(cache.get("k", this::load)).isEqualTo("v3");
+    }
+
+    @Test
+    void invalidateRemovesEntriesSoTheNextReadLoadsOnTheCaller() {
+        cache.get("k", this::load);
+        cache.invalidate();
+
+        assertThat(cache.get("k", this::load)).isEqualTo("v2");
+        assertThat(refreshTasks).isEmpty();
+    }
+
+    @Test
+    void keepsAtMostMaxEntriesDroppingLeastRecentlyUsed() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNotNull();
+    }
+
+    private String load() {
+        return "v" + loads.incrementAndGet();
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.back_end.modules.catalog.product.mapper;
 
+import com.example.back_end.modules.catalog.category.dto.CategoryDTO;
+import com.example.back_end.modules.catalog.product.dto.ProductImageDTO;
+import com.example.back_end.modules.catalog.product.dto.ProductResponseDTO;
 import com.example.back_end.modules.catalog.product.dto.ProductSimpleDTO;
 import com.example.back_end.modules.catalog.product.entity.Media;
 import com.example.back_end.modules.catalog.product.entity.Product;
 import com.example.back_end.modules.catalog.product.entity.ProductMedia;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductCatalogCategoryProjection;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductCatalogMediaProjection;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class ProductMapperTest {
 
@@ -38,5 +46,58 @@ class ProductMapperTest {
         assertThat(dto.getImage().getUrl()).isEqualTo("/picture/katchap.jpg");
         assertThat(dto.getImage().getAltText()).isEqualTo("Katchap");
     }
-}
 
+    @Test
+    void toCatalogResponse_mapsStockImagesAndParentCategories() {
+        Product product = new Product();
+        product.setId(7L);
+        product.setSku("SKU7");
+        product.setName("Tea");
+
+        ProductCatalogMediaProjection secondary = mediaRow(11L, "https://example.com/picture/tea-2.jpg", 2, false);
+        ProductCatalogMediaProjection primary = mediaRow(10L, "picture/tea.jpg", 1, true);
+        ProductCatalogCategoryProjection category = mock(ProductCatalogCategoryProjection.class);
+        when(category.getCategoryId()).thenReturn(3L);
+        when(category.getCategoryName()).thenReturn("tea");
+        when(category.getParentId()).thenReturn(1L);
+        when(category.getParentName()).thenReturn("Drinks");
+
+        ProductResponseDTO dto = ProductMapper.toCatalogResponse(product, List.of(secondary, primary), List.of(category));
+
+        assertThat(dto.getStoreQty()).isEqualByComparingTo("4");
+        assertThat(dto.getWarehouseQty()).isEqualByComparingTo("9");
+        assertThat(dto.getImages()).extracting(ProductImageDTO::getMediaId).containsExactly(10L, 11L);
+        assertThat(dto.getImage().getUrl()).isEqualTo("/picture/tea.jpg");
+        assertThat(dto.getPrimaryImageUrl()).isEqualTo("/picture/tea.jpg");
+        assertThat(dto.getCategories()).extracting(CategoryDTO::getName).containsExactly("Drinks", "tea");
+        assertThat(dto.getCategories().get(1).getParentName()).isEqualTo("Drinks");
+    }
+
+    @Test
+    void toCatalogResponse_productWithoutStockOrImages() {
+        Product product = new Product();
+        product.setId(8L);
+        ProductCatalogMediaProjection empty = mock(ProductCatalogMediaProjection.class);
+        when(empty.getStoreQty()).thenReturn(null);
+        when(empty.getMediaId()).thenReturn(null);
+
+        ProductResponseDTO dto = ProductMapper.toCatalogResponse(product, List.of(empty), List.of());
+
+        assertThat(dto.getStoreQty()).isEqualByComparingTo("0");
+        assertThat(dto.getWarehouseQty()).isEqualByComparingTo("0");
+        assertThat(dto.getImages()).isEmpty();
+        assertThat(dto.getImage()).isNull();
+        assertThat(dto.getCategories()).isEmpty();
+    }
+
+    private static ProductCatalogMediaProjection mediaRow(Long mediaId, String url, int sortOrder, boolean primary) {
+        ProductCatalogMediaProjection row = mock(ProductCatalogMediaProjection.class);
+        when(row.getStoreQty()).thenReturn(new BigDecimal("4"));
+        when(row.getWarehouseQty()).thenReturn(new BigDecimal("9"));
+        when(row.getMediaId()).thenReturn(mediaId);
+        when(row.getUrl()).thenReturn(url);
+        when(row.getSortOrder()).thenReturn(sortOrder);
+        when(row.getIsPrimary()).thenReturn(primary);
+        return row;
+    }
+}
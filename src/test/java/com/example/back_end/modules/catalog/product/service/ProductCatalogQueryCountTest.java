@@ -0,0 +1,155 @@
+package com.example.back_end.modules.catalog.product.service;
+
+import com.example.back_end.modules.catalog.category.entity.Category;
+import com.example.back_end.modules.catalog.category.repository.CategoryRepository;
+import com.example.back_end.modules.catalog.product.dto.ProductResponseDTO;
+import com.example.back_end.modules.catalog.product.entity.Media;
+import com.example.back_end.modules.catalog.product.entity.Product;
+import com.example.back_end.modules.catalog.product.entity.ProductMedia;
+import com.example.back_end.modules.catalog.product.entity.ProductMediaId;
+import com.example.back_end.modules.catalog.product.repository.MediaRepository;
+import com.example.back_end.modules.catalog.product.repository.ProductMediaRepository;
+import com.example.back_end.modules.catalog.product.repository.ProductRepository;
+import com.example.back_end.modules.store_product.entity.StockSnapshot;
+import com.example.back_end.modules.store_product.repository.StockSnapshotRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The catalog listing must cost the same number of statements whatever the page size
+ * (page query, count query, stock + images, categories).
+ * Runs against the Flyway-migrated Postgres schema and is skipped without Docker.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+@Testcontainers(disabledWithoutDocker = true)
+class ProductCatalogQueryCountTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+    private static final String PREFIX = "CATQ-" + System.nanoTime() + "-";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private ProductMediaRepository productMediaRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        Category parent = categoryRepository.save(Category.builder().name(PREFIX + "parent").build());
+        category = categoryRepository.save(Category.builder().name(PREFIX + "child").parent(parent).build());
+    }
+
+    @Test
+    void search_statementCountDoesNotGrowWithPageSize() {
+        createProducts(0, 3);
+        long small = countStatements(() -> productService.search(PREFIX, PageRequest.of(0, 50)), 3);
+
+        createProducts(3, 30);
+        long large = countStatements(() -> productService.search(PREFIX, PageRequest.of(0, 50)), 30);
+
+        assertThat(large).isEqualTo(small);
+        assertThat(large).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void search_mapsStockImageAndCategoriesFromProjection() {
+        createProducts(0, 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        ProductResponseDTO dto = productService.search(PREFIX, PageRequest.of(0, 10)).getContent().get(0);
+
+        assertThat(dto.getStoreQty()).isEqualByComparingTo("5");
+        assertThat(dto.getWarehouseQty()).isEqualByComparingTo("10");
+        assertThat(dto.getImage().getUrl()).isEqualTo("/picture/" + PREFIX + "0.jpg");
+        assertThat(dto.getImages()).hasSize(1);
+        assertThat(dto.getCategories()).extracting("name")
+                .containsExactly(PREFIX + "child", PREFIX + "parent");
+    }
+
+    private long countStatements(Supplier<Page<ProductResponseDTO>> call, int expectedProducts) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<ProductResponseDTO> page = call.get();
+
+        assertThat(page.getContent()).hasSize(expectedProducts);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createProducts(int from, int to) {
+        for (int i = from; i < to; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .sku(PREFIX + i)
+                    .name(PREFIX + i)
+                    .defaultCost(BigDecimal.ONE)
+                    .defaultPrice(BigDecimal.TEN)
+                    .isActive(true)
+                    .categories(Set.of(category))
+                    .build());
+            stockSnapshotRepository.save(StockSnapshot.builder()
+                    .productId(product.getId())
+                    .storeQty(BigDecimal.valueOf(5))
+                    .warehouseQty(BigDecimal.valueOf(10))
+                    .lastUpdatedAt(Instant.now())
+                    .build());
+            Media media = mediaRepository.save(Media.builder()
+                    .url("https://cdn.example.com/picture/" + PREFIX + i + ".jpg")
+                    .altText(PREFIX + i)
+                    .build());
+            productMediaRepository.save(ProductMedia.builder()
+                    .id(new ProductMediaId(product.getId(), media.getId()))
+                    .product(product)
+                    .media(media)
+                    .isPrimary(true)
+                    .build());
+        }
+    }
+}
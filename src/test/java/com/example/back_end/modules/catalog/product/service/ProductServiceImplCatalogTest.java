@@ -0,0 +1,64 @@
+package com.example.back_end.modules.catalog.product.service;
+
+import com.example.back_end.modules.catalog.product.dto.ProductResponseDTO;
+import com.example.back_end.modules.catalog.product.entity.Product;
+import com.example.back_end.modules.catalog.product.repository.ProductRepository;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductCatalogMediaProjection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductServiceImplCatalogTest {
+
+    @Mock
+    ProductRepository repository;
+
+    @InjectMocks
+    ProductServiceImpl productService;
+
+    @Test
+    void fullCatalogBindsProductIdsInChunks() {
+        List<Product> products = LongStream.rangeClosed(1, 10_001).mapToObj(ProductServiceImplCatalogTest::product).toList();
+        when(repository.findAllActiveProducts()).thenReturn(products);
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(repository.findCatalogMedia(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            chunkSizes.add(ids.size());
+            return ids.contains(10_001L) ? List.of(stock(10_001L, "7")) : List.of();
+        });
+        when(repository.findCatalogCategories(anyCollection())).thenReturn(List.of());
+
+        List<ProductResponseDTO> responses = productService.getAllActiveProducts();
+
+        assertThat(chunkSizes).containsExactly(10_000, 1);
+        verify(repository, times(2)).findCatalogCategories(anyCollection());
+        assertThat(responses).hasSize(10_001);
+        assertThat(responses.get(10_000).getStoreQty()).isEqualByComparingTo("7");
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+
+    private static ProductCatalogMediaProjection stock(Long productId, String storeQty) {
+        ProductCatalogMediaProjection row = mock(ProductCatalogMediaProjection.class);
+        when(row.getProductId()).thenReturn(productId);
+        when(row.getStoreQty()).thenReturn(new BigDecimal(storeQty));
+        return row;
+    }
+}
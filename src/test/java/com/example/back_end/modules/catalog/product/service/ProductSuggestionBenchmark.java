@@ -0,0 +1,145 @@
+package com.example.back_end.modules.catalog.product.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Typeahead suggestions: in-memory {@link ProductSuggestionIndex} against the pg_trgm SQL search
+ * (ProductRepository.fuzzySearch) for the same short, partly misspelled queries.
+ *
+ * The index is filled with a generated catalog of 1000/10000 products (3 aliases each).
+ * The SQL side runs against the database given by -Dbench.jdbc.url / .user / .password
+ * (default localhost:5432/retailmind) with whatever catalog it holds; it is skipped when that
+ * database cannot be reached.
+ *
+ * Not part of the surefire run; start it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.back_end.modules.catalog.product.service.ProductSuggestionBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSuggestionBenchmark {
+
+    private static final String[] QUERIES = {"mil", "milke", "choco", "tea gren", "sku-12", "حليب", "bred", "ap"};
+    private static final float MIN_SIMILARITY = 0.30f;
+    private static final int LIMIT = 10;
+
+    @State(Scope.Benchmark)
+    public static class InMemory {
+
+        @Param({"1000", "10000"})
+        int productCount;
+
+        ProductSuggestionIndex index;
+        int next;
+
+        @Setup
+        public void setup() {
+            String[] words = {"milk", "chocolate", "tea", "green", "bread", "apple", "juice", "rice",
+                    "coffee", "sugar", "cheese", "water", "orange", "biscuit", "yogurt", "butter"};
+            String[] aliases = {"حليب", "شاي", "خبز", "تفاح", "عصير", "رز", "قهوة", "سكر"};
+            Random random = new Random(42);
+
+            List<ProductSuggestionIndex.Document> documents = new ArrayList<>(productCount);
+            for (long id = 1; id <= productCount; id++) {
+                String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                        + " " + (1 + random.nextInt(2000)) + "g";
+                List<String> keys = new ArrayList<>(List.of(name, "SKU-" + id));
+                for (int i = 0; i < 3; i++) {
+                    keys.add(aliases[random.nextInt(aliases.length)] + " " + random.nextInt(100));
+                }
+                documents.add(new ProductSuggestionIndex.Document(id, name, BigDecimal.TEN, keys));
+            }
+            index = new ProductSuggestionIndex(null, mock(PlatformTransactionManager.class));
+            index.replaceAll(documents);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sql {
+
+        Connection connection;
+        PreparedStatement threshold;
+        PreparedStatement search;
+        int next;
+
+        @Setup
+        public void setup() throws SQLException {
+            connection = DriverManager.getConnection(
+                    System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/retailmind"),
+                    System.getProperty("bench.jdbc.user", "postgres"),
+                    System.getProperty("bench.jdbc.password", "postgres"));
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            threshold = connection.prepareStatement(
+                    "SELECT set_config('pg_trgm.word_similarity_threshold', CAST(? AS TEXT), true)");
+            search = connection.prepareStatement("""
+                    SELECT p.id, p.name, p.default_price,
+                           (COALESCE(ss.store_qty, 0) + COALESCE(ss.warehouse_qty, 0)) > 0 AS available,
+                           COUNT(*) OVER () AS total
+                    FROM public.product_search_documents d
+                    JOIN public.products p ON p.id = d.product_id
+                    LEFT JOIN public.stock_snapshot ss ON ss.product_id = p.id
+                    WHERE p.is_active = true
+                      AND (? <% d.document OR d.document ILIKE '%' || ? || '%')
+                    ORDER BY word_similarity(?, d.document) DESC, p.name ASC
+                    LIMIT ?
+                    """);
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public ProductSuggestionIndex.Result inMemory(InMemory state) {
+        String query = QUERIES[state.next++ % QUERIES.length];
+        return state.index.suggest(query, MIN_SIMILARITY, LIMIT);
+    }
+
+    @Benchmark
+    public int sql(Sql state) throws SQLException {
+        String query = QUERIES[state.next++ % QUERIES.length];
+        state.threshold.setFloat(1, MIN_SIMILARITY);
+        try (ResultSet rs = state.threshold.executeQuery()) {
+            rs.next();
+        }
+        state.search.setString(1, query);
+        state.search.setString(2, query);
+        state.search.setString(3, query);
+        state.search.setInt(4, LIMIT);
+        int rows = 0;
+        try (ResultSet rs = state.search.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        state.connection.commit();
+        return rows;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductSuggestionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
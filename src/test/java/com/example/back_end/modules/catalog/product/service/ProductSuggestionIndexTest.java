@@ -0,0 +1,90 @@
+package com.example.back_end.modules.catalog.product.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ProductSuggestionIndexTest {
+
+    private ProductSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSuggestionIndex(null, mock(PlatformTransactionManager.class));
+        index.replaceAll(List.of(
+                document(1L, "Fresh Milk 1L", "SKU-MILK-001", "حليب", "لبن"),
+                document(2L, "Chocolate Milk", "SKU-CHOC-002"),
+                document(3L, "Green Tea", "SKU-TEA-003", "شاي أخضر")));
+    }
+
+    @Test
+    void prefixMatchesScoreAboveOne() {
+        ProductSuggestionIndex.Result result = index.suggest("mil", 0.3f, 10);
+
+        assertThat(result.items()).extracting(ProductSuggestionIndex.Suggestion::productId)
+                .containsExactlyInAnyOrder(1L, 2L);
+        assertThat(result.items()).allSatisfy(s -> assertThat(s.score()).isGreaterThan(1));
+        assertThat(result.total()).isEqualTo(2);
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertThat(index.suggest("milke", 0.3f, 10).items())
+                .extracting(ProductSuggestionIndex.Suggestion::productId)
+                .contains(1L, 2L)
+                .doesNotContain(3L);
+    }
+
+    @Test
+    void findsBySkuAndArabicAliases() {
+        assertThat(index.suggest("sku-tea", 0.3f, 10).items())
+                .extracting(ProductSuggestionIndex.Suggestion::productId).startsWith(3L);
+        assertThat(index.suggest("حليب", 0.3f, 10).items())
+                .extracting(ProductSuggestionIndex.Suggestion::productId).containsExactly(1L);
+        // alef with hamza normalized
+        assertThat(index.suggest("شاي اخضر", 0.3f, 10).items())
+                .extracting(ProductSuggestionIndex.Suggestion::productId).containsExactly(3L);
+    }
+
+    @Test
+    void limitKeepsBestMatches() {
+        ProductSuggestionIndex.Result result = index.suggest("milk", 0.3f, 1);
+
+        assertThat(result.items()).hasSize(1);
+        assertThat(result.total()).isEqualTo(2);
+    }
+
+    @Test
+    void putReplacesAndRemovesProducts() {
+        index.put(2L, document(2L, "Dark Chocolate", "SKU-CHOC-002"));
+        index.put(1L, null);
+
+        assertThat(index.suggest("milk", 0.3f, 10).items()).isEmpty();
+        assertThat(index.suggest("dark", 0.3f, 10).items())
+                .extracting(ProductSuggestionIndex.Suggestion::productId).containsExactly(2L);
+    }
+
+    @Test
+    void compactsAfterManyUpdates() {
+        for (int i = 0; i < 3_000; i++) {
+            index.put(3L, document(3L, "Green Tea " + i, "SKU-TEA-003"));
+        }
+
+        assertThat(index.suggest("green tea 2999", 0.3f, 10).items())
+                .extracting(ProductSuggestionIndex.Suggestion::name).containsExactly("Green Tea 2999");
+    }
+
+    private static ProductSuggestionIndex.Document document(Long id, String name, String... keys) {
+        List<String> all = new ArrayList<>();
+        all.add(name);
+        all.addAll(List.of(keys));
+        return new ProductSuggestionIndex.Document(id, name, BigDecimal.ONE, all);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.back_end.modules.catalog.sync.service;
+
+import com.example.back_end.modules.catalog.sync.dto.CatalogOfferDTO;
+import com.example.back_end.modules.catalog.sync.dto.CatalogSyncDTO;
+import com.example.back_end.modules.catalog.sync.repository.CatalogSyncRepository;
+import com.example.back_end.modules.catalog.sync.repository.CatalogSyncRepository.ProductRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogSyncServiceTest {
+
+    @Mock
+    CatalogSyncRepository repository;
+
+    @InjectMocks
+    CatalogSyncService service;
+
+    private static ProductRow product(long id) {
+        return new ProductRow(id, "SKU-" + id, "Product " + id, new BigDecimal("2.50"), BigDecimal.ZERO,
+                "pcs", "http://host/picture/p" + id + ".jpg", List.of(3L), true);
+    }
+
+    @Test
+    void sync_withoutVersion_returnsFullSnapshot() {
+        when(repository.currentVersion()).thenReturn(12L);
+        when(repository.findAllProducts()).thenReturn(List.of(product(1), product(2)));
+        when(repository.findAllOffers()).thenReturn(List.of(CatalogOfferDTO.builder().id(7L).build()));
+
+        CatalogSyncDTO result = service.sync(null);
+
+        assertThat(result.isFull()).isTrue();
+        assertThat(result.getVersion()).isEqualTo(12L);
+        assertThat(result.getProducts()).hasSize(2);
+        assertThat(result.getProducts().get(0).getImageUrl()).isEqualTo("/picture/p1.jpg");
+        assertThat(result.getOffers()).hasSize(1);
+        assertThat(result.getRemovedProductIds()).isEmpty();
+        verify(repository, never()).changedIds(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void sync_sinceVersion_returnsChangedRowsAndRemovedIds() {
+        when(repository.currentVersion()).thenReturn(20L);
+        when(repository.changedIds(CatalogSyncRepository.PRODUCT, 15L, 20L)).thenReturn(List.of(1L, 4L));
+        when(repository.changedIds(CatalogSyncRepository.OFFER, 15L, 20L)).thenReturn(List.of(9L));
+        when(repository.findProducts(List.of(1L, 4L))).thenReturn(List.of(product(1)));
+        when(repository.findOffers(List.of(9L))).thenReturn(List.of());
+
+        CatalogSyncDTO result = service.sync(15L);
+
+        assertThat(result.isFull()).isFalse();
+        assertThat(result.getVersion()).isEqualTo(20L);
+        assertThat(result.getProducts()).extracting("id").containsExactly(1L);
+        assertThat(result.getRemovedProductIds()).containsExactly(4L);
+        assertThat(result.getOffers()).isEmpty();
+        assertThat(result.getRemovedOfferIds()).containsExactly(9L);
+        verify(repository, never()).findAllProducts();
+    }
+
+    @Test
+    void sync_upToDate_returnsEmptyDelta() {
+        when(repository.currentVersion()).thenReturn(20L);
+
+        CatalogSyncDTO result = service.sync(20L);
+
+        assertThat(result.isFull()).isFalse();
+        assertThat(result.getProducts()).isEmpty();
+        assertThat(result.getRemovedProductIds()).isEmpty();
+    }
+
+    @Test
+    void sync_unknownVersion_fallsBackToFullSnapshot() {
+        when(repository.currentVersion()).thenReturn(5L);
+        when(repository.findAllProducts()).thenReturn(List.of(product(1)));
+        when(repository.findAllOffers()).thenReturn(List.of());
+
+        CatalogSyncDTO result = service.sync(99L);
+
+        assertThat(result.isFull()).isTrue();
+        assertThat(result.getVersion()).isEqualTo(5L);
+        assertThat(result.getProducts()).hasSize(1);
+    }
+}
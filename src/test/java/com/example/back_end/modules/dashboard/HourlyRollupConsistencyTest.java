@@ -0,0 +1,228 @@
+package com.example.back_end.modules.dashboard;
+
+import com.example.back_end.modules.sales.order.repository.OrderRepository;
+import com.example.back_end.modules.store_product.repository.InventoryMovementRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The dashboard queries read the trigger-maintained hourly rollups (V26). After paying,
+ * returning and moving stock through plain SQL writes, every rollup read must still equal
+ * the aggregate of the raw orders / order_items / inventory_movements it replaced.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class HourlyRollupConsistencyTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    InventoryMovementRepository movementRepository;
+
+    @Test
+    void rollupReadsMatchRawAggregatesAfterPaymentsReturnsAndStockMoves() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = now.truncatedTo(ChronoUnit.HOURS).minusDays(7);
+
+        long category = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (name) VALUES ('Rollup category') RETURNING id", Long.class);
+        long milk = createProduct("ROLLUP-MILK", category);
+        long bread = createProduct("ROLLUP-BREAD", category);
+
+        // pay: two orders in different hours
+        long today = createOrder("ROLLUP-1");
+        addLine(today, milk, "2", "5.00");
+        addLine(today, bread, "1", "3.00");
+        pay(today, now.minusHours(2));
+
+        LocalDateTime yesterday = now.minusDays(1);
+        long returned = createOrder("ROLLUP-2");
+        addLine(returned, milk, "4", "5.00");
+        pay(returned, yesterday);
+
+        // return: the order leaves PAID and its bucket empties
+        jdbcTemplate.update("UPDATE orders SET status = 'RETURNED' WHERE id = ?", returned);
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM sales_product_hourly WHERE bucket_start = date_trunc('hour', ?::timestamp) AND product_id = ?
+                """, Long.class, Timestamp.valueOf(yesterday), milk)).isZero();
+
+        // a draft never reaches the rollups
+        long draft = createOrder("ROLLUP-3");
+        addLine(draft, bread, "7", "3.00");
+
+        // stock moves: one multi-row statement, an update and a delete that empties its bucket
+        jdbcTemplate.update("""
+                INSERT INTO inventory_movements (product_id, location_type, ref_type, qty_change, moved_at)
+                VALUES (?, 'WAREHOUSE', 'PURCHASE', 20, now()),
+                       (?, 'WAREHOUSE', 'PURCHASE', 10, now() - interval '2 days'),
+                       (?, 'WAREHOUSE', 'TRANSFER', -6, now()),
+                       (?, 'STORE', 'TRANSFER', 6, now()),
+                       (?, 'STORE', 'SALE', -2, now())
+                """, milk, bread, milk, milk, milk);
+        jdbcTemplate.update("""
+                UPDATE inventory_movements SET qty_change = 12
+                WHERE product_id = ? AND ref_type = 'PURCHASE'
+                """, bread);
+        LocalDateTime emptied = now.minusDays(3);
+        long deleted = jdbcTemplate.queryForObject("""
+                INSERT INTO inventory_movements (product_id, location_type, ref_type, qty_change, moved_at)
+                VALUES (?, 'WAREHOUSE', 'PURCHASE', 5, ?)
+                RETURNING id
+                """, Long.class, bread, Timestamp.valueOf(emptied));
+        jdbcTemplate.update("DELETE FROM inventory_movements WHERE id = ?", deleted);
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM inventory_movement_hourly WHERE bucket_start = date_trunc('hour', ?::timestamp) AND product_id = ?
+                """, Long.class, Timestamp.valueOf(emptied), bread)).isZero();
+
+        // sales
+        assertSameAmount(orderRepository.sumSalesSince(from), raw("""
+                SELECT COALESCE(SUM(grand_total), 0) FROM orders WHERE status = 'PAID' AND paid_at >= ?
+                """, from));
+        assertThat(orderRepository.countOrdersSince(from)).isEqualTo(jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM orders WHERE status = 'PAID' AND paid_at >= ?
+                """, Long.class, Timestamp.valueOf(from)));
+
+        Map<String, String> daily = new HashMap<>();
+        orderRepository.findDailySalesSince(from).forEach(d ->
+                daily.put(d.getSaleDate().toString(), amount(d.getTotalAmount()) + "/" + d.getOrderCount()));
+        assertThat(daily).isEqualTo(rows("""
+                SELECT paid_at::date AS k, SUM(grand_total) || '' AS a, COUNT(*) AS b
+                FROM orders WHERE status = 'PAID' AND paid_at >= ?
+                GROUP BY paid_at::date
+                """, from));
+
+        Map<String, String> products = new HashMap<>();
+        orderRepository.findTopProducts(from, Integer.MAX_VALUE).forEach(p ->
+                products.put(p.getProductId().toString(), amount(p.getSold()) + "/" + amount(p.getRevenue())));
+        assertThat(products).isEqualTo(rows("""
+                SELECT oi.product_id AS k, SUM(oi.quantity) || '' AS a, SUM(oi.line_total) AS b
+                FROM orders o JOIN order_items oi ON oi.order_id = o.id
+                WHERE o.status = 'PAID' AND o.paid_at >= ?
+                GROUP BY oi.product_id
+                """, from));
+        assertThat(products).containsKeys(String.valueOf(milk), String.valueOf(bread));
+
+        // movements
+        assertSameAmount(movementRepository.sumInSince(from), raw("""
+                SELECT COALESCE(SUM(qty_change), 0) FROM inventory_movements
+                WHERE moved_at >= ? AND location_type = 'WAREHOUSE' AND qty_change > 0
+                """, from));
+        assertSameAmount(movementRepository.sumOutSince(from), raw("""
+                SELECT COALESCE(-SUM(qty_change), 0) FROM inventory_movements
+                WHERE moved_at >= ? AND location_type = 'WAREHOUSE' AND qty_change < 0
+                """, from));
+        assertThat(movementRepository.countMovementsSince(from)).isEqualTo(jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM inventory_movements WHERE moved_at >= ? AND location_type = 'WAREHOUSE'
+                """, Long.class, Timestamp.valueOf(from)));
+
+        Map<String, String> weekly = new HashMap<>();
+        movementRepository.findWeeklyMovementSince(from).forEach(w ->
+                weekly.put(w.getMovementDate().toString(), amount(w.getTotalIn()) + "/" + amount(w.getTotalOut())));
+        assertThat(weekly).isEqualTo(rows("""
+                SELECT moved_at::date AS k,
+                       COALESCE(SUM(CASE WHEN qty_change > 0 THEN qty_change ELSE 0 END), 0) || '' AS a,
+                       COALESCE(-SUM(CASE WHEN qty_change < 0 THEN qty_change ELSE 0 END), 0) AS b
+                FROM inventory_movements
+                WHERE moved_at >= ? AND location_type = 'WAREHOUSE'
+                GROUP BY moved_at::date
+                """, from));
+
+        Map<String, String> categorySales = new HashMap<>();
+        movementRepository.findCategorySalesLastWeek(from).forEach(c ->
+                categorySales.put(c.getCategoryName(), amount(c.getTotalSalesQty())));
+        Map<String, String> rawCategorySales = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT c.name, SUM(ABS(im.qty_change)) AS qty
+                FROM inventory_movements im
+                JOIN product_categories pc ON pc.product_id = im.product_id
+                JOIN categories c ON c.id = pc.category_id
+                WHERE im.moved_at >= ? AND im.location_type = 'STORE' AND im.ref_type = 'SALE'
+                GROUP BY c.name
+                """, rs -> {
+            rawCategorySales.put(rs.getString("name"), amount(rs.getBigDecimal("qty")));
+        }, Timestamp.valueOf(from));
+        assertThat(categorySales).isEqualTo(rawCategorySales).containsEntry("Rollup category", "2");
+    }
+
+    private long createProduct(String sku, long categoryId) {
+        long id = jdbcTemplate.queryForObject("""
+                INSERT INTO products (sku, name, default_cost, default_price) VALUES (?, ?, 1.00, 2.00) RETURNING id
+                """, Long.class, sku, sku);
+        jdbcTemplate.update("INSERT INTO product_categories (product_id, category_id) VALUES (?, ?)", id, categoryId);
+        return id;
+    }
+
+    private long createOrder(String orderNumber) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO orders (order_number, subtotal, grand_total, status) VALUES (?, 0, 0, 'DRAFT') RETURNING id
+                """, Long.class, orderNumber);
+    }
+
+    private void addLine(long orderId, long productId, String qty, String unitPrice) {
+        BigDecimal lineTotal = new BigDecimal(qty).multiply(new BigDecimal(unitPrice));
+        jdbcTemplate.update("""
+                INSERT INTO order_items (order_id, product_id, quantity, unit_price, line_total) VALUES (?, ?, ?, ?, ?)
+                """, orderId, productId, new BigDecimal(qty), new BigDecimal(unitPrice), lineTotal);
+        jdbcTemplate.update("""
+                UPDATE orders SET subtotal = subtotal + ?, grand_total = grand_total + ? WHERE id = ?
+                """, lineTotal, lineTotal, orderId);
+    }
+
+    private void pay(long orderId, LocalDateTime paidAt) {
+        jdbcTemplate.update("UPDATE orders SET status = 'PAID', paid_at = ? WHERE id = ?",
+                Timestamp.valueOf(paidAt), orderId);
+    }
+
+    private BigDecimal raw(String sql, LocalDateTime from) {
+        return jdbcTemplate.queryForObject(sql, BigDecimal.class, Timestamp.valueOf(from));
+    }
+
+    /**
+     * key column k -> "a/b", amounts normalized like {@link #amount}
+     */
+    private Map<String, String> rows(String sql, LocalDateTime from) {
+        Map<String, String> rows = new HashMap<>();
+        List<Map<String, Object>> result = jdbcTemplate.queryForList(sql, Timestamp.valueOf(from));
+        for (Map<String, Object> row : result) {
+            Object b = row.get("b");
+            rows.put(row.get("k").toString(), amount(new BigDecimal(row.get("a").toString())) + "/"
+                    + (b instanceof BigDecimal number ? amount(number) : b.toString()));
+        }
+        return rows;
+    }
+
+    private static void assertSameAmount(BigDecimal actual, BigDecimal expected) {
+        assertThat(actual).isEqualByComparingTo(expected);
+    }
+
+    private static String amount(BigDecimal value) {
+        return value == null ? "0" : value.stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.back_end.modules.forecasting.service;
+
+import com.example.back_end.modules.forecasting.repository.DailyProductSalesRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailyProductSalesServiceTest {
+
+    @Mock
+    DailyProductSalesRepository dailyProductSalesRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void rebuildsRangeInChunksOfDays() {
+        DailyProductSalesService service = new DailyProductSalesService(dailyProductSalesRepository, transactionManager);
+        when(dailyProductSalesRepository.rebuildRange(any(), any())).thenReturn(10, 10, 3);
+
+        int rows = service.rebuild(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 5));
+
+        assertThat(rows).isEqualTo(23);
+        InOrder inOrder = inOrder(dailyProductSalesRepository);
+        inOrder.verify(dailyProductSalesRepository).rebuildRange(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 31));
+        inOrder.verify(dailyProductSalesRepository).rebuildRange(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 3, 3));
+        inOrder.verify(dailyProductSalesRepository).rebuildRange(LocalDate.of(2026, 3, 4), LocalDate.of(2026, 3, 5));
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void rejectsReversedRange() {
+        DailyProductSalesService service = new DailyProductSalesService(dailyProductSalesRepository, transactionManager);
+
+        assertThatThrownBy(() -> service.rebuild(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 1, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(dailyProductSalesRepository);
+    }
+
+    @Test
+    void refreshOfReturnOrderRecomputesItsOriginalOrder() {
+        DailyProductSalesService service = new DailyProductSalesService(dailyProductSalesRepository, transactionManager);
+        when(dailyProductSalesRepository.claimOrderRefresh(9L)).thenReturn(5L);
+
+        assertThat(service.refreshForOrder(9L)).isTrue();
+
+        verify(dailyProductSalesRepository).refreshForOrder(5L);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void alreadyRefreshedOrderIsSkipped() {
+        DailyProductSalesService service = new DailyProductSalesService(dailyProductSalesRepository, transactionManager);
+        when(dailyProductSalesRepository.claimOrderRefresh(5L)).thenReturn(null);
+
+        assertThat(service.refreshForOrder(5L)).isFalse();
+
+        verify(dailyProductSalesRepository, never()).refreshForOrder(any());
+    }
+
+    @Test
+    void sweepRefreshesPendingOrdersPastOneThatFails() {
+        DailyProductSalesService service = new DailyProductSalesService(dailyProductSalesRepository, transactionManager);
+        when(dailyProductSalesRepository.findUnrefreshedOrders(60, 200)).thenReturn(List.of(5L, 6L));
+        when(dailyProductSalesRepository.claimOrderRefresh(5L)).thenReturn(5L);
+        when(dailyProductSalesRepository.claimOrderRefresh(6L)).thenReturn(6L);
+        doThrow(new IllegalStateException("boom")).when(dailyProductSalesRepository).refreshForOrder(5L);
+
+        service.refreshPending();
+
+        verify(dailyProductSalesRepository).refreshForOrder(6L);
+        verify(transactionManager).rollback(any());
+    }
+}
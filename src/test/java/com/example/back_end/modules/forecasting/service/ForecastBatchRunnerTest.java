@@ -0,0 +1,247 @@
+package com.example.back_end.modules.forecasting.service;
+
+import com.example.back_end.modules.forecasting.dto.BatchForecastResponseDTO;
+import com.example.back_end.modules.forecasting.dto.ForecastPointDTO;
+import com.example.back_end.modules.forecasting.dto.ProductForecastBatchItemDTO;
+import com.example.back_end.modules.forecasting.repository.DailyProductSalesRow;
+import com.example.back_end.modules.forecasting.repository.ForecastingDataRepository;
+import com.example.back_end.modules.forecasting.repository.ProductDailyForecastRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives ForecastBatchRunner against a local stand-in for the FastAPI forecast service.
+ */
+@ExtendWith(MockitoExtension.class)
+class ForecastBatchRunnerTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 3, 31);
+    private static final String FORECAST_JSON = """
+            {"forecast":[{"ds":"2026-04-01","yhat":3.5,"yhat_lower":2.0,"yhat_upper":5.0},
+                         {"ds":"2026-04-02","yhat":4.0,"yhat_lower":null,"yhat_upper":null}]}
+            """;
+
+    @Mock
+    ForecastingDataRepository dataRepository;
+
+    @Mock
+    ProductDailyForecastRepository forecastRepository;
+
+    FakeForecastServer server;
+    ForecastingService forecastingService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeForecastServer();
+        forecastingService = new ForecastingService(dataRepository, forecastRepository,
+                WebClient.builder().baseUrl(server.baseUrl()).build());
+        lenient().when(dataRepository.findDailySalesForProduct(anyLong(), any(), any()))
+                .thenReturn(List.of(salesRow()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void retriesServerErrorsClassifiesFailuresAndStoresInGroups() {
+        AtomicInteger product2Calls = new AtomicInteger();
+        server.respond(productId -> switch (productId.intValue()) {
+            case 2 -> product2Calls.incrementAndGet() == 1 ? reply(503, "{}") : reply(200, FORECAST_JSON);
+            case 3 -> reply(400, "{\"detail\":\"Not enough data points\"}");
+            case 4 -> reply(500, "{}");
+            default -> reply(200, FORECAST_JSON);
+        });
+        when(dataRepository.findDailySalesForProduct(eq(5L), any(), any())).thenReturn(List.of());
+
+        ForecastBatchRunner runner = runner(4, Duration.ofSeconds(5), 2, 100);
+        BatchForecastResponseDTO result = runner.run(List.of(1L, 2L, 3L, 4L, 5L, 6L), 30, FROM, TO);
+
+        assertThat(result.getDetails()).extracting(ProductForecastBatchItemDTO::getStatus)
+                .containsExactly("SUCCESS", "SUCCESS", "SKIPPED_NOT_ENOUGH_DATA", "ERROR", "SKIPPED_NO_DATA", "SUCCESS");
+        assertThat(result.getSuccessCount()).isEqualTo(3);
+        assertThat(result.getSkippedCount()).isEqualTo(2);
+        assertThat(result.getErrorCount()).isEqualTo(1);
+
+        assertThat(product2Calls.get()).isEqualTo(2);
+        assertThat(server.calls(4L)).isEqualTo(3); // first call + 2 retries
+        assertThat(server.calls(3L)).isEqualTo(1); // 4xx is not retried
+
+        // 6 products in groups of 2 -> 3 writes, together holding the 3 successful forecasts
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, List<ForecastPointDTO>>> writes = ArgumentCaptor.forClass(Map.class);
+        verify(forecastRepository, times(3)).upsertForecasts(writes.capture());
+        assertThat(writes.getAllValues()).flatMap(Map::keySet).containsExactlyInAnyOrder(1L, 2L, 6L);
+
+        assertThat(runner.getProgress().getCompletedProducts()).isEqualTo(6);
+        assertThat(runner.getProgress().isRunning()).isFalse();
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndStopsCallingTheService() {
+        server.respond(productId -> reply(500, "{}"));
+
+        // the circuit stays open for a minute, longer than the products are allowed to wait
+        ForecastBatchRunner runner = runner(1, Duration.ofSeconds(5), 0, 2, Duration.ofMinutes(1), Duration.ofMillis(500));
+        BatchForecastResponseDTO result = runner.run(List.of(1L, 2L, 3L, 4L, 5L), 30, FROM, TO);
+
+        assertThat(result.getErrorCount()).isEqualTo(5);
+        assertThat(result.getDetails()).extracting(ProductForecastBatchItemDTO::getMessage)
+                .filteredOn(message -> message.contains("circuit open"))
+                .hasSize(3);
+        assertThat(server.totalCalls()).isEqualTo(2);
+        assertThat(runner.getProgress().getCircuitState()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void productsMeetingAnOpenCircuitWaitForItAndContinueOnceTheProbeSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+        server.respond(productId -> calls.incrementAndGet() <= 2 ? reply(500, "{}") : reply(200, FORECAST_JSON));
+
+        ForecastBatchRunner runner = runner(1, Duration.ofSeconds(5), 0, 2, Duration.ofMillis(300), Duration.ofSeconds(10));
+        BatchForecastResponseDTO result = runner.run(List.of(1L, 2L, 3L, 4L, 5L), 30, FROM, TO);
+
+        assertThat(result.getDetails()).extracting(ProductForecastBatchItemDTO::getStatus)
+                .containsExactly("ERROR", "ERROR", "SUCCESS", "SUCCESS", "SUCCESS");
+        assertThat(server.totalCalls()).isEqualTo(5);
+        assertThat(runner.getProgress().getCircuitState()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void slowCallsTimeOut() {
+        server.respond(productId -> {
+            sleep(1000);
+            return reply(200, FORECAST_JSON);
+        });
+
+        BatchForecastResponseDTO result = runner(2, Duration.ofMillis(200), 0, 100)
+                .run(List.of(1L), 30, FROM, TO);
+
+        assertThat(result.getDetails().get(0).getMessage()).isEqualTo("Forecasting service timed out.");
+        verify(forecastRepository, never()).upsertForecasts(argThat(points -> !points.isEmpty()));
+    }
+
+    private ForecastBatchRunner runner(int concurrency, Duration timeout, int maxRetries, int failureThreshold) {
+        return runner(concurrency, timeout, maxRetries, failureThreshold, Duration.ofMinutes(1), Duration.ZERO);
+    }
+
+    private ForecastBatchRunner runner(int concurrency, Duration timeout, int maxRetries, int failureThreshold,
+                                       Duration openDuration, Duration circuitMaxWait) {
+        return new ForecastBatchRunner(forecastingService, forecastRepository,
+                concurrency, timeout, maxRetries, Duration.ofMillis(10), 2,
+                failureThreshold, openDuration, circuitMaxWait);
+    }
+
+    private static DailyProductSalesRow salesRow() {
+        DailyProductSalesRow row = new DailyProductSalesRow();
+        row.setSalesDate(FROM);
+        row.setTotalQtySold(BigDecimal.TEN);
+        row.setPromoAnyFlag(0);
+        return row;
+    }
+
+    private static Reply reply(int status, String body) {
+        return new Reply(status, body);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Reply(int status, String body) {
+    }
+
+    /**
+     * Local stand-in for POST /api/v1/forecast/product, answering per product_id
+     */
+    private static class FakeForecastServer {
+
+        private static final Pattern PRODUCT_ID = Pattern.compile("\"product_id\"\\s*:\\s*(\\d+)");
+
+        private final HttpServer httpServer;
+        private final Map<Long, AtomicInteger> calls = new ConcurrentHashMap<>();
+        private volatile Function<Long, Reply> responder = productId -> reply(200, FORECAST_JSON);
+
+        FakeForecastServer() throws IOException {
+            httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            httpServer.createContext("/api/v1/forecast/product", this::handle);
+            httpServer.setExecutor(Executors.newCachedThreadPool());
+            httpServer.start();
+        }
+
+        String baseUrl() {
+            return "http://localhost:" + httpServer.getAddress().getPort();
+        }
+
+        void respond(Function<Long, Reply> responder) {
+            this.responder = responder;
+        }
+
+        int calls(Long productId) {
+            return calls.getOrDefault(productId, new AtomicInteger()).get();
+        }
+
+        int totalCalls() {
+            return calls.values().stream().mapToInt(AtomicInteger::get).sum();
+        }
+
+        void stop() {
+            httpServer.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            Matcher matcher = PRODUCT_ID.matcher(request);
+            Long productId = matcher.find() ? Long.valueOf(matcher.group(1)) : -1L;
+            calls.computeIfAbsent(productId, id -> new AtomicInteger()).incrementAndGet();
+
+            Reply reply = responder.apply(productId);
+            byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            try {
+                exchange.sendResponseHeaders(reply.status(), body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (IOException e) {
+                // client gave up (timeout test)
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.back_end.modules.forecasting.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ForecastCircuitBreakerTest {
+
+    private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    };
+    private final ForecastCircuitBreaker breaker = new ForecastCircuitBreaker(1, Duration.ofSeconds(30), clock);
+
+    @Test
+    void opensForTheOpenDurationThenLetsOneProbeThrough() {
+        breaker.recordFailure();
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.remainingOpen()).isEqualTo(Duration.ofSeconds(30));
+
+        now = now.plusSeconds(30);
+        assertThat(breaker.remainingOpen()).isEqualTo(Duration.ZERO);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.recordSuccess();
+        assertThat(breaker.getState()).isEqualTo(ForecastCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void cancelledProbeLetsTheNextCallProbe() {
+        breaker.recordFailure();
+        now = now.plusSeconds(30);
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.releaseProbe();
+
+        assertThat(breaker.getState()).isEqualTo(ForecastCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+}
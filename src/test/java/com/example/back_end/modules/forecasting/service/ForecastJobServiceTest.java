@@ -0,0 +1,107 @@
+package com.example.back_end.modules.forecasting.service;
+
+import com.example.back_end.modules.forecasting.dto.ForecastJobDTO;
+import com.example.back_end.modules.forecasting.dto.ProductForecastBatchItemDTO;
+import com.example.back_end.modules.forecasting.repository.ForecastJobRepository;
+import com.example.back_end.modules.forecasting.repository.ForecastingProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ForecastJobServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 3, 31);
+
+    @Mock
+    ForecastJobRepository jobRepository;
+
+    @Mock
+    ForecastingProductRepository forecastingProductRepository;
+
+    @Mock
+    ForecastBatchRunner forecastBatchRunner;
+
+    @Mock
+    TaskScheduler taskScheduler;
+
+    ForecastJobService service;
+
+    @BeforeEach
+    void setUp() {
+        // run jobs on the calling thread
+        service = new ForecastJobService(jobRepository, forecastingProductRepository, forecastBatchRunner,
+                Runnable::run, taskScheduler);
+    }
+
+    @Test
+    void newJobRegistersEligibleProductsAndCheckpointsEachGroup() {
+        when(jobRepository.createJob(30, FROM, TO, 5)).thenReturn(7L);
+        when(jobRepository.findJob(7L)).thenReturn(Optional.of(job(7L, "PENDING", 0)));
+        when(forecastingProductRepository.findEligibleProductIds(FROM, TO, 5)).thenReturn(List.of(1L, 2L));
+        when(jobRepository.findProductIdsToRun(7L)).thenReturn(List.of(1L, 2L));
+
+        service.startJob(30, FROM, TO, 5);
+
+        verify(jobRepository).addItems(7L, List.of(1L, 2L));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<List<ProductForecastBatchItemDTO>>> checkpoint = ArgumentCaptor.forClass(Consumer.class);
+        verify(forecastBatchRunner).run(eq(List.of(1L, 2L)), eq(30), eq(FROM), eq(TO), checkpoint.capture());
+
+        List<ProductForecastBatchItemDTO> group = List.of(new ProductForecastBatchItemDTO());
+        checkpoint.getValue().accept(group);
+        verify(jobRepository).saveItems(7L, group);
+        verify(jobRepository).markFinished(7L, ForecastJobService.COMPLETED, null);
+    }
+
+    @Test
+    void resumedJobOnlyRunsProductsNotYetSuccessful() {
+        when(jobRepository.findJob(7L)).thenReturn(Optional.of(job(7L, "FAILED", 3)));
+        when(jobRepository.findProductIdsToRun(7L)).thenReturn(List.of(3L));
+
+        service.resumeJob(7L);
+
+        verify(forecastingProductRepository, never()).findEligibleProductIds(any(), any(), anyInt());
+        verify(jobRepository, never()).addItems(any(), any());
+        verify(forecastBatchRunner).run(eq(List.of(3L)), eq(30), eq(FROM), eq(TO), any());
+    }
+
+    @Test
+    void failedRunMarksJobFailed() {
+        when(jobRepository.findJob(7L)).thenReturn(Optional.of(job(7L, "RUNNING", 2)));
+        when(jobRepository.findUnfinishedJobIds()).thenReturn(List.of(7L));
+        when(jobRepository.findProductIdsToRun(7L)).thenReturn(List.of(1L));
+        when(forecastBatchRunner.run(any(), anyInt(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("A forecast batch is already running"));
+
+        service.resumeUnfinishedJobs();
+
+        verify(jobRepository).markFinished(7L, ForecastJobService.FAILED, "A forecast batch is already running");
+    }
+
+    private static ForecastJobDTO job(Long id, String status, int totalProducts) {
+        ForecastJobDTO job = new ForecastJobDTO();
+        job.setId(id);
+        job.setStatus(status);
+        job.setHorizonDays(30);
+        job.setFromDate(FROM);
+        job.setToDate(TO);
+        job.setMinPoints(5);
+        job.setTotalProducts(totalProducts);
+        return job;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.back_end.modules.forecasting.service;
+
+import com.example.back_end.modules.forecasting.repository.ProductCurrentStockRepository;
+import com.example.back_end.modules.forecasting.repository.ProductDailyForecastRepository;
+import com.example.back_end.modules.forecasting.repository.ProductStockForecastSummaryRepository;
+import com.example.back_end.modules.forecasting.repository.ProductStockForecastSummaryViewRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockForecastSummaryServiceTest {
+
+    @Mock
+    ProductCurrentStockRepository currentStockRepository;
+
+    @Mock
+    ProductDailyForecastRepository forecastRepository;
+
+    @Mock
+    ProductStockForecastSummaryRepository summaryRepository;
+
+    @Mock
+    ProductStockForecastSummaryViewRepository summaryViewRepository;
+
+    @InjectMocks
+    StockForecastSummaryService service;
+
+    @Test
+    void batchRebuildRunsAsOneSetBasedStatement() {
+        LocalDate today = LocalDate.now();
+        when(summaryRepository.rebuildSummaries(today, today.plusDays(29), BigDecimal.ZERO, 14))
+                .thenReturn(10_000);
+
+        int processed = service.rebuildSummaryForProductsBatch(30, null);
+
+        assertThat(processed).isEqualTo(10_000);
+        verifyNoInteractions(currentStockRepository, forecastRepository);
+        verify(summaryRepository, never()).upsertSummary(any());
+    }
+}
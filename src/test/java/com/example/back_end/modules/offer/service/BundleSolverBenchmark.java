@@ -0,0 +1,79 @@
+package com.example.back_end.modules.offer.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bundle detection for one POS basket against 50/500/5000 active bundles.
+ *
+ * Not part of the surefire run; start it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.back_end.modules.offer.service.BundleSolverBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BundleSolverBenchmark {
+
+    private static final int CATALOG_SIZE = 2_000;
+    private static final int BASKET_LINES = 25;
+
+    @Param({"50", "500", "5000"})
+    int bundleCount;
+
+    private BundleIndex index;
+    private BundleSolver solver;
+    private Map<Long, BigDecimal> basket;
+    private Map<Long, BigDecimal> unitPrices;
+    private LocalDateTime now;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<BundleDefinition> bundles = new ArrayList<>();
+
+        for (long offerId = 1; offerId <= bundleCount; offerId++) {
+            Map<Long, BigDecimal> requirements = new HashMap<>();
+            int size = 2 + random.nextInt(3);
+            while (requirements.size() < size) {
+                requirements.put(1L + random.nextInt(CATALOG_SIZE), BigDecimal.valueOf(1 + random.nextInt(2)));
+            }
+            bundles.add(BundleSolverTest.bundle(offerId, String.valueOf(1 + random.nextInt(10)), requirements));
+        }
+
+        index = new BundleIndex(bundles);
+        solver = new BundleSolver(new OfferCalculator());
+        now = LocalDateTime.now();
+
+        // Basket built from a few bundles so there is always something to solve
+        basket = new HashMap<>();
+        unitPrices = new HashMap<>();
+        for (int i = 0; basket.size() < BASKET_LINES; i++) {
+            for (Map.Entry<Long, BigDecimal> required : bundles.get(i % bundles.size()).requirements().entrySet()) {
+                basket.merge(required.getKey(), required.getValue(), BigDecimal::add);
+                unitPrices.put(required.getKey(), BigDecimal.valueOf(5 + required.getKey() % 20));
+            }
+        }
+    }
+
+    @Benchmark
+    public BundleSolver.Allocation detectAndSolve() {
+        return solver.solve(index.candidatesFor(basket, now), basket, unitPrices);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BundleSolverBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.back_end.modules.offer.service;
+
+import com.example.back_end.modules.offer.entity.Offer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+class BundleSolverTest {
+
+    private final BundleSolver solver = new BundleSolver(new OfferCalculator());
+
+    @Test
+    void appliesNonOverlappingBundlesAndRepeatedInstances() {
+        BundleDefinition ab = bundle(1L, "5.00", Map.of(1L, qty("1"), 2L, qty("1")));
+        BundleDefinition cd = bundle(2L, "3.00", Map.of(3L, qty("1"), 4L, qty("1")));
+
+        BundleSolver.Allocation allocation = solver.solve(List.of(ab, cd),
+                Map.of(1L, qty("2"), 2L, qty("2"), 3L, qty("1"), 4L, qty("1")),
+                prices(1L, 2L, 3L, 4L));
+
+        assertThat(allocation.totalDiscount()).isEqualByComparingTo("13.00");
+        assertThat(allocation.uses()).extracting(use -> use.bundle().offerId(), BundleSolver.BundleUse::instances)
+                .containsExactlyInAnyOrder(
+                        tuple(1L, 2),
+                        tuple(2L, 1));
+    }
+
+    @Test
+    void findsOptimalAllocationWhereGreedyFails() {
+        // Greedy takes ABC (8.00) first and leaves only D; AB + CD (10.00) is better
+        BundleDefinition abc = bundle(1L, "8.00", Map.of(1L, qty("1"), 2L, qty("1"), 3L, qty("1")));
+        BundleDefinition ab = bundle(2L, "5.00", Map.of(1L, qty("1"), 2L, qty("1")));
+        BundleDefinition cd = bundle(3L, "5.00", Map.of(3L, qty("1"), 4L, qty("1")));
+
+        BundleSolver.Allocation allocation = solver.solve(List.of(abc, ab, cd),
+                Map.of(1L, qty("1"), 2L, qty("1"), 3L, qty("1"), 4L, qty("1")),
+                prices(1L, 2L, 3L, 4L));
+
+        assertThat(allocation.totalDiscount()).isEqualByComparingTo("10.00");
+        assertThat(allocation.uses()).extracting(use -> use.bundle().offerId())
+                .containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void returnsEmptyWhenNoBundleFits() {
+        BundleDefinition ab = bundle(1L, "5.00", Map.of(1L, qty("2"), 2L, qty("1")));
+
+        BundleSolver.Allocation allocation = solver.solve(List.of(ab),
+                Map.of(1L, qty("1"), 2L, qty("1")), prices(1L, 2L));
+
+        assertThat(allocation.isEmpty()).isTrue();
+        assertThat(allocation.totalDiscount()).isEqualByComparingTo("0");
+    }
+
+    static BundleDefinition bundle(Long offerId, String fixedDiscount, Map<Long, BigDecimal> requirements) {
+        LocalDateTime now = LocalDateTime.now();
+        Offer offer = Offer.builder()
+                .id(offerId)
+                .code("BUNDLE-" + offerId)
+                .offerType(Offer.OfferType.BUNDLE)
+                .discountType(Offer.DiscountType.FIXED_AMOUNT)
+                .discountValue(new BigDecimal(fixedDiscount))
+                .startAt(now.minusDays(1))
+                .endAt(now.plusDays(1))
+                .isActive(true)
+                .build();
+        return new BundleDefinition(offer, requirements);
+    }
+
+    private static Map<Long, BigDecimal> prices(Long... productIds) {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (Long productId : productIds) {
+            prices.put(productId, new BigDecimal("10.00"));
+        }
+        return prices;
+    }
+
+    private static BigDecimal qty(String qty) {
+        return new BigDecimal(qty);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.back_end.modules.offer.service;
+
+import com.example.back_end.modules.catalog.product.entity.ProductCategory;
+import com.example.back_end.modules.catalog.product.repository.ProductCategoryRepository;
+import com.example.back_end.modules.offer.entity.Offer;
+import com.example.back_end.modules.offer.entity.OfferCategory;
+import com.example.back_end.modules.offer.entity.OfferProduct;
+import com.example.back_end.modules.offer.entity.OrderOffer;
+import com.example.back_end.modules.offer.repository.OfferBundleRepository;
+import com.example.back_end.modules.offer.repository.OfferCategoryRepository;
+import com.example.back_end.modules.offer.repository.OfferProductRepository;
+import com.example.back_end.modules.offer.repository.OfferRepository;
+import com.example.back_end.modules.offer.repository.OrderOfferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OfferIndexTest {
+
+    @Mock
+    OfferRepository offerRepository;
+
+    @Mock
+    OfferProductRepository offerProductRepository;
+
+    @Mock
+    OfferCategoryRepository offerCategoryRepository;
+
+    @Mock
+    OfferBundleRepository offerBundleRepository;
+
+    @Mock
+    OrderOfferRepository orderOfferRepository;
+
+    @Mock
+    ProductCategoryRepository productCategoryRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    OfferIndex offerIndex;
+
+    @BeforeEach
+    void setup() {
+        offerIndex = new OfferIndex(offerRepository, offerProductRepository, offerCategoryRepository,
+                offerBundleRepository, orderOfferRepository, productCategoryRepository, transactionManager);
+        ReflectionTestUtils.setField(offerIndex, "maxAge", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void servesProductAndCategoryOffersFromMemory() {
+        LocalDateTime now = LocalDateTime.now();
+        Offer productOffer = offer(1L, Offer.OfferType.PRODUCT, now.minusDays(1), now.plusDays(1));
+        Offer futureOffer = offer(2L, Offer.OfferType.PRODUCT, now.plusDays(1), now.plusDays(2));
+        Offer categoryOffer = offer(3L, Offer.OfferType.CATEGORY, now.minusDays(1), now.plusDays(1));
+
+        when(offerRepository.findIndexableOffers(any())).thenReturn(List.of(productOffer, futureOffer, categoryOffer));
+        when(offerProductRepository.findByOfferIdIn(anyCollection())).thenReturn(List.of(
+                offerProduct(1L, 100L), offerProduct(2L, 100L)));
+        when(offerCategoryRepository.findByOfferIdIn(anyCollection())).thenReturn(List.of(offerCategory(3L, 7L)));
+        when(productCategoryRepository.findByCategoryIdIn(anyCollection())).thenReturn(List.of(
+                new ProductCategory(200L, 7L, null, null)));
+        when(orderOfferRepository.findIndexableOrderOffers(any())).thenReturn(List.of());
+
+        assertThat(offerIndex.findProductOffers(100L, now)).containsExactly(productOffer);
+        assertThat(offerIndex.findCategoryOffers(200L, now)).containsExactly(categoryOffer);
+        assertThat(offerIndex.findCategoryOffers(100L, now)).isEmpty();
+
+        // built once, every lookup above answered from memory
+        verify(offerRepository, times(1)).findIndexableOffers(any());
+
+        // passing the start_at boundary of the future offer triggers a rebuild
+        assertThat(offerIndex.findProductOffers(100L, now.plusDays(1).plusHours(1))).containsExactly(futureOffer);
+        verify(offerRepository, times(2)).findIndexableOffers(any());
+    }
+
+    @Test
+    void listsProductsOnLiveOffersWithProductOffersFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        Offer productOffer = offer(1L, Offer.OfferType.PRODUCT, now.minusDays(1), now.plusDays(1));
+        Offer futureOffer = offer(2L, Offer.OfferType.PRODUCT, now.plusDays(1), now.plusDays(2));
+        Offer categoryOffer = offer(3L, Offer.OfferType.CATEGORY, now.minusDays(1), now.plusDays(1));
+
+        when(offerRepository.findIndexableOffers(any())).thenReturn(List.of(productOffer, futureOffer, categoryOffer));
+        when(offerProductRepository.findByOfferIdIn(anyCollection())).thenReturn(List.of(
+                offerProduct(1L, 100L), offerProduct(2L, 300L)));
+        when(offerCategoryRepository.findByOfferIdIn(anyCollection())).thenReturn(List.of(offerCategory(3L, 7L)));
+        when(productCategoryRepository.findByCategoryIdIn(anyCollection())).thenReturn(List.of(
+                new ProductCategory(200L, 7L, null, null), new ProductCategory(100L, 7L, null, null)));
+        when(orderOfferRepository.findIndexableOrderOffers(any())).thenReturn(List.of());
+
+        assertThat(offerIndex.findProductsOnOffer(now))
+                .containsExactly(entry(100L, productOffer), entry(200L, categoryOffer));
+    }
+
+    @Test
+    void returnsOrderOffersUpToSubtotalInThresholdOrder() {
+        LocalDateTime now = LocalDateTime.now();
+        OrderOffer high = orderOffer(offer(1L, Offer.OfferType.ORDER, now.minusDays(1), now.plusDays(1)), "200.00");
+        OrderOffer low = orderOffer(offer(2L, Offer.OfferType.ORDER, now.minusDays(1), now.plusDays(1)), "50.00");
+        OrderOffer mid = orderOffer(offer(3L, Offer.OfferType.ORDER, now.minusDays(1), now.plusDays(1)), "100.00");
+
+        when(offerRepository.findIndexableOffers(any())).thenReturn(List.of());
+        when(orderOfferRepository.findIndexableOrderOffers(any())).thenReturn(List.of(high, low, mid));
+
+        assertThat(offerIndex.findOrderOffers(new BigDecimal("120.00"), now)).containsExactly(low, mid);
+        assertThat(offerIndex.findOrderOffers(new BigDecimal("10.00"), now)).isEmpty();
+    }
+
+    @Test
+    void buildsTheSnapshotForTheRequestedTime() {
+        LocalDateTime at = LocalDateTime.of(2026, 1, 1, 10, 0);
+        Offer offer = offer(1L, Offer.OfferType.PRODUCT, at.minusHours(1), at.plusHours(1));
+        when(offerRepository.findIndexableOffers(at)).thenReturn(List.of(offer));
+        when(offerProductRepository.findByOfferIdIn(List.of(1L))).thenReturn(List.of(offerProduct(1L, 100L)));
+        when(orderOfferRepository.findIndexableOrderOffers(at)).thenReturn(List.of());
+
+        assertThat(offerIndex.findProductOffers(100L, at)).containsExactly(offer);
+        verify(offerRepository).findIndexableOffers(at);
+        verify(orderOfferRepository).findIndexableOrderOffers(at);
+    }
+
+    @Test
+    void invalidateForcesRebuildOnNextLookup() {
+        LocalDateTime now = LocalDateTime.now();
+        when(offerRepository.findIndexableOffers(any())).thenReturn(List.of());
+        when(orderOfferRepository.findIndexableOrderOffers(any())).thenReturn(List.of());
+
+        offerIndex.findProductOffers(1L, now);
+        offerIndex.findProductOffers(1L, now);
+        verify(offerRepository, times(1)).findIndexableOffers(any());
+
+        offerIndex.invalidate();
+        offerIndex.findProductOffers(1L, now);
+        verify(offerRepository, times(2)).findIndexableOffers(any());
+    }
+
+    private static Offer offer(Long id, Offer.OfferType type, LocalDateTime startAt, LocalDateTime endAt) {
+        return Offer.builder()
+                .id(id)
+                .offerType(type)
+                .discountType(Offer.DiscountType.PERCENTAGE)
+                .discountValue(BigDecimal.TEN)
+                .startAt(startAt)
+                .endAt(endAt)
+                .isActive(true)
+                .build();
+    }
+
+    private static OfferProduct offerProduct(Long offerId, Long productId) {
+        OfferProduct op = new OfferProduct();
+        op.setId(new OfferProduct.OfferProductId(offerId, productId));
+        return op;
+    }
+
+    private static OfferCategory offerCategory(Long offerId, Long categoryId) {
+        OfferCategory oc = new OfferCategory();
+        oc.setId(new OfferCategory.OfferCategoryId(offerId, categoryId));
+        return oc;
+    }
+
+    private static OrderOffer orderOffer(Offer offer, String minAmount) {
+        return OrderOffer.builder().offer(offer).minOrderAmount(new BigDecimal(minAmount)).build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.back_end.modules.publicapi.products.service;
+
+import com.example.back_end.modules.catalog.product.repository.ProductRepository;
+import com.example.back_end.modules.catalog.product.repository.projection.ProductSearchHitProjection;
+import com.example.back_end.modules.catalog.product.service.ProductSuggestionIndex;
+import com.example.back_end.modules.publicapi.products.dto.PublicProductListResponse;
+import com.example.back_end.modules.store_product.entity.StockSnapshot;
+import com.example.back_end.modules.store_product.repository.StockSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PublicProductServiceImplTest {
+
+    @Mock
+    ProductRepository productRepository;
+
+    @Mock
+    StockSnapshotRepository stockSnapshotRepository;
+
+    @Mock
+    ProductSuggestionIndex suggestionIndex;
+
+    @InjectMocks
+    PublicProductServiceImpl service;
+
+    @Test
+    void search_pushesLimitIntoQueryAndMapsHits() {
+        ProductSearchHitProjection hit = mock(ProductSearchHitProjection.class);
+        when(hit.getId()).thenReturn(1L);
+        when(hit.getName()).thenReturn("Fresh Milk 1L");
+        when(hit.getPrice()).thenReturn(new BigDecimal("5.50"));
+        when(hit.getAvailable()).thenReturn(true);
+        when(hit.getTotal()).thenReturn(42L);
+        when(productRepository.fuzzySearch("milke", 200)).thenReturn(List.of(hit));
+
+        PublicProductListResponse response = service.search("  milke ", 1000);
+
+        verify(productRepository).setWordSimilarityThreshold(0.25f);
+        assertThat(response.getTotal()).isEqualTo(42);
+        assertThat(response.getItems()).singleElement().satisfies(dto -> {
+            assertThat(dto.getId()).isEqualTo(1L);
+            assertThat(dto.getPrice()).isEqualByComparingTo("5.50");
+            assertThat(dto.getAvailable()).isTrue();
+        });
+        verifyNoInteractions(stockSnapshotRepository);
+    }
+
+    @Test
+    void suggestions_useStricterThresholdAndSmallerLimit() {
+        when(productRepository.fuzzySearch("mil", 50)).thenReturn(List.of());
+
+        PublicProductListResponse response = service.suggestions("mil", 80);
+
+        verify(productRepository).setWordSimilarityThreshold(0.30f);
+        assertThat(response.getItems()).isEmpty();
+        assertThat(response.getTotal()).isZero();
+    }
+
+    @Test
+    void suggestions_servedFromIndexWhenLoaded() {
+        when(suggestionIndex.isLoaded()).thenReturn(true);
+        when(suggestionIndex.suggest("milk", 0.30f, 10)).thenReturn(new ProductSuggestionIndex.Result(List.of(
+                new ProductSuggestionIndex.Suggestion(1L, "Fresh Milk 1L", new BigDecimal("5.50"), 1.8),
+                new ProductSuggestionIndex.Suggestion(2L, "Chocolate Milk", new BigDecimal("7.00"), 1.6)), 3));
+        when(stockSnapshotRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(StockSnapshot.builder()
+                .productId(1L).storeQty(BigDecimal.ONE).warehouseQty(BigDecimal.ZERO).build()));
+
+        PublicProductListResponse response = service.suggestions("milk", 10);
+
+        assertThat(response.getTotal()).isEqualTo(3);
+        assertThat(response.getItems()).extracting("id", "available")
+                .containsExactly(tuple(1L, true), tuple(2L, false));
+        verify(productRepository, never()).fuzzySearch(anyString(), anyInt());
+    }
+
+    @Test
+    void search_shortQuery_doesNotQuery() {
+        PublicProductListResponse response = service.search("m", 10);
+
+        assertThat(response.getItems()).isEmpty();
+        verify(productRepository, never()).fuzzySearch(anyString(), anyInt());
+    }
+}
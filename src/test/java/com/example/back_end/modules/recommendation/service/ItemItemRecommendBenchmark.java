@@ -0,0 +1,90 @@
+package com.example.back_end.modules.recommendation.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fallback ranking with the item-item model, memory-mapped from disk as in production:
+ * 20k products, 100k customers buying 12 products each (skewed towards popular products),
+ * 50 neighbors per product.
+ * - recommend: "For You" for a customer with 50 purchases in their history
+ * - popular: the "Popular" row
+ *
+ * Not part of the surefire run; start it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.back_end.modules.recommendation.service.ItemItemRecommendBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemItemRecommendBenchmark {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int CUSTOMERS = 100_000;
+    private static final int BASKET = 12;
+
+    private Path file;
+    private ItemItemModel model;
+    private long[] history;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        long[] customerIds = new long[CUSTOMERS * BASKET];
+        long[] productIds = new long[CUSTOMERS * BASKET];
+        int size = 0;
+        for (int c = 0; c < CUSTOMERS; c++) {
+            for (int k = 0; k < BASKET; k++) {
+                customerIds[size] = c;
+                productIds[size++] = skewed(random);
+            }
+        }
+        file = Files.createTempFile("item-item", ".bin");
+        new ItemItemTrainer(50).train(customerIds, productIds, size, ForkJoinPool.commonPool()).writeTo(file);
+        model = ItemItemModel.map(file);
+
+        history = new long[50];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = skewed(random);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<ItemItemModel.Scored> recommend() {
+        return model.recommend(history, 20);
+    }
+
+    @Benchmark
+    public List<ItemItemModel.Scored> popular() {
+        return model.popular(20);
+    }
+
+    private static long skewed(Random random) {
+        double u = random.nextDouble();
+        return (long) (PRODUCTS * u * u);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemItemRecommendBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.back_end.modules.recommendation.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ItemItemTrainerTest {
+
+    // customers 1..4; products 10 (bread), 20 (butter), 30 (jam), 40 (soap)
+    private static final long[] CUSTOMERS = {1, 1, 1, 2, 2, 3, 3, 3, 4};
+    private static final long[] PRODUCTS = {10, 20, 30, 10, 20, 10, 30, 10, 40};
+
+    private ItemItemModel train(ForkJoinPool pool) {
+        return new ItemItemTrainer(10).train(CUSTOMERS, PRODUCTS, CUSTOMERS.length, pool);
+    }
+
+    @Test
+    void similarity_isCosineOverCommonBuyers() {
+        ItemItemModel model = train(ForkJoinPool.commonPool());
+
+        assertThat(model.itemCount()).isEqualTo(4);
+        // bread: 3 buyers, butter: 2 buyers, both bought by 2 -> 2 / sqrt(6)
+        assertThat(model.similarTo(10)).extracting(ItemItemModel.Scored::productId).containsExactly(20L, 30L);
+        assertThat(model.similarTo(10).get(0).score()).isCloseTo((float) (2 / Math.sqrt(6)), within(1e-6f));
+        assertThat(model.similarTo(40)).isEmpty();
+    }
+
+    @Test
+    void recommend_sumsNeighborsOfHistoryAndSkipsOwnedProducts() {
+        ItemItemModel model = train(ForkJoinPool.commonPool());
+
+        assertThat(model.recommend(new long[]{20, 20}, 5))
+                .extracting(ItemItemModel.Scored::productId)
+                .containsExactly(10L, 30L);
+        assertThat(model.recommend(new long[]{10, 20, 30}, 5)).isEmpty();
+        assertThat(model.recommend(new long[]{999}, 5)).isEmpty();
+        assertThat(model.popular(2)).extracting(ItemItemModel.Scored::productId).containsExactly(10L, 20L);
+    }
+
+    @Test
+    void parallelTraining_matchesSingleThreaded() {
+        int customers = 2_000;
+        Random random = new Random(7);
+        long[] customerIds = new long[customers * 8];
+        long[] productIds = new long[customers * 8];
+        int size = 0;
+        for (int c = 0; c < customers; c++) {
+            for (int k = 0; k < 8; k++) {
+                customerIds[size] = c;
+                productIds[size++] = random.nextInt(500);
+            }
+        }
+
+        ItemItemModel single = new ItemItemTrainer(20).train(customerIds, productIds, size, new ForkJoinPool(1));
+        ItemItemModel parallel = new ItemItemTrainer(20).train(customerIds, productIds, size, new ForkJoinPool(4));
+
+        for (long productId = 0; productId < 500; productId++) {
+            assertThat(parallel.similarTo(productId)).isEqualTo(single.similarTo(productId));
+        }
+    }
+
+    @Test
+    void model_roundTripsThroughMappedFile(@TempDir Path dir) throws Exception {
+        ItemItemModel model = train(ForkJoinPool.commonPool());
+        Path file = dir.resolve("models/item-item.bin");
+
+        model.writeTo(file);
+        ItemItemModel mapped = ItemItemModel.map(file);
+
+        assertThat(mapped.itemCount()).isEqualTo(model.itemCount());
+        assertThat(mapped.trainedAt()).isEqualTo(model.trainedAt());
+        assertThat(mapped.similarTo(10)).isEqualTo(model.similarTo(10));
+        assertThat(mapped.popular(4)).isEqualTo(model.popular(4));
+        try (var files = Files.list(file.getParent())) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void map_rejectsOtherFiles(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[64]);
+
+        assertThatThrownBy(() -> ItemItemModel.map(file)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.back_end.modules.recommendation.service;
+
+import com.example.back_end.modules.recommendation.dto.RecommendationsResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final RecommendationCache cache =
+            new RecommendationCache(Duration.ofMinutes(1), Duration.ofMinutes(10), 2, clock::get);
+
+    private static RecommendationCache.Key key(long customerId) {
+        return new RecommendationCache.Key(customerId, 10, true);
+    }
+
+    @Test
+    void springCreatesTheComponentFromItsPublicConstructor() {
+        new ApplicationContextRunner()
+                .withInitializer(ctx -> ctx.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withPropertyValues("recommendation.gateway.cache.max-entries=2")
+                .withUserConfiguration(RecommendationCache.class)
+                .run(ctx -> assertThat(ctx).hasNotFailed().hasSingleBean(RecommendationCache.class));
+    }
+
+    @Test
+    void entry_isFreshThenStaleThenGone() {
+        RecommendationsResponseDTO response = new RecommendationsResponseDTO();
+        cache.put(key(1), response);
+
+        assertThat(cache.get(key(1))).isEqualTo(new RecommendationCache.Hit(response, false));
+
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        assertThat(cache.get(key(1))).isEqualTo(new RecommendationCache.Hit(response, true));
+
+        clock.addAndGet(Duration.ofMinutes(6).toNanos());
+        assertThat(cache.get(key(1))).isNull();
+    }
+
+    @Test
+    void evictCustomer_dropsEveryVariantOfThatCustomer() {
+        cache.put(new RecommendationCache.Key(1L, 10, true), new RecommendationsResponseDTO());
+        cache.put(new RecommendationCache.Key(1L, 10, false), new RecommendationsResponseDTO());
+
+        cache.evictCustomer(1L);
+
+        assertThat(cache.get(new RecommendationCache.Key(1L, 10, true))).isNull();
+        assertThat(cache.get(new RecommendationCache.Key(1L, 10, false))).isNull();
+    }
+
+    @Test
+    void leastRecentlyUsedEntry_isDroppedOverCapacity() {
+        cache.put(key(1), new RecommendationsResponseDTO());
+        cache.put(key(2), new RecommendationsResponseDTO());
+        cache.get(key(1));
+        cache.put(key(3), new RecommendationsResponseDTO());
+
+        assertThat(cache.get(key(1))).isNotNull();
+        assertThat(cache.get(key(2))).isNull();
+        assertThat(cache.get(key(3))).isNotNull();
+    }
+
+    @Test
+    void sharedRows_expireAfterTtl() {
+        RecommendationCache.SharedKey key = new RecommendationCache.SharedKey(10, true);
+        RecommendationCache.SharedRows rows = new RecommendationCache.SharedRows(List.of(), List.of());
+        cache.putShared(key, rows);
+
+        assertThat(cache.getShared(key)).isSameAs(rows);
+
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertThat(cache.getShared(key)).isNull();
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.back_end.modules.recommendation.service;
+
+import com.example.back_end.modules.offer.entity.Offer;
+import com.example.back_end.modules.offer.service.OfferIndex;
+import com.example.back_end.modules.recommendation.dto.OfferProductDTO;
+import com.example.back_end.modules.recommendation.dto.RecommendationItemDTO;
+import com.example.back_end.modules.recommendation.dto.RecommendationsResponseDTO;
+import com.example.back_end.modules.recommendation.repository.RecommendationRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the gateway against a local stub recommender (JDK HttpServer)
+ */
+class RecommendationsGatewayServiceTest {
+
+    private static final String BODY = """
+            {"status":"success","user_id":5,
+             "rows":{"for_you":[{"productId":1,"name":"Tea","score":0.9}],
+                     "popular":[{"productId":7,"name":"Coffee","score":0.8}],"offers":[]},
+             "meta":{"top_k":2,"num_for_you":1,"num_popular":0,"num_offers":0,
+                     "is_cold_start":false,"is_stale":false,"user_segment":"regular"}}
+            """;
+
+    private final OfferIndex offerIndex = mock(OfferIndex.class);
+    private final RecommendationRepository recommendationRepository = mock(RecommendationRepository.class);
+    private final ItemItemRecommender itemItemRecommender = mock(ItemItemRecommender.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicLong clock = new AtomicLong();
+    private final RecommendationCache cache =
+            new RecommendationCache(Duration.ofMinutes(1), Duration.ofMinutes(10), 100, clock::get);
+
+    private HttpServer server;
+    private volatile long delayMillis;
+    private volatile int status = 200;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/recommendations/pos/customers/", exchange -> {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        Offer percent = Offer.builder().id(1L).discountType(Offer.DiscountType.PERCENTAGE)
+                .discountValue(new BigDecimal("15")).build();
+        Offer fixed = Offer.builder().id(2L).discountType(Offer.DiscountType.FIXED_AMOUNT)
+                .discountValue(new BigDecimal("2.00")).build();
+        Map<Long, Offer> onOffer = new LinkedHashMap<>();
+        onOffer.put(10L, percent);
+        onOffer.put(20L, fixed);
+        when(offerIndex.findProductsOnOffer(any(LocalDateTime.class))).thenReturn(onOffer);
+        when(recommendationRepository.findActiveProductsInOrder(any(), anyInt())).thenReturn(List.of(
+                new OfferProductDTO(10L, "Milk", "Dairy", new BigDecimal("5.00")),
+                new OfferProductDTO(20L, "Bread", null, new BigDecimal("10.00"))));
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    private RecommendationsGatewayService service(Duration budget) {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .build();
+        return new RecommendationsGatewayService(webClient, offerIndex, recommendationRepository,
+                cache, itemItemRecommender, meterRegistry, budget, Duration.ofSeconds(5));
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter("recommendation.gateway.requests", "outcome", outcome).count();
+    }
+
+    @Test
+    void fastRecommender_isServedAndCached() {
+        RecommendationsGatewayService service = service(Duration.ofSeconds(2));
+
+        RecommendationsResponseDTO first = service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+        RecommendationsResponseDTO second = service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+
+        assertThat(first.getRows().getForYou()).extracting(RecommendationItemDTO::getProductId).containsExactly(1L);
+        assertThat(first.getMeta().getUserSegment()).isEqualTo("regular");
+        assertThat(second).isSameAs(first);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(outcome(RecommendationsGatewayService.OUTCOME_REMOTE)).isEqualTo(1);
+        assertThat(outcome(RecommendationsGatewayService.OUTCOME_CACHE_HIT)).isEqualTo(1);
+    }
+
+    @Test
+    void slowRecommender_answersWithFallbackWithinBudgetAndWarmsCache() throws InterruptedException {
+        delayMillis = 500;
+        RecommendationsGatewayService service = service(Duration.ofMillis(100));
+
+        long start = System.nanoTime();
+        RecommendationsResponseDTO response = service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(elapsedMillis).isLessThan(450);
+        assertThat(response.getMeta().getUserSegment()).isEqualTo("fallback");
+        assertThat(response.getRows().getOffers()).extracting(RecommendationItemDTO::getProductId)
+                .containsExactly(10L, 20L);
+        assertThat(response.getRows().getOffers().get(1).getOffer().getDiscountPercent()).isEqualTo(20);
+        assertThat(outcome(RecommendationsGatewayService.OUTCOME_TIMEOUT_FALLBACK)).isEqualTo(1);
+
+        // the remote call finishes in the background; later lookups join it or hit the cache
+        long deadline = System.currentTimeMillis() + 3_000;
+        RecommendationsResponseDTO next;
+        do {
+            Thread.sleep(50);
+            next = service.getRecommendations(5L, "Bearer t", 2, 50, true).block(Duration.ofSeconds(1));
+        } while (!"regular".equals(next.getMeta().getUserSegment()) && System.currentTimeMillis() < deadline);
+
+        assertThat(next.getMeta().getUserSegment()).isEqualTo("regular");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failingRecommender_answersWithFallback() {
+        status = 500;
+        RecommendationsGatewayService service = service(Duration.ofSeconds(2));
+
+        RecommendationsResponseDTO response = service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+
+        assertThat(response.getMeta().getUserSegment()).isEqualTo("fallback");
+        assertThat(outcome(RecommendationsGatewayService.OUTCOME_ERROR_FALLBACK)).isEqualTo(1);
+        verify(recommendationRepository, times(1)).findActiveProductsInOrder(any(), anyInt());
+    }
+
+    @Test
+    void staleEntry_isServedAndRefreshedInBackground() throws InterruptedException {
+        RecommendationsGatewayService service = service(Duration.ofSeconds(2));
+        RecommendationsResponseDTO first = service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+        delayMillis = 300;
+        long start = System.nanoTime();
+        RecommendationsResponseDTO stale = service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(stale).isSameAs(first);
+        assertThat(elapsedMillis).isLessThan(250);
+        assertThat(outcome(RecommendationsGatewayService.OUTCOME_STALE_HIT)).isEqualTo(1);
+
+        long deadline = System.currentTimeMillis() + 3_000;
+        while (calls.get() < 2 || cache.get(new RecommendationCache.Key(5L, 2, true)).stale()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+        RecommendationsResponseDTO refreshed = service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+        assertThat(refreshed).isNotSameAs(first);
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(outcome(RecommendationsGatewayService.OUTCOME_CACHE_HIT)).isEqualTo(1);
+    }
+
+    @Test
+    void purchase_evictsOnlyThatCustomer() {
+        RecommendationsGatewayService service = service(Duration.ofSeconds(2));
+        service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+        service.getRecommendations(6L, "Bearer t", 2, 50, true).block();
+
+        cache.evictCustomer(5L);
+
+        assertThat(cache.get(new RecommendationCache.Key(5L, 2, true))).isNull();
+        assertThat(cache.get(new RecommendationCache.Key(6L, 2, true))).isNotNull();
+    }
+
+    @Test
+    void customerIndependentRows_areSharedAcrossCustomers() {
+        RecommendationsGatewayService service = service(Duration.ofSeconds(2));
+
+        RecommendationsResponseDTO a = service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+        RecommendationsResponseDTO b = service.getRecommendations(6L, "Bearer t", 2, 50, true).block();
+
+        assertThat(a.getRows().getPopular()).extracting(RecommendationItemDTO::getProductId).containsExactly(7L);
+        assertThat(b.getRows().getPopular()).isSameAs(a.getRows().getPopular());
+        assertThat(b.getRows().getOffers()).isSameAs(a.getRows().getOffers());
+        assertThat(b.getRows().getForYou()).isNotSameAs(a.getRows().getForYou());
+        // offers were verified and completed once
+        verify(offerIndex, times(1)).findProductsOnOffer(any(LocalDateTime.class));
+    }
+
+    @Test
+    void failingRecommender_ranksFallbackWithItemItemModel() {
+        status = 500;
+        when(itemItemRecommender.recommendFor(5L, 4)).thenReturn(List.of(
+                new ItemItemModel.Scored(20L, 0.9f), new ItemItemModel.Scored(30L, 0.4f)));
+        when(itemItemRecommender.popular(4)).thenReturn(List.of(new ItemItemModel.Scored(30L, 1f)));
+        when(recommendationRepository.findActiveProductsInOrder(eq(List.of(20L, 30L)), eq(2))).thenReturn(List.of(
+                new OfferProductDTO(20L, "Bread", null, new BigDecimal("10.00")),
+                new OfferProductDTO(30L, "Jam", "Pantry", new BigDecimal("4.00"))));
+        when(recommendationRepository.findActiveProductsInOrder(eq(List.of(30L)), eq(2))).thenReturn(List.of(
+                new OfferProductDTO(30L, "Jam", "Pantry", new BigDecimal("4.00"))));
+        RecommendationsGatewayService service = service(Duration.ofSeconds(2));
+
+        RecommendationsResponseDTO response = service.getRecommendations(5L, "Bearer t", 2, 50, true).block();
+
+        assertThat(response.getRows().getForYou()).extracting(RecommendationItemDTO::getProductId)
+                .containsExactly(20L, 30L);
+        assertThat(response.getRows().getForYou()).extracting(RecommendationItemDTO::getHasOffer)
+                .containsExactly(true, false);
+        assertThat(response.getRows().getForYou().get(0).getScore()).isCloseTo(0.9, within(1e-6));
+        assertThat(response.getRows().getPopular()).extracting(RecommendationItemDTO::getProductId)
+                .containsExactly(30L);
+        assertThat(response.getRows().getOffers()).extracting(RecommendationItemDTO::getProductId)
+                .containsExactly(10L, 20L);
+        assertThat(response.getMeta().getIsColdStart()).isFalse();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.back_end.modules.recommendation.service;
+
+import com.example.back_end.modules.recommendation.repository.RecommendationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrainingExportServiceTest {
+
+    @Mock
+    private RecommendationRepository recommendationRepository;
+
+    @InjectMocks
+    private TrainingExportService trainingExportService;
+
+    private void purchaseEvents(long afterOrderId) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("order_id")).thenReturn(41L, 42L);
+            when(rs.getLong("user_id")).thenReturn(7L, 8L);
+            when(rs.getLong("product_id")).thenReturn(100L, 200L);
+            when(rs.getObject("event_time", LocalDateTime.class))
+                    .thenReturn(LocalDateTime.of(2025, 3, 1, 10, 0), (LocalDateTime) null);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(recommendationRepository).streamPurchaseEventsAfter(eq(afterOrderId), anyInt(), any());
+    }
+
+    @Test
+    void purchaseEvents_asNdjson_oneObjectPerLine() throws IOException {
+        purchaseEvents(40L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        trainingExportService.exportPurchaseEvents(40L, TrainingExportFormat.NDJSON, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"orderId":41,"userId":7,"productId":100,"eventTime":"2025-03-01T10:00:00"}
+                {"orderId":42,"userId":8,"productId":200,"eventTime":null}
+                """);
+    }
+
+    @Test
+    void productCatalog_asCsv_quotesOnlyWhenNeeded() throws IOException {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("product_id")).thenReturn(5L);
+            when(rs.getString("name")).thenReturn("Tea, \"green\"");
+            when(rs.getString("category_name")).thenReturn("Drinks");
+            when(rs.getString("type")).thenReturn("physical");
+            when(rs.getBigDecimal("current_price")).thenReturn(new BigDecimal("1E+1"));
+            when(rs.getBigDecimal("total_qty")).thenReturn(null);
+            handler.processRow(rs);
+            return null;
+        }).when(recommendationRepository).streamProductCatalogAfter(eq(0L), anyInt(), any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        trainingExportService.exportProductCatalog(0L, TrainingExportFormat.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "productId,name,categoryName,type,currentPrice,totalQty\r\n"
+                + "5,\"Tea, \"\"green\"\"\",Drinks,physical,10,\r\n");
+    }
+
+    @Test
+    void emptyExport_writesNothingButTheCsvHeader() throws IOException {
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        trainingExportService.exportCustomers(0L, TrainingExportFormat.NDJSON, ndjson);
+        trainingExportService.exportCustomers(0L, TrainingExportFormat.CSV, csv);
+
+        assertThat(ndjson.size()).isZero();
+        assertThat(csv.toString(StandardCharsets.UTF_8)).isEqualTo("userId,gender\r\n");
+    }
+
+    @Test
+    void clientDisconnect_surfacesAsIOException() {
+        purchaseEvents(0L);
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> trainingExportService.exportPurchaseEvents(0L, TrainingExportFormat.CSV, broken))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Broken pipe");
+    }
+
+    @Test
+    void unknownFormat_isRejected() {
+        assertThat(TrainingExportFormat.of("CSV")).isEqualTo(TrainingExportFormat.CSV);
+        assertThatThrownBy(() -> TrainingExportFormat.of("xml")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
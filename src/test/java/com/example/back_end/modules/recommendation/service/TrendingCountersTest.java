@@ -0,0 +1,188 @@
+package com.example.back_end.modules.recommendation.service;
+
+import com.example.back_end.modules.catalog.product.entity.Product;
+import com.example.back_end.modules.recommendation.repository.RecommendationRepository;
+import com.example.back_end.modules.sales.order.entity.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingCountersTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 30);
+
+    @Mock
+    private RecommendationRepository recommendationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TrendingCounters counters(LocalDate today) {
+        Clock clock = Clock.fixed(today.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+        return new TrendingCounters(recommendationRepository, transactionManager, 7, clock);
+    }
+
+    private static void sell(TrendingCounters counters, LocalDate day, long productId, String quantity) {
+        counters.apply(day.toEpochDay(), Map.of(productId, new BigDecimal(quantity)), 1);
+    }
+
+    private static List<Long> ids(List<TrendingCounters.Trend> trends) {
+        return trends.stream().map(TrendingCounters.Trend::productId).toList();
+    }
+
+    @Test
+    void top_sumsTheRequestedDaysOnly() {
+        TrendingCounters counters = counters(TODAY);
+        sell(counters, TODAY, 1L, "2");
+        sell(counters, TODAY.minusDays(1), 1L, "1");
+        sell(counters, TODAY.minusDays(5), 2L, "10");
+        sell(counters, TODAY.minusDays(7), 3L, "50"); // outside the retention
+
+        assertThat(ids(counters.top(2, 10, 0))).containsExactly(1L);
+        assertThat(counters.top(2, 10, 0).get(0).quantity()).isEqualTo(3.0);
+        assertThat(ids(counters.top(7, 10, 0))).containsExactly(2L, 1L);
+        assertThat(ids(counters.top(7, 1, 0))).containsExactly(2L);
+        assertThatThrownBy(() -> counters.top(8, 10, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void top_withHalfLife_favoursRecentSales() {
+        TrendingCounters counters = counters(TODAY);
+        sell(counters, TODAY, 1L, "4");
+        sell(counters, TODAY.minusDays(4), 2L, "10");
+
+        // 10 sold four days ago with a two day half-life weighs 2.5
+        List<TrendingCounters.Trend> top = counters.top(7, 10, 2);
+        assertThat(ids(top)).containsExactly(1L, 2L);
+        assertThat(top.get(1).quantity()).isEqualTo(2.5);
+    }
+
+    @Test
+    void slotReusedByANewDay_forgetsTheOldOne() {
+        TrendingCounters counters = counters(TODAY.plusDays(7));
+        sell(counters, TODAY, 1L, "5"); // 7 days before "today": no longer retained
+        sell(counters, TODAY.plusDays(7), 2L, "1");
+
+        assertThat(ids(counters.top(7, 10, 0))).containsExactly(2L);
+    }
+
+    @Test
+    void removedSales_leaveTheRanking() {
+        TrendingCounters counters = counters(TODAY);
+        sell(counters, TODAY, 1L, "3");
+        sell(counters, TODAY, 2L, "1");
+
+        counters.removeSale(TODAY.atTime(10, 0), Map.of(1L, new BigDecimal("3")));
+
+        assertThat(ids(counters.top(1, 10, 0))).containsExactly(2L);
+    }
+
+    @Test
+    void reseed_loadsDailyTotalsAndKeepsSalesMadeMeanwhile() throws Exception {
+        TrendingCounters counters = counters(TODAY);
+        sell(counters, TODAY, 9L, "100"); // before the seed: replaced by it
+        doAnswer(invocation -> {
+            // a sale committed while the seed query runs
+            sell(counters, TODAY, 2L, "4");
+            RowCallbackHandler handler = invocation.getArgument(2);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getObject("day", Date.class)).thenReturn(Date.valueOf(TODAY), Date.valueOf(TODAY.minusDays(1)));
+            when(rs.getLong("product_id")).thenReturn(1L, 2L);
+            when(rs.getDouble("quantity")).thenReturn(5.0, 2.0);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(recommendationRepository).streamDailyPurchaseQuantities(eq(TODAY.minusDays(6)), anyInt(), any());
+
+        assertThat(counters.isLoaded()).isFalse();
+        counters.reseed();
+
+        assertThat(counters.isLoaded()).isTrue();
+        assertThat(counters.top(7, 10, 0)).containsExactly(
+                new TrendingCounters.Trend(2L, 6.0), new TrendingCounters.Trend(1L, 5.0));
+    }
+
+    @Test
+    void reseed_doesNotReplaySalesTheSnapshotAlreadyHolds() throws Exception {
+        TrendingCounters counters = counters(TODAY);
+        doAnswer(invocation -> {
+            // a sale committed before the seed transaction took its snapshot
+            sell(counters, TODAY, 3L, "7");
+            return null;
+        }).when(recommendationRepository).takeSnapshot();
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getObject("day", Date.class)).thenReturn(Date.valueOf(TODAY));
+            when(rs.getLong("product_id")).thenReturn(3L);
+            when(rs.getDouble("quantity")).thenReturn(7.0);
+            handler.processRow(rs);
+            return null;
+        }).when(recommendationRepository).streamDailyPurchaseQuantities(eq(TODAY.minusDays(6)), anyInt(), any());
+
+        counters.reseed();
+
+        assertThat(counters.top(7, 10, 0)).containsExactly(new TrendingCounters.Trend(3L, 7.0));
+    }
+
+    @Test
+    void manyProducts_growTheCounters() {
+        TrendingCounters counters = counters(TODAY);
+        for (long productId = 1; productId <= 1_000; productId++) {
+            sell(counters, TODAY.minusDays(productId % 7), productId, String.valueOf(productId));
+        }
+
+        assertThat(ids(counters.top(7, 3, 0))).containsExactly(1_000L, 999L, 998L);
+    }
+
+    @Test
+    void springCreatesTheComponentFromItsPublicConstructor() {
+        new ApplicationContextRunner()
+                .withBean(RecommendationRepository.class, () -> recommendationRepository)
+                .withBean(PlatformTransactionManager.class, () -> transactionManager)
+                .withUserConfiguration(TrendingCounters.class)
+                .run(ctx -> assertThat(ctx).hasNotFailed().hasSingleBean(TrendingCounters.class));
+    }
+
+    @Test
+    void quantitiesByProduct_sumsLinesPerProductAndSkipsLinesWithoutProduct() {
+        assertThat(TrendingCounters.quantitiesByProduct(List.of(
+                line(1L, "2"), line(2L, "1.5"), line(1L, "3"), line(null, "4"))))
+                .containsOnly(Map.entry(1L, new BigDecimal("5")), Map.entry(2L, new BigDecimal("1.5")));
+    }
+
+    private static OrderItem line(Long productId, String qty) {
+        OrderItem item = new OrderItem();
+        if (productId != null) {
+            Product product = new Product();
+            product.setId(productId);
+            item.setProduct(product);
+        }
+        item.setQuantity(new BigDecimal(qty));
+        return item;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.back_end.modules.sales.order.service;
+
+import com.example.back_end.modules.catalog.product.entity.Product;
+import com.example.back_end.modules.offer.dto.BundleApplicationResult;
+import com.example.back_end.modules.offer.dto.OfferApplicationResult;
+import com.example.back_end.modules.offer.entity.Offer;
+import com.example.back_end.modules.offer.service.BundleOfferService;
+import com.example.back_end.modules.offer.service.CategoryOfferService;
+import com.example.back_end.modules.offer.service.OfferEngine;
+import com.example.back_end.modules.offer.service.OfferIndex;
+import com.example.back_end.modules.offer.service.ProductOfferService;
+import com.example.back_end.modules.sales.order.entity.Order;
+import com.example.back_end.modules.sales.order.entity.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BasketPricingEngineTest {
+
+    @Mock
+    ProductOfferService productOfferService;
+
+    @Mock
+    CategoryOfferService categoryOfferService;
+
+    @Mock
+    BundleOfferService bundleOfferService;
+
+    @Mock
+    OfferEngine offerEngine;
+
+    @Mock
+    OfferIndex offerIndex;
+
+    @InjectMocks
+    BasketPricingEngine engine;
+
+    @Test
+    void repricesOnlyChangedLineAndReturnsItAsDirty() {
+        Order order = new Order();
+        order.setId(1L);
+        OrderItem untouched = item(10L, 100L, "2.00", "5.00", "10.00");
+        OrderItem changed = item(11L, 101L, "3.00", "4.00", "8.00");
+
+        when(bundleOfferService.detectAndApplyBundles(anyList())).thenReturn(BundleApplicationResult.empty());
+        when(productOfferService.findBestProductOffer(eq(101L), any(), any())).thenReturn(Optional.empty());
+        when(categoryOfferService.findBestCategoryOffer(eq(101L), any(), any())).thenReturn(Optional.empty());
+        when(offerEngine.applyOrderOffer(any(), any())).thenAnswer(inv -> {
+            ((Order) inv.getArgument(0)).setDiscountAmount(BigDecimal.ZERO);
+            return new OfferApplicationResult();
+        });
+
+        List<OrderItem> dirty = engine.reprice(order, List.of(untouched, changed), 11L);
+
+        assertThat(dirty).containsExactly(changed);
+        assertThat(changed.getLineTotal()).isEqualByComparingTo("12.00");
+        assertThat(order.getSubtotal()).isEqualByComparingTo("22.00");
+        assertThat(order.getTaxAmount()).isEqualByComparingTo("2.20");
+        assertThat(order.getGrandTotal()).isEqualByComparingTo("24.20");
+
+        verify(productOfferService, never()).findBestProductOffer(eq(100L), any(), any());
+    }
+
+    @Test
+    void lineLeavingBundleIsRepricedAndMarkedDirty() {
+        Order order = new Order();
+        order.setId(1L);
+        OrderItem formerBundleLine = item(10L, 100L, "1.00", "10.00", "8.00");
+        formerBundleLine.setOfferId(50L);
+        formerBundleLine.setLineDiscount(new BigDecimal("2.00"));
+
+        Offer bundleOffer = Offer.builder().id(50L).offerType(Offer.OfferType.BUNDLE).build();
+
+        when(bundleOfferService.detectAndApplyBundles(anyList())).thenReturn(BundleApplicationResult.empty());
+        when(offerIndex.findLiveOffer(eq(50L), any())).thenReturn(bundleOffer);
+        when(productOfferService.findBestProductOffer(eq(100L), any(), any())).thenReturn(Optional.empty());
+        when(categoryOfferService.findBestCategoryOffer(eq(100L), any(), any())).thenReturn(Optional.empty());
+        when(offerEngine.applyOrderOffer(any(), any())).thenReturn(new OfferApplicationResult());
+
+        List<OrderItem> dirty = engine.reprice(order, List.of(formerBundleLine), null);
+
+        assertThat(dirty).containsExactly(formerBundleLine);
+        assertThat(formerBundleLine.getOfferId()).isNull();
+        assertThat(formerBundleLine.getLineTotal()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void untouchedLineWithoutOfferPicksUpOfferThatStartedMidBasket() {
+        Order order = new Order();
+        order.setId(1L);
+        OrderItem untouched = item(10L, 100L, "2.00", "5.00", "10.00");
+        OrderItem changed = item(11L, 101L, "1.00", "4.00", "4.00");
+
+        Offer productOffer = Offer.builder().id(60L).offerType(Offer.OfferType.PRODUCT).title("Promo").build();
+
+        when(bundleOfferService.detectAndApplyBundles(anyList())).thenReturn(BundleApplicationResult.empty());
+        when(offerIndex.findProductOffers(eq(100L), any())).thenReturn(List.of(productOffer));
+        when(productOfferService.findBestProductOffer(eq(100L), any(), any())).thenReturn(Optional.of(productOffer));
+        when(productOfferService.calculateProductOfferDiscount(eq(productOffer), any(), any()))
+                .thenReturn(new BigDecimal("1.00"));
+        when(productOfferService.findBestProductOffer(eq(101L), any(), any())).thenReturn(Optional.empty());
+        when(categoryOfferService.findBestCategoryOffer(eq(101L), any(), any())).thenReturn(Optional.empty());
+        when(offerEngine.applyOrderOffer(any(), any())).thenReturn(new OfferApplicationResult());
+
+        List<OrderItem> dirty = engine.reprice(order, List.of(untouched, changed), 11L);
+
+        assertThat(dirty).containsExactly(untouched, changed);
+        assertThat(untouched.getOfferId()).isEqualTo(60L);
+        assertThat(untouched.getLineTotal()).isEqualByComparingTo("9.00");
+    }
+
+    @Test
+    void bundleDiscountIsAppliedToBundleLines() {
+        Order order = new Order();
+        order.setId(1L);
+        OrderItem a = item(10L, 100L, "1.00", "10.00", "10.00");
+        OrderItem b = item(11L, 101L, "1.00", "10.00", "10.00");
+
+        BundleApplicationResult bundle = BundleApplicationResult.empty();
+        bundle.setBundleApplied(true);
+        bundle.setOfferId(50L);
+        bundle.setItemDiscounts(Map.of(10L, new BigDecimal("1.00"), 11L, new BigDecimal("1.00")));
+        bundle.getItemOfferIds().put(10L, 50L);
+        bundle.getItemOfferIds().put(11L, 51L);
+
+        when(bundleOfferService.detectAndApplyBundles(anyList())).thenReturn(bundle);
+        when(offerEngine.applyOrderOffer(any(), any())).thenReturn(new OfferApplicationResult());
+
+        List<OrderItem> dirty = engine.reprice(order, List.of(a, b), 11L);
+
+        assertThat(dirty).containsExactly(a, b);
+        assertThat(a.getOfferId()).isEqualTo(50L);
+        assertThat(b.getOfferId()).isEqualTo(51L);
+        assertThat(a.getLineTotal()).isEqualByComparingTo("9.00");
+        assertThat(order.getSubtotal()).isEqualByComparingTo("18.00");
+        verifyNoInteractions(productOfferService, categoryOfferService);
+    }
+
+    private static OrderItem item(Long id, Long productId, String qty, String unitPrice, String lineTotal) {
+        Product product = new Product();
+        product.setId(productId);
+
+        OrderItem item = new OrderItem();
+        item.setId(id);
+        item.setProduct(product);
+        item.setQuantity(new BigDecimal(qty));
+        item.setUnitPrice(new BigDecimal(unitPrice));
+        item.setLineDiscount(BigDecimal.ZERO);
+        item.setTaxAmount(BigDecimal.ZERO);
+        item.setLineTotal(new BigDecimal(lineTotal));
+        return item;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.back_end.modules.sales.returns.service;
 
 import com.example.back_end.exception.BusinessRuleException;
 import com.example.back_end.modules.cashier.entity.Session;
+import com.example.back_end.modules.recommendation.service.TrendingCounters;
 import com.example.back_end.modules.sales.order.entity.Order;
 import com.example.back_end.modules.sales.order.entity.OrderItem;
 import com.example.back_end.modules.sales.order.repository.OrderItemRepository;
@@ -11,6 +12,7 @@ import com.example.back_end.modules.sales.payment.repository.PaymentRepository;
 import com.example.back_end.modules.sales.returns.config.ReturnProperties;
 import com.example.back_end.modules.sales.returns.dto.ReturnDTO;
 import com.example.back_end.modules.sales.returns.repository.ReturnItemRepository;
+import com.example.back_end.modules.stock.service.StockPostingDispatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -48,6 +50,12 @@ class ReturnServiceTest {
     @Mock
     com.example.back_end.modules.cashier.repository.SessionRepository sessionRepository;
 
+    @Mock
+    StockPostingDispatcher stockPostingDispatcher;
+
+    @Mock
+    TrendingCounters trendingCounters;
+
     ReturnProperties returnProperties;
 
     @InjectMocks
@@ -63,7 +71,7 @@ class ReturnServiceTest {
         this.returnProperties = props;
 
         // re-create service manually to inject ReturnProperties
-        returnService = new ReturnService(orderRepository, orderItemRepository, returnItemRepository, paymentRepository, sessionRepository, returnProperties);
+        returnService = new ReturnService(orderRepository, orderItemRepository, returnItemRepository, paymentRepository, sessionRepository, returnProperties, stockPostingDispatcher, trendingCounters);
     }
 
     @Test
@@ -101,6 +109,8 @@ class ReturnServiceTest {
         assertThat(savedReturn.getCustomerId()).isNull();
         assertThat(savedReturn.getParentOrderId()).isEqualTo(10L);
         assertThat(savedReturn.getStatus()).isEqualTo(Order.OrderStatus.RETURNED);
+
+        verify(stockPostingDispatcher).returnCompleted(999L);
     }
 
     @Test
@@ -127,6 +137,8 @@ class ReturnServiceTest {
         assertThatThrownBy(() -> returnService.createReturn(req))
                 .isInstanceOf(BusinessRuleException.class)
                 .hasMessageContaining("exceeds remaining");
+
+        verifyNoInteractions(stockPostingDispatcher);
     }
 
     @Test
@@ -238,6 +250,8 @@ class ReturnServiceTest {
 
         assertThat(lastOriginalSave).isNotNull();
         assertThat(lastOriginalSave.getStatus()).isEqualTo(Order.OrderStatus.RETURNED);
+        // the order left trending once, when it stopped being PAID
+        verify(trendingCounters, times(1)).removeSale(eq(original.getPaidAt()), anyMap());
     }
 
     private static Order paidOrderWithCustomer(Long customerId) {
@@ -0,0 +1,114 @@
+package com.example.back_end.modules.stock.repository;
+
+import com.example.back_end.modules.stock.repository.StockPostingRepository.UnpostedOrder;
+import com.example.back_end.modules.stock.service.StockPostingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stock posting SQL against the Flyway-migrated schema: sales are posted whatever the store
+ * stock, returns wait for the sale of their original order.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StockPostingRepository.class, StockPostingService.class})
+@Testcontainers(disabledWithoutDocker = true)
+class StockPostingRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    StockPostingRepository stockPostingRepository;
+
+    @Autowired
+    StockPostingService stockPostingService;
+
+    @Test
+    void saleWithoutOrShortSnapshotIsPostedAndTakesStoreBelowZero() {
+        long unstocked = createProduct("POST-NONE");
+        long shortStock = createProduct("POST-SHORT");
+        jdbcTemplate.update("INSERT INTO stock_snapshot (product_id, store_qty, warehouse_qty) VALUES (?, 2, 0)", shortStock);
+        long order = createPaidOrder("POST-1", null, unstocked, shortStock);
+
+        assertThat(stockPostingService.postSale(order)).isTrue();
+
+        assertThat(isPosted(order)).isTrue();
+        assertThat(storeQty(unstocked)).isEqualByComparingTo("-3");
+        assertThat(storeQty(shortStock)).isEqualByComparingTo("-1");
+        assertThat(stockPostingService.postSale(order)).isFalse();
+    }
+
+    @Test
+    void returnWaitsForTheSaleOfItsOriginalOrder() {
+        long product = createProduct("POST-RET");
+        long order = createPaidOrder("POST-2", null, product);
+        long returnOrder = createPaidOrder("POST-2-RET", order);
+        jdbcTemplate.update("UPDATE orders SET created_at = now() - interval '1 hour' WHERE id = ?",
+                returnOrder);
+
+        // the sale is unposted: the return is neither claimed nor listed by the sweep
+        assertThat(stockPostingRepository.claimReturn(returnOrder)).isNull();
+        assertThat(stockPostingRepository.findUnpostedOrders(0, 100))
+                .extracting(UnpostedOrder::orderId).contains(order).doesNotContain(returnOrder);
+
+        stockPostingService.postSale(order);
+
+        assertThat(stockPostingRepository.findUnpostedOrders(0, 100))
+                .extracting(UnpostedOrder::orderId).contains(returnOrder);
+        assertThat(stockPostingRepository.claimReturn(returnOrder)).isEqualTo(order);
+    }
+
+    private long createProduct(String sku) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO products (sku, name, default_cost, default_price) VALUES (?, ?, 1.00, 2.00) RETURNING id
+                """, Long.class, sku, sku);
+    }
+
+    /**
+     * Paid sale selling 3 of each product, or (with a parent) a RETURNED return order without lines
+     */
+    private long createPaidOrder(String orderNumber, Long parentOrderId, long... productIds) {
+        long orderId = jdbcTemplate.queryForObject("""
+                INSERT INTO orders (order_number, subtotal, grand_total, status, paid_at, parent_order_id)
+                VALUES (?, 0, 0, ?, now() - interval '1 hour', ?)
+                RETURNING id
+                """, Long.class, orderNumber, parentOrderId == null ? "PAID" : "RETURNED", parentOrderId);
+        for (long productId : productIds) {
+            jdbcTemplate.update("""
+                    INSERT INTO order_items (order_id, product_id, quantity, unit_price, line_total)
+                    VALUES (?, ?, 3, 2.00, 6.00)
+                    """, orderId, productId);
+        }
+        return orderId;
+    }
+
+    private boolean isPosted(long orderId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT stock_posted_at IS NOT NULL FROM orders WHERE id = ?", Boolean.class, orderId));
+    }
+
+    private BigDecimal storeQty(long productId) {
+        List<BigDecimal> rows = jdbcTemplate.queryForList(
+                "SELECT store_qty FROM stock_snapshot WHERE product_id = ?", BigDecimal.class, productId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.back_end.modules.stock.service;
+
+import com.example.back_end.modules.stock.entity.InventoryBatch;
+import com.example.back_end.modules.stock.entity.InventoryMovement;
+import com.example.back_end.modules.stock.entity.InventoryMovementBatch;
+import com.example.back_end.modules.stock.repository.InventoryBatchRepository;
+import com.example.back_end.modules.stock.repository.InventoryMovementBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryBatchLedgerTest {
+
+    @Mock
+    InventoryBatchRepository batchRepository;
+
+    @Mock
+    InventoryMovementBatchRepository movementBatchRepository;
+
+    @InjectMocks
+    InventoryBatchLedger ledger;
+
+    @Test
+    void transferTakesEarliestBatchesFirstAndMovesBalanceToStore() {
+        InventoryBatch early = batch(10L, "3", LocalDate.of(2026, 1, 1));
+        InventoryBatch late = batch(11L, "10", LocalDate.of(2026, 6, 1));
+        when(batchRepository.lockWarehouseFifo(1L)).thenReturn(List.of(early, late));
+        when(batchRepository.applyBalanceDelta(anyLong(), any(), any())).thenReturn(1);
+
+        BigDecimal unallocated = ledger.transferToStore(1L, movement(100L), bd("5"));
+
+        assertThat(unallocated).isEqualByComparingTo("0");
+        verify(batchRepository).applyBalanceDelta(10L, bd("-3"), bd("3"));
+        verify(batchRepository).applyBalanceDelta(11L, bd("-2"), bd("2"));
+
+        ArgumentCaptor<InventoryMovementBatch> links = ArgumentCaptor.forClass(InventoryMovementBatch.class);
+        verify(movementBatchRepository, times(2)).save(links.capture());
+        assertThat(links.getAllValues()).extracting(InventoryMovementBatch::getQty)
+                .containsExactly(bd("3"), bd("2"));
+    }
+
+    @Test
+    void transferOfMixedStockLinksWhatBatchesCoverAndReturnsTheRest() {
+        // 10 received with an expiration date (one batch), 5 without (no batch): warehouse_qty 15
+        when(batchRepository.lockWarehouseFifo(1L)).thenReturn(List.of(batch(10L, "10", LocalDate.of(2026, 1, 1))));
+        when(batchRepository.applyBalanceDelta(10L, bd("-10"), bd("10"))).thenReturn(1);
+
+        BigDecimal unallocated = ledger.transferToStore(1L, movement(100L), bd("12"));
+
+        assertThat(unallocated).isEqualByComparingTo("2");
+        ArgumentCaptor<InventoryMovementBatch> links = ArgumentCaptor.forClass(InventoryMovementBatch.class);
+        verify(movementBatchRepository).save(links.capture());
+        assertThat(links.getValue().getQty()).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void transferFailsWhenBatchBalanceCannotBeMoved() {
+        when(batchRepository.lockWarehouseFifo(1L)).thenReturn(List.of(batch(10L, "5", null)));
+        when(batchRepository.applyBalanceDelta(10L, bd("-5"), bd("5"))).thenReturn(0);
+
+        assertThatThrownBy(() -> ledger.transferToStore(1L, movement(100L), bd("5")))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(movementBatchRepository, never()).save(any());
+    }
+
+    @Test
+    void transferOfProductWithoutBatchStockLinksNothing() {
+        when(batchRepository.lockWarehouseFifo(1L)).thenReturn(List.of());
+
+        assertThat(ledger.transferToStore(1L, movement(100L), bd("5"))).isEqualByComparingTo("5");
+
+        verifyNoInteractions(movementBatchRepository);
+    }
+
+    @Test
+    void wasteBeyondBatchBalanceIsRejectedWithoutLink() {
+        when(batchRepository.applyBalanceDelta(10L, bd("-4"), BigDecimal.ZERO)).thenReturn(0);
+
+        assertThatThrownBy(() -> ledger.waste(batch(10L, "3", null), movement(100L), bd("4")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Available quantity in batch: 3");
+
+        verify(movementBatchRepository, never()).save(any());
+    }
+
+    private static InventoryBatch batch(Long id, String remaining, LocalDate expirationDate) {
+        return InventoryBatch.builder().id(id).remainingQty(bd(remaining)).expirationDate(expirationDate).build();
+    }
+
+    private static InventoryMovement movement(Long id) {
+        return InventoryMovement.builder().id(id).build();
+    }
+
+    private static BigDecimal bd(String v) {
+        return new BigDecimal(v);
+    }
+}
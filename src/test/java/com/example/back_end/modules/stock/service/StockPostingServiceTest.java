@@ -0,0 +1,111 @@
+package com.example.back_end.modules.stock.service;
+
+import com.example.back_end.modules.stock.repository.StockPostingRepository;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchAllocation;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchBalance;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.PostedMovement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockPostingServiceTest {
+
+    @Mock
+    StockPostingRepository stockPostingRepository;
+
+    @InjectMocks
+    StockPostingService stockPostingService;
+
+    @Test
+    void postsSaleWithFifoBatchLinksAndOneSnapshotUpdate() {
+        when(stockPostingRepository.claimSale(5L)).thenReturn(true);
+        when(stockPostingRepository.insertSaleMovements(5L)).thenReturn(List.of(
+                new PostedMovement(100L, 1L, bd("5")),
+                new PostedMovement(101L, 2L, bd("1"))));
+        when(stockPostingRepository.applySaleSnapshotDeltas(5L)).thenReturn(List.of());
+        // product 1: earliest batch 10 has 3 left, then batch 11
+        when(stockPostingRepository.findStoreBatchBalances(5L)).thenReturn(List.of(
+                new BatchBalance(10L, 1L, bd("3")),
+                new BatchBalance(11L, 1L, bd("10")),
+                new BatchBalance(20L, 2L, bd("4"))));
+
+        assertThat(stockPostingService.postSale(5L)).isTrue();
+
+        verify(stockPostingRepository).insertBatchAllocations(List.of(
+                new BatchAllocation(100L, 10L, bd("3")),
+                new BatchAllocation(100L, 11L, bd("2")),
+                new BatchAllocation(101L, 20L, bd("1"))));
+        verify(stockPostingRepository).applyStoreBalanceDeltas(anyList(), eq(-1));
+        verify(stockPostingRepository, times(1)).applySaleSnapshotDeltas(5L);
+    }
+
+    @Test
+    void alreadyPostedSaleIsSkipped() {
+        when(stockPostingRepository.claimSale(5L)).thenReturn(false);
+
+        assertThat(stockPostingService.postSale(5L)).isFalse();
+
+        verify(stockPostingRepository, never()).insertSaleMovements(any());
+        verify(stockPostingRepository, never()).applySaleSnapshotDeltas(any());
+    }
+
+    @Test
+    void saleBeyondStoreStockIsStillPostedWithUncoveredQuantityUnlinked() {
+        when(stockPostingRepository.claimSale(5L)).thenReturn(true);
+        when(stockPostingRepository.insertSaleMovements(5L)).thenReturn(List.of(
+                new PostedMovement(100L, 1L, bd("5")),
+                new PostedMovement(101L, 2L, bd("1"))));
+        // product 1 had only 2 in store, product 2 had no snapshot row at all
+        when(stockPostingRepository.applySaleSnapshotDeltas(5L)).thenReturn(List.of(1L, 2L));
+        when(stockPostingRepository.findStoreBatchBalances(5L)).thenReturn(List.of(
+                new BatchBalance(10L, 1L, bd("2"))));
+
+        assertThat(stockPostingService.postSale(5L)).isTrue();
+
+        verify(stockPostingRepository).insertBatchAllocations(List.of(
+                new BatchAllocation(100L, 10L, bd("2"))));
+        verify(stockPostingRepository).applyStoreBalanceDeltas(anyList(), eq(-1));
+    }
+
+    @Test
+    void returnWaitsWhileItsSaleIsNotPosted() {
+        // claimReturn does not claim a return whose original sale has no stock_posted_at
+        when(stockPostingRepository.claimReturn(9L)).thenReturn(null);
+
+        assertThat(stockPostingService.postReturn(9L)).isFalse();
+
+        verify(stockPostingRepository, never()).insertReturnMovements(any());
+        verify(stockPostingRepository, never()).applySnapshotDeltas(any(), any());
+    }
+
+    @Test
+    void returnGoesBackToBatchesOfOriginalSale() {
+        when(stockPostingRepository.claimReturn(9L)).thenReturn(5L);
+        when(stockPostingRepository.insertReturnMovements(9L)).thenReturn(List.of(
+                new PostedMovement(200L, 1L, bd("4"))));
+        when(stockPostingRepository.findReturnableBatchBalances(5L)).thenReturn(List.of(
+                new BatchBalance(10L, 1L, bd("3")),
+                new BatchBalance(11L, 1L, bd("2"))));
+
+        assertThat(stockPostingService.postReturn(9L)).isTrue();
+
+        verify(stockPostingRepository).insertBatchAllocations(List.of(
+                new BatchAllocation(200L, 10L, bd("3")),
+                new BatchAllocation(200L, 11L, bd("1"))));
+        verify(stockPostingRepository).applyStoreBalanceDeltas(anyList(), eq(1));
+        verify(stockPostingRepository).applySnapshotDeltas("RETURN", 9L);
+    }
+
+    private static BigDecimal bd(String v) {
+        return new BigDecimal(v);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.back_end.modules.store_product.repository;
+
+import com.example.back_end.modules.stock.repository.InventoryBulkRepository;
+import com.example.back_end.modules.stock.service.InventoryBatchLedger;
+import com.example.back_end.modules.store_product.dto.StoreTransferRequestDTO;
+import com.example.back_end.modules.store_product.service.StoreProductBulkProcessor;
+import com.example.back_end.modules.store_product.service.StoreProductService;
+import com.example.back_end.modules.store_product.service.StoreProductServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers one product's snapshot from many threads against the Flyway-migrated schema and
+ * checks that the snapshot (and the batch balances) still equal the movement ledger:
+ * - directly through the repository, each movement and its snapshot delta in one transaction
+ * - through StoreProductServiceImpl warehouse -> store transfers
+ *
+ * Every test commits, so each one works on a product of its own.
+ */
+@DataJpaTest(properties = "spring.datasource.hikari.maximum-pool-size=" + (StockSnapshotDeltaRepositoryConcurrencyTest.THREADS + 4))
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({StockSnapshotDeltaRepository.class, StoreProductServiceImpl.class, InventoryBatchLedger.class,
+        StoreProductBulkProcessor.class, InventoryBulkRepository.class})
+@Testcontainers(disabledWithoutDocker = true)
+class StockSnapshotDeltaRepositoryConcurrencyTest {
+
+    static final int THREADS = 32;
+    private static final int OPERATIONS_PER_THREAD = 50;
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    StockSnapshotDeltaRepository repository;
+
+    @Autowired
+    StoreProductService storeProductService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void snapshotMatchesMovementLedgerUnderConcurrentUpdates() throws Exception {
+        long productId = createProduct("DELTA-REPO");
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(random -> {
+            // mostly decreases so the non-negative guard is exercised
+            BigDecimal storeDelta = BigDecimal.valueOf(random.nextInt(1, 6) * (random.nextInt(3) == 0 ? 1 : -1));
+            BigDecimal warehouseDelta = BigDecimal.valueOf(random.nextInt(0, 3));
+
+            tx.executeWithoutResult(status -> {
+                insertMovement(productId, "STORE", storeDelta);
+                insertMovement(productId, "WAREHOUSE", warehouseDelta);
+                if (repository.applyDelta(productId, storeDelta, warehouseDelta).isEmpty()) {
+                    rejected.incrementAndGet();
+                    status.setRollbackOnly();
+                }
+            });
+        });
+
+        assertSnapshotMatchesLedger(productId);
+        assertThat(storeQty(productId).signum()).isGreaterThanOrEqualTo(0);
+        assertThat(rejected.get()).isPositive();
+    }
+
+    @Test
+    void concurrentServiceTransfersNeverOverdrawTheWarehouse() throws Exception {
+        long productId = createProduct("DELTA-SERVICE");
+        BigDecimal received = BigDecimal.valueOf(THREADS * OPERATIONS_PER_THREAD);
+        storeProductService.addToInventory(StoreTransferRequestDTO.builder()
+                .productId(productId)
+                .quantity(received)
+                .expirationDate(LocalDate.now().plusMonths(6))
+                .build());
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(random -> {
+            try {
+                storeProductService.transferFromInventoryToStore(StoreTransferRequestDTO.builder()
+                        .productId(productId)
+                        .quantity(BigDecimal.valueOf(random.nextInt(1, 4)))
+                        .build());
+            } catch (IllegalArgumentException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertSnapshotMatchesLedger(productId);
+        BigDecimal warehouseQty = warehouseQty(productId);
+        assertThat(warehouseQty.signum()).isGreaterThanOrEqualTo(0);
+        assertThat(warehouseQty.add(storeQty(productId))).isEqualByComparingTo(received);
+        assertThat(rejected.get()).isPositive();
+
+        // every unit came from the one batch, so its balances follow the snapshot
+        BigDecimal batchWarehouse = jdbcTemplate.queryForObject(
+                "SELECT SUM(remaining_qty) FROM inventory_batches WHERE product_id = ?", BigDecimal.class, productId);
+        BigDecimal batchStore = jdbcTemplate.queryForObject(
+                "SELECT SUM(store_remaining_qty) FROM inventory_batches WHERE product_id = ?", BigDecimal.class, productId);
+        assertThat(batchWarehouse).isEqualByComparingTo(warehouseQty);
+        assertThat(batchStore).isEqualByComparingTo(storeQty(productId));
+    }
+
+    private interface Operation {
+        void run(ThreadLocalRandom random);
+    }
+
+    private static void runConcurrently(Operation operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    operation.run(ThreadLocalRandom.current());
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long createProduct(String sku) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO products (sku, name, default_cost, default_price)
+                VALUES (?, ?, 1.00, 2.00)
+                RETURNING id
+                """, Long.class, sku, "Concurrency " + sku);
+    }
+
+    private void insertMovement(long productId, String locationType, BigDecimal qtyChange) {
+        jdbcTemplate.update("""
+                INSERT INTO inventory_movements (product_id, location_type, ref_type, qty_change)
+                VALUES (?, ?, 'ADJUSTMENT', ?)
+                """, productId, locationType, qtyChange);
+    }
+
+    private void assertSnapshotMatchesLedger(long productId) {
+        assertThat(storeQty(productId)).isEqualByComparingTo(ledger(productId, "STORE"));
+        assertThat(warehouseQty(productId)).isEqualByComparingTo(ledger(productId, "WAREHOUSE"));
+    }
+
+    private BigDecimal ledger(long productId, String locationType) {
+        return jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(qty_change), 0) FROM inventory_movements
+                WHERE product_id = ? AND location_type = ?
+                """, BigDecimal.class, productId, locationType);
+    }
+
+    private BigDecimal storeQty(long productId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT store_qty FROM stock_snapshot WHERE product_id = ?", BigDecimal.class, productId);
+    }
+
+    private BigDecimal warehouseQty(long productId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT warehouse_qty FROM stock_snapshot WHERE product_id = ?", BigDecimal.class, productId);
+    }
+}
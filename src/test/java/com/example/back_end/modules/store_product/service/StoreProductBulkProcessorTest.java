@@ -0,0 +1,155 @@
+package com.example.back_end.modules.store_product.service;
+
+import com.example.back_end.modules.catalog.product.entity.Product;
+import com.example.back_end.modules.catalog.product.repository.ProductRepository;
+import com.example.back_end.modules.stock.repository.InventoryBulkRepository;
+import com.example.back_end.modules.stock.repository.InventoryBulkRepository.BatchKey;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchAllocation;
+import com.example.back_end.modules.stock.repository.StockPostingRepository.BatchBalance;
+import com.example.back_end.modules.store_product.dto.BulkStockResponseDTO;
+import com.example.back_end.modules.store_product.dto.StoreTransferRequestDTO;
+import com.example.back_end.modules.store_product.entity.StockSnapshot;
+import com.example.back_end.modules.store_product.repository.StockSnapshotDeltaRepository;
+import com.example.back_end.modules.store_product.repository.StockSnapshotDeltaRepository.SnapshotDelta;
+import com.example.back_end.modules.store_product.repository.StockSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StoreProductBulkProcessorTest {
+
+    private static final LocalDate EXP = LocalDate.of(2026, 12, 31);
+
+    @Mock
+    ProductRepository productRepository;
+
+    @Mock
+    StockSnapshotRepository snapshotRepository;
+
+    @Mock
+    StockSnapshotDeltaRepository snapshotDeltaRepository;
+
+    @Mock
+    InventoryBulkRepository bulkRepository;
+
+    @InjectMocks
+    StoreProductBulkProcessor processor;
+
+    @Test
+    void receiveWritesValidLinesInOneBatchAndReportsInvalidOnes() {
+        when(productRepository.findAllById(any())).thenReturn(List.of(product(1L), product(2L)));
+        when(snapshotDeltaRepository.applyDeltas(anyList())).thenReturn(List.of(
+                snapshot(1L, "0", "15"), snapshot(2L, "0", "4")));
+        when(bulkRepository.insertMovements(anyList())).thenReturn(List.of(100L, 101L, 102L));
+        when(bulkRepository.findBatches(any())).thenReturn(Map.of(new BatchKey(1L, EXP), 10L));
+
+        BulkStockResponseDTO response = processor.receive(List.of(
+                line(1L, "5", EXP),
+                line(1L, "10", EXP),
+                line(99L, "1", null),
+                line(2L, "4", null)), false);
+
+        assertThat(response.getSucceeded()).isEqualTo(3);
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(response.getResults().get(2).getError()).isEqualTo("Product not found: 99");
+        assertThat(response.getResults().get(0).getBatchId()).isEqualTo(10L);
+        assertThat(response.getResults().get(3).getWarehouseQty()).isEqualByComparingTo("4");
+
+        // one snapshot statement with the chunk's quantities summed per product
+        verify(snapshotDeltaRepository).applyDeltas(List.of(
+                new SnapshotDelta(1L, BigDecimal.ZERO, bd("15")),
+                new SnapshotDelta(2L, BigDecimal.ZERO, bd("4"))));
+        verify(bulkRepository, times(1)).insertMovements(anyList());
+        verify(bulkRepository).insertReceiptLinks(List.of(
+                new BatchAllocation(100L, 10L, bd("5")),
+                new BatchAllocation(101L, 10L, bd("10"))));
+    }
+
+    @Test
+    void transferAcceptsLinesWhileWarehouseCoversThem() {
+        when(productRepository.findAllById(any())).thenReturn(List.of(product(1L)));
+        when(snapshotRepository.findAllById(any())).thenReturn(List.of(snapshot(1L, "0", "8")));
+        when(snapshotDeltaRepository.applyDeltas(anyList())).thenReturn(List.of(snapshot(1L, "8", "0")));
+        when(bulkRepository.insertMovements(anyList())).thenReturn(List.of(200L, 201L, 202L, 203L));
+        when(bulkRepository.lockWarehouseBalances(any())).thenReturn(List.of(
+                new BatchBalance(10L, 1L, bd("6")),
+                new BatchBalance(11L, 1L, bd("5"))));
+
+        BulkStockResponseDTO response = processor.transferToStore(List.of(
+                line(1L, "5", null),
+                line(1L, "4", null),
+                line(1L, "3", null)));
+
+        assertThat(response.getResults()).extracting(r -> r.isSuccess()).containsExactly(true, false, true);
+        assertThat(response.getResults().get(1).getError())
+                .isEqualTo("Not enough quantity in warehouse. Available: 3, requested: 4");
+
+        verify(snapshotDeltaRepository).applyDeltas(List.of(new SnapshotDelta(1L, bd("8"), bd("-8"))));
+        // warehouse-out movements are the even ones
+        verify(bulkRepository).insertTransferLinks(List.of(
+                new BatchAllocation(200L, 10L, bd("5")),
+                new BatchAllocation(202L, 10L, bd("1")),
+                new BatchAllocation(202L, 11L, bd("2"))));
+    }
+
+    @Test
+    void transferBeyondBatchBalancesLinksWhatBatchesCoverAndMovesTheRestUnlinked() {
+        when(productRepository.findAllById(any())).thenReturn(List.of(product(1L)));
+        when(snapshotRepository.findAllById(any())).thenReturn(List.of(snapshot(1L, "0", "10")));
+        when(snapshotDeltaRepository.applyDeltas(List.of(new SnapshotDelta(1L, bd("6"), bd("-6")))))
+                .thenReturn(List.of(snapshot(1L, "6", "4")));
+        when(bulkRepository.insertMovements(anyList())).thenReturn(List.of(200L, 201L, 202L, 203L));
+        when(bulkRepository.lockWarehouseBalances(any())).thenReturn(List.of(new BatchBalance(10L, 1L, bd("4"))));
+
+        BulkStockResponseDTO response = processor.transferToStore(List.of(
+                line(1L, "3", null),
+                line(1L, "3", null)));
+
+        // the snapshot covers both lines; the batch holds 4, so the second line links 1 and moves 2 unlinked
+        assertThat(response.getResults()).extracting(r -> r.isSuccess()).containsExactly(true, true);
+        assertThat(response.getResults().get(1).getStoreQty()).isEqualByComparingTo("6");
+        verify(snapshotDeltaRepository, times(1)).applyDeltas(anyList());
+        verify(bulkRepository).insertMovements(argThat(movements -> movements.size() == 4));
+        verify(bulkRepository).insertTransferLinks(List.of(
+                new BatchAllocation(200L, 10L, bd("3")),
+                new BatchAllocation(202L, 10L, bd("1"))));
+    }
+
+    private static StoreTransferRequestDTO line(Long productId, String qty, LocalDate expirationDate) {
+        return StoreTransferRequestDTO.builder()
+                .productId(productId)
+                .quantity(bd(qty))
+                .expirationDate(expirationDate)
+                .build();
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+
+    private static StockSnapshot snapshot(Long productId, String storeQty, String warehouseQty) {
+        return StockSnapshot.builder()
+                .productId(productId)
+                .storeQty(bd(storeQty))
+                .warehouseQty(bd(warehouseQty))
+                .build();
+    }
+
+    private static BigDecimal bd(String v) {
+        return new BigDecimal(v);
+    }
+}
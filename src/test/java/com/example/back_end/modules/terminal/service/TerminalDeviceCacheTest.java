@@ -0,0 +1,93 @@
+package com.example.back_end.modules.terminal.service;
+
+import com.example.back_end.modules.terminal.entity.TerminalDevice;
+import com.example.back_end.modules.terminal.repository.TerminalDeviceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class TerminalDeviceCacheTest {
+
+    private final TerminalDeviceRepository repository = mock(TerminalDeviceRepository.class);
+    private final AtomicLong clock = new AtomicLong();
+    private final TerminalDeviceCache cache = new TerminalDeviceCache(repository, Duration.ofSeconds(60), 10, clock::get);
+
+    private static TerminalDevice device(long id, long terminalId) {
+        return TerminalDevice.builder().id(id).terminalId(terminalId).tokenHash("hash-" + id).build();
+    }
+
+    @Test
+    void springCreatesTheComponentFromItsPublicConstructor() {
+        new ApplicationContextRunner()
+                .withInitializer(ctx -> ctx.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withBean(TerminalDeviceRepository.class, () -> repository)
+                .withUserConfiguration(TerminalDeviceCache.class)
+                .run(ctx -> assertThat(ctx).hasNotFailed().hasSingleBean(TerminalDeviceCache.class));
+    }
+
+    @Test
+    void findActive_readsRepositoryOncePerToken() {
+        when(repository.findByTokenHashAndRevokedAtIsNull("hash-1")).thenReturn(Optional.of(device(1, 7)));
+
+        assertThat(cache.findActive("hash-1")).contains(new TerminalDeviceCache.ActiveDevice(1L, 7L));
+        assertThat(cache.findActive("hash-1")).contains(new TerminalDeviceCache.ActiveDevice(1L, 7L));
+
+        verify(repository, times(1)).findByTokenHashAndRevokedAtIsNull("hash-1");
+    }
+
+    @Test
+    void findActive_cachesUnpairedBrowsersToo() {
+        when(repository.findByTokenHashAndRevokedAtIsNull("unknown")).thenReturn(Optional.empty());
+
+        assertThat(cache.findActive("unknown")).isEmpty();
+        assertThat(cache.findActive("unknown")).isEmpty();
+
+        verify(repository, times(1)).findByTokenHashAndRevokedAtIsNull("unknown");
+    }
+
+    @Test
+    void evict_reloadsOnNextLookup() {
+        when(repository.findByTokenHashAndRevokedAtIsNull("hash-1"))
+                .thenReturn(Optional.of(device(1, 7)))
+                .thenReturn(Optional.empty());
+
+        cache.findActive("hash-1");
+        cache.evict("hash-1");
+
+        assertThat(cache.findActive("hash-1")).isEmpty();
+    }
+
+    @Test
+    void evictDuringLookup_doesNotCacheTheStaleRow() {
+        when(repository.findByTokenHashAndRevokedAtIsNull("hash-1"))
+                .thenAnswer(inv -> {
+                    // the revoke commits (afterCommit evict) while this request is reading the row
+                    cache.evict("hash-1");
+                    return Optional.of(device(1, 7));
+                })
+                .thenReturn(Optional.empty());
+
+        assertThat(cache.findActive("hash-1")).contains(new TerminalDeviceCache.ActiveDevice(1L, 7L));
+        assertThat(cache.findActive("hash-1")).isEmpty();
+
+        verify(repository, times(2)).findByTokenHashAndRevokedAtIsNull("hash-1");
+    }
+
+    @Test
+    void findActive_reloadsAfterTtl() {
+        when(repository.findByTokenHashAndRevokedAtIsNull("hash-1")).thenReturn(Optional.of(device(1, 7)));
+
+        cache.findActive("hash-1");
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.findActive("hash-1");
+
+        verify(repository, times(2)).findByTokenHashAndRevokedAtIsNull("hash-1");
+    }
+}
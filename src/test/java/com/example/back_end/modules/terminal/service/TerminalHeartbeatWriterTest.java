@@ -0,0 +1,61 @@
+package com.example.back_end.modules.terminal.service;
+
+import com.example.back_end.modules.terminal.repository.TerminalHeartbeatRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TerminalHeartbeatWriterTest {
+
+    @Mock
+    TerminalHeartbeatRepository heartbeatRepository;
+
+    @InjectMocks
+    TerminalHeartbeatWriter writer;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesLatestHeartbeatPerDeviceInOneBatch() {
+        writer.recordHeartbeat(1L);
+        writer.recordHeartbeat(2L);
+        writer.recordHeartbeat(1L);
+
+        writer.flush();
+
+        ArgumentCaptor<Map<Long, LocalDateTime>> batch = ArgumentCaptor.forClass(Map.class);
+        verify(heartbeatRepository, times(1)).touchLastSeen(batch.capture());
+        assertThat(batch.getValue()).containsOnlyKeys(1L, 2L);
+    }
+
+    @Test
+    void flush_withoutHeartbeats_writesNothing() {
+        writer.flush();
+
+        verifyNoInteractions(heartbeatRepository);
+    }
+
+    @Test
+    void flush_failedWrite_isRetriedOnNextFlush() {
+        writer.recordHeartbeat(1L);
+        when(heartbeatRepository.touchLastSeen(anyMap()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+
+        writer.flush();
+        writer.flush();
+        writer.flush();
+
+        verify(heartbeatRepository, times(2)).touchLastSeen(anyMap());
+    }
+}
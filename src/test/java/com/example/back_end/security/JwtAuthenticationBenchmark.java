@@ -0,0 +1,80 @@
+package com.example.back_end.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auth cost of one request carrying a bearer token:
+ * - legacy: what JwtAuthenticationFilter did before (extractUsername, extractRole, isTokenValid =
+ *   4 full parses, each building a new parser and re-deriving the HMAC key)
+ * - singleParse: one verification with the parser built once (verified cache missed every time)
+ * - cached: the same token again, answered from the verified-token cache
+ *
+ * Not part of the surefire run; start it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.back_end.security.JwtAuthenticationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService cachedService;
+    private JwtService uncachedService;
+    private String token;
+
+    @Setup
+    public void setup() {
+        cachedService = new JwtService(SECRET, 3_600_000L, 10_000);
+        // a cache of 0 entries drops every token right after it is stored
+        uncachedService = new JwtService(SECRET, 3_600_000L, 0);
+        token = cachedService.generateToken("cashier@shop.test", "CASHIER", 42L);
+        cachedService.authenticate(token);
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        String email = legacyClaims(token).getSubject();
+        String role = legacyClaims(token).get("role", String.class);
+        boolean valid = legacyClaims(token).getSubject().equals(email)
+                && !legacyClaims(token).getExpiration().before(new Date());
+        return valid && role != null;
+    }
+
+    @Benchmark
+    public JwtPrincipal singleParse() {
+        return uncachedService.authenticate(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal cached() {
+        return cachedService.authenticate(token);
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.back_end.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private final JwtService jwtService = new JwtService(SECRET, 60_000L, 100);
+
+    @Test
+    void authenticate_readsAllClaimsFromOneToken() {
+        String token = jwtService.generateToken("cashier@shop.test", "CASHIER", 42L);
+
+        JwtPrincipal principal = jwtService.authenticate(token);
+
+        assertThat(principal.email()).isEqualTo("cashier@shop.test");
+        assertThat(principal.getName()).isEqualTo("cashier@shop.test");
+        assertThat(principal.role()).isEqualTo("CASHIER");
+        assertThat(principal.userId()).isEqualTo(42L);
+        assertThat(principal.expiresAt()).isNotNull();
+    }
+
+    @Test
+    void authenticate_sameToken_servedFromVerifiedCache() {
+        String token = jwtService.generateToken("ceo@shop.test", "CEO", 1, "A", "B");
+
+        JwtPrincipal first = jwtService.authenticate(token);
+
+        assertThat(jwtService.authenticate(token)).isSameAs(first);
+        assertThat(jwtService.extractUserId(token)).isEqualTo(1L);
+        assertThat(jwtService.isTokenValid(token, "ceo@shop.test")).isTrue();
+        assertThat(jwtService.isTokenValid(token, "other@shop.test")).isFalse();
+    }
+
+    @Test
+    void authenticate_tokenSignedWithOtherKey_isRejected() {
+        JwtService other = new JwtService(SECRET.replace('4', '5'), 60_000L, 100);
+        String forged = other.generateToken("cashier@shop.test", "CEO", 42L);
+
+        assertThatThrownBy(() -> jwtService.authenticate(forged)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void authenticate_expiredToken_isRejected() {
+        JwtService shortLived = new JwtService(SECRET, -1_000L, 100);
+        String token = shortLived.generateToken("cashier@shop.test", "CASHIER", 42L);
+
+        assertThatThrownBy(() -> shortLived.authenticate(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(shortLived.isTokenValid(token, "cashier@shop.test")).isFalse();
+    }
+}